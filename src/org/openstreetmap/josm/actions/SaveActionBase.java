@@ -139,6 +139,7 @@ public abstract class SaveActionBase extends DiskAccessAction {
         try {
             boolean exported = false;
             boolean canceled = false;
+            boolean exportOnly = false;
             for (FileExporter exporter : ExtensionFileFilter.getExporters()) {
                 if (exporter.acceptFile(file, layer)) {
                     if (quiet) {
@@ -148,6 +149,7 @@ public abstract class SaveActionBase extends DiskAccessAction {
                     }
                     exported = true;
                     canceled = exporter.isCanceled();
+                    exportOnly = exporter.isExportOnly();
                     break;
                 }
             }
@@ -159,12 +161,14 @@ public abstract class SaveActionBase extends DiskAccessAction {
             } else if (canceled) {
                 return false;
             }
-            if (!layer.isRenamed()) {
-                layer.setName(file.getName());
-            }
-            layer.setAssociatedFile(file);
-            if (layer instanceof AbstractModifiableLayer) {
-                ((AbstractModifiableLayer) layer).onPostSaveToFile();
+            if (!exportOnly) {
+                if (!layer.isRenamed()) {
+                    layer.setName(file.getName());
+                }
+                layer.setAssociatedFile(file);
+                if (layer instanceof AbstractModifiableLayer) {
+                    ((AbstractModifiableLayer) layer).onPostSaveToFile();
+                }
             }
         } catch (IOException | InvalidPathException e) {
             showAndLogException(e);
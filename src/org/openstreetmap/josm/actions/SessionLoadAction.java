@@ -11,6 +11,7 @@ import java.io.InputStream;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.List;
@@ -19,6 +20,7 @@ import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
 
+import org.openstreetmap.josm.data.preferences.BooleanProperty;
 import org.openstreetmap.josm.data.projection.ProjectionRegistry;
 import org.openstreetmap.josm.gui.HelpAwareOptionPane;
 import org.openstreetmap.josm.gui.MainApplication;
@@ -28,6 +30,7 @@ import org.openstreetmap.josm.gui.layer.Layer;
 import org.openstreetmap.josm.gui.preferences.projection.ProjectionPreference;
 import org.openstreetmap.josm.gui.progress.ProgressMonitor;
 import org.openstreetmap.josm.gui.util.FileFilterAllFiles;
+import org.openstreetmap.josm.gui.util.GuiHelper;
 import org.openstreetmap.josm.gui.widgets.AbstractFileChooser;
 import org.openstreetmap.josm.io.IllegalDataException;
 import org.openstreetmap.josm.io.session.SessionImporter;
@@ -47,6 +50,8 @@ import org.openstreetmap.josm.tools.bugreport.ReportedException;
  */
 public class SessionLoadAction extends DiskAccessAction {
 
+    private static final BooleanProperty PARALLEL_LOAD_PROPERTY = new BooleanProperty("session.load.parallel", false);
+
     /**
      * Constructs a new {@code SessionLoadAction}.
      */
@@ -82,6 +87,11 @@ public class SessionLoadAction extends DiskAccessAction {
         private List<Runnable> postLoadTasks;
         private SessionViewportData viewport;
         private SessionProjectionChoiceData projectionChoice;
+        /** The layers which have been added to the map while the session was still loading */
+        private final List<Layer> loadedLayers = new ArrayList<>();
+        private boolean mapPrepared;
+        private boolean noMap;
+        private boolean zoomed;
 
         /**
          * Constructs a new {@code Loader} for local session file.
@@ -122,22 +132,31 @@ public class SessionLoadAction extends DiskAccessAction {
         @Override
         protected void finish() {
             SwingUtilities.invokeLater(() -> {
-                if (canceled)
+                if (canceled) {
+                    removeLoadedLayers();
                     return;
-                if (projectionChoice != null) {
-                    ProjectionPreference.setProjection(
-                            projectionChoice.getProjectionChoiceId(),
-                            projectionChoice.getSubPreferences(),
-                            false);
                 }
+                prepareMap();
                 addLayers();
                 runPostLoadTasks();
             });
         }
 
+        private void prepareMap() {
+            if (mapPrepared)
+                return;
+            mapPrepared = true;
+            noMap = MainApplication.getMap() == null;
+            if (projectionChoice != null) {
+                ProjectionPreference.setProjection(
+                        projectionChoice.getProjectionChoiceId(),
+                        projectionChoice.getSubPreferences(),
+                        false);
+            }
+        }
+
         private void addLayers() {
             if (!Utils.isEmpty(layers)) {
-                boolean noMap = MainApplication.getMap() == null;
                 for (Layer l : layers) {
                     if (canceled)
                         return;
@@ -146,10 +165,46 @@ public class SessionLoadAction extends DiskAccessAction {
                 if (active != null) {
                     MainApplication.getLayerManager().setActiveLayer(active);
                 }
-                if (noMap && viewport != null) {
-                    MainApplication.getMap().mapView.scheduleZoomTo(viewport.getEastNorthViewport(ProjectionRegistry.getProjection()));
+                zoomToViewport();
+            }
+        }
+
+        private void zoomToViewport() {
+            if (noMap && viewport != null && !zoomed && MainApplication.getMap() != null) {
+                zoomed = true;
+                MainApplication.getMap().mapView.scheduleZoomTo(viewport.getEastNorthViewport(ProjectionRegistry.getProjection()));
+            }
+        }
+
+        /**
+         * Adds a layer to the map while the session is still loading.
+         * @param reader the session reader
+         * @param l the loaded layer
+         */
+        private void addLoadedLayer(SessionReader reader, Layer l) {
+            GuiHelper.runInEDT(() -> {
+                if (canceled)
+                    return;
+                if (!mapPrepared) {
+                    projectionChoice = reader.getProjectionChoice();
+                    viewport = reader.getViewport();
+                    prepareMap();
+                }
+                boolean existing = MainApplication.getLayerManager().containsLayer(l);
+                if (addLayer(l) && !existing) {
+                    loadedLayers.add(l);
+                    zoomToViewport();
+                }
+            });
+        }
+
+        private void removeLoadedLayers() {
+            for (Layer l : loadedLayers) {
+                if (MainApplication.getLayerManager().containsLayer(l)) {
+                    MainApplication.getLayerManager().removeLayer(l);
                 }
             }
+            loadedLayers.clear();
         }
 
         /**
@@ -193,6 +248,10 @@ public class SessionLoadAction extends DiskAccessAction {
             try {
                 ProgressMonitor monitor = getProgressMonitor();
                 SessionReader reader = new SessionReader();
+                if (Boolean.TRUE.equals(PARALLEL_LOAD_PROPERTY.get())) {
+                    reader.setParallel(true);
+                    reader.setLayerConsumer(l -> addLoadedLayer(reader, l));
+                }
                 boolean tempFile = false;
                 try {
                     if (file == null) {
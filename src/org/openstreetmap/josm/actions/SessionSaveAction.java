@@ -84,6 +84,7 @@ public class SessionSaveAction extends DiskAccessAction implements MapFrameListe
 
     private static final BooleanProperty SAVE_LOCAL_FILES_PROPERTY = new BooleanProperty("session.savelocal", true);
     private static final BooleanProperty SAVE_PLUGIN_INFORMATION_PROPERTY = new BooleanProperty("session.saveplugins", false);
+    private static final BooleanProperty PARALLEL_SAVE_PROPERTY = new BooleanProperty("session.save.parallel", false);
     private static final String TOOLTIP_DEFAULT = tr("Save the current session.");
     private static final String SAVE_SESSION = marktr("Save Session");
 
@@ -263,6 +264,9 @@ public class SessionSaveAction extends DiskAccessAction implements MapFrameListe
         if (isZipSessionFile) {
             flags.add(SessionWriter.SessionWriterFlags.IS_ZIP);
         }
+        if (Boolean.TRUE.equals(PARALLEL_SAVE_PROPERTY.get())) {
+            flags.add(SessionWriter.SessionWriterFlags.PARALLEL);
+        }
         SessionWriter sw = new SessionWriter(layersOut, active, exporters, dependencies, flags.toArray(new SessionWriter.SessionWriterFlags[0]));
         try {
             Notification savingNotification = showSavingNotification(sessionFile.getName());
@@ -8,6 +8,7 @@ import java.awt.GridBagLayout;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.swing.JPanel;
@@ -15,6 +16,7 @@ import javax.swing.JScrollPane;
 
 import org.openstreetmap.josm.data.APIDataSet;
 import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.validation.IncrementalValidator;
 import org.openstreetmap.josm.data.validation.OsmValidator;
 import org.openstreetmap.josm.data.validation.TestError;
 import org.openstreetmap.josm.data.validation.ValidationTask;
@@ -48,7 +50,7 @@ public class ValidateUploadHook implements UploadHook {
         toCheck.addAll(apiDataSet.getPrimitivesToAdd());
         toCheck.addAll(apiDataSet.getPrimitivesToUpdate());
         OsmValidator.initializeTests();
-        new ValidationTask(errors -> {
+        final ValidationTask task = new ValidationTask(errors -> {
             if (errors.stream().allMatch(TestError::isIgnored)) {
                 returnCode.set(true);
             } else {
@@ -57,7 +59,11 @@ public class ValidateUploadHook implements UploadHook {
                 // of the progress monitor.
                 GuiHelper.runInEDTAndWait(() -> returnCode.set(displayErrorScreen(errors)));
             }
-        }, null, OsmValidator.getEnabledTests(true), toCheck, null, true).run();
+        }, null, OsmValidator.getEnabledTests(true), toCheck, null, true);
+        // the errors of the primitives may already be known if they were validated while editing
+        toCheck.stream().map(OsmPrimitive::getDataSet).filter(Objects::nonNull).findFirst()
+                .ifPresent(dataSet -> task.setIncrementalValidator(IncrementalValidator.get(dataSet)));
+        task.run();
 
         return returnCode.get();
     }
@@ -57,6 +57,12 @@ public abstract class AbstractNodesCommand<C extends Collection<Node>> extends C
         return true;
     }
 
+    @Override
+    public long getUndoMemoryFootprint() {
+        // the nodes are kept to redo the command
+        return super.getUndoMemoryFootprint() + PrimitiveDelta.estimateCollectionFootprint(cmdNodes);
+    }
+
     @Override
     public void fillModifiedData(Collection<OsmPrimitive> modified, Collection<OsmPrimitive> deleted, Collection<OsmPrimitive> added) {
         modified.add(way);
@@ -142,6 +142,21 @@ public class AddPrimitivesCommand extends Command {
         ds.removePrimitives(toRemove);
     }
 
+    @Override
+    public long getUndoMemoryFootprint() {
+        long size = super.getUndoMemoryFootprint() + PrimitiveDelta.estimateMemoryFootprint(data);
+        if (preExistingData != null) {
+            size += PrimitiveDelta.estimateMemoryFootprint(preExistingData);
+        }
+        if (toSelect != null && toSelect != data) {
+            size += PrimitiveDelta.estimateCollectionFootprint(toSelect);
+        }
+        if (createdPrimitives != null) {
+            size += PrimitiveDelta.estimateCollectionFootprint(createdPrimitives);
+        }
+        return size;
+    }
+
     @Override
     public String getDescriptionText() {
         int size = data != null ? data.size() : createdPrimitives.size();
@@ -69,6 +69,12 @@ public class ChangeCommand extends Command {
         return true;
     }
 
+    @Override
+    public long getUndoMemoryFootprint() {
+        // the new primitive is kept to redo the command
+        return super.getUndoMemoryFootprint() + PrimitiveDelta.estimateMemoryFootprint(newOsm);
+    }
+
     @Override
     public void fillModifiedData(Collection<OsmPrimitive> modified, Collection<OsmPrimitive> deleted, Collection<OsmPrimitive> added) {
         modified.add(osm);
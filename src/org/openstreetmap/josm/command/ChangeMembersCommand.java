@@ -60,6 +60,12 @@ public class ChangeMembersCommand extends Command {
         return tr("Change members of {0}", relation.getDisplayName(DefaultNameFormatter.getInstance()));
     }
 
+    @Override
+    public long getUndoMemoryFootprint() {
+        // the members are kept to redo the command
+        return super.getUndoMemoryFootprint() + PrimitiveDelta.estimateMembersFootprint(cmdMembers);
+    }
+
     @Override
     public void fillModifiedData(Collection<OsmPrimitive> modified, Collection<OsmPrimitive> deleted,
             Collection<OsmPrimitive> added) {
@@ -40,21 +40,21 @@ public abstract class Command implements PseudoCommand {
     public static final int IS_INCOMPLETE = 2;
 
     private static final class CloneVisitor implements OsmPrimitiveVisitor {
-        final Map<OsmPrimitive, PrimitiveData> orig = new LinkedHashMap<>();
+        final Map<OsmPrimitive, PrimitiveDelta> orig = new LinkedHashMap<>();
 
         @Override
         public void visit(Node n) {
-            orig.put(n, n.save());
+            orig.put(n, new PrimitiveDelta(n.save()));
         }
 
         @Override
         public void visit(Way w) {
-            orig.put(w, w.save());
+            orig.put(w, new PrimitiveDelta(w.save()));
         }
 
         @Override
         public void visit(Relation e) {
-            orig.put(e, e.save());
+            orig.put(e, new PrimitiveDelta(e.save()));
         }
     }
 
@@ -122,7 +122,7 @@ public abstract class Command implements PseudoCommand {
     }
 
     /** the map of OsmPrimitives in the original state to OsmPrimitives in cloned state */
-    private Map<OsmPrimitive, PrimitiveData> cloneMap = Collections.emptyMap();
+    private Map<OsmPrimitive, PrimitiveDelta> cloneMap = Collections.emptyMap();
 
     /** the dataset which this command is applied to */
     private final DataSet data;
@@ -165,12 +165,41 @@ public abstract class Command implements PseudoCommand {
      * This implementation undoes all objects stored by a former call to executeCommand.
      */
     public void undoCommand() {
-        for (Entry<OsmPrimitive, PrimitiveData> e : cloneMap.entrySet()) {
+        // rebuild all states first, so that nothing is undone if one of them cannot be restored
+        Map<OsmPrimitive, PrimitiveData> states = new LinkedHashMap<>(cloneMap.size());
+        for (Entry<OsmPrimitive, PrimitiveDelta> e : cloneMap.entrySet()) {
             OsmPrimitive primitive = e.getKey();
             if (primitive.getDataSet() != null) {
-                e.getKey().load(e.getValue());
+                states.put(primitive, e.getValue().getData(primitive));
             }
         }
+        for (Entry<OsmPrimitive, PrimitiveData> e : states.entrySet()) {
+            e.getKey().load(e.getValue());
+        }
+    }
+
+    /**
+     * Reduces the memory used to undo this command, by only keeping the differences between the original
+     * and the current state of the objects. Must only be called right after the command has been executed.
+     * @since xxx
+     */
+    public void compactUndoState() {
+        for (Entry<OsmPrimitive, PrimitiveDelta> e : cloneMap.entrySet()) {
+            e.getValue().compact(e.getKey());
+        }
+    }
+
+    /**
+     * Returns an estimate of the memory used to undo this command.
+     * @return an estimate of the memory used to undo this command, in bytes
+     * @since xxx
+     */
+    public long getUndoMemoryFootprint() {
+        long size = 0;
+        for (PrimitiveDelta delta : cloneMap.values()) {
+            size += delta.getMemoryFootprint();
+        }
+        return size;
     }
 
     /**
@@ -180,7 +209,8 @@ public abstract class Command implements PseudoCommand {
      * @return The original version of the requested object, if any
      */
     public PrimitiveData getOrig(OsmPrimitive osm) {
-        return cloneMap.get(osm);
+        PrimitiveDelta orig = cloneMap.get(osm);
+        return orig != null ? orig.getData(osm) : null;
     }
 
     /**
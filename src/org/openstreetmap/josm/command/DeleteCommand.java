@@ -235,6 +235,11 @@ public class DeleteCommand extends Command {
         });
     }
 
+    @Override
+    public long getUndoMemoryFootprint() {
+        return super.getUndoMemoryFootprint() + PrimitiveDelta.estimateMemoryFootprint(clonedPrimitives.values());
+    }
+
     @Override
     public void fillModifiedData(Collection<OsmPrimitive> modified, Collection<OsmPrimitive> deleted, Collection<OsmPrimitive> added) {
         // Do nothing
@@ -278,6 +278,12 @@ public class MoveCommand extends Command {
         }
     }
 
+    @Override
+    public long getUndoMemoryFootprint() {
+        return super.getUndoMemoryFootprint() + PrimitiveDelta.estimateCollectionFootprint(nodes)
+                + PrimitiveDelta.estimateNodeStatesFootprint(oldState);
+    }
+
     @Override
     public void fillModifiedData(Collection<OsmPrimitive> modified, Collection<OsmPrimitive> deleted, Collection<OsmPrimitive> added) {
         modified.addAll(nodes);
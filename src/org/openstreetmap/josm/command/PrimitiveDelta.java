@@ -0,0 +1,395 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.command;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.stream.Collectors;
+
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.IPrimitive;
+import org.openstreetmap.josm.data.osm.IRelation;
+import org.openstreetmap.josm.data.osm.IWay;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.NodeData;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.PrimitiveData;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.RelationData;
+import org.openstreetmap.josm.data.osm.RelationMember;
+import org.openstreetmap.josm.data.osm.RelationMemberData;
+import org.openstreetmap.josm.data.osm.TagMap;
+import org.openstreetmap.josm.data.osm.User;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.data.osm.WayData;
+
+/**
+ * The state of a primitive before a command has been executed, used to undo the command.
+ * <p>
+ * It is a full copy of the primitive until {@link #compact(OsmPrimitive)} is called right after the command has been executed.
+ * It then only keeps the differences to the current state of the primitive: the changed tags, the changed part of the node
+ * or member list, the coordinates and the attributes. The full state is rebuilt from the current state of the primitive,
+ * which is the same as right after the execution when the command is undone. If the node or member list has been changed
+ * in between, the changed part cannot be put back into it, and {@link #getData(OsmPrimitive)} fails.
+ * @since xxx
+ */
+final class PrimitiveDelta {
+
+    // rough sizes on a 64-bit JVM with compressed references
+    private static final int OBJECT = 16;
+    private static final int REFERENCE = 4;
+    private static final int ARRAY = 16;
+
+    private static final int DELETED = 1;
+    private static final int MODIFIED = 2;
+    private static final int VISIBLE = 4;
+    private static final int INCOMPLETE = 8;
+
+    /** The full copy of the primitive, {@code null} once compacted */
+    private PrimitiveData data;
+
+    private int version;
+    private int changesetId;
+    private int timestamp;
+    private User user;
+    /** The deleted, modified, visible and incomplete flags, packed into one byte to save memory */
+    private byte flags;
+    private double lat = Double.NaN;
+    private double lon = Double.NaN;
+    /** All old tags, key and value alternating, if they cannot be restored from the changes */
+    private String[] tags;
+    /** The changed tags, key and old value alternating, the value is {@code null} if the tag has been added */
+    private String[] tagChanges;
+    /** The number of unchanged nodes or members at the beginning of the list */
+    private int prefix;
+    /** The number of unchanged nodes or members at the end of the list */
+    private int suffix;
+    /** The number of nodes or members which have replaced the changed part of the list */
+    private int newCount;
+    /** The hash of the unchanged nodes or members at the beginning and the end of the list */
+    private int unchangedHash;
+    /** The replaced node ids followed by the {@link #newCount} new ones, {@code null} if the nodes are unchanged */
+    private long[] nodeIds;
+    /** The replaced members followed by the {@link #newCount} new ones, {@code null} if the members are unchanged */
+    private RelationMemberData[] members;
+
+    /**
+     * Constructs a new {@code PrimitiveDelta}.
+     * @param data the full copy of the primitive
+     */
+    PrimitiveDelta(PrimitiveData data) {
+        this.data = Objects.requireNonNull(data);
+    }
+
+    /**
+     * Replaces the full copy by the differences to the current state of the primitive.
+     * @param primitive the primitive, in the state right after the command has been executed
+     */
+    void compact(OsmPrimitive primitive) {
+        if (data == null)
+            return;
+        version = data.getVersion();
+        changesetId = data.getChangesetId();
+        timestamp = data.getRawTimestamp();
+        user = data.getUser();
+        flags = (byte) ((data.isDeleted() ? DELETED : 0) | (data.isModified() ? MODIFIED : 0)
+                | (data.isVisible() ? VISIBLE : 0) | (data.isIncomplete() ? INCOMPLETE : 0));
+        compactTags(data.getKeys(), primitive.getKeys());
+        if (data instanceof NodeData && ((NodeData) data).isLatLonKnown()) {
+            lat = ((NodeData) data).lat();
+            lon = ((NodeData) data).lon();
+        } else if (data instanceof WayData && primitive instanceof Way) {
+            compactNodes(((WayData) data).getNodeIds(), ((Way) primitive).getNodes());
+        } else if (data instanceof RelationData && primitive instanceof Relation) {
+            compactMembers(((RelationData) data).getMembers(), ((Relation) primitive).getMembers());
+        }
+        data = null;
+    }
+
+    private void compactTags(TagMap oldTags, TagMap newTags) {
+        String[] oldArray = toArray(oldTags);
+        if (Arrays.equals(oldArray, toArray(newTags)))
+            return;
+        if (newTags.keySet().containsAll(oldTags.keySet())) {
+            List<String> changes = new ArrayList<>();
+            for (Map.Entry<String, String> tag : newTags.entrySet()) {
+                String oldValue = oldTags.get(tag.getKey());
+                if (!tag.getValue().equals(oldValue)) {
+                    changes.add(tag.getKey());
+                    changes.add(oldValue);
+                }
+            }
+            tagChanges = changes.toArray(new String[0]);
+            // the changes only restore the tags if their order has been kept
+            if (Arrays.equals(oldArray, toArray(applyTagChanges(newTags))))
+                return;
+            tagChanges = null;
+        }
+        tags = oldArray;
+    }
+
+    private static String[] toArray(TagMap keys) {
+        String[] array = new String[2 * keys.size()];
+        int i = 0;
+        for (Map.Entry<String, String> tag : keys.entrySet()) {
+            array[i++] = tag.getKey();
+            array[i++] = tag.getValue();
+        }
+        return array;
+    }
+
+    private TagMap applyTagChanges(TagMap keys) {
+        for (int i = 0; i < tagChanges.length; i += 2) {
+            if (tagChanges[i + 1] == null) {
+                keys.remove(tagChanges[i]);
+            } else {
+                keys.put(tagChanges[i], tagChanges[i + 1]);
+            }
+        }
+        return keys;
+    }
+
+    private void compactNodes(List<Long> oldIds, List<Node> newNodes) {
+        int oldSize = oldIds.size();
+        int newSize = newNodes.size();
+        int max = Math.min(oldSize, newSize);
+        while (prefix < max && oldIds.get(prefix) == newNodes.get(prefix).getUniqueId()) {
+            prefix++;
+        }
+        if (prefix == oldSize && oldSize == newSize) {
+            prefix = 0;
+            return;
+        }
+        while (suffix < max - prefix && oldIds.get(oldSize - 1 - suffix) == newNodes.get(newSize - 1 - suffix).getUniqueId()) {
+            suffix++;
+        }
+        int oldCount = oldSize - prefix - suffix;
+        newCount = newSize - prefix - suffix;
+        nodeIds = new long[oldCount + newCount];
+        for (int i = 0; i < oldCount; i++) {
+            nodeIds[i] = oldIds.get(prefix + i);
+        }
+        for (int i = 0; i < newCount; i++) {
+            nodeIds[oldCount + i] = newNodes.get(prefix + i).getUniqueId();
+        }
+        unchangedHash = hashUnchanged(newNodes.stream().map(Node::getUniqueId).collect(Collectors.toList()));
+    }
+
+    private void compactMembers(List<RelationMemberData> oldMembers, List<RelationMember> newMembers) {
+        int oldSize = oldMembers.size();
+        int newSize = newMembers.size();
+        int max = Math.min(oldSize, newSize);
+        while (prefix < max && isSameMember(oldMembers.get(prefix), newMembers.get(prefix))) {
+            prefix++;
+        }
+        if (prefix == oldSize && oldSize == newSize) {
+            prefix = 0;
+            return;
+        }
+        while (suffix < max - prefix && isSameMember(oldMembers.get(oldSize - 1 - suffix), newMembers.get(newSize - 1 - suffix))) {
+            suffix++;
+        }
+        newCount = newSize - prefix - suffix;
+        List<RelationMemberData> newData = newMembers.stream()
+                .map(m -> new RelationMemberData(m.getRole(), m.getMember())).collect(Collectors.toList());
+        List<RelationMemberData> changed = new ArrayList<>(oldMembers.subList(prefix, oldSize - suffix));
+        changed.addAll(newData.subList(prefix, newSize - suffix));
+        members = changed.toArray(new RelationMemberData[0]);
+        unchangedHash = hashUnchanged(newData);
+    }
+
+    private int hashUnchanged(List<?> list) {
+        int hash = list.size();
+        for (int i = 0; i < prefix; i++) {
+            hash = 31 * hash + list.get(i).hashCode();
+        }
+        for (int i = list.size() - suffix; i < list.size(); i++) {
+            hash = 31 * hash + list.get(i).hashCode();
+        }
+        return hash;
+    }
+
+    /**
+     * Checks that the changed part of the node or member list can be put back into the current list,
+     * which is only the case if the list has not been changed since the command has been executed.
+     * The changed part is compared exactly, the unchanged parts at the beginning and the end by their hash.
+     * @param primitive the primitive
+     * @param list the current list
+     * @param newPart the changed part of the list, right after the command has been executed
+     * @throws IllegalStateException if the list has been changed since the command has been executed
+     */
+    private void checkListUnchanged(OsmPrimitive primitive, List<?> list, List<?> newPart) {
+        if (list.size() != prefix + newPart.size() + suffix || !list.subList(prefix, prefix + newPart.size()).equals(newPart)
+                || hashUnchanged(list) != unchangedHash) {
+            throw new IllegalStateException(MessageFormat.format(
+                    "Cannot undo the changes of {0}, its {1} have been changed since the command has been executed",
+                    primitive.getPrimitiveId(), nodeIds != null ? "nodes" : "members"));
+        }
+    }
+
+    private static boolean isSameMember(RelationMemberData oldMember, RelationMember newMember) {
+        return oldMember.getMemberId() == newMember.getUniqueId()
+                && oldMember.getMemberType() == newMember.getType()
+                && oldMember.getRole().equals(newMember.getRole());
+    }
+
+    /**
+     * Returns the full state of the primitive before the command has been executed.
+     * @param primitive the primitive, in the state right after the command has been executed
+     * @return the full state of the primitive before the command has been executed
+     * @throws IllegalStateException if the node or member list has been changed since the command has been executed
+     */
+    PrimitiveData getData(OsmPrimitive primitive) {
+        if (data != null)
+            return data;
+        PrimitiveData result = primitive.save();
+        result.setVersion(version);
+        result.setChangesetId(changesetId);
+        result.setRawTimestamp(timestamp);
+        result.setUser(user);
+        result.setDeleted((flags & DELETED) != 0);
+        result.setModified((flags & MODIFIED) != 0);
+        result.setVisible((flags & VISIBLE) != 0);
+        result.setIncomplete((flags & INCOMPLETE) != 0);
+        if (tags != null) {
+            result.setKeys(new TagMap(tags));
+        } else if (tagChanges != null) {
+            result.setKeys(applyTagChanges(result.getKeys()));
+        }
+        if (result instanceof NodeData) {
+            ((NodeData) result).setCoor(Double.isNaN(lat) ? null : new LatLon(lat, lon));
+        } else if (result instanceof WayData && nodeIds != null) {
+            List<Long> ids = ((WayData) result).getNodeIds();
+            int oldCount = nodeIds.length - newCount;
+            checkListUnchanged(primitive, ids, Arrays.stream(nodeIds, oldCount, nodeIds.length).boxed().collect(Collectors.toList()));
+            List<Long> oldIds = new ArrayList<>(prefix + oldCount + suffix);
+            oldIds.addAll(ids.subList(0, prefix));
+            for (int i = 0; i < oldCount; i++) {
+                oldIds.add(nodeIds[i]);
+            }
+            oldIds.addAll(ids.subList(ids.size() - suffix, ids.size()));
+            ((WayData) result).setNodeIds(oldIds);
+        } else if (result instanceof RelationData && members != null) {
+            List<RelationMemberData> currentMembers = ((RelationData) result).getMembers();
+            int oldCount = members.length - newCount;
+            checkListUnchanged(primitive, currentMembers, Arrays.asList(members).subList(oldCount, members.length));
+            List<RelationMemberData> oldMembers = new ArrayList<>(prefix + oldCount + suffix);
+            oldMembers.addAll(currentMembers.subList(0, prefix));
+            oldMembers.addAll(Arrays.asList(members).subList(0, oldCount));
+            oldMembers.addAll(currentMembers.subList(currentMembers.size() - suffix, currentMembers.size()));
+            ((RelationData) result).setMembers(oldMembers);
+        }
+        return result;
+    }
+
+    /**
+     * Returns an estimate of the memory used by this state.
+     * @return an estimate of the memory used by this state, in bytes
+     */
+    long getMemoryFootprint() {
+        if (data != null)
+            return estimateMemoryFootprint(data);
+        long size = OBJECT + 4 * REFERENCE + 7 * Integer.BYTES + Byte.BYTES + 2 * Double.BYTES;
+        if (tags != null) {
+            size += ARRAY + (long) tags.length * REFERENCE;
+        }
+        if (tagChanges != null) {
+            size += ARRAY + (long) tagChanges.length * REFERENCE;
+        }
+        if (nodeIds != null) {
+            size += ARRAY + (long) nodeIds.length * Long.BYTES;
+        }
+        if (members != null) {
+            size += ARRAY + (long) members.length * (REFERENCE + OBJECT + 2 * REFERENCE + Long.BYTES);
+        }
+        return size;
+    }
+
+    /**
+     * Returns an estimate of the memory used by a full copy of a primitive.
+     * @param primitive the primitive
+     * @return an estimate of the memory used by a full copy of the primitive, in bytes
+     */
+    static long estimateMemoryFootprint(IPrimitive primitive) {
+        long size = OBJECT + 4 * REFERENCE + 6 * Integer.BYTES + Long.BYTES + ARRAY + 2L * primitive.getNumKeys() * REFERENCE;
+        if (primitive instanceof IWay) {
+            // list of boxed node ids
+            size += OBJECT + ARRAY + ((IWay<?>) primitive).getNodesCount() * (long) (REFERENCE + OBJECT + Long.BYTES);
+        } else if (primitive instanceof IRelation) {
+            size += OBJECT + ARRAY + ((IRelation<?>) primitive).getMembersCount() * (long) (REFERENCE + OBJECT + 2 * REFERENCE + Long.BYTES);
+        } else {
+            size += 2 * Double.BYTES;
+        }
+        return size;
+    }
+
+    /**
+     * Returns an estimate of the memory used by full copies of primitives, and the collection holding them.
+     * @param primitives the primitives
+     * @return an estimate of the memory used by full copies of the primitives, in bytes
+     */
+    static long estimateMemoryFootprint(Collection<? extends IPrimitive> primitives) {
+        long size = estimateCollectionFootprint(primitives);
+        for (IPrimitive primitive : primitives) {
+            size += estimateMemoryFootprint(primitive);
+        }
+        return size;
+    }
+
+    /**
+     * Returns an estimate of the memory used by a collection, without the memory used by its elements.
+     * @param collection the collection, or a view of the values of a map
+     * @return an estimate of the memory used by the collection, in bytes
+     */
+    static long estimateCollectionFootprint(Collection<?> collection) {
+        if (collection instanceof RandomAccess)
+            return OBJECT + ARRAY + (long) collection.size() * REFERENCE;
+        // an entry per element, as in hash maps and linked lists
+        return OBJECT + ARRAY + (long) collection.size() * (OBJECT + 3 * REFERENCE + Integer.BYTES);
+    }
+
+    /**
+     * Returns an estimate of the memory used by relation members, and the list holding them.
+     * @param members the members
+     * @return an estimate of the memory used by the members, in bytes
+     */
+    static long estimateMembersFootprint(List<RelationMember> members) {
+        return estimateCollectionFootprint(members) + (long) members.size() * (OBJECT + 2 * REFERENCE);
+    }
+
+    /**
+     * Returns an estimate of the memory used by the old states of nodes, and the collection holding them.
+     * @param states the old states
+     * @return an estimate of the memory used by the old states, in bytes
+     */
+    static long estimateNodeStatesFootprint(Collection<Command.OldNodeState> states) {
+        // each state has a LatLon and an EastNorth
+        return estimateCollectionFootprint(states) + (long) states.size() * (OBJECT + 3 * REFERENCE + 2 * (OBJECT + 2 * Double.BYTES));
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(data, version, changesetId, timestamp, user, flags, lat, lon, prefix, suffix, newCount, unchangedHash)
+                + 31 * (Arrays.hashCode(tags) + 31 * (Arrays.hashCode(tagChanges)
+                + 31 * (Arrays.hashCode(nodeIds) + 31 * Arrays.hashCode(members))));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        PrimitiveDelta that = (PrimitiveDelta) obj;
+        return version == that.version && changesetId == that.changesetId && timestamp == that.timestamp && flags == that.flags
+                && Double.compare(lat, that.lat) == 0 && Double.compare(lon, that.lon) == 0
+                && prefix == that.prefix && suffix == that.suffix && newCount == that.newCount
+                && unchangedHash == that.unchangedHash
+                && Objects.equals(data, that.data) && Objects.equals(user, that.user)
+                && Arrays.equals(tags, that.tags) && Arrays.equals(tagChanges, that.tagChanges)
+                && Arrays.equals(nodeIds, that.nodeIds) && Arrays.equals(members, that.members);
+    }
+}
@@ -145,6 +145,19 @@ public class PurgeCommand extends Command {
         });
     }
 
+    @Override
+    public long getUndoMemoryFootprint() {
+        // the purged primitives are only kept by this command while it is executed
+        long size = super.getUndoMemoryFootprint() + PrimitiveDelta.estimateCollectionFootprint(toPurge)
+                + PrimitiveDelta.estimateMemoryFootprint(makeIncompleteData);
+        for (OsmPrimitive osm : toPurge) {
+            if (!makeIncompleteDataByPrimId.containsKey(osm)) {
+                size += PrimitiveDelta.estimateMemoryFootprint(osm);
+            }
+        }
+        return size;
+    }
+
     /**
      * Sorts a collection of primitives such that for each object
      * its referrers come later in the sorted collection.
@@ -117,6 +117,8 @@ public class SequenceCommand extends Command {
                 undoCommands(i-1);
                 return false;
             }
+            // the later commands are undone first, so the objects are in the same state when this command is undone
+            sequence[i].compactUndoState();
         }
         sequenceComplete = true;
         return true;
@@ -158,6 +160,15 @@ public class SequenceCommand extends Command {
         return exception;
     }
 
+    @Override
+    public long getUndoMemoryFootprint() {
+        long size = super.getUndoMemoryFootprint();
+        for (Command c : sequence) {
+            size += c.getUndoMemoryFootprint();
+        }
+        return size;
+    }
+
     @Override
     public void undoCommand() {
         // We probably aborted this halfway though the execution sequence because of a sub-command error.
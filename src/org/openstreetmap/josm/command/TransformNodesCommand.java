@@ -102,6 +102,12 @@ public abstract class TransformNodesCommand extends Command {
         }
     }
 
+    @Override
+    public long getUndoMemoryFootprint() {
+        return super.getUndoMemoryFootprint() + PrimitiveDelta.estimateCollectionFootprint(nodes)
+                + PrimitiveDelta.estimateNodeStatesFootprint(oldStates.values());
+    }
+
     @Override
     public void fillModifiedData(Collection<OsmPrimitive> modified, Collection<OsmPrimitive> deleted, Collection<OsmPrimitive> added) {
     }
@@ -6,6 +6,7 @@ import java.util.EventObject;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
+import java.util.stream.Stream;
 
 import org.openstreetmap.josm.command.Command;
 import org.openstreetmap.josm.data.osm.DataSet;
@@ -36,6 +37,13 @@ public final class UndoRedoHandler {
      */
     private final LinkedList<Command> redoCommands = new LinkedList<>();
 
+    /**
+     * The estimated memory used to undo and redo the commands, in bytes
+     *
+     * @see #getMemoryFootprint()
+     */
+    private long memoryFootprint;
+
     private final LinkedList<CommandQueueListener> listenerCommands = new LinkedList<>();
     private final LinkedList<CommandQueuePreciseListener> preciseListenerCommands = new LinkedList<>();
 
@@ -298,17 +306,34 @@ public final class UndoRedoHandler {
         CheckParameterUtil.ensureParameterNotNull(c, "c");
         if (execute) {
             c.executeCommand();
+            c.compactUndoState();
         }
         commands.add(c);
+        memoryFootprint += c.getUndoMemoryFootprint();
         // Limit the number of commands in the undo list.
         // Currently you have to undo the commands one by one. If
         // this changes, a higher default value may be reasonable.
-        if (commands.size() > Config.getPref().getInt("undo.max", 1000)) {
-            commands.removeFirst();
+        // The last command is kept even if it exceeds the memory limit on its own.
+        int maxCommands = Config.getPref().getInt("undo.max", 1000);
+        long maxMemory = Config.getPref().getInt("undo.max-memory", 128) * 1024L * 1024L;
+        while (commands.size() > maxCommands || (memoryFootprint > maxMemory && commands.size() > 1)) {
+            memoryFootprint -= commands.removeFirst().getUndoMemoryFootprint();
+        }
+        for (Command redo : redoCommands) {
+            memoryFootprint -= redo.getUndoMemoryFootprint();
         }
         redoCommands.clear();
     }
 
+    /**
+     * Returns an estimate of the memory used to undo and redo the commands.
+     * @return an estimate of the memory used to undo and redo the commands, in bytes
+     * @since xxx
+     */
+    public long getMemoryFootprint() {
+        return memoryFootprint;
+    }
+
     /**
      * Fires a commands change event after adding a command.
      * @param cmd command added
@@ -377,6 +402,8 @@ public final class UndoRedoHandler {
             try {
                 for (int i = 1; i <= num; ++i) {
                     final Command c = commands.removeLast();
+                    // the memory used to redo a command may differ from the memory used to undo it
+                    final long footprint = c.getUndoMemoryFootprint();
                     try {
                         c.undoCommand();
                     } catch (Exception e) { // NOPMD
@@ -384,6 +411,7 @@ public final class UndoRedoHandler {
                         commands.add(c);
                         throw e;
                     }
+                    memoryFootprint += c.getUndoMemoryFootprint() - footprint;
                     redoCommands.addFirst(c);
                     fireEvent(new CommandUndoneEvent(this, c));
                     if (commands.isEmpty()) {
@@ -415,7 +443,10 @@ public final class UndoRedoHandler {
             return;
         for (int i = 0; i < num; ++i) {
             final Command c = redoCommands.removeFirst();
+            memoryFootprint -= c.getUndoMemoryFootprint();
             c.executeCommand();
+            c.compactUndoState();
+            memoryFootprint += c.getUndoMemoryFootprint();
             commands.add(c);
             fireEvent(new CommandRedoneEvent(this, c));
             if (redoCommands.isEmpty()) {
@@ -444,6 +475,7 @@ public final class UndoRedoHandler {
     public void clean() {
         redoCommands.clear();
         commands.clear();
+        memoryFootprint = 0;
         fireEvent(new CommandQueueCleanedEvent(this, null));
         fireCommandsChanged();
     }
@@ -460,6 +492,7 @@ public final class UndoRedoHandler {
         changed |= commands.removeIf(c -> c.getAffectedDataSet() == dataSet);
         changed |= redoCommands.removeIf(c -> c.getAffectedDataSet() == dataSet);
         if (changed) {
+            memoryFootprint = Stream.concat(commands.stream(), redoCommands.stream()).mapToLong(Command::getUndoMemoryFootprint).sum();
             fireEvent(new CommandQueueCleanedEvent(this, dataSet));
             fireCommandsChanged();
         }
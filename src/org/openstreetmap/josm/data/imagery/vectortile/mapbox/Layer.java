@@ -3,22 +3,20 @@ package org.openstreetmap.josm.data.imagery.vectortile.mapbox;
 
 import static org.openstreetmap.josm.tools.I18n.tr;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.openstreetmap.josm.data.protobuf.ProtobufParser;
 import org.openstreetmap.josm.data.protobuf.ProtobufRecord;
 import org.openstreetmap.josm.tools.Destroyable;
+import org.openstreetmap.josm.tools.Utils;
 
 /**
  * A Mapbox Vector Tile Layer
@@ -26,46 +24,14 @@ import org.openstreetmap.josm.tools.Destroyable;
  * @since 17862
  */
 public final class Layer implements Destroyable {
-    private static final class ValueFields<T> {
-        static final ValueFields<String> STRING = new ValueFields<>(1, ProtobufRecord::asString);
-        static final ValueFields<Float> FLOAT = new ValueFields<>(2, ProtobufRecord::asFloat);
-        static final ValueFields<Double> DOUBLE = new ValueFields<>(3, ProtobufRecord::asDouble);
-        static final ValueFields<Number> INT64 = new ValueFields<>(4, ProtobufRecord::asUnsignedVarInt);
-        // This may have issues if there are actual uint_values (i.e., more than {@link Long#MAX_VALUE})
-        static final ValueFields<Number> UINT64 = new ValueFields<>(5, ProtobufRecord::asUnsignedVarInt);
-        static final ValueFields<Number> SINT64 = new ValueFields<>(6, ProtobufRecord::asSignedVarInt);
-        static final ValueFields<Boolean> BOOL = new ValueFields<>(7, r -> r.asUnsignedVarInt().longValue() != 0);
-
-        /**
-         * A collection of methods to map a record to a type
-         */
-        public static final Collection<ValueFields<?>> MAPPERS =
-          Collections.unmodifiableList(Arrays.asList(STRING, FLOAT, DOUBLE, INT64, UINT64, SINT64, BOOL));
-
-        private final byte field;
-        private final Function<ProtobufRecord, T> conversion;
-        private ValueFields(int field, Function<ProtobufRecord, T> conversion) {
-            this.field = (byte) field;
-            this.conversion = conversion;
-        }
-
-        /**
-         * Get the field identifier for the value
-         * @return The identifier
-         */
-        public byte getField() {
-            return this.field;
-        }
-
-        /**
-         * Convert a protobuf record to a value
-         * @param protobufRecord The record to convert
-         * @return the converted value
-         */
-        public T convertValue(ProtobufRecord protobufRecord) {
-            return this.conversion.apply(protobufRecord);
-        }
-    }
+    private static final byte VALUE_STRING_FIELD = 1;
+    private static final byte VALUE_FLOAT_FIELD = 2;
+    private static final byte VALUE_DOUBLE_FIELD = 3;
+    private static final byte VALUE_INT64_FIELD = 4;
+    // This may have issues if there are actual uint_values (i.e., more than {@link Long#MAX_VALUE})
+    private static final byte VALUE_UINT64_FIELD = 5;
+    private static final byte VALUE_SINT64_FIELD = 6;
+    private static final byte VALUE_BOOL_FIELD = 7;
 
     /** The field value for a layer (in {@link ProtobufRecord#getField}) */
     public static final byte LAYER_FIELD = 3;
@@ -90,6 +56,8 @@ public final class Layer implements Destroyable {
     private final List<String> keyList = new ArrayList<>();
     /** A list of unique values. Order is important. Optional. */
     private final List<Object> valueList = new ArrayList<>();
+    /** The values of {@link #valueList}, as tag values. Derived from the values, so not part of the state. */
+    private final List<String> tagValueList = new ArrayList<>();
     /** The actual features of this layer in this tile */
     private final List<Feature> featureCollection;
 
@@ -105,14 +73,10 @@ public final class Layer implements Destroyable {
         byte tVersion = DEFAULT_VERSION;
         String tName = null;
         int tExtent = DEFAULT_EXTENT;
-        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(4);
         for (ProtobufRecord protobufRecord : records) {
             if (protobufRecord.getField() == VERSION_FIELD) {
-                tVersion = protobufRecord.asUnsignedVarInt().byteValue();
                 // Per spec, we cannot continue past this until we have checked the version number
-                if (tVersion != 1 && tVersion != 2) {
-                    throw new IllegalArgumentException(tr("We do not understand version {0} of the vector tile specification", tVersion));
-                }
+                tVersion = checkVersion(protobufRecord.asUnsignedVarInt().byteValue());
             } else if (protobufRecord.getField() == NAME_FIELD) {
                 tName = protobufRecord.asString();
             } else if (protobufRecord.getField() == EXTENT_FIELD) {
@@ -120,18 +84,16 @@ public final class Layer implements Destroyable {
             } else if (protobufRecord.getField() == KEY_FIELD) {
                 this.keyList.add(protobufRecord.asString());
             } else if (protobufRecord.getField() == VALUE_FIELD) {
-                parseValueRecord(byteArrayOutputStream, protobufRecord);
+                this.valueList.add(parseValue(new ProtobufParser(protobufRecord.getBytes())));
             } else {
                 sorted.computeIfAbsent(protobufRecord.getField(), i -> new ArrayList<>(records.size())).add(protobufRecord);
             }
         }
         this.version = tVersion;
-        if (tName == null) {
-            throw new IllegalArgumentException(tr("Vector tile layers must have a layer name"));
-        }
-        this.name = tName;
+        this.name = checkName(tName);
         this.extent = tExtent;
 
+        this.valueList.forEach(value -> this.tagValueList.add(Feature.toTagValue(value)));
         this.featureCollection = new ArrayList<>(sorted.getOrDefault((int) FEATURE_FIELD, Collections.emptyList()).size());
         for (ProtobufRecord protobufRecord : sorted.getOrDefault((int) FEATURE_FIELD, Collections.emptyList())) {
             this.featureCollection.add(new Feature(this, protobufRecord));
@@ -142,33 +104,86 @@ public final class Layer implements Destroyable {
         }
     }
 
-    private void parseValueRecord(ByteArrayOutputStream byteArrayOutputStream, ProtobufRecord protobufRecord)
-            throws IOException {
-        try (ProtobufParser parser = new ProtobufParser(protobufRecord.getBytes())) {
-            ProtobufRecord protobufRecord2 = new ProtobufRecord(byteArrayOutputStream, parser);
-            int field = protobufRecord2.getField();
-            int valueListSize = this.valueList.size();
-            for (Layer.ValueFields<?> mapper : ValueFields.MAPPERS) {
-                if (mapper.getField() == field) {
-                    this.valueList.add(mapper.convertValue(protobufRecord2));
+    /**
+     * Create a layer from a parser
+     * @param parser The parser for the layer message. Features are decoded from the parser buffer without copies.
+     * @throws IOException - if an IO error occurs
+     */
+    Layer(ProtobufParser parser) throws IOException {
+        byte tVersion = DEFAULT_VERSION;
+        String tName = null;
+        int tExtent = DEFAULT_EXTENT;
+        // Features may come before the keys and values they reference
+        final List<ProtobufParser> features = new ArrayList<>();
+        while (parser.hasNext()) {
+            final int key = parser.nextKey();
+            switch (ProtobufParser.getField(key)) {
+                case VERSION_FIELD:
+                    // Per spec, we cannot continue past this until we have checked the version number
+                    tVersion = checkVersion((byte) parser.nextVarLong());
                     break;
-                }
-            }
-            if (valueListSize == this.valueList.size()) {
-                throw new IllegalArgumentException(tr("Unknown field in vector tile layer value ({0})", field));
+                case NAME_FIELD:
+                    tName = Utils.intern(parser.nextString());
+                    break;
+                case EXTENT_FIELD:
+                    tExtent = (int) parser.nextVarLong();
+                    break;
+                case KEY_FIELD:
+                    this.keyList.add(Utils.intern(parser.nextString()));
+                    break;
+                case VALUE_FIELD:
+                    this.valueList.add(parseValue(parser.nextLengthDelimitedParser()));
+                    break;
+                case FEATURE_FIELD:
+                    features.add(parser.nextLengthDelimitedParser());
+                    break;
+                default:
+                    parser.skipField(key);
             }
         }
+        this.version = tVersion;
+        this.name = checkName(tName);
+        this.extent = tExtent;
+        this.valueList.forEach(value -> this.tagValueList.add(Feature.toTagValue(value)));
+        this.featureCollection = new ArrayList<>(features.size());
+        for (ProtobufParser feature : features) {
+            this.featureCollection.add(new Feature(this, feature));
+        }
     }
 
-    /**
-     * Get all the records from a array of bytes
-     * @param bytes The byte information
-     * @return All the protobuf records
-     * @throws IOException If there was an error reading the bytes (unlikely)
-     */
-    private static Collection<ProtobufRecord> getAllRecords(byte[] bytes) throws IOException {
-        try (ProtobufParser parser = new ProtobufParser(bytes)) {
-            return parser.allRecords();
+    private static byte checkVersion(byte version) {
+        if (version != 1 && version != 2) {
+            throw new IllegalArgumentException(tr("We do not understand version {0} of the vector tile specification", version));
+        }
+        return version;
+    }
+
+    private static String checkName(String name) {
+        if (name == null) {
+            throw new IllegalArgumentException(tr("Vector tile layers must have a layer name"));
+        }
+        return name;
+    }
+
+    private static Object parseValue(ProtobufParser parser) throws IOException {
+        final int key = parser.hasNext() ? parser.nextKey() : 0;
+        final int field = ProtobufParser.getField(key);
+        switch (field) {
+            case VALUE_STRING_FIELD:
+                return Utils.intern(parser.nextString());
+            case VALUE_FLOAT_FIELD:
+                return parser.nextFloat();
+            case VALUE_DOUBLE_FIELD:
+                return parser.nextDouble();
+            case VALUE_INT64_FIELD:
+            case VALUE_UINT64_FIELD:
+                return ProtobufParser.convertLong(parser.nextVarLong());
+            case VALUE_SINT64_FIELD:
+                return ProtobufParser.convertLong(parser.nextSignedVarLong());
+            case VALUE_BOOL_FIELD:
+                return parser.nextVarLong() != 0;
+            default:
+                throw new IllegalArgumentException(tr("Unknown field in vector tile layer value ({0})", field));
         }
     }
 
@@ -178,7 +193,7 @@ public final class Layer implements Destroyable {
      * @throws IOException - if an IO error occurs
      */
     public Layer(byte[] bytes) throws IOException {
-        this(getAllRecords(bytes));
+        this(new ProtobufParser(bytes));
     }
 
     /**
@@ -231,6 +246,15 @@ public final class Layer implements Destroyable {
         return this.valueList.get(index);
     }
 
+    /**
+     * Get a specified value as tag value
+     * @param index The index in the value list
+     * @return The value, formatted as tag value
+     */
+    String getTagValue(int index) {
+        return this.tagValueList.get(index);
+    }
+
     /**
      * Get the Mapbox Vector Tile version specification for this layer
      * @return The version of the Mapbox Vector Tile specification
@@ -244,6 +268,7 @@ public final class Layer implements Destroyable {
         this.featureCollection.clear();
         this.keyList.clear();
         this.valueList.clear();
+        this.tagValueList.clear();
     }
 
     @Override
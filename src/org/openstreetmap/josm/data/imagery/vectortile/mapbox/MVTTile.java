@@ -16,7 +16,6 @@ import org.openstreetmap.josm.data.IQuadBucketType;
 import org.openstreetmap.josm.data.imagery.vectortile.VectorTile;
 import org.openstreetmap.josm.data.osm.BBox;
 import org.openstreetmap.josm.data.protobuf.ProtobufParser;
-import org.openstreetmap.josm.data.protobuf.ProtobufRecord;
 import org.openstreetmap.josm.data.vector.VectorDataStore;
 import org.openstreetmap.josm.tools.ListenerList;
 import org.openstreetmap.josm.tools.Logging;
@@ -50,17 +49,19 @@ public class MVTTile extends Tile implements VectorTile, IQuadBucketType {
     public void loadImage(final InputStream inputStream) throws IOException {
         if (this.image == null || this.image == Tile.LOADING_IMAGE || this.image == Tile.ERROR_IMAGE) {
             this.initLoading();
-            ProtobufParser parser = new ProtobufParser(inputStream);
-            Collection<ProtobufRecord> protobufRecords = parser.allRecords();
-            this.layers = new ArrayList<>(protobufRecords.size());
-            for (ProtobufRecord protoBufRecord : protobufRecords) {
-                if (protoBufRecord.getField() == Layer.LAYER_FIELD) {
-                    try (protoBufRecord; // Cleanup bytes
-                         ProtobufParser tParser = new ProtobufParser(protoBufRecord.getBytes())) {
-                        this.layers.add(new Layer(tParser.allRecords()));
+            // Read the whole tile once; layers and features are decoded from this buffer without further copies
+            ProtobufParser parser = new ProtobufParser(inputStream.readAllBytes());
+            this.layers = new ArrayList<>();
+            while (parser.hasNext()) {
+                final int key = parser.nextKey();
+                if (ProtobufParser.getField(key) == Layer.LAYER_FIELD) {
+                    try {
+                        this.layers.add(new Layer(parser.nextLengthDelimitedParser()));
                     } catch (IOException e) {
                         Logging.error(e);
                     }
+                } else {
+                    parser.skipField(key);
                 }
             }
             this.layers = new ArrayList<>(this.layers);
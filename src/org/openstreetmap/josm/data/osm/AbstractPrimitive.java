@@ -549,6 +549,9 @@ public abstract class AbstractPrimitive implements IPrimitive, IFilterablePrimit
      * In short this means that you should not rely on this variable being the same value when read again and your should always
      * copy it on writes.
      * <p>
+     * The array goes through {@link TagPool#intern(String[])}, so it may be shared with other primitives and must never be
+     * modified in place.
+     * <p>
      * Further reading:
      * <ul>
      * <li>{@link java.util.concurrent.CopyOnWriteArrayList}</li>
@@ -607,7 +610,7 @@ public abstract class AbstractPrimitive implements IPrimitive, IFilterablePrimit
             newKeys[index++] = Objects.requireNonNull(entry.getKey());
             newKeys[index++] = Objects.requireNonNull(entry.getValue());
         }
-        this.keys = newKeys;
+        this.keys = TagPool.intern(newKeys);
         keysChangedImpl(originalKeys);
     }
 
@@ -624,7 +627,7 @@ public abstract class AbstractPrimitive implements IPrimitive, IFilterablePrimit
             if (arr.length == 0) {
                 this.keys = null;
             } else {
-                this.keys = arr;
+                this.keys = TagPool.intern(arr);
             }
         }
         keysChangedImpl(originalKeys);
@@ -650,7 +653,7 @@ public abstract class AbstractPrimitive implements IPrimitive, IFilterablePrimit
         if (value == null) {
             remove(key);
         } else if (keys == null) {
-            keys = new String[] {key, value};
+            keys = TagPool.intern(new String[] {key, value});
             keysChangedImpl(originalKeys);
         } else {
             int keyIndex = indexOfKey(keys, key);
@@ -667,7 +670,7 @@ public abstract class AbstractPrimitive implements IPrimitive, IFilterablePrimit
             String[] newKeys = Arrays.copyOf(keys, tagArrayLength);
             newKeys[keyIndex] = key;
             newKeys[keyIndex + 1] = value;
-            keys = newKeys;
+            keys = TagPool.intern(newKeys);
             keysChangedImpl(originalKeys);
         }
     }
@@ -701,7 +704,7 @@ public abstract class AbstractPrimitive implements IPrimitive, IFilterablePrimit
                 newKeys[index++] = tag.getValue();
             }
         }
-        keys = newKeys;
+        keys = TagPool.intern(newKeys);
         keysChangedImpl(originalKeys);
     }
 
@@ -750,7 +753,7 @@ public abstract class AbstractPrimitive implements IPrimitive, IFilterablePrimit
                 newKeys[j++] = keys[i+1];
             }
         }
-        keys = newKeys;
+        keys = TagPool.intern(newKeys);
         keysChangedImpl(originalKeys);
     }
 
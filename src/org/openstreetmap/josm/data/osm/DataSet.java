@@ -18,9 +18,14 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
@@ -55,6 +60,7 @@ import org.openstreetmap.josm.data.osm.event.RelationMembersChangedEvent;
 import org.openstreetmap.josm.data.osm.event.TagsChangedEvent;
 import org.openstreetmap.josm.data.osm.event.WayNodesChangedEvent;
 import org.openstreetmap.josm.data.osm.visitor.BoundingXYVisitor;
+import org.openstreetmap.josm.data.projection.Projecting;
 import org.openstreetmap.josm.data.projection.Projection;
 import org.openstreetmap.josm.data.projection.ProjectionChangeListener;
 import org.openstreetmap.josm.data.projection.ProjectionRegistry;
@@ -103,6 +109,10 @@ import org.openstreetmap.josm.tools.SubclassFilteredCollection;
  * Note that it is not necessary to call beginUpdate/endUpdate for every dataset modification - dataset will get locked
  * automatically.
  *
+ * Spatial searches ({@link #searchNodes}, {@link #searchWays}, {@link #searchRelations}) first try to read the data set
+ * optimistically without any lock, and only take the read lock if the data set was modified in the meantime.
+ * The lock contention can be monitored with {@link DataSetLockStatistics}.
+ *
  * Note that locks cannot be upgraded - if one threads use read lock and and then write lock, dead lock will occur - see #5814 for
  * sample ticket
  *
@@ -122,6 +132,19 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
 
     private final QuadBucketPrimitiveStore<Node, Way, Relation> store = new QuadBucketPrimitiveStore<>();
 
+    private NodeCoordinateStore.Layout nodeCoordinateLayout = NodeCoordinateStore.Layout.getDefault();
+    private NodeCoordinateStore nodeCoordinates = NodeCoordinateStore.create(nodeCoordinateLayout);
+
+    /**
+     * The number of slots of the node coordinate store allocated at once by {@link #reserveNodeCoordinates(Node)}
+     */
+    private static final int RESERVED_NODE_COORDINATES = 1024;
+
+    /**
+     * The slots of the node coordinate store allocated in advance by {@link #reserveNodeCoordinates(Node)}
+     */
+    private final AtomicReference<ReservedNodeCoordinates> reservedNodeCoordinates = new AtomicReference<>();
+
     private final Storage<OsmPrimitive> allPrimitives = new Storage<>(new Storage.PrimitiveIdHash(), true);
     private final Map<PrimitiveId, OsmPrimitive> primitivesMap = allPrimitives
             .foreignKey(new Storage.PrimitiveIdHash());
@@ -132,10 +155,22 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
     private Collection<WaySegment> highlightedWaySegments = new LinkedList<>();
     private final ListenerList<HighlightUpdateListener> highlightUpdateListeners = ListenerList.create();
 
+    /**
+     * The number of active requests for the bounding boxes of changed primitives before the change
+     */
+    private final AtomicInteger oldBBoxRequests = new AtomicInteger();
+
+    /**
+     * Incremented each time the projected coordinates are invalidated, so that {@link #cacheEastNorth(Projecting)} stops
+     */
+    private final AtomicInteger eastNorthGeneration = new AtomicInteger();
+
     // Number of open calls to beginUpdate
     private int updateCount;
     // Events that occurred while dataset was locked but should be fired after write lock is released
     private final List<AbstractDatasetChangedEvent> cachedEvents = new ArrayList<>();
+    // Number of dataset events fired so far, only incremented under the write lock
+    private volatile int changeCount;
 
     private String name;
     private DownloadPolicy downloadPolicy = DownloadPolicy.NORMAL;
@@ -144,6 +179,12 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
     private final AtomicBoolean isReadOnly = new AtomicBoolean(false);
 
     private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /**
+     * Write locked during the outermost {@link #beginUpdate()}/{@link #endUpdate()}, i.e. while the store may change.
+     * It is only used for optimistic reads, which are invalidated by the write lock.
+     */
+    private final StampedLock optimisticLock = new StampedLock();
+    private long optimisticWriteStamp;
 
     /**
      * The mutex lock that is used to synchronize selection changes.
@@ -203,6 +244,7 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
         this();
         copyFrom.getReadLock().lock();
         try {
+            setNodeCoordinateLayout(copyFrom.nodeCoordinateLayout);
             clonePrimitives(copyFrom.getNodes(), copyFrom.getWays(), copyFrom.getRelations());
             DataSourceAddedEvent addedEvent = new DataSourceAddedEvent(this,
                     new LinkedHashSet<>(dataSources), copyFrom.dataSources.stream());
@@ -300,6 +342,130 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
         return changed;
     }
 
+    /**
+     * Returns the memory layout of the coordinates of the nodes of this data set.
+     * @return the memory layout of the node coordinates
+     * @since xxx
+     */
+    public NodeCoordinateStore.Layout getNodeCoordinateLayout() {
+        return nodeCoordinateLayout;
+    }
+
+    /**
+     * Changes the memory layout of the coordinates of the nodes of this data set.
+     * The coordinates of the nodes already in this data set are moved to the new layout.
+     * @param layout the memory layout of the node coordinates
+     * @since xxx
+     */
+    public void setNodeCoordinateLayout(NodeCoordinateStore.Layout layout) {
+        Objects.requireNonNull(layout, "layout");
+        update(() -> {
+            if (layout != nodeCoordinateLayout) {
+                nodeCoordinateLayout = layout;
+                reservedNodeCoordinates.set(null);
+                nodeCoordinates = NodeCoordinateStore.create(layout);
+                getNodes().forEach(n -> n.setCoordinateStore(nodeCoordinates));
+            }
+        });
+    }
+
+    /**
+     * Stores the coordinates of a node that is about to be added to this data set directly in the shared store of this
+     * data set, so that no store of the node only is allocated when its coordinates are set.
+     * To be used by readers, which set the coordinates of many nodes before adding them to their data set.
+     * The node must then be added to this data set, otherwise its slot in the store is not released.
+     * <p>
+     * The slots are allocated in blocks under the write lock, and then handed out without locking.
+     * The slots of a block which have not been handed out are released at the end of the next update of this data set.
+     * @param node a node which does not belong to a data set yet
+     * @since xxx
+     */
+    public void reserveNodeCoordinates(Node node) {
+        if (node.getDataSet() != null)
+            throw new DataIntegrityProblemException("Node already belongs to a data set: " + node);
+        while (true) {
+            ReservedNodeCoordinates reserved = reservedNodeCoordinates.get();
+            if (reserved != null) {
+                if (reserved.store == null)
+                    return; // each node has its own store
+                int i = reserved.next.getAndIncrement();
+                if (i < reserved.slots.length) {
+                    node.setCoordinateStore(reserved.store, reserved.slots[i]);
+                    return;
+                }
+            }
+            lock.writeLock().lock();
+            try {
+                if (reservedNodeCoordinates.get() == reserved) {
+                    reservedNodeCoordinates.set(new ReservedNodeCoordinates(nodeCoordinates));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Releases the slots reserved by {@link #reserveNodeCoordinates(Node)} which have not been handed out.
+     * Must be called under the write lock.
+     */
+    private void releaseReservedNodeCoordinates() {
+        ReservedNodeCoordinates reserved = reservedNodeCoordinates.getAndSet(null);
+        if (reserved != null && reserved.store != null) {
+            // no slot can be handed out after this
+            int next = reserved.next.getAndSet(reserved.slots.length);
+            for (int i = next; i < reserved.slots.length; i++) {
+                reserved.store.release(reserved.slots[i]);
+            }
+        }
+    }
+
+    /**
+     * A block of slots of the node coordinate store, allocated in advance by {@link #reserveNodeCoordinates(Node)}
+     */
+    private static final class ReservedNodeCoordinates {
+        /** The store, or {@code null} if each node has its own store */
+        final NodeCoordinateStore store;
+        final int[] slots;
+        /** The index of the next slot to hand out */
+        final AtomicInteger next = new AtomicInteger();
+
+        ReservedNodeCoordinates(NodeCoordinateStore store) {
+            this.store = store;
+            slots = new int[store != null ? RESERVED_NODE_COORDINATES : 0];
+            for (int i = 0; i < slots.length; i++) {
+                slots[i] = store.allocate();
+            }
+        }
+    }
+
+    /**
+     * Requests that the events of moved nodes, and of ways and relations whose members changed, carry the bounding box
+     * of the changed primitive before the change, like {@link NodeMovedEvent#getOldBBox()}.
+     * They are only computed while at least one request is active, since the bounding box of a moved node includes
+     * its parent ways. Each call must be followed by a call to {@link #releaseOldBBoxes()}.
+     * @since xxx
+     */
+    public void requestOldBBoxes() {
+        oldBBoxRequests.incrementAndGet();
+    }
+
+    /**
+     * Releases a request made by {@link #requestOldBBoxes()}.
+     * @since xxx
+     */
+    public void releaseOldBBoxes() {
+        oldBBoxRequests.decrementAndGet();
+    }
+
+    /**
+     * Returns the store shared by the nodes of this data set.
+     * @return the store of node coordinates, or {@code null} if each node has its own store
+     */
+    NodeCoordinateStore getNodeCoordinateStore() {
+        return nodeCoordinates;
+    }
+
     @Override
     public Lock getReadLock() {
         return lock.readLock();
@@ -409,9 +575,19 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
 
     @Override
     public List<Node> searchNodes(BBox bbox) {
-        lock.readLock().lock();
+        return optimisticRead(valid -> store.searchNodes(bbox, valid), () -> store.searchNodes(bbox));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The consumer is called while the read lock is held, so it must not modify this data set.
+     */
+    @Override
+    public void searchNodes(BBox bbox, Consumer<? super Node> consumer) {
+        lockRead();
         try {
-            return store.searchNodes(bbox);
+            store.searchNodes(bbox, consumer);
         } finally {
             lock.readLock().unlock();
         }
@@ -424,9 +600,19 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
 
     @Override
     public List<Way> searchWays(BBox bbox) {
-        lock.readLock().lock();
+        return optimisticRead(valid -> store.searchWays(bbox, valid), () -> store.searchWays(bbox));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The consumer is called while the read lock is held, so it must not modify this data set.
+     */
+    @Override
+    public void searchWays(BBox bbox, Consumer<? super Way> consumer) {
+        lockRead();
         try {
-            return store.searchWays(bbox);
+            store.searchWays(bbox, consumer);
         } finally {
             lock.readLock().unlock();
         }
@@ -434,14 +620,55 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
 
     @Override
     public List<Relation> searchRelations(BBox bbox) {
-        lock.readLock().lock();
+        return optimisticRead(valid -> store.searchRelations(bbox, valid), () -> store.searchRelations(bbox));
+    }
+
+    /**
+     * Runs a read-only operation on the store without lock, and runs it again with the read lock if the data set
+     * was modified concurrently, or is being modified by the current thread.
+     * @param optimistic the operation to run without lock, which must not modify the store. It is given a check of the
+     * validity of the optimistic read, which it must call regularly to stop as soon as the data set has been modified
+     * @param locked the operation to run with the read lock
+     * @return the result of the operation
+     */
+    private <T> T optimisticRead(Function<BooleanSupplier, T> optimistic, Supplier<T> locked) {
+        long stamp = optimisticLock.tryOptimisticRead();
+        if (stamp != 0) {
+            T result = null;
+            boolean completed = false;
+            try {
+                result = optimistic.apply(() -> optimisticLock.validate(stamp));
+                completed = true;
+            } catch (RuntimeException | AssertionError e) {
+                // Most likely caused by a concurrent modification, the operation is repeated with the read lock anyway
+                Logging.trace(e);
+            }
+            boolean valid = optimisticLock.validate(stamp) && completed;
+            if (DataSetLockStatistics.isEnabled()) {
+                DataSetLockStatistics.optimisticRead(valid);
+            }
+            if (valid) {
+                return result;
+            }
+        }
+        lockRead();
         try {
-            return store.searchRelations(bbox);
+            return locked.get();
         } finally {
             lock.readLock().unlock();
         }
     }
 
+    private void lockRead() {
+        if (DataSetLockStatistics.isEnabled()) {
+            long start = System.nanoTime();
+            lock.readLock().lock();
+            DataSetLockStatistics.lockAcquired(false, System.nanoTime() - start);
+        } else {
+            lock.readLock().lock();
+        }
+    }
+
     /**
      * Searches for all primitives in the given bounding box
      *
@@ -525,6 +752,45 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
         });
     }
 
+    /**
+     * Adds primitives to the dataset.
+     * <p>
+     * This is much faster than adding the primitives one by one when the dataset is empty, e.g. when a reader hands
+     * over a whole layer, since the spatial index is then bulk loaded.
+     * The children of the ways and relations have to be in the dataset already, or added in the same call.
+     *
+     * @param primitives the primitives
+     * @throws IllegalStateException if the dataset is read-only
+     * @since xxx
+     */
+    public void addPrimitives(Collection<? extends OsmPrimitive> primitives) {
+        Objects.requireNonNull(primitives, "primitives");
+        checkModifiable();
+        update(() -> {
+            for (OsmPrimitive primitive : primitives) {
+                if (getPrimitiveById(primitive) != null)
+                    throw new DataIntegrityProblemException(
+                            tr("Unable to add primitive {0} to the dataset because it is already included", primitive.toString()),
+                            null, primitive);
+            }
+            for (OsmPrimitive primitive : primitives) {
+                if (!allPrimitives.add(primitive))
+                    throw new DataIntegrityProblemException(
+                            tr("Unable to add primitive {0} to the dataset because it is already included", primitive.toString()),
+                            null, primitive);
+                primitive.setDataset(this);
+            }
+            // Ways need the coordinates of their nodes, which may be part of the primitives
+            for (OsmPrimitive primitive : primitives) {
+                primitive.updatePosition();
+            }
+            store.addPrimitives(primitives);
+            if (!primitives.isEmpty()) {
+                firePrimitivesAdded(new ArrayList<>(primitives), false);
+            }
+        });
+    }
+
     /**
      * Adds recursively a primitive, and all its children, to the dataset.
      *
@@ -737,8 +1003,9 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
         if (highlightedVirtualNodes.isEmpty() && waySegments.isEmpty())
             return;
 
+        Collection<WaySegment> old = highlightedVirtualNodes;
         highlightedVirtualNodes = waySegments;
-        fireHighlightingChanged();
+        fireHighlightingChanged(getWays(old, waySegments));
     }
 
     @Override
@@ -746,8 +1013,9 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
         if (highlightedWaySegments.isEmpty() && waySegments.isEmpty())
             return;
 
+        Collection<WaySegment> old = highlightedWaySegments;
         highlightedWaySegments = waySegments;
-        fireHighlightingChanged();
+        fireHighlightingChanged(getWays(old, waySegments));
     }
 
     @Override
@@ -1003,8 +1271,16 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
      * @see #endUpdate()
      */
     public void beginUpdate() {
-        lock.writeLock().lock();
-        updateCount++;
+        if (DataSetLockStatistics.isEnabled()) {
+            long start = System.nanoTime();
+            lock.writeLock().lock();
+            DataSetLockStatistics.lockAcquired(true, System.nanoTime() - start);
+        } else {
+            lock.writeLock().lock();
+        }
+        if (updateCount++ == 0) {
+            optimisticWriteStamp = optimisticLock.writeLock();
+        }
     }
 
     /**
@@ -1026,6 +1302,8 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
             updateCount--;
             List<AbstractDatasetChangedEvent> eventsToFire = Collections.emptyList();
             if (updateCount == 0) {
+                releaseReservedNodeCoordinates();
+                optimisticLock.unlockWrite(optimisticWriteStamp);
                 eventsToFire = new ArrayList<>(cachedEvents);
                 cachedEvents.clear();
             }
@@ -1112,11 +1390,22 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
     private void fireEvent(AbstractDatasetChangedEvent event) {
         if (updateCount == 0)
             throw new AssertionError("dataset events can be fired only when dataset is locked");
+        changeCount++;
         if (cachedEvents.size() < MAX_EVENTS) {
             cachedEvents.add(event);
         }
     }
 
+    /**
+     * Returns the number of changes made to this data set so far, i.e. the number of dataset events it has fired.
+     * It allows to determine cheaply if the data set has changed since a previous call, without being a {@link DataSetListener}.
+     * @return the number of changes made to this data set
+     * @since xxx
+     */
+    public int getChangeCount() {
+        return changeCount;
+    }
+
     void firePrimitivesAdded(Collection<? extends OsmPrimitive> added, boolean wasIncomplete) {
         fireEvent(new PrimitivesAddedEvent(this, added, wasIncomplete));
     }
@@ -1130,20 +1419,30 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
     }
 
     void fireRelationMembersChanged(Relation r) {
+        BBox oldBBox = oldBBoxRequests.get() > 0 ? r.getBBox() : null;
         store.reindexRelation(r, Relation::updatePosition);
-        fireEvent(new RelationMembersChangedEvent(this, r));
+        fireEvent(new RelationMembersChangedEvent(this, r, oldBBox));
     }
 
     void fireNodeMoved(Node node, LatLon newCoor, EastNorth eastNorth) {
+        BBox oldBBox = null;
+        if (oldBBoxRequests.get() > 0 && node.isLatLonKnown()) {
+            // the area drawn for the node and its parent ways, before the move
+            oldBBox = new BBox(node);
+            for (Way way : node.getParentWays()) {
+                oldBBox.add(way.getBBox());
+            }
+        }
         store.reindexNode(node, n -> n.setCoorInternal(newCoor, eastNorth), Way::updatePosition, Relation::updatePosition);
-        fireEvent(new NodeMovedEvent(this, node));
+        fireEvent(new NodeMovedEvent(this, node, oldBBox));
     }
 
     void fireWayNodesChanged(Way way) {
+        BBox oldBBox = oldBBoxRequests.get() > 0 ? way.getBBox() : null;
         if (!way.isEmpty()) {
             store.reindexWay(way, Way::updatePosition, Relation::updatePosition);
         }
-        fireEvent(new WayNodesChangedEvent(this, way));
+        fireEvent(new WayNodesChangedEvent(this, way, oldBBox));
     }
 
     void fireChangesetIdChanged(OsmPrimitive primitive, int oldChangesetId, int newChangesetId) {
@@ -1159,11 +1458,18 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
         fireEvent(new FilterChangedEvent(this));
     }
 
-    void fireHighlightingChanged() {
-        HighlightUpdateListener.HighlightUpdateEvent e = new HighlightUpdateListener.HighlightUpdateEvent(this);
+    void fireHighlightingChanged(Collection<? extends OsmPrimitive> primitives) {
+        HighlightUpdateListener.HighlightUpdateEvent e = new HighlightUpdateListener.HighlightUpdateEvent(this, primitives);
         highlightUpdateListeners.fireEvent(l -> l.highlightUpdated(e));
     }
 
+    private static Set<Way> getWays(Collection<WaySegment> oldSegments, Collection<WaySegment> newSegments) {
+        Set<Way> ways = new HashSet<>();
+        oldSegments.forEach(ws -> ways.add(ws.getWay()));
+        newSegments.forEach(ws -> ways.add(ws.getWay()));
+        return ways;
+    }
+
     /**
      * Invalidates the internal cache of projected east/north coordinates.
      *
@@ -1172,7 +1478,42 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
     public void invalidateEastNorthCache() {
         if (ProjectionRegistry.getProjection() == null)
             return; // sanity check
-        update(() -> getNodes().forEach(Node::invalidateEastNorthCache));
+        update(() -> {
+            eastNorthGeneration.incrementAndGet();
+            if (nodeCoordinates != null) {
+                nodeCoordinates.invalidateEastNorthCache();
+            } else {
+                getNodes().forEach(Node::invalidateEastNorthCache);
+            }
+        });
+    }
+
+    /**
+     * Projects the coordinates of all nodes at once, instead of one by one when they are first requested.
+     * This is only supported by data sets which store node coordinates in columns, see {@link NodeCoordinateStore.Layout}.
+     * <p>
+     * The nodes are projected in batches, each one under the read lock, so this method is meant to be called
+     * from a background thread. It stops as soon as the projected coordinates are invalidated again.
+     * @param projection the projection
+     * @since xxx
+     */
+    public void cacheEastNorth(Projecting projection) {
+        NodeCoordinateStore store = nodeCoordinates;
+        if (store == null)
+            return;
+        int generation = eastNorthGeneration.get();
+        int start = 0;
+        while (start >= 0) {
+            Lock readLock = getReadLock();
+            readLock.lock();
+            try {
+                if (generation != eastNorthGeneration.get())
+                    return;
+                start = store.cacheEastNorth(projection, start);
+            } finally {
+                readLock.unlock();
+            }
+        }
     }
 
     /**
@@ -0,0 +1,184 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * Collects contention statistics of the {@link DataSet} locks, grouped by the calling method.
+ * <p>
+ * The statistics are disabled by default, since finding the caller requires a stack walk. They can be enabled with the
+ * system property {@code josm.dataset.lockstatistics=true} or with {@link #setEnabled(boolean)}.
+ * Only the locks taken by the data set itself are recorded, not the ones taken through {@link DataSet#getReadLock()}.
+ * @since xxx
+ */
+public final class DataSetLockStatistics {
+
+    /**
+     * Lock statistics of one caller
+     */
+    public static final class CallerStatistics {
+        private final LongAdder readLocks = new LongAdder();
+        private final LongAdder writeLocks = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+        private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder optimisticReads = new LongAdder();
+        private final LongAdder optimisticFailures = new LongAdder();
+
+        CallerStatistics() {
+            // Hide default constructor
+        }
+
+        /**
+         * Returns the number of read locks acquired, including the fallback of failed optimistic reads
+         * @return the number of read locks acquired
+         */
+        public long getReadLocks() {
+            return readLocks.sum();
+        }
+
+        /**
+         * Returns the number of write locks acquired
+         * @return the number of write locks acquired
+         */
+        public long getWriteLocks() {
+            return writeLocks.sum();
+        }
+
+        /**
+         * Returns the total time spent waiting for the read and write locks
+         * @return the total waiting time, in nanoseconds
+         */
+        public long getWaitNanos() {
+            return waitNanos.sum();
+        }
+
+        /**
+         * Returns the longest time spent waiting for one lock
+         * @return the longest waiting time, in nanoseconds
+         */
+        public long getMaxWaitNanos() {
+            return maxWaitNanos.get();
+        }
+
+        /**
+         * Returns the number of optimistic reads, successful or not
+         * @return the number of optimistic reads
+         */
+        public long getOptimisticReads() {
+            return optimisticReads.sum();
+        }
+
+        /**
+         * Returns the number of optimistic reads which were invalidated by a concurrent modification,
+         * and were repeated with the read lock
+         * @return the number of failed optimistic reads
+         */
+        public long getOptimisticFailures() {
+            return optimisticFailures.sum();
+        }
+
+        @Override
+        public String toString() {
+            return "read locks=" + getReadLocks()
+                    + ", write locks=" + getWriteLocks()
+                    + ", wait=" + TimeUnit.NANOSECONDS.toMillis(getWaitNanos()) + "ms"
+                    + ", max wait=" + TimeUnit.NANOSECONDS.toMillis(getMaxWaitNanos()) + "ms"
+                    + ", optimistic reads=" + getOptimisticReads()
+                    + ", optimistic failures=" + getOptimisticFailures();
+        }
+    }
+
+    private static final String PACKAGE = DataSet.class.getPackage().getName() + '.';
+    private static final StackWalker WALKER = StackWalker.getInstance();
+    private static final Map<String, CallerStatistics> STATISTICS = new ConcurrentHashMap<>();
+    private static volatile boolean enabled = Boolean.parseBoolean(Utils.getSystemProperty("josm.dataset.lockstatistics"));
+
+    private DataSetLockStatistics() {
+        // Hide default constructor for utilities classes
+    }
+
+    /**
+     * Determines if the statistics are collected
+     * @return {@code true} if the statistics are collected
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables the collection of statistics
+     * @param enable {@code true} to collect statistics
+     */
+    public static void setEnabled(boolean enable) {
+        enabled = enable;
+    }
+
+    /**
+     * Returns the statistics collected so far, sorted by decreasing waiting time
+     * @return the statistics, by calling method
+     */
+    public static Map<String, CallerStatistics> getStatistics() {
+        Map<String, CallerStatistics> result = new LinkedHashMap<>();
+        STATISTICS.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, CallerStatistics> e) -> e.getValue().getWaitNanos()).reversed()
+                        .thenComparing(Map.Entry::getKey))
+                .forEachOrdered(e -> result.put(e.getKey(), e.getValue()));
+        return result;
+    }
+
+    /**
+     * Discards the statistics collected so far
+     */
+    public static void reset() {
+        STATISTICS.clear();
+    }
+
+    /**
+     * Logs the statistics collected so far
+     */
+    public static void log() {
+        getStatistics().forEach((caller, statistics) -> Logging.info("DataSet lock statistics for {0}: {1}", caller, statistics));
+    }
+
+    static void lockAcquired(boolean write, long waitNanos) {
+        CallerStatistics statistics = getCallerStatistics();
+        (write ? statistics.writeLocks : statistics.readLocks).increment();
+        statistics.waitNanos.add(waitNanos);
+        statistics.maxWaitNanos.accumulate(waitNanos);
+    }
+
+    static void optimisticRead(boolean validated) {
+        CallerStatistics statistics = getCallerStatistics();
+        statistics.optimisticReads.increment();
+        if (!validated) {
+            statistics.optimisticFailures.increment();
+        }
+    }
+
+    /**
+     * Finds the statistics of the first method outside of this package, i.e. the one which called the data set
+     * directly or through a primitive
+     * @return the statistics of the calling method
+     */
+    private static CallerStatistics getCallerStatistics() {
+        String caller = WALKER.walk(frames -> frames
+                .filter(f -> !isInPackage(f.getClassName()))
+                .findFirst()
+                .map(f -> f.getClassName() + '.' + f.getMethodName())
+                .orElse("unknown"));
+        return STATISTICS.computeIfAbsent(caller, c -> new CallerStatistics());
+    }
+
+    private static boolean isInPackage(String className) {
+        return className.startsWith(PACKAGE) && className.indexOf('.', PACKAGE.length()) < 0;
+    }
+}
@@ -1,6 +1,8 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.data.osm;
 
+import java.util.Collection;
+
 /**
  * This is a listener that listens to highlight segment changes.
  * @author Michael Zangl
@@ -16,13 +18,25 @@ public interface HighlightUpdateListener {
      */
     class HighlightUpdateEvent {
         private final DataSet dataSet;
+        private final Collection<? extends OsmPrimitive> primitives;
 
         /**
          * Create a new highlight update event.
          * @param dataSet The dataset that was changed.
          */
         public HighlightUpdateEvent(DataSet dataSet) {
+            this(dataSet, null);
+        }
+
+        /**
+         * Create a new highlight update event.
+         * @param dataSet The dataset that was changed.
+         * @param primitives The primitives whose highlighting changed, or {@code null} if they are unknown.
+         * @since xxx
+         */
+        public HighlightUpdateEvent(DataSet dataSet, Collection<? extends OsmPrimitive> primitives) {
             this.dataSet = dataSet;
+            this.primitives = primitives;
         }
 
         /**
@@ -32,6 +46,15 @@ public interface HighlightUpdateListener {
         public DataSet getDataSet() {
             return dataSet;
         }
+
+        /**
+         * Get the primitives whose highlighting changed. For highlighted way segments and virtual nodes, these are the ways.
+         * @return The primitives, or {@code null} if they are unknown.
+         * @since xxx
+         */
+        public Collection<? extends OsmPrimitive> getPrimitives() {
+            return primitives;
+        }
     }
 
     /**
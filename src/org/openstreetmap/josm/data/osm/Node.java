@@ -25,20 +25,12 @@ public final class Node extends OsmPrimitive implements INode {
     static final UniqueIdGenerator idGenerator = new UniqueIdGenerator();
 
     /*
-     * We "inline" lat/lon rather than using a LatLon-object => reduces memory footprint
+     * The lat/lon and cached projected coordinates are stored in the coordinate store of the data set
+     * rather than in each node => reduces memory footprint.
+     * Nodes outside of a data set get a store of their own only when their coordinates are set.
      */
-    private double lat = Double.NaN;
-    private double lon = Double.NaN;
-
-    /*
-     * the cached projected coordinates
-     */
-    private double east = Double.NaN;
-    private double north = Double.NaN;
-    /**
-     * The cache key to use for {@link #east} and {@link #north}.
-     */
-    private Object eastNorthCacheKey;
+    private NodeCoordinateStore coordinates = NodeCoordinateStore.Unset.INSTANCE;
+    private int coordinatesIndex;
 
     @Override
     public void setCoor(LatLon coor) {
@@ -72,31 +64,34 @@ public final class Node extends OsmPrimitive implements INode {
         if (!isLatLonKnown()) {
             return null;
         } else {
-            return new LatLon(lat, lon);
+            return new LatLon(lat(), lon());
         }
     }
 
     @Override
     public double lat() {
-        return lat;
+        return coordinates.get(coordinatesIndex, NodeCoordinateStore.LAT);
     }
 
     @Override
     public double lon() {
-        return lon;
+        return coordinates.get(coordinatesIndex, NodeCoordinateStore.LON);
     }
 
     @Override
     public EastNorth getEastNorth(Projecting projection) {
         if (!isLatLonKnown()) return null;
 
-        if (Double.isNaN(east) || Double.isNaN(north) || !Objects.equals(projection.getCacheKey(), eastNorthCacheKey)) {
+        NodeCoordinateStore store = coordinates;
+        int index = coordinatesIndex;
+        double east = store.get(index, NodeCoordinateStore.EAST);
+        double north = store.get(index, NodeCoordinateStore.NORTH);
+        if (Double.isNaN(east) || Double.isNaN(north) || !Objects.equals(projection.getCacheKey(), store.getEastNorthCacheKey())) {
             // projected coordinates haven't been calculated yet,
             // so fill the cache of the projected node coordinates
             EastNorth en = projection.latlon2eastNorth(this);
-            this.east = en.east();
-            this.north = en.north();
-            this.eastNorthCacheKey = projection.getCacheKey();
+            store.cacheEastNorth(index, projection.getCacheKey(), en.east(), en.north());
+            return en;
         }
         return new EastNorth(east, north);
     }
@@ -108,19 +103,16 @@ public final class Node extends OsmPrimitive implements INode {
      */
     void setCoorInternal(LatLon coor, EastNorth eastNorth) {
         if (coor != null) {
-            this.lat = coor.lat();
-            this.lon = coor.lon();
+            setLatLon(coor.lat(), coor.lon());
             invalidateEastNorthCache();
         } else if (eastNorth != null) {
             LatLon ll = ProjectionRegistry.getProjection().eastNorth2latlon(eastNorth);
-            this.lat = ll.lat();
-            this.lon = ll.lon();
-            this.east = eastNorth.east();
-            this.north = eastNorth.north();
-            this.eastNorthCacheKey = ProjectionRegistry.getProjection().getCacheKey();
+            setLatLon(ll.lat(), ll.lon());
+            invalidateEastNorthCache();
+            coordinates.cacheEastNorth(coordinatesIndex, ProjectionRegistry.getProjection().getCacheKey(),
+                    eastNorth.east(), eastNorth.north());
         } else {
-            this.lat = Double.NaN;
-            this.lon = Double.NaN;
+            setLatLon(Double.NaN, Double.NaN);
             invalidateEastNorthCache();
             if (isVisible()) {
                 setIncomplete(true);
@@ -128,6 +120,52 @@ public final class Node extends OsmPrimitive implements INode {
         }
     }
 
+    private void setLatLon(double lat, double lon) {
+        if (coordinates == NodeCoordinateStore.Unset.INSTANCE) {
+            if (Double.isNaN(lat) && Double.isNaN(lon)) {
+                return;
+            }
+            coordinates = new NodeCoordinateStore.Single();
+            coordinatesIndex = 0;
+        }
+        coordinates.set(coordinatesIndex, NodeCoordinateStore.LAT, lat);
+        coordinates.set(coordinatesIndex, NodeCoordinateStore.LON, lon);
+    }
+
+    /**
+     * Moves the coordinates of this node to another store.
+     * To be used only by {@link DataSet}, when adding or removing this node, or when changing its coordinates layout.
+     * @param store the new store, or {@code null} for a store of this node only
+     */
+    void setCoordinateStore(NodeCoordinateStore store) {
+        if (store == coordinates || (store == null && (coordinates instanceof NodeCoordinateStore.Single
+                || coordinates == NodeCoordinateStore.Unset.INSTANCE))) {
+            return;
+        }
+        NodeCoordinateStore newStore = store;
+        if (newStore == null) {
+            newStore = isLatLonKnown() ? new NodeCoordinateStore.Single() : NodeCoordinateStore.Unset.INSTANCE;
+        }
+        setCoordinateStore(newStore, newStore.allocate());
+    }
+
+    /**
+     * Moves the coordinates of this node to a slot already allocated in another store.
+     * To be used only by {@link DataSet}.
+     * @param newStore the new store
+     * @param newIndex the allocated slot in the new store
+     */
+    void setCoordinateStore(NodeCoordinateStore newStore, int newIndex) {
+        if (newStore != NodeCoordinateStore.Unset.INSTANCE) {
+            coordinates.copyTo(coordinatesIndex, newStore, newIndex);
+        }
+        NodeCoordinateStore oldStore = coordinates;
+        int oldIndex = coordinatesIndex;
+        coordinatesIndex = newIndex;
+        coordinates = newStore;
+        oldStore.release(oldIndex);
+    }
+
     Node(long id, boolean allowNegative) {
         super(id, allowNegative);
     }
@@ -201,6 +239,7 @@ public final class Node extends OsmPrimitive implements INode {
     @Override
     void setDataset(DataSet dataSet) {
         super.setDataset(dataSet);
+        setCoordinateStore(dataSet != null ? dataSet.getNodeCoordinateStore() : null);
         if (!isIncomplete() && isVisible() && !isLatLonKnown())
             throw new DataIntegrityProblemException("Complete node with null coordinates: " + toString());
     }
@@ -279,7 +318,7 @@ public final class Node extends OsmPrimitive implements INode {
 
     @Override
     public String toString() {
-        String coorDesc = isLatLonKnown() ? "lat="+lat+",lon="+lon : "";
+        String coorDesc = isLatLonKnown() ? "lat="+lat()+",lon="+lon() : "";
         return "{Node id=" + getUniqueId() + " version=" + getVersion() + ' ' + getFlagsAsString() + ' ' + coorDesc+'}';
     }
 
@@ -305,12 +344,12 @@ public final class Node extends OsmPrimitive implements INode {
 
     @Override
     public BBox getBBox() {
-        return new BBox(lon, lat);
+        return new BBox(lon(), lat());
     }
 
     @Override
     protected void addToBBox(BBox box, Set<PrimitiveId> visited) {
-        box.add(lon, lat);
+        box.add(lon(), lat());
     }
 
     @Override
@@ -335,9 +374,7 @@ public final class Node extends OsmPrimitive implements INode {
      * next time.
      */
     public void invalidateEastNorthCache() {
-        this.east = Double.NaN;
-        this.north = Double.NaN;
-        this.eastNorthCacheKey = null;
+        coordinates.invalidateEastNorthCache(coordinatesIndex);
     }
 
     @Override
@@ -0,0 +1,470 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+
+import org.openstreetmap.josm.data.projection.Projecting;
+import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * Storage of the coordinates of nodes: lat/lon and the cached east/north projected coordinates.
+ * <p>
+ * A {@link Node} only keeps a reference to its store and its slot index in the store. Nodes which do not belong to a
+ * data set have their own single slot store, allocated when their coordinates are first set. The nodes of a {@link DataSet}
+ * share one store of the data set, which keeps the coordinates in columns of primitive arrays, optionally outside of the Java heap.
+ * See {@link Layout} for the available layouts.
+ * <p>
+ * Stores are not synchronized. Slots are allocated and released, and coordinates are set, under the write lock of their data
+ * set (or, for the slots reserved by {@link DataSet#reserveNodeCoordinates(Node)}, by the only thread which owns the node).
+ * The projected coordinates are cached under the read lock by any thread reading them: the projection of the cached
+ * coordinates is only set once until {@link #invalidateEastNorthCache()} is called under the write lock, and all threads
+ * write the same values for the same projection.
+ * @since xxx
+ */
+public abstract class NodeCoordinateStore {
+
+    /**
+     * The memory layout of node coordinates in a data set
+     */
+    public enum Layout {
+        /** Each node has its own coordinates object on the heap */
+        NODE,
+        /** The coordinates of all nodes are stored in columns of {@code double} arrays on the heap */
+        HEAP,
+        /** The coordinates of all nodes are stored in columns of direct buffers, outside of the Java heap */
+        DIRECT;
+
+        /**
+         * Returns the layout of new data sets, defined by the system property {@code josm.node.coordinates}
+         * ({@code node}, {@code heap} or {@code direct}). The default is {@link #HEAP}.
+         * @return the layout of new data sets
+         */
+        public static Layout getDefault() {
+            String layout = Utils.getSystemProperty("josm.node.coordinates");
+            if (layout != null) {
+                try {
+                    return valueOf(layout.toUpperCase(Locale.ENGLISH));
+                } catch (IllegalArgumentException e) {
+                    Logging.warn("Unknown node coordinates layout: " + layout);
+                    Logging.trace(e);
+                }
+            }
+            return HEAP;
+        }
+    }
+
+    static final int LAT = 0;
+    static final int LON = 1;
+    static final int EAST = 2;
+    static final int NORTH = 3;
+    static final int COLUMNS = 4;
+
+    /**
+     * The cache key of the projection of all cached east/north coordinates of this store
+     */
+    private volatile Object eastNorthCacheKey;
+
+    /**
+     * Creates a store shared by the nodes of a data set
+     * @param layout the memory layout
+     * @return a new store, or {@code null} for {@link Layout#NODE}
+     */
+    static NodeCoordinateStore create(Layout layout) {
+        switch (layout) {
+            case HEAP:
+                return new HeapStore();
+            case DIRECT:
+                return new DirectStore();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Gets a coordinate
+     * @param index the slot index
+     * @param column the coordinate: {@link #LAT}, {@link #LON}, {@link #EAST} or {@link #NORTH}
+     * @return the coordinate
+     */
+    abstract double get(int index, int column);
+
+    /**
+     * Sets a coordinate
+     * @param index the slot index
+     * @param column the coordinate: {@link #LAT}, {@link #LON}, {@link #EAST} or {@link #NORTH}
+     * @param value the coordinate
+     */
+    abstract void set(int index, int column, double value);
+
+    /**
+     * Allocates a new slot, with all coordinates set to {@link Double#NaN}
+     * @return the slot index
+     */
+    abstract int allocate();
+
+    /**
+     * Releases a slot, which may then be reused by {@link #allocate()}
+     * @param index the slot index
+     */
+    abstract void release(int index);
+
+    /**
+     * Returns the number of allocated slots
+     * @return the number of allocated slots
+     */
+    abstract int size();
+
+    /**
+     * Returns the cache key of the projection of the cached east/north coordinates
+     * @return the cache key, or {@code null} if no east/north coordinates are cached
+     */
+    final Object getEastNorthCacheKey() {
+        return eastNorthCacheKey;
+    }
+
+    /**
+     * Caches projected coordinates.
+     * A shared store caches the coordinates of only one projection, other projections are not cached until
+     * {@link #invalidateEastNorthCache()} is called.
+     * @param index the slot index
+     * @param cacheKey the cache key of the projection
+     * @param east the east coordinate
+     * @param north the north coordinate
+     */
+    void cacheEastNorth(int index, Object cacheKey, double east, double north) {
+        Object key = eastNorthCacheKey;
+        if (key == null) {
+            synchronized (this) {
+                if (eastNorthCacheKey == null) {
+                    eastNorthCacheKey = cacheKey;
+                }
+                key = eastNorthCacheKey;
+            }
+        }
+        if (Objects.equals(key, cacheKey)) {
+            set(index, EAST, east);
+            set(index, NORTH, north);
+        }
+    }
+
+    /**
+     * Computes and caches the projected coordinates of a batch of slots at once, if supported by this store.
+     * Otherwise the coordinates are projected when they are first requested.
+     * @param projection the projection
+     * @param start the first slot of the batch
+     * @return the first slot of the next batch, or {@code -1} if all slots have been projected
+     */
+    int cacheEastNorth(Projecting projection, int start) {
+        // Coordinates are projected on demand
+        return -1;
+    }
+
+    /**
+     * Invalidates the projected coordinates of one slot
+     * @param index the slot index
+     */
+    void invalidateEastNorthCache(int index) {
+        set(index, EAST, Double.NaN);
+        set(index, NORTH, Double.NaN);
+    }
+
+    /**
+     * Invalidates the projected coordinates of all slots, so that the coordinates of another projection can be cached
+     */
+    void invalidateEastNorthCache() {
+        eastNorthCacheKey = null;
+    }
+
+    /**
+     * Copies the coordinates of a slot into a slot of another store
+     * @param index the slot index in this store
+     * @param target the other store
+     * @param targetIndex the slot index in the other store
+     */
+    final void copyTo(int index, NodeCoordinateStore target, int targetIndex) {
+        target.set(targetIndex, LAT, get(index, LAT));
+        target.set(targetIndex, LON, get(index, LON));
+        double east = get(index, EAST);
+        double north = get(index, NORTH);
+        if (eastNorthCacheKey != null && !Double.isNaN(east) && !Double.isNaN(north)) {
+            target.cacheEastNorth(targetIndex, eastNorthCacheKey, east, north);
+        } else {
+            target.invalidateEastNorthCache(targetIndex);
+        }
+    }
+
+    /**
+     * The store of a node which does not belong to a data set, or of a data set with the {@link Layout#NODE} layout.
+     * It has a single slot with index 0.
+     */
+    static final class Single extends NodeCoordinateStore {
+        private double lat = Double.NaN;
+        private double lon = Double.NaN;
+        private double east = Double.NaN;
+        private double north = Double.NaN;
+
+        @Override
+        double get(int index, int column) {
+            switch (column) {
+                case LAT:
+                    return lat;
+                case LON:
+                    return lon;
+                case EAST:
+                    return east;
+                default:
+                    return north;
+            }
+        }
+
+        @Override
+        void set(int index, int column, double value) {
+            switch (column) {
+                case LAT:
+                    lat = value;
+                    break;
+                case LON:
+                    lon = value;
+                    break;
+                case EAST:
+                    east = value;
+                    break;
+                default:
+                    north = value;
+            }
+        }
+
+        @Override
+        void cacheEastNorth(int index, Object cacheKey, double east, double north) {
+            // The only slot is re-cached with any projection, like the coordinates used to be cached by each node
+            invalidateEastNorthCache();
+            super.cacheEastNorth(index, cacheKey, east, north);
+        }
+
+        @Override
+        void invalidateEastNorthCache(int index) {
+            super.invalidateEastNorthCache(index);
+            invalidateEastNorthCache();
+        }
+
+        @Override
+        int allocate() {
+            return 0;
+        }
+
+        @Override
+        void release(int index) {
+            // Nothing to release
+        }
+
+        @Override
+        int size() {
+            return 1;
+        }
+    }
+
+    /**
+     * The store shared by the nodes which do not belong to a data set and have no coordinates yet.
+     * It is never written to, a {@link Single} store is allocated when the coordinates of such a node are set.
+     */
+    static final class Unset extends NodeCoordinateStore {
+        static final Unset INSTANCE = new Unset();
+
+        private Unset() {
+            // Use INSTANCE
+        }
+
+        @Override
+        double get(int index, int column) {
+            return Double.NaN;
+        }
+
+        @Override
+        void set(int index, int column, double value) {
+            throw new UnsupportedOperationException("The unset coordinates store is read-only");
+        }
+
+        @Override
+        void cacheEastNorth(int index, Object cacheKey, double east, double north) {
+            // Nothing is cached for unknown coordinates
+        }
+
+        @Override
+        void invalidateEastNorthCache(int index) {
+            // Nothing is cached for unknown coordinates
+        }
+
+        @Override
+        void invalidateEastNorthCache() {
+            // Nothing is cached for unknown coordinates
+        }
+
+        @Override
+        int allocate() {
+            return 0;
+        }
+
+        @Override
+        void release(int index) {
+            // Nothing to release
+        }
+
+        @Override
+        int size() {
+            return 0;
+        }
+    }
+
+    /**
+     * A store of many nodes, with the columns split in chunks of fixed size. Chunks are never moved once allocated,
+     * so the coordinates of a slot can be read while the store grows.
+     * @param <C> the type of chunks
+     */
+    private abstract static class ChunkedStore<C> extends NodeCoordinateStore {
+        static final int CHUNK_SHIFT = 12;
+        static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+        static final int CHUNK_MASK = CHUNK_SIZE - 1;
+        /** The number of coordinates projected at once by {@link #cacheEastNorth(Projecting, int)} */
+        static final int PROJECT_BATCH_SIZE = 1 << 16;
+
+        private volatile Object[] chunks = new Object[0];
+        private int size;
+        private int allocated;
+        private int[] free = new int[16];
+        private int freeCount;
+
+        abstract C newChunk();
+
+        abstract double get(C chunk, int offset);
+
+        abstract void set(C chunk, int offset, double value);
+
+        @SuppressWarnings("unchecked")
+        private C chunk(int index) {
+            return (C) chunks[index >>> CHUNK_SHIFT];
+        }
+
+        @Override
+        final double get(int index, int column) {
+            return get(chunk(index), (column << CHUNK_SHIFT) | (index & CHUNK_MASK));
+        }
+
+        @Override
+        final void set(int index, int column, double value) {
+            set(chunk(index), (column << CHUNK_SHIFT) | (index & CHUNK_MASK), value);
+        }
+
+        @Override
+        final int allocate() {
+            int index;
+            if (freeCount > 0) {
+                index = free[--freeCount];
+            } else {
+                index = allocated++;
+                if ((index >>> CHUNK_SHIFT) >= chunks.length) {
+                    Object[] newChunks = Arrays.copyOf(chunks, chunks.length + 1);
+                    newChunks[chunks.length] = newChunk();
+                    chunks = newChunks;
+                }
+            }
+            for (int column = 0; column < COLUMNS; column++) {
+                set(index, column, Double.NaN);
+            }
+            size++;
+            return index;
+        }
+
+        @Override
+        final void release(int index) {
+            if (freeCount == free.length) {
+                free = Arrays.copyOf(free, free.length * 2);
+            }
+            free[freeCount++] = index;
+            size--;
+        }
+
+        @Override
+        final int size() {
+            return size;
+        }
+
+        @Override
+        final int cacheEastNorth(Projecting projection, int start) {
+            int n = Math.min(PROJECT_BATCH_SIZE, allocated - start);
+            if (n <= 0)
+                return -1;
+            Object cacheKey = projection.getCacheKey();
+            double[] lat = new double[n];
+            double[] lon = new double[n];
+            double[] east = new double[n];
+            double[] north = new double[n];
+            for (int i = 0; i < n; i++) {
+                lat[i] = get(start + i, LAT);
+                lon[i] = get(start + i, LON);
+            }
+            projection.project(lat, lon, east, north, n);
+            for (int i = 0; i < n; i++) {
+                // slots with unknown coordinates are not cached
+                if (!Double.isNaN(lat[i]) && !Double.isNaN(lon[i])) {
+                    cacheEastNorth(start + i, cacheKey, east[i], north[i]);
+                }
+            }
+            return start + n < allocated ? start + n : -1;
+        }
+
+        @Override
+        final void invalidateEastNorthCache() {
+            for (int index = 0; index < allocated; index++) {
+                invalidateEastNorthCache(index);
+            }
+            super.invalidateEastNorthCache();
+        }
+    }
+
+    /**
+     * Stores the coordinates in {@code double} arrays on the heap
+     */
+    private static final class HeapStore extends ChunkedStore<double[]> {
+        @Override
+        double[] newChunk() {
+            return new double[COLUMNS * CHUNK_SIZE];
+        }
+
+        @Override
+        double get(double[] chunk, int offset) {
+            return chunk[offset];
+        }
+
+        @Override
+        void set(double[] chunk, int offset, double value) {
+            chunk[offset] = value;
+        }
+    }
+
+    /**
+     * Stores the coordinates in direct buffers, outside of the Java heap.
+     * The memory is released when the store is garbage collected.
+     */
+    private static final class DirectStore extends ChunkedStore<DoubleBuffer> {
+        @Override
+        DoubleBuffer newChunk() {
+            return ByteBuffer.allocateDirect(COLUMNS * CHUNK_SIZE * Double.BYTES).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+        }
+
+        @Override
+        double get(DoubleBuffer chunk, int offset) {
+            return chunk.get(offset);
+        }
+
+        @Override
+        void set(DoubleBuffer chunk, int offset, double value) {
+            chunk.put(offset, value);
+        }
+    }
+}
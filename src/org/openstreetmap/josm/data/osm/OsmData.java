@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 
 import org.openstreetmap.josm.data.Data;
@@ -72,6 +73,16 @@ public interface OsmData<O extends IPrimitive, N extends INode, W extends IWay<N
      */
     List<N> searchNodes(BBox bbox);
 
+    /**
+     * Searches for nodes in the given bounding box, without collecting them in a list.
+     * @param bbox the bounding box
+     * @param consumer the consumer of the nodes in the given bbox
+     * @since xxx
+     */
+    default void searchNodes(BBox bbox, Consumer<? super N> consumer) {
+        searchNodes(bbox).forEach(consumer);
+    }
+
     /**
      * Determines if the given node can be retrieved in the data set through its bounding box. Useful for dataset consistency test.
      * @param n The node to search
@@ -86,6 +97,16 @@ public interface OsmData<O extends IPrimitive, N extends INode, W extends IWay<N
      */
     List<W> searchWays(BBox bbox);
 
+    /**
+     * Searches for ways in the given bounding box, without collecting them in a list.
+     * @param bbox the bounding box
+     * @param consumer the consumer of the ways in the given bbox
+     * @since xxx
+     */
+    default void searchWays(BBox bbox, Consumer<? super W> consumer) {
+        searchWays(bbox).forEach(consumer);
+    }
+
     /**
      * Determines if the given way can be retrieved in the data set through its bounding box. Useful for dataset consistency test.
      * @param w The way to search
@@ -3,7 +3,9 @@ package org.openstreetmap.josm.data.osm;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.ConcurrentModificationException;
 import java.util.List;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -47,6 +49,28 @@ public class QuadBucketPrimitiveStore<N extends INode, W extends IWay<N>, R exte
         return nodes.search(bbox);
     }
 
+    /**
+     * Searches for nodes in the given bounding box, without holding a lock.
+     * @param bbox the bounding box
+     * @param valid returns {@code false} if the store may have been modified since the search started
+     * @return List of nodes in the given bbox. Can be empty but not null
+     * @throws ConcurrentModificationException if the store is known to have been modified during the search
+     * @since xxx
+     */
+    List<N> searchNodes(BBox bbox, BooleanSupplier valid) {
+        return nodes.search(bbox, valid);
+    }
+
+    /**
+     * Searches for nodes in the given bounding box, without collecting them in a list.
+     * @param bbox the bounding box
+     * @param consumer the consumer of the nodes in the given bbox
+     * @since xxx
+     */
+    public void searchNodes(BBox bbox, Consumer<? super N> consumer) {
+        nodes.search(bbox, consumer);
+    }
+
     /**
      * Determines if the given node can be retrieved in the store through its bounding box. Useful for dataset consistency test.
      * @param n The node to search
@@ -65,6 +89,28 @@ public class QuadBucketPrimitiveStore<N extends INode, W extends IWay<N>, R exte
         return ways.search(bbox);
     }
 
+    /**
+     * Searches for ways in the given bounding box, without holding a lock.
+     * @param bbox the bounding box
+     * @param valid returns {@code false} if the store may have been modified since the search started
+     * @return List of ways in the given bbox. Can be empty but not null
+     * @throws ConcurrentModificationException if the store is known to have been modified during the search
+     * @since xxx
+     */
+    List<W> searchWays(BBox bbox, BooleanSupplier valid) {
+        return ways.search(bbox, valid);
+    }
+
+    /**
+     * Searches for ways in the given bounding box, without collecting them in a list.
+     * @param bbox the bounding box
+     * @param consumer the consumer of the ways in the given bbox
+     * @since xxx
+     */
+    public void searchWays(BBox bbox, Consumer<? super W> consumer) {
+        ways.search(bbox, consumer);
+    }
+
     /**
      * Determines if the given way can be retrieved in the store through its bounding box. Useful for dataset consistency test.
      * @param w The way to search
@@ -86,6 +132,26 @@ public class QuadBucketPrimitiveStore<N extends INode, W extends IWay<N>, R exte
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Searches for relations in the given bounding box, without holding a lock.
+     * @param bbox the bounding box
+     * @param valid returns {@code false} if the store may have been modified since the search started
+     * @return List of relations in the given bbox. Can be empty but not null
+     * @throws ConcurrentModificationException if the store is known to have been modified during the search
+     * @since xxx
+     */
+    List<R> searchRelations(BBox bbox, BooleanSupplier valid) {
+        List<R> result = new ArrayList<>();
+        for (R r : relations) {
+            if (!valid.getAsBoolean())
+                throw new ConcurrentModificationException();
+            if (r.getBBox().intersects(bbox)) {
+                result.add(r);
+            }
+        }
+        return result;
+    }
+
     /**
      * Determines if the given relation can be retrieved in the store through its bounding box. Useful for dataset consistency test.
      * @param r The relation to search
@@ -115,6 +181,34 @@ public class QuadBucketPrimitiveStore<N extends INode, W extends IWay<N>, R exte
         }
     }
 
+    /**
+     * Adds primitives to this quad bucket store.
+     * This is much faster than adding them one by one if the store is empty, since the quad buckets are then bulk loaded.
+     *
+     * @param primitives the primitives
+     * @since xxx
+     */
+    @SuppressWarnings("unchecked")
+    public void addPrimitives(Collection<? extends IPrimitive> primitives) {
+        List<N> newNodes = new ArrayList<>();
+        List<W> newWays = new ArrayList<>();
+        List<R> newRelations = new ArrayList<>();
+        for (IPrimitive primitive : primitives) {
+            if (primitive instanceof INode) {
+                newNodes.add((N) primitive);
+            } else if (primitive instanceof IWay) {
+                newWays.add((W) primitive);
+            } else if (primitive instanceof IRelation) {
+                newRelations.add((R) primitive);
+            } else {
+                throw new JosmRuntimeException("failed to add primitive: "+primitive);
+            }
+        }
+        nodes.addAll(newNodes);
+        ways.addAll(newWays);
+        relations.addAll(newRelations);
+    }
+
     protected void removePrimitive(IPrimitive primitive) {
         boolean success = false;
         if (primitive instanceof INode) {
@@ -4,10 +4,15 @@ package org.openstreetmap.josm.data.osm;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 import java.util.stream.IntStream;
 
 import org.openstreetmap.josm.data.IQuadBucketType;
@@ -37,6 +42,8 @@ public class QuadBuckets<T extends IQuadBucketType> implements Collection<T> {
     }
 
     private static final int MAX_OBJECTS_PER_NODE = 48;
+    /** Minimum number of objects of a subtree to build it in a separate task during a bulk load */
+    private static final int BULK_LOAD_TASK_THRESHOLD = 16_384;
 
     static class QBLevel<T extends IQuadBucketType> extends BBox {
         private final byte level;
@@ -181,7 +188,7 @@ public class QuadBuckets<T extends IQuadBucketType> implements Collection<T> {
             return o.getBBox().intersects(searchBbox);
         }
 
-        private void searchContents(BBox searchBbox, List<T> result) {
+        private void searchContents(BBox searchBbox, Consumer<? super T> result) {
             /*
              * It is possible that this was created in a split
              * but never got any content populated.
@@ -191,7 +198,7 @@ public class QuadBuckets<T extends IQuadBucketType> implements Collection<T> {
 
             for (T o : content) {
                 if (matches(o, searchBbox)) {
-                    result.add(o);
+                    result.accept(o);
                 }
             }
         }
@@ -295,10 +302,12 @@ public class QuadBuckets<T extends IQuadBucketType> implements Collection<T> {
             findBucket(o.getBBox()).doAdd(o);
         }
 
-        private void search(QuadBuckets<T> buckets, BBox searchBbox, List<T> result) {
+        private void search(QuadBuckets<T> buckets, BBox searchBbox, Consumer<? super T> result, BooleanSupplier valid) {
+            if (valid != null && !valid.getAsBoolean())
+                throw new ConcurrentModificationException();
             if (!this.intersects(searchBbox))
                 return;
-            else if (this.bounds(searchBbox)) {
+            else if (buckets != null && this.bounds(searchBbox)) {
                 buckets.searchCache = this;
             }
 
@@ -309,16 +318,16 @@ public class QuadBuckets<T extends IQuadBucketType> implements Collection<T> {
             //TODO Coincidence vector should be calculated here and only buckets that match search_bbox should be checked
 
             if (nw != null) {
-                nw.search(buckets, searchBbox, result);
+                nw.search(buckets, searchBbox, result, valid);
             }
             if (ne != null) {
-                ne.search(buckets, searchBbox, result);
+                ne.search(buckets, searchBbox, result, valid);
             }
             if (se != null) {
-                se.search(buckets, searchBbox, result);
+                se.search(buckets, searchBbox, result, valid);
             }
             if (sw != null) {
-                sw.search(buckets, searchBbox, result);
+                sw.search(buckets, searchBbox, result, valid);
             }
         }
 
@@ -413,9 +422,144 @@ public class QuadBuckets<T extends IQuadBucketType> implements Collection<T> {
         return objects.stream().map(this::remove).reduce(false, (a, b) -> a || b);
     }
 
+    /**
+     * Adds all objects of the collection.
+     * <p>
+     * If this collection is empty, the tree is bulk loaded: the objects are partitioned by their quad tile index,
+     * level by level, and each bucket is created once with its final content, instead of splitting the buckets over and
+     * over while the objects are added one by one. Large subtrees are built in parallel.
+     * @param objects the objects to add
+     * @return {@code true} if this collection changed
+     */
     @Override
     public boolean addAll(Collection<? extends T> objects) {
-        return objects.stream().map(this::add).reduce(false, (a, b) -> a || b);
+        if (size > 0 || objects.size() <= MAX_OBJECTS_PER_NODE) {
+            return objects.stream().map(this::add).reduce(false, (a, b) -> a || b);
+        }
+        BulkLoad<T> load = new BulkLoad<>(objects.size());
+        for (T o : objects) {
+            BBox bbox = o.getBBox();
+            if (bbox.isValid()) {
+                load.items[load.count] = o;
+                // Nodes are located with their coordinates, to avoid allocating a bounding box at each level
+                load.bboxes[load.count] = o instanceof ILatLon ? null : bbox;
+                load.count++;
+            } else {
+                invalidBBoxPrimitives.add(o);
+            }
+        }
+        searchCache = null;
+        BulkLoadTask<T> task = new BulkLoadTask<>(load, root, 0, load.count);
+        if (load.count >= BULK_LOAD_TASK_THRESHOLD) {
+            ForkJoinPool.commonPool().invoke(task);
+        } else {
+            task.compute();
+        }
+        size += objects.size();
+        return true;
+    }
+
+    /**
+     * The objects of a bulk load, which are reordered by quad tile index while the tree is built.
+     * The tasks building each subtree only access the range of the arrays of their subtree.
+     * @param <T> type of object
+     */
+    private static final class BulkLoad<T extends IQuadBucketType> {
+        private final Object[] items;
+        private final BBox[] bboxes;
+        private final byte[] indexes;
+        private final Object[] tmpItems;
+        private final BBox[] tmpBboxes;
+        private int count;
+
+        BulkLoad(int capacity) {
+            items = new Object[capacity];
+            bboxes = new BBox[capacity];
+            indexes = new byte[capacity];
+            tmpItems = new Object[capacity];
+            tmpBboxes = new BBox[capacity];
+        }
+
+        byte getIndex(int i, int level) {
+            if (bboxes[i] == null) {
+                ILatLon ll = (ILatLon) items[i];
+                return QuadTiling.index(ll.lat(), ll.lon(), level);
+            }
+            return bboxes[i].getIndex(level);
+        }
+
+        @SuppressWarnings("unchecked")
+        List<T> getItems(int from, int to) {
+            List<T> list = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                list.add((T) items[i]);
+            }
+            return list;
+        }
+    }
+
+    /**
+     * Builds the subtree of a bucket from a range of the objects of a bulk load.
+     * @param <T> type of object
+     */
+    private static final class BulkLoadTask<T extends IQuadBucketType> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final transient BulkLoad<T> load;
+        private final transient QBLevel<T> bucket;
+        private final int from;
+        private final int to;
+
+        BulkLoadTask(BulkLoad<T> load, QBLevel<T> bucket, int from, int to) {
+            this.load = load;
+            this.bucket = bucket;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= MAX_OBJECTS_PER_NODE || bucket.level >= QuadTiling.NR_LEVELS) {
+                if (to > from) {
+                    bucket.content = load.getItems(from, to);
+                }
+                return;
+            }
+            // Counting sort of the range by index: first the objects which stay in this bucket (index -1), then each child
+            int[] starts = new int[QuadTiling.TILES_PER_LEVEL + 2];
+            for (int i = from; i < to; i++) {
+                byte idx = load.getIndex(i, bucket.level);
+                load.indexes[i] = idx;
+                starts[idx + 2]++;
+            }
+            starts[0] = from;
+            for (int k = 1; k < starts.length; k++) {
+                starts[k] += starts[k - 1];
+            }
+            int[] next = Arrays.copyOf(starts, starts.length);
+            for (int i = from; i < to; i++) {
+                int dest = next[load.indexes[i] + 1]++;
+                load.tmpItems[dest] = load.items[i];
+                load.tmpBboxes[dest] = load.bboxes[i];
+            }
+            System.arraycopy(load.tmpItems, from, load.items, from, to - from);
+            System.arraycopy(load.tmpBboxes, from, load.bboxes, from, to - from);
+
+            bucket.isLeaf = false;
+            if (starts[1] > from) {
+                bucket.content = load.getItems(from, starts[1]);
+            }
+            List<BulkLoadTask<T>> tasks = new ArrayList<>(QuadTiling.TILES_PER_LEVEL);
+            for (byte idx = 0; idx < QuadTiling.TILES_PER_LEVEL; idx++) {
+                if (starts[idx + 2] > starts[idx + 1]) {
+                    tasks.add(new BulkLoadTask<>(load, bucket.getChild(idx), starts[idx + 1], starts[idx + 2]));
+                }
+            }
+            if (to - from >= BULK_LOAD_TASK_THRESHOLD) {
+                invokeAll(tasks);
+            } else {
+                tasks.forEach(BulkLoadTask::compute);
+            }
+        }
     }
 
     @Override
@@ -578,8 +722,38 @@ public class QuadBuckets<T extends IQuadBucketType> implements Collection<T> {
      */
     public List<T> search(BBox searchBbox) {
         List<T> ret = new ArrayList<>();
+        search(searchBbox, ret::add);
+        return ret;
+    }
+
+    /**
+     * Search the tree for objects in the bbox (or crossing the bbox if they are ways), without holding a lock.
+     * The search starts at the root and neither reads nor updates the search cache, since a concurrent search must not
+     * leave a detached bucket in the cache. It stops as soon as the tree is known to have been modified concurrently,
+     * so that it cannot follow a bucket being split for long.
+     * @param searchBbox the bbox
+     * @param valid checked at each bucket, returns {@code false} if the tree may have been modified since the search started
+     * @return List of primitives within the bbox (or crossing the bbox if they are ways). Can be empty, but not null.
+     * @throws ConcurrentModificationException if {@code valid} returns {@code false}
+     * @since xxx
+     */
+    List<T> search(BBox searchBbox, BooleanSupplier valid) {
+        List<T> ret = new ArrayList<>();
+        if (searchBbox != null && searchBbox.isValid()) {
+            root.search(null, searchBbox, ret::add, valid);
+        }
+        return ret;
+    }
+
+    /**
+     * Search the tree for objects in the bbox (or crossing the bbox if they are ways), without collecting them in a list.
+     * @param searchBbox the bbox
+     * @param consumer the consumer of the primitives within the bbox (or crossing the bbox if they are ways)
+     * @since xxx
+     */
+    public void search(BBox searchBbox, Consumer<? super T> consumer) {
         if (searchBbox == null || !searchBbox.isValid()) {
-            return ret;
+            return;
         }
 
         // Doing this cuts down search cost on a real-life data set by about 25%
@@ -599,14 +773,13 @@ public class QuadBuckets<T extends IQuadBucketType> implements Collection<T> {
         // Save parent because searchCache might change during search call
         QBLevel<T> tmp = searchCache.parent;
 
-        searchCache.search(this, searchBbox, ret);
+        searchCache.search(this, searchBbox, consumer, null);
 
         // A way that spans this bucket may be stored in one
         // of the nodes which is a parent of the search cache
         while (tmp != null) {
-            tmp.searchContents(searchBbox, ret);
+            tmp.searchContents(searchBbox, consumer);
             tmp = tmp.parent;
         }
-        return ret;
     }
 }
@@ -0,0 +1,236 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiPredicate;
+import java.util.function.ToIntFunction;
+
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * A pool of tag keys and values shared by the readers and the primitives, to avoid keeping many copies of the same strings.
+ * <p>
+ * The pool keeps weak references only: strings and tag sets which are no longer used by any primitive are garbage collected.
+ * In addition to the strings, the key/value arrays of very common tag sets (like {@code building=yes} or
+ * {@code highway=crossing}) are shared, see {@link #intern(String[])}.
+ * <p>
+ * The pool can be disabled with the system property {@code josm.tags.pool=false}, strings are then interned with
+ * {@link String#intern()} and tag arrays are not shared.
+ * @since xxx
+ */
+public final class TagPool {
+
+    /**
+     * The maximal number of tags of a shared tag set
+     */
+    static final int MAX_SHARED_TAGS = 2;
+
+    private static final WeakPool<String> STRINGS = new WeakPool<>(String::hashCode, String::equals);
+    private static final WeakPool<String[]> TAG_SETS = new WeakPool<>(Arrays::hashCode, Arrays::equals);
+
+    private static volatile boolean enabled = !"false".equals(Utils.getSystemProperty("josm.tags.pool"));
+
+    private TagPool() {
+        // Hide default constructor for utilities classes
+    }
+
+    /**
+     * Determines if the pool is used
+     * @return {@code true} if the pool is used
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables the pool. Strings and tag sets already shared stay shared.
+     * @param enable {@code true} to use the pool
+     */
+    public static void setEnabled(boolean enable) {
+        enabled = enable;
+    }
+
+    /**
+     * Returns the pooled instance of a string
+     * @param string the string, can be {@code null}
+     * @return the pooled instance equal to {@code string}, or {@code null}
+     */
+    public static String intern(String string) {
+        if (string == null) {
+            return null;
+        }
+        return enabled ? STRINGS.intern(string) : string.intern();
+    }
+
+    /**
+     * Returns a key/value array whose keys and values are pooled.
+     * The arrays of tag sets with at most {@value #MAX_SHARED_TAGS} tags are themselves pooled, and thus shared by all
+     * primitives with the same tags.
+     * <p>
+     * Neither the given array nor the returned one may be modified afterwards.
+     * @param tags the key/value/key/value/... array, can be {@code null}
+     * @return the pooled array, {@code tags} itself if it is already pooled or if it does not contain any tag
+     */
+    public static String[] intern(String[] tags) {
+        if (tags == null || tags.length == 0 || !enabled) {
+            return tags;
+        }
+        String[] result = tags;
+        for (int i = 0; i < tags.length; i++) {
+            // null values may be stored by putAll
+            String pooled = tags[i] != null ? STRINGS.intern(tags[i]) : null;
+            if (pooled != tags[i]) {
+                if (result == tags) {
+                    result = tags.clone();
+                }
+                result[i] = pooled;
+            }
+        }
+        return result.length <= 2 * MAX_SHARED_TAGS ? TAG_SETS.intern(result) : result;
+    }
+
+    /**
+     * The key of a pooled value, which compares the values with the equality of the pool
+     * @param <T> the type of values
+     */
+    private interface PoolKey<T> {
+        T value();
+
+        WeakPool<T> pool();
+
+        @SuppressWarnings("unchecked")
+        static <T> boolean keyEquals(PoolKey<T> key, Object other) {
+            if (key == other) {
+                return true;
+            }
+            if (!(other instanceof PoolKey) || key.hashCode() != other.hashCode()) {
+                return false;
+            }
+            PoolKey<T> otherKey = (PoolKey<T>) other;
+            T value = key.value();
+            T otherValue = otherKey.value();
+            return value != null && otherValue != null && key.pool() == otherKey.pool() && key.pool().equality.test(value, otherValue);
+        }
+    }
+
+    /**
+     * A concurrent set of weakly referenced values
+     * @param <T> the type of values
+     */
+    private static final class WeakPool<T> {
+        private final Map<PoolKey<T>, Entry<T>> map = new ConcurrentHashMap<>();
+        private final ReferenceQueue<T> queue = new ReferenceQueue<>();
+        private final ToIntFunction<T> hash;
+        private final BiPredicate<T, T> equality;
+
+        WeakPool(ToIntFunction<T> hash, BiPredicate<T, T> equality) {
+            this.hash = hash;
+            this.equality = equality;
+        }
+
+        T intern(T value) {
+            expungeStaleEntries();
+            int h = hash.applyAsInt(value);
+            Entry<T> existing = map.get(new Probe<>(this, value, h));
+            T pooled = existing != null ? existing.get() : null;
+            if (pooled != null) {
+                return pooled;
+            }
+            Entry<T> entry = new Entry<>(this, value, h, queue);
+            while (true) {
+                existing = map.putIfAbsent(entry, entry);
+                if (existing == null) {
+                    return value;
+                }
+                pooled = existing.get();
+                if (pooled != null) {
+                    return pooled;
+                }
+                map.remove(existing, existing);
+            }
+        }
+
+        private void expungeStaleEntries() {
+            Reference<? extends T> stale;
+            while ((stale = queue.poll()) != null) {
+                map.remove(stale, stale);
+            }
+        }
+    }
+
+    /**
+     * An entry of the pool
+     * @param <T> the type of values
+     */
+    private static final class Entry<T> extends WeakReference<T> implements PoolKey<T> {
+        private final WeakPool<T> pool;
+        private final int hash;
+
+        Entry(WeakPool<T> pool, T value, int hash, ReferenceQueue<T> queue) {
+            super(value, queue);
+            this.pool = pool;
+            this.hash = hash;
+        }
+
+        @Override
+        public T value() {
+            return get();
+        }
+
+        @Override
+        public WeakPool<T> pool() {
+            return pool;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return PoolKey.keyEquals(this, obj);
+        }
+    }
+
+    /**
+     * A strongly referenced value, to look up the pool
+     * @param <T> the type of values
+     */
+    private static final class Probe<T> implements PoolKey<T> {
+        private final WeakPool<T> pool;
+        private final T value;
+        private final int hash;
+
+        Probe(WeakPool<T> pool, T value, int hash) {
+            this.pool = pool;
+            this.value = value;
+            this.hash = hash;
+        }
+
+        @Override
+        public T value() {
+            return value;
+        }
+
+        @Override
+        public WeakPool<T> pool() {
+            return pool;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return PoolKey.keyEquals(this, obj);
+        }
+    }
+}
@@ -135,18 +135,18 @@ public abstract class AbstractMapRenderer implements Rendering {
         if (virtualNodeSize == 0 || data == null || bbox == null || data.isLocked())
             return;
         // print normal virtual nodes
-        GeneralPath path = new GeneralPath();
-        for (IWay<?> osm : data.searchWays(bbox)) {
+        GeneralPath virtualPath = new GeneralPath();
+        data.searchWays(bbox, osm -> {
             if (osm.isUsable() && !osm.isDisabledAndHidden() && !osm.isDisabled()) {
-                visitVirtual(path, osm);
+                visitVirtual(virtualPath, osm);
             }
-        }
+        });
         g.setColor(nodeColor);
-        g.draw(path);
+        g.draw(virtualPath);
         try {
             // print highlighted virtual nodes. Since only the color changes, simply
             // drawing them over the existing ones works fine (at least in their current simple style)
-            path = new GeneralPath();
+            GeneralPath path = new GeneralPath();
             for (WaySegment wseg: data.getHighlightedVirtualNodes()) {
                 if (wseg.getWay().isUsable() && !wseg.getWay().isDisabled()) {
                     Way tmpWay = wseg.toWay();
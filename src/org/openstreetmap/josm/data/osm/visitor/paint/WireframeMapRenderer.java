@@ -167,7 +167,7 @@ public class WireframeMapRenderer extends AbstractMapRenderer implements Primiti
         List<IWay<?>> highlightedWays = new ArrayList<>();
         List<IWay<?>> untaggedWays = new ArrayList<>();
 
-        for (final IWay<?> way : data.searchWays(bbox)) {
+        data.searchWays(bbox, way -> {
             if (way.isDrawable() && !way.isSelected() && !way.isDisabledAndHidden()) {
                 if (way.isHighlighted()) {
                     highlightedWays.add(way);
@@ -177,7 +177,7 @@ public class WireframeMapRenderer extends AbstractMapRenderer implements Primiti
                     way.accept(this);
                 }
             }
-        }
+        });
         displaySegments();
 
         // Display highlighted ways after the other ones (fix #8276)
@@ -196,11 +196,11 @@ public class WireframeMapRenderer extends AbstractMapRenderer implements Primiti
         }
         displaySegments();
 
-        for (final INode osm: data.searchNodes(bbox)) {
+        data.searchNodes(bbox, osm -> {
             if (osm.isDrawable() && !osm.isSelected() && !osm.isDisabledAndHidden()) {
                 osm.accept(this);
             }
-        }
+        });
         drawVirtualNodes(data, bbox);
 
         // draw highlighted way segments over the already drawn ways. Otherwise each
@@ -1,11 +1,13 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.data.projection;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Consumer;
 import java.util.function.DoubleUnaryOperator;
+import java.util.stream.IntStream;
 
 import org.openstreetmap.josm.data.Bounds;
 import org.openstreetmap.josm.data.ProjectionBounds;
@@ -42,6 +44,15 @@ public abstract class AbstractProjection implements Projection {
     protected double k0 = 1.0;      /* general scale factor */
     protected double toMeter = 1.0; /* switch from meters to east/north coordinate units */
 
+    /**
+     * The number of coordinates converted at once by {@link #project(double[], double[], double[], double[], int)}
+     */
+    private static final int PROJECT_CHUNK_SIZE = 1 << 13;
+    /**
+     * The minimal number of coordinates for {@link #project(double[], double[], double[], double[], int)} to use several threads
+     */
+    private static final int PROJECT_PARALLEL_THRESHOLD = 1 << 15;
+
     private volatile ProjectionBounds projectionBoundsBox;
 
     /**
@@ -124,6 +135,36 @@ public abstract class AbstractProjection implements Projection {
                 (ellps.a * k0 * en[1] + y0) / toMeter);
     }
 
+    @Override
+    public void project(double[] lat, double[] lon, double[] east, double[] north, int n) {
+        IntStream chunks = IntStream.range(0, (n + PROJECT_CHUNK_SIZE - 1) / PROJECT_CHUNK_SIZE);
+        if (n >= PROJECT_PARALLEL_THRESHOLD) {
+            chunks = chunks.parallel();
+        }
+        chunks.forEach(chunk -> {
+            int from = chunk * PROJECT_CHUNK_SIZE;
+            project(lat, lon, east, north, from, Math.min(n, from + PROJECT_CHUNK_SIZE));
+        });
+    }
+
+    private void project(double[] lat, double[] lon, double[] east, double[] north, int from, int to) {
+        int n = to - from;
+        double[] latRad = Arrays.copyOfRange(lat, from, to);
+        double[] lonRad = Arrays.copyOfRange(lon, from, to);
+        datum.fromWGS84(latRad, lonRad, n);
+        for (int i = 0; i < n; i++) {
+            latRad[i] = Utils.toRadians(latRad[i]);
+            lonRad[i] = Utils.toRadians(LatLon.normalizeLon(lonRad[i] - lon0 - pm));
+        }
+        double[] projEast = new double[n];
+        double[] projNorth = new double[n];
+        proj.project(latRad, lonRad, projEast, projNorth, n);
+        for (int i = 0; i < n; i++) {
+            east[from + i] = (ellps.a * k0 * projEast[i] + x0) / toMeter;
+            north[from + i] = (ellps.a * k0 * projNorth[i] + y0) / toMeter;
+        }
+    }
+
     @Override
     public LatLon eastNorth2latlon(EastNorth en) {
         // We know it is a latlon. Nice would be to change this method return type to ILatLon
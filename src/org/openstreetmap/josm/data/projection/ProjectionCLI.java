@@ -31,6 +31,9 @@ public class ProjectionCLI implements CLIModule {
     /** The unique instance **/
     public static final ProjectionCLI INSTANCE = new ProjectionCLI();
 
+    /** The maximal number of coordinates converted at once */
+    private static final int BATCH_SIZE = 1 << 16;
+
     private boolean argInverse;
     private boolean argSwitchInput;
     private boolean argSwitchOutput;
@@ -139,24 +142,53 @@ public class ProjectionCLI implements CLIModule {
     }
 
     private void processInput(CustomProjection fromProj, CustomProjection toProj, BufferedReader reader) throws IOException {
+        // coordinates are converted in batches, as soon as no more input is immediately available
+        double[] lat = new double[BATCH_SIZE];
+        double[] lon = new double[BATCH_SIZE];
+        double[] east = new double[BATCH_SIZE];
+        double[] north = new double[BATCH_SIZE];
+        int n = 0;
         String line;
         while ((line = reader.readLine()) != null) {
             line = line.trim();
-            if (line.isEmpty() || line.startsWith("#"))
-                continue;
-            EastNorth enIn;
-            if (fromProj.isGeographic()) {
-                enIn = parseEastNorth(line, LatLonParser::parseCoordinate);
-            } else {
-                enIn = parseEastNorth(line, ProjectionCLI::parseDouble);
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                EastNorth enIn;
+                try {
+                    if (fromProj.isGeographic()) {
+                        enIn = parseEastNorth(line, LatLonParser::parseCoordinate);
+                    } else {
+                        enIn = parseEastNorth(line, ProjectionCLI::parseDouble);
+                    }
+                } catch (IllegalArgumentException e) {
+                    // output the valid coordinates before the error
+                    printOutput(toProj, lat, lon, east, north, n);
+                    throw e;
+                }
+                LatLon ll = fromProj.eastNorth2latlon(enIn);
+                lat[n] = ll.lat();
+                lon[n] = ll.lon();
+                n++;
+            }
+            if (n == BATCH_SIZE || (n > 0 && !reader.ready())) {
+                printOutput(toProj, lat, lon, east, north, n);
+                n = 0;
             }
-            LatLon ll = fromProj.eastNorth2latlon(enIn);
-            EastNorth enOut = toProj.latlon2eastNorth(ll);
-            double cOut1 = argSwitchOutput ? enOut.north() : enOut.east();
-            double cOut2 = argSwitchOutput ? enOut.east() : enOut.north();
-            System.out.println(Double.toString(cOut1) + " " + Double.toString(cOut2));
-            System.out.flush();
         }
+        printOutput(toProj, lat, lon, east, north, n);
+    }
+
+    private void printOutput(CustomProjection toProj, double[] lat, double[] lon, double[] east, double[] north, int n) {
+        if (n == 0)
+            return;
+        toProj.project(lat, lon, east, north, n);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            double cOut1 = argSwitchOutput ? north[i] : east[i];
+            double cOut2 = argSwitchOutput ? east[i] : north[i];
+            sb.append(cOut1).append(' ').append(cOut2).append(System.lineSeparator());
+        }
+        System.out.print(sb);
+        System.out.flush();
     }
 
     private static CustomProjection createProjection(String params) throws ProjectionConfigurationException {
@@ -33,6 +33,15 @@ public class ShiftedProjecting implements Projecting {
         return base.latlon2eastNorth(ll).add(offset);
     }
 
+    @Override
+    public void project(double[] lat, double[] lon, double[] east, double[] north, int n) {
+        base.project(lat, lon, east, north, n);
+        for (int i = 0; i < n; i++) {
+            east[i] += offset.east();
+            north[i] += offset.north();
+        }
+    }
+
     @Override
     public LatLon eastNorth2latlonClamped(EastNorth en) {
         return base.eastNorth2latlonClamped(en.subtract(offset));
@@ -44,4 +44,19 @@ public interface Datum {
      * @return converted lat/lon in this datum
      */
     LatLon fromWGS84(LatLon ll);
+
+    /**
+     * Convert many lat/lon coordinates from {@link Ellipsoid#WGS84} to this datum, in place.
+     * @param lat the latitudes in WGS84, replaced by the latitudes in this datum
+     * @param lon the longitudes in WGS84, replaced by the longitudes in this datum
+     * @param n the number of coordinates to convert
+     * @since xxx
+     */
+    default void fromWGS84(double[] lat, double[] lon, int n) {
+        for (int i = 0; i < n; i++) {
+            LatLon ll = fromWGS84(new LatLon(lat[i], lon[i]));
+            lat[i] = ll.lat();
+            lon[i] = ll.lon();
+        }
+    }
 }
@@ -49,4 +49,24 @@ public class NTV2Datum extends AbstractDatum {
             throw new JosmRuntimeException(e);
         }
     }
+
+    @Override
+    public void fromWGS84(double[] lat, double[] lon, int n) {
+        try {
+            NTV2GridShiftFile shiftFile = nadgrids.getShiftFile();
+            // the same grid shifts are used for the whole batch, a coordinate outside of the grids is not shifted
+            NTV2GridShift gs = new NTV2GridShift();
+            NTV2GridShift forwardGs = new NTV2GridShift();
+            for (int i = 0; i < n; i++) {
+                gs.setLatDegrees(lat[i]);
+                gs.setLonPositiveEastDegrees(lon[i]);
+                if (shiftFile.gridShiftReverse(gs, forwardGs)) {
+                    lat[i] += gs.getLatShiftDegrees();
+                    lon[i] += gs.getLonShiftPositiveEastDegrees();
+                }
+            }
+        } catch (IOException e) {
+            throw new JosmRuntimeException(e);
+        }
+    }
 }
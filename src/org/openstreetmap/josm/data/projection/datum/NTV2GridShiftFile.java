@@ -22,6 +22,9 @@ package org.openstreetmap.josm.data.projection.datum;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -42,15 +45,13 @@ import org.openstreetmap.josm.tools.Logging;
  * The older 'Australian' binary format is not supported, only the
  * official Canadian format, which is now also used for the national
  * Australian Grid.
- * <p>Grid Shift files can be read as InputStreams or RandomAccessFiles.
+ * <p>Grid Shift files can be read as InputStreams or mapped into memory from a FileChannel.
  * Loading an InputStream places all the required node information
- * (accuracy data is optional) into heap based Java arrays. This is the
- * highest performance option, and is useful for large volume transformations.
+ * (accuracy data is optional) into heap based Java arrays.
  * Non-file data sources (eg using an SQL Blob) are also supported through
- * InputStream. The RandomAccessFile option has a much smaller memory
- * footprint as only the Sub Grid headers are stored in memory, but
- * transformation is slower because the file must be read a number of
- * times for each transformation.
+ * InputStream. Mapping a file has a much smaller heap footprint and setup time,
+ * as only the Sub Grid headers are read, and the node data is read from the
+ * mapped file when needed.
  * <p>Coordinates may be shifted Forward (ie from and to the Datums specified
  * in the Grid Shift File header) or Reverse. The reverse transformation
  * uses an iterative approach to approximate the Grid Shift, as the
@@ -62,6 +63,7 @@ import org.openstreetmap.josm.tools.Logging;
  * @author Peter Yuill
  * Modified for JOSM :
  * - removed the RandomAccessFile mode (Pieren)
+ * - added the memory mapped mode
  * @since 2507
  */
 public class NTV2GridShiftFile implements Serializable {
@@ -81,6 +83,7 @@ public class NTV2GridShiftFile implements Serializable {
     private double toSemiMinorAxis;
 
     private NTV2SubGrid[] topLevelSubGrid;
+    private NTV2SubGridIndex topLevelIndex;
     private NTV2SubGrid lastSubGrid;
 
     private static void readBytes(InputStream in, byte[] b) throws IOException {
@@ -157,7 +160,61 @@ public class NTV2GridShiftFile implements Serializable {
         for (int i = 0; i < subGridCount; i++) {
             subGrid[i] = new NTV2SubGrid(in, bigEndian, loadAccuracy);
         }
+        setSubGrids(subGrid);
+    }
+
+    /**
+     * Map a Grid Shift File into memory. Only the headers are read, the Grid Shift
+     * node data is read from the mapped file when needed. It does not occupy heap memory,
+     * and is shared with other processes using the same file.
+     * <p>The FileChannel can be closed after this method returns, the mapping stays valid.
+     *
+     * @param channel Grid Shift File channel
+     * @param loadAccuracy is Accuracy data to be used as well as shift data?
+     * @throws IOException if any I/O error occurs
+     * @throws IllegalArgumentException if the file is not a valid NTv2 grid shift file
+     * @since xxx
+     */
+    public void mapGridShiftFile(FileChannel channel, boolean loadAccuracy) throws IOException {
+        if (channel.size() < NTV2SubGrid.HEADER_SIZE || channel.size() > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Input file is not an NTv2 grid shift file");
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        fromEllipsoid = "";
+        toEllipsoid = "";
+        topLevelSubGrid = null;
+        if (!"NUM_OREC".equals(NTV2Util.getString(buffer, 0)))
+            throw new IllegalArgumentException("Input file is not an NTv2 grid shift file");
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        overviewHeaderCount = buffer.getInt(8);
+        if (overviewHeaderCount != 11) {
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            overviewHeaderCount = buffer.getInt(8);
+            if (overviewHeaderCount != 11)
+                throw new IllegalArgumentException("Input file is not an NTv2 grid shift file");
+        }
+        subGridHeaderCount = buffer.getInt(24);
+        subGridCount = buffer.getInt(40);
+        shiftType = NTV2Util.getString(buffer, 56);
+        version = NTV2Util.getString(buffer, 72);
+        fromEllipsoid = NTV2Util.getString(buffer, 88);
+        toEllipsoid = NTV2Util.getString(buffer, 104);
+        fromSemiMajorAxis = buffer.getDouble(120);
+        fromSemiMinorAxis = buffer.getDouble(136);
+        toSemiMajorAxis = buffer.getDouble(152);
+        toSemiMinorAxis = buffer.getDouble(168);
+
+        NTV2SubGrid[] subGrid = new NTV2SubGrid[subGridCount];
+        int offset = overviewHeaderCount * 16;
+        for (int i = 0; i < subGridCount; i++) {
+            subGrid[i] = new NTV2SubGrid(buffer, offset, loadAccuracy);
+            offset += subGrid[i].getFileSize();
+        }
+        setSubGrids(subGrid);
+    }
+
+    private void setSubGrids(NTV2SubGrid... subGrid) {
         topLevelSubGrid = createSubGridTree(subGrid);
+        topLevelIndex = NTV2SubGridIndex.create(topLevelSubGrid);
         lastSubGrid = topLevelSubGrid[0];
     }
 
@@ -210,7 +267,7 @@ public class NTV2GridShiftFile implements Serializable {
             subGrid = lastSubGrid.getSubGridForCoord(gs.getLonPositiveWestSeconds(), gs.getLatSeconds());
         }
         if (subGrid == null) {
-            subGrid = getSubGrid(topLevelSubGrid, gs.getLonPositiveWestSeconds(), gs.getLatSeconds());
+            subGrid = NTV2SubGrid.getSubGrid(topLevelSubGrid, topLevelIndex, gs.getLonPositiveWestSeconds(), gs.getLatSeconds());
         }
         if (subGrid == null) {
             return false;
@@ -229,8 +286,20 @@ public class NTV2GridShiftFile implements Serializable {
      * @return True if the coordinate is within a Sub Grid, false if not
      */
     public boolean gridShiftReverse(NTV2GridShift gs) {
+        return gridShiftReverse(gs, new NTV2GridShift());
+    }
+
+    /**
+     * Shift a coordinate in the Reverse direction of the Grid Shift File, with a given object for the intermediate
+     * forward shifts, so that many coordinates can be shifted without allocating objects.
+     *
+     * @param gs A GridShift object containing the coordinate to shift
+     * @param forwardGs A GridShift object used for the intermediate forward shifts, whatever its content
+     * @return True if the coordinate is within a Sub Grid, false if not, and then the shift of {@code gs} is unchanged
+     * @since xxx
+     */
+    public boolean gridShiftReverse(NTV2GridShift gs, NTV2GridShift forwardGs) {
         // set up the first estimate
-        NTV2GridShift forwardGs = new NTV2GridShift();
         forwardGs.setLonPositiveWestSeconds(gs.getLonPositiveWestSeconds());
         forwardGs.setLatSeconds(gs.getLatSeconds());
         for (int i = 0; i < 4; i++) {
@@ -253,24 +322,6 @@ public class NTV2GridShiftFile implements Serializable {
         return true;
     }
 
-    /**
-     * Find the finest SubGrid containing the coordinate, specified in Positive West Seconds
-     * @param topLevelSubGrid top level subgrid
-     * @param lon Longitude in Positive West Seconds
-     * @param lat Latitude in Seconds
-     * @return The SubGrid found or null
-     */
-    private static NTV2SubGrid getSubGrid(NTV2SubGrid[] topLevelSubGrid, double lon, double lat) {
-        NTV2SubGrid sub = null;
-        for (NTV2SubGrid topLevel : topLevelSubGrid) {
-            sub = topLevel.getSubGridForCoord(lon, lat);
-            if (sub != null) {
-                break;
-            }
-        }
-        return sub;
-    }
-
     @Override
     public String toString() {
         char endl = '\n';
@@ -2,6 +2,7 @@
 package org.openstreetmap.josm.data.projection.datum;
 
 import java.io.InputStream;
+import java.nio.file.Path;
 
 /**
  * Source of NTV2 grid shift files (local directory, download, etc.).
@@ -16,4 +17,14 @@ public interface NTV2GridShiftFileSource {
      */
     InputStream getNTV2GridShiftFile(String gridFileName);
 
+    /**
+     * Locate grid file with given name in the local file system, so that it can be memory mapped.
+     * @param gridFileName the name of the grid file
+     * @return the path of the local file, or {@code null} if the file is not available as a local file
+     * @since xxx
+     */
+    default Path getNTV2GridShiftFilePath(String gridFileName) {
+        return null;
+    }
+
 }
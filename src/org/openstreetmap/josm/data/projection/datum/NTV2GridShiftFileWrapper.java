@@ -3,15 +3,22 @@ package org.openstreetmap.josm.data.projection.datum;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Objects;
 import java.util.TreeMap;
 
+import org.openstreetmap.josm.spi.preferences.Config;
+import org.openstreetmap.josm.tools.Logging;
+
 /**
  * Wrapper for {@link NTV2GridShiftFile}.
  *
  * Loads the shift file from disk, when it is first accessed.
+ * Local files are mapped into memory, unless disabled by the {@code ntv2.memory-mapped} preference.
  * @since 5226
  */
 public class NTV2GridShiftFileWrapper {
@@ -56,6 +63,12 @@ public class NTV2GridShiftFileWrapper {
         if (instance == null) {
             for (Map.Entry<Float, NTV2GridShiftFileSource> entry : sources.entrySet()) {
                 NTV2GridShiftFileSource source = entry.getValue();
+                if (Config.getPref().getBoolean("ntv2.memory-mapped", true)) {
+                    instance = mapShiftFile(source);
+                    if (instance != null) {
+                        break;
+                    }
+                }
                 try (InputStream is = source.getNTV2GridShiftFile(gridFileName)) {
                     if (is != null) {
                         NTV2GridShiftFile ntv2 = new NTV2GridShiftFile();
@@ -71,4 +84,19 @@ public class NTV2GridShiftFileWrapper {
         }
         return instance;
     }
+
+    private NTV2GridShiftFile mapShiftFile(NTV2GridShiftFileSource source) {
+        Path path = source.getNTV2GridShiftFilePath(gridFileName);
+        if (path != null) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                NTV2GridShiftFile ntv2 = new NTV2GridShiftFile();
+                ntv2.mapGridShiftFile(channel, false);
+                return ntv2;
+            } catch (IOException | IllegalArgumentException | IllegalStateException | UnsupportedOperationException ex) {
+                Logging.warn("Unable to map NTV2 grid shift file " + path + ", loading it into memory");
+                Logging.debug(ex);
+            }
+        }
+        return null;
+    }
 }
@@ -6,6 +6,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -42,6 +43,33 @@ public final class NTV2Proj4DirGridShiftFileSource implements NTV2GridShiftFileS
 
     @Override
     public InputStream getNTV2GridShiftFile(String gridFileName) {
+        File grid = findGridFile(gridFileName);
+        if (grid != null) {
+            try {
+                return Files.newInputStream(grid.getAbsoluteFile().toPath());
+            } catch (IOException | InvalidPathException ex) {
+                Logging.warn("Unable to open NTV2 grid shift file: " + grid);
+                Logging.debug(ex);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Path getNTV2GridShiftFilePath(String gridFileName) {
+        File grid = findGridFile(gridFileName);
+        if (grid != null) {
+            try {
+                return grid.getAbsoluteFile().toPath();
+            } catch (InvalidPathException ex) {
+                Logging.warn("Unable to open NTV2 grid shift file: " + grid);
+                Logging.debug(ex);
+            }
+        }
+        return null;
+    }
+
+    private File findGridFile(String gridFileName) {
         // Check is the grid is installed in default PROJ.4 directories
         File grid = Platform.determinePlatform().accept(this).stream()
                 .map(dir -> new File(dir, gridFileName))
@@ -60,15 +88,7 @@ public final class NTV2Proj4DirGridShiftFileSource implements NTV2GridShiftFileS
                 }
             }
         }
-        if (grid != null) {
-            try {
-                return Files.newInputStream(grid.getAbsoluteFile().toPath());
-            } catch (IOException | InvalidPathException ex) {
-                Logging.warn("Unable to open NTV2 grid shift file: " + grid);
-                Logging.debug(ex);
-            }
-        }
-        return null;
+        return grid;
     }
 
     private static List<File> visit(String prefSuffix, String... defaults) {
@@ -21,10 +21,10 @@ package org.openstreetmap.josm.data.projection.datum;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
-import java.util.Objects;
 
 import org.openstreetmap.josm.tools.Logging;
 import org.openstreetmap.josm.tools.Utils;
@@ -44,6 +44,15 @@ public class NTV2SubGrid implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    /** The size of a Sub Grid header in a Grid Shift File: 11 records of 16 bytes */
+    static final int HEADER_SIZE = 11 * 16;
+    /** The size of the data of a node in a Grid Shift File: the lat/lon shift and accuracy values */
+    private static final int NODE_SIZE = 16;
+    private static final int LAT_SHIFT = 0;
+    private static final int LON_SHIFT = 4;
+    private static final int LAT_ACCURACY = 8;
+    private static final int LON_ACCURACY = 12;
+
     private final String subGridName;
     private final String parentSubGridName;
     private final String created;
@@ -58,12 +67,16 @@ public class NTV2SubGrid implements Serializable {
 
     private final int lonColumnCount;
     private final int latRowCount;
-    private final float[] latShift;
-    private final float[] lonShift;
+    private float[] latShift;
+    private float[] lonShift;
     private float[] latAccuracy;
     private float[] lonAccuracy;
+    /** The node data of a memory mapped file, read when needed instead of the arrays */
+    private transient ByteBuffer nodeData;
+    private boolean nodeDataAccuracy;
 
     private NTV2SubGrid[] subGrid;
+    private NTV2SubGridIndex subGridIndex;
 
     /**
      * Construct a Sub Grid from an InputStream, loading the node data into
@@ -152,12 +165,55 @@ public class NTV2SubGrid implements Serializable {
         }
     }
 
+    /**
+     * Construct a Sub Grid from a memory mapped Grid Shift File. Only the header is read,
+     * the node data is read from the buffer when needed.
+     *
+     * @param buffer the Grid Shift File buffer, with the byte order of the file
+     * @param offset the offset of the Sub Grid header in the buffer
+     * @param loadAccuracy is the node Accuracy data to be used?
+     * @since xxx
+     */
+    NTV2SubGrid(ByteBuffer buffer, int offset, boolean loadAccuracy) {
+        subGridName = NTV2Util.getString(buffer, offset + 8).trim();
+        parentSubGridName = NTV2Util.getString(buffer, offset + 24).trim();
+        created = NTV2Util.getString(buffer, offset + 40);
+        updated = NTV2Util.getString(buffer, offset + 56);
+        minLat = buffer.getDouble(offset + 72);
+        maxLat = buffer.getDouble(offset + 88);
+        minLon = buffer.getDouble(offset + 104);
+        maxLon = buffer.getDouble(offset + 120);
+        latInterval = buffer.getDouble(offset + 136);
+        lonInterval = buffer.getDouble(offset + 152);
+        lonColumnCount = 1 + (int) ((maxLon - minLon) / lonInterval);
+        latRowCount = 1 + (int) ((maxLat - minLat) / latInterval);
+        nodeCount = buffer.getInt(offset + 168);
+        if (nodeCount != lonColumnCount * latRowCount)
+            throw new IllegalStateException("SubGrid " + subGridName + " has inconsistent grid dimesions");
+        int dataOffset = offset + HEADER_SIZE;
+        if (dataOffset < 0 || (long) dataOffset + (long) nodeCount * NODE_SIZE > buffer.limit())
+            throw new IllegalStateException("SubGrid " + subGridName + " exceeds the grid shift file");
+        ByteBuffer data = buffer.duplicate();
+        data.position(dataOffset);
+        data.limit(dataOffset + nodeCount * NODE_SIZE);
+        nodeData = data.slice().order(buffer.order());
+        nodeDataAccuracy = loadAccuracy;
+    }
+
     private static void readBytes(InputStream in, byte[] b) throws IOException {
         if (in.read(b) < b.length) {
             Logging.error("Failed to read expected amount of bytes ("+ b.length +") from stream");
         }
     }
 
+    /**
+     * Returns the size of this Sub Grid in a Grid Shift File
+     * @return the size of the header and node data, in bytes
+     */
+    int getFileSize() {
+        return HEADER_SIZE + nodeCount * NODE_SIZE;
+    }
+
     /**
      * Tests if a specified coordinate is within this Sub Grid
      * or one of its Sub Grids. If the coordinate is outside
@@ -172,15 +228,31 @@ public class NTV2SubGrid implements Serializable {
      * @return the Sub Grid containing the Coordinate or null
      */
     public NTV2SubGrid getSubGridForCoord(double lon, double lat) {
-        return !isCoordWithin(lon, lat)
-                ? null
-                : subGrid == null
-                ? this
-                : Arrays.stream(subGrid)
-                .filter(aSubGrid -> aSubGrid.isCoordWithin(lon, lat))
-                .map(aSubGrid -> aSubGrid.getSubGridForCoord(lon, lat))
-                .filter(Objects::nonNull)
-                .findFirst().orElse(this);
+        if (!isCoordWithin(lon, lat))
+            return null;
+        if (subGrid == null)
+            return this;
+        NTV2SubGrid sub = getSubGrid(subGrid, subGridIndex, lon, lat);
+        return sub != null ? sub : this;
+    }
+
+    /**
+     * Find the first of the Sub Grids containing the coordinate, and the finest SubGrid containing it within that one
+     * @param subGrids the Sub Grids
+     * @param index the index of the Sub Grids, or {@code null} to test all of them
+     * @param lon Longitude in Positive West Seconds
+     * @param lat Latitude in Seconds
+     * @return The SubGrid found or null
+     */
+    static NTV2SubGrid getSubGrid(NTV2SubGrid[] subGrids, NTV2SubGridIndex index, double lon, double lat) {
+        if (index != null)
+            return index.getSubGridForCoord(lon, lat);
+        for (NTV2SubGrid aSubGrid : subGrids) {
+            NTV2SubGrid sub = aSubGrid.getSubGridForCoord(lon, lat);
+            if (sub != null)
+                return sub;
+        }
+        return null;
     }
 
     /**
@@ -237,6 +309,11 @@ public class NTV2SubGrid implements Serializable {
         int indexC = indexA + lonColumnCount;
         int indexD = indexC + 1;
 
+        if (nodeData != null) {
+            interpolateMappedGridShift(gs, indexA, indexB, indexC, indexD, x, y);
+            return;
+        }
+
         gs.setLonShiftPositiveWestSeconds(interpolate(
                 lonShift[indexA], lonShift[indexB], lonShift[indexC], lonShift[indexD], x, y));
 
@@ -260,6 +337,22 @@ public class NTV2SubGrid implements Serializable {
         }
     }
 
+    private void interpolateMappedGridShift(NTV2GridShift gs, int indexA, int indexB, int indexC, int indexD, double x, double y) {
+        gs.setLonShiftPositiveWestSeconds(interpolateMapped(LON_SHIFT, indexA, indexB, indexC, indexD, x, y));
+        gs.setLatShiftSeconds(interpolateMapped(LAT_SHIFT, indexA, indexB, indexC, indexD, x, y));
+        gs.setLonAccuracyAvailable(nodeDataAccuracy);
+        gs.setLatAccuracyAvailable(nodeDataAccuracy);
+        if (nodeDataAccuracy) {
+            gs.setLonAccuracySeconds(interpolateMapped(LON_ACCURACY, indexA, indexB, indexC, indexD, x, y));
+            gs.setLatAccuracySeconds(interpolateMapped(LAT_ACCURACY, indexA, indexB, indexC, indexD, x, y));
+        }
+    }
+
+    private double interpolateMapped(int field, int indexA, int indexB, int indexC, int indexD, double x, double y) {
+        return interpolate(nodeData.getFloat(indexA * NODE_SIZE + field), nodeData.getFloat(indexB * NODE_SIZE + field),
+                nodeData.getFloat(indexC * NODE_SIZE + field), nodeData.getFloat(indexD * NODE_SIZE + field), x, y);
+    }
+
     /**
      * Returns the parent sub grid name.
      * @return the parent sub grid name
@@ -298,6 +391,7 @@ public class NTV2SubGrid implements Serializable {
      */
     public void setSubGridArray(NTV2SubGrid... subGrid) {
         this.subGrid = Utils.copyArray(subGrid);
+        this.subGridIndex = this.subGrid != null ? NTV2SubGridIndex.create(this.subGrid) : null;
     }
 
     @Override
@@ -365,4 +459,26 @@ public class NTV2SubGrid implements Serializable {
     public double getMinLon() {
         return minLon;
     }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        if (nodeData != null) {
+            // the mapped node data is not serializable, store it in the arrays
+            latShift = new float[nodeCount];
+            lonShift = new float[nodeCount];
+            if (nodeDataAccuracy) {
+                latAccuracy = new float[nodeCount];
+                lonAccuracy = new float[nodeCount];
+            }
+            for (int i = 0; i < nodeCount; i++) {
+                latShift[i] = nodeData.getFloat(i * NODE_SIZE + LAT_SHIFT);
+                lonShift[i] = nodeData.getFloat(i * NODE_SIZE + LON_SHIFT);
+                if (nodeDataAccuracy) {
+                    latAccuracy[i] = nodeData.getFloat(i * NODE_SIZE + LAT_ACCURACY);
+                    lonAccuracy[i] = nodeData.getFloat(i * NODE_SIZE + LON_ACCURACY);
+                }
+            }
+            nodeData = null;
+        }
+        out.defaultWriteObject();
+    }
 }
@@ -0,0 +1,117 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.projection.datum;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Spatial index of sibling NTv2 Sub Grids, to find the Sub Grid containing a coordinate without testing all of them.
+ * <p>
+ * The area covered by the Sub Grids is divided into regular cells. Each cell lists the Sub Grids overlapping it,
+ * in their original order, so that the same Sub Grid is found as by testing all Sub Grids in order.
+ * @since xxx
+ */
+final class NTV2SubGridIndex implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** The minimal number of Sub Grids for which an index is built */
+    static final int MIN_SUB_GRIDS = 8;
+    private static final int MAX_CELLS = 256;
+
+    private final NTV2SubGrid[] subGrids;
+    private final double minLon;
+    private final double minLat;
+    private final double cellWidth;
+    private final double cellHeight;
+    private final int columns;
+    private final int rows;
+    /** For each cell, the indexes of the overlapping Sub Grids */
+    private final int[][] cells;
+
+    private NTV2SubGridIndex(NTV2SubGrid... subGrids) {
+        this.subGrids = subGrids;
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (NTV2SubGrid subGrid : subGrids) {
+            minX = Math.min(minX, subGrid.getMinLon());
+            minY = Math.min(minY, subGrid.getMinLat());
+            maxX = Math.max(maxX, subGrid.getMaxLon());
+            maxY = Math.max(maxY, subGrid.getMaxLat());
+        }
+        minLon = minX;
+        minLat = minY;
+        int size = Math.min(MAX_CELLS, 2 * (int) Math.ceil(Math.sqrt(subGrids.length)));
+        columns = size;
+        rows = size;
+        cellWidth = (maxX - minX) / columns;
+        cellHeight = (maxY - minY) / rows;
+        int[] counts = new int[columns * rows];
+        int[][] newCells = new int[columns * rows][];
+        for (int i = 0; i < subGrids.length; i++) {
+            NTV2SubGrid subGrid = subGrids[i];
+            int minColumn = column(subGrid.getMinLon());
+            int maxColumn = column(subGrid.getMaxLon());
+            int minRow = row(subGrid.getMinLat());
+            int maxRow = row(subGrid.getMaxLat());
+            for (int row = minRow; row <= maxRow; row++) {
+                for (int column = minColumn; column <= maxColumn; column++) {
+                    int cell = row * columns + column;
+                    if (newCells[cell] == null) {
+                        newCells[cell] = new int[2];
+                    } else if (counts[cell] == newCells[cell].length) {
+                        newCells[cell] = Arrays.copyOf(newCells[cell], 2 * counts[cell]);
+                    }
+                    newCells[cell][counts[cell]++] = i;
+                }
+            }
+        }
+        for (int cell = 0; cell < newCells.length; cell++) {
+            if (newCells[cell] != null) {
+                newCells[cell] = Arrays.copyOf(newCells[cell], counts[cell]);
+            }
+        }
+        cells = newCells;
+    }
+
+    /**
+     * Creates an index of Sub Grids, if there are enough of them
+     * @param subGrids the Sub Grids
+     * @return the index, or {@code null} if there are too few Sub Grids for an index to be useful
+     */
+    static NTV2SubGridIndex create(NTV2SubGrid... subGrids) {
+        return subGrids.length >= MIN_SUB_GRIDS ? new NTV2SubGridIndex(subGrids) : null;
+    }
+
+    private int column(double lon) {
+        return Math.max(0, Math.min(columns - 1, (int) ((lon - minLon) / cellWidth)));
+    }
+
+    private int row(double lat) {
+        return Math.max(0, Math.min(rows - 1, (int) ((lat - minLat) / cellHeight)));
+    }
+
+    /**
+     * Finds the finest Sub Grid containing a coordinate, in the first of the indexed Sub Grids containing it.
+     * @param lon Longitude in Positive West Seconds
+     * @param lat Latitude in Seconds
+     * @return the Sub Grid containing the coordinate, or {@code null}
+     */
+    NTV2SubGrid getSubGridForCoord(double lon, double lat) {
+        // also rejects NaN
+        if (!(lon >= minLon && lat >= minLat))
+            return null;
+        int[] candidates = cells[row(lat) * columns + column(lon)];
+        if (candidates != null) {
+            for (int candidate : candidates) {
+                NTV2SubGrid subGrid = subGrids[candidate].getSubGridForCoord(lon, lat);
+                if (subGrid != null) {
+                    return subGrid;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -19,6 +19,9 @@
  */
 package org.openstreetmap.josm.data.projection.datum;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 /**
  * A set of static utility methods for reading the NTv2 file format
  *
@@ -100,4 +103,19 @@ public final class NTV2Util {
         long l = ((long) i << 32) | (j & 0x0000_0000_FFFF_FFFFL);
         return Double.longBitsToDouble(l);
     }
+
+    /**
+     * Get a String from 8 bytes of a byte buffer.
+     * @param buffer the byte buffer
+     * @param index the index of the first byte in the buffer
+     * @return the String
+     * @since xxx
+     */
+    public static String getString(ByteBuffer buffer, int index) {
+        byte[] b = new byte[8];
+        for (int i = 0; i < b.length; i++) {
+            b[i] = buffer.get(index + i);
+        }
+        return new String(b, StandardCharsets.UTF_8);
+    }
 }
@@ -29,4 +29,8 @@ public class NullDatum extends AbstractDatum {
         return ll;
     }
 
+    @Override
+    public void fromWGS84(double[] lat, double[] lon, int n) {
+        // nothing to convert
+    }
 }
@@ -198,15 +198,29 @@ public class LambertConformalConic extends AbstractProj {
 
     @Override
     public double[] project(double phi, double lambda) {
-        double sinphi = sin(phi);
-        double l = (0.5*log((1+sinphi)/(1-sinphi))) - e/2*log((1+e*sinphi)/(1-e*sinphi));
-        double r = f*exp(-n*l);
+        double r = radius(phi);
         double gamma = n*lambda;
         double x = r*sin(gamma);
         double y = r0 - r*cos(gamma);
         return new double[] {x, y};
     }
 
+    @Override
+    public void project(double[] latRad, double[] lonRad, double[] east, double[] north, int count) {
+        for (int i = 0; i < count; i++) {
+            double r = radius(latRad[i]);
+            double gamma = n*lonRad[i];
+            east[i] = r*sin(gamma);
+            north[i] = r0 - r*cos(gamma);
+        }
+    }
+
+    private double radius(double phi) {
+        double sinphi = sin(phi);
+        double l = (0.5*log((1+sinphi)/(1-sinphi))) - e/2*log((1+e*sinphi)/(1-e*sinphi));
+        return f*exp(-n*l);
+    }
+
     @Override
     public double[] invproject(double east, double north) {
         double r = sqrt(pow(east, 2) + pow(north-r0, 2));
@@ -37,6 +37,14 @@ public class LonLat implements Proj {
         return new double[] {Utils.toDegrees(lonRad) / a, Utils.toDegrees(latRad) / a};
     }
 
+    @Override
+    public void project(double[] latRad, double[] lonRad, double[] east, double[] north, int n) {
+        for (int i = 0; i < n; i++) {
+            east[i] = Utils.toDegrees(lonRad[i]) / a;
+            north[i] = Utils.toDegrees(latRad[i]) / a;
+        }
+    }
+
     @Override
     public double[] invproject(double east, double north) {
         return new double[] {Utils.toRadians(north * a), Utils.toRadians(east * a)};
@@ -92,12 +92,29 @@ public class Mercator extends AbstractProj implements IScaleFactorProvider {
         if (Math.abs(y) > (Math.PI/2 - EPSILON)) {
             return new double[] {0, 0}; // this is an error and should be handled somehow
         }
+        return new double[] {x, projectLat(y)};
+    }
+
+    @Override
+    public void project(double[] latRad, double[] lonRad, double[] east, double[] north, int n) {
+        for (int i = 0; i < n; i++) {
+            double y = latRad[i];
+            if (Math.abs(y) > (Math.PI/2 - EPSILON)) {
+                east[i] = 0;
+                north[i] = 0;
+            } else {
+                east[i] = lonRad[i];
+                north[i] = projectLat(y);
+            }
+        }
+    }
+
+    private double projectLat(double y) {
         if (spherical) {
-            y = Math.log(Math.tan(Math.PI/4 + 0.5*y));
+            return Math.log(Math.tan(Math.PI/4 + 0.5*y));
         } else {
-            y = -Math.log(tsfn(y, Math.sin(y)));
+            return -Math.log(tsfn(y, Math.sin(y)));
         }
-        return new double[] {x, y};
     }
 
     @Override
@@ -56,6 +56,24 @@ public interface Proj {
      */
     double[] project(double latRad, double lonRad);
 
+    /**
+     * Convert many lat/lon coordinates to east/north.
+     *
+     * @param latRad the latitudes in radians
+     * @param lonRad the longitudes in radians
+     * @param east the array receiving the east values in meters, divided by the semi major axis of the ellipsoid
+     * @param north the array receiving the north values in meters, divided by the semi major axis of the ellipsoid
+     * @param n the number of coordinates to convert
+     * @since xxx
+     */
+    default void project(double[] latRad, double[] lonRad, double[] east, double[] north, int n) {
+        for (int i = 0; i < n; i++) {
+            double[] en = project(latRad[i], lonRad[i]);
+            east[i] = en[0];
+            north[i] = en[1];
+        }
+    }
+
     /**
      * Convert east/north to lat/lon.
      *
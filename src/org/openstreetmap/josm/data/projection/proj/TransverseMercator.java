@@ -156,6 +156,22 @@ public class TransverseMercator extends AbstractProj {
 
     @Override
     public double[] project(double y, double x) {
+        double[] en = new double[2];
+        project(y, x, en);
+        return en;
+    }
+
+    @Override
+    public void project(double[] latRad, double[] lonRad, double[] east, double[] north, int n) {
+        double[] en = new double[2];
+        for (int i = 0; i < n; i++) {
+            project(latRad[i], lonRad[i], en);
+            east[i] = en[0];
+            north[i] = en[1];
+        }
+    }
+
+    private void project(double y, double x, double[] en) {
         double sinphi = Math.sin(y);
         double cosphi = Math.cos(y);
         double u, v;
@@ -181,10 +197,8 @@ public class TransverseMercator extends AbstractProj {
 
         u = y;
         v = x;
-        x = v * cosrot + u * sinrot;
-        y = u * cosrot - v * sinrot;
-
-        return new double[] {x, y};
+        en[0] = v * cosrot + u * sinrot;
+        en[1] = u * cosrot - v * sinrot;
     }
 
     @Override
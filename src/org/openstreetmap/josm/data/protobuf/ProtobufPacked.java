@@ -2,7 +2,6 @@
 package org.openstreetmap.josm.data.protobuf;
 
 import java.io.ByteArrayOutputStream;
-import java.util.Arrays;
 
 /**
  * Parse packed values (only numerical values)
@@ -11,9 +10,7 @@ import java.util.Arrays;
  * @since 17862
  */
 public class ProtobufPacked {
-    private final byte[] bytes;
     private final long[] numbers;
-    private int location;
 
     /**
      * Create a new ProtobufPacked object
@@ -34,26 +31,41 @@ public class ProtobufPacked {
      * @since 18695
      */
     public ProtobufPacked(byte[] bytes) {
-        this.location = 0;
-        this.bytes = bytes;
+        this(bytes, 0, bytes.length);
+    }
 
-        // By creating a list of size bytes.length, we avoid 36 MB of allocations from list growth. This initialization
-        // only adds 3.7 MB to the ArrayList#init calls. Note that the real-world test case (Mapillary vector tiles)
-        // primarily created Shorts.
-        long[] numbersT = new long[bytes.length];
-        int index = 0;
-        // By reusing a ByteArrayOutputStream, we can reduce allocations in nextVarInt from 230 MB to 74 MB.
-        while (this.location < bytes.length) {
-            int start = this.location;
-            numbersT[index] = ProtobufParser.convertByteArray(this.bytes, ProtobufParser.VAR_INT_BYTE_SIZE,
-                    start, this.nextVarInt());
-            index++;
+    /**
+     * Create a new ProtobufPacked object. The bytes are not modified.
+     *
+     * @param bytes  The bytes containing the packed field
+     * @param offset The offset of the packed field
+     * @param length The length of the packed field
+     * @since xxx
+     */
+    public ProtobufPacked(byte[] bytes, int offset, int length) {
+        final int end = offset + length;
+        // Every var int ends with a byte without the most significant bit, so we can size the array exactly.
+        // This avoids both the oversized array and the copy when the numbers are mostly multi-byte values.
+        int count = 0;
+        for (int i = offset; i < end; i++) {
+            if ((bytes[i] & ProtobufParser.MOST_SIGNIFICANT_BYTE) == 0) {
+                count++;
+            }
         }
-
-        if (numbersT.length == index) {
-            this.numbers = numbersT;
-        } else {
-            this.numbers = Arrays.copyOf(numbersT, index);
+        this.numbers = new long[count];
+        int index = 0;
+        long number = 0;
+        int shift = 0;
+        for (int i = offset; i < end; i++) {
+            final byte currentByte = bytes[i];
+            number |= (long) (currentByte & ~ProtobufParser.MOST_SIGNIFICANT_BYTE) << shift;
+            if ((currentByte & ProtobufParser.MOST_SIGNIFICANT_BYTE) == 0) {
+                this.numbers[index++] = number;
+                number = 0;
+                shift = 0;
+            } else {
+                shift += ProtobufParser.VAR_INT_BYTE_SIZE;
+            }
         }
     }
 
@@ -65,18 +77,4 @@ public class ProtobufPacked {
     public long[] getArray() {
         return this.numbers;
     }
-
-    /**
-     * Gets the location where the next var int begins. Note: changes {@link ProtobufPacked#location}.
-     * @return The next varint location
-     */
-    private int nextVarInt() {
-        while ((this.bytes[this.location] & ProtobufParser.MOST_SIGNIFICANT_BYTE)
-          == ProtobufParser.MOST_SIGNIFICANT_BYTE) {
-            // Get rid of the leading bit (shift left 1, then shift right 1 unsigned)
-            this.bytes[this.location] = (byte) (this.bytes[this.location] ^ ProtobufParser.MOST_SIGNIFICANT_BYTE);
-            this.location++;
-        }
-        return ++this.location;
-    }
 }
@@ -2,10 +2,11 @@
 package org.openstreetmap.josm.data.protobuf;
 
 import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -116,7 +117,45 @@ public class ProtobufParser implements AutoCloseable {
         return convertLong((value << 1) ^ (value >> shift));
     }
 
+    /**
+     * Get the field number from a key read with {@link #nextKey()}
+     *
+     * @param key The key
+     * @return The field number
+     * @since xxx
+     */
+    public static int getField(int key) {
+        return key >>> 3;
+    }
+
+    /**
+     * Get the {@link WireType} from a key read with {@link #nextKey()}
+     *
+     * @param key The key
+     * @return The wire type, or {@link WireType#UNKNOWN}
+     * @since xxx
+     */
+    public static WireType getWireType(long key) {
+        // 7 is 111 (so last three bits)
+        final byte wireType = (byte) (key & 7);
+        // By not using a stream, we reduce the number of allocations (for getting the WireType) from 257 MB to 40 MB.
+        // (The remaining 40 MB is from WireType#values). By using the cached getAllValues(), we drop the 40 MB.
+        for (WireType type : WireType.getAllValues()) {
+            if (type.getTypeRepresentation() == wireType) {
+                return type;
+            }
+        }
+        return WireType.UNKNOWN;
+    }
+
+    /** The stream to read from, {@code null} if this parser reads from {@link #buffer} */
     private final InputStream inputStream;
+    /** The shared buffer to read from, {@code null} if this parser reads from {@link #inputStream} */
+    private final byte[] buffer;
+    /** The current position in {@link #buffer} */
+    private int position;
+    /** The end position in {@link #buffer} (exclusive) */
+    private final int limit;
 
     /**
      * Create a new parser
@@ -124,7 +163,26 @@ public class ProtobufParser implements AutoCloseable {
      * @param bytes The bytes to parse
      */
     public ProtobufParser(byte[] bytes) {
-        this(new ByteArrayInputStream(bytes));
+        this(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Create a new parser over a part of a byte array. The bytes are not copied, so they must not be modified while
+     * the parser is in use.
+     *
+     * @param bytes  The bytes to parse
+     * @param offset The offset of the first byte to parse
+     * @param length The number of bytes to parse
+     * @since xxx
+     */
+    public ProtobufParser(byte[] bytes, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > bytes.length) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", length " + length + ", size " + bytes.length);
+        }
+        this.inputStream = null;
+        this.buffer = bytes;
+        this.position = offset;
+        this.limit = offset + length;
     }
 
     /**
@@ -138,6 +196,8 @@ public class ProtobufParser implements AutoCloseable {
         } else {
             this.inputStream = new BufferedInputStream(inputStream);
         }
+        this.buffer = null;
+        this.limit = 0;
     }
 
     /**
@@ -157,6 +217,9 @@ public class ProtobufParser implements AutoCloseable {
 
     @Override
     public void close() {
+        if (this.inputStream == null) {
+            return;
+        }
         try {
             this.inputStream.close();
         } catch (IOException e) {
@@ -171,6 +234,9 @@ public class ProtobufParser implements AutoCloseable {
      * @throws IOException - if an IO error occurs
      */
     public boolean hasNext() throws IOException {
+        if (this.buffer != null) {
+            return this.position < this.limit;
+        }
         return this.inputStream.available() > 0;
     }
 
@@ -181,9 +247,13 @@ public class ProtobufParser implements AutoCloseable {
      * @throws IOException - if an IO error occurs
      */
     public WireType next() throws IOException {
+        // The wire type is stored in the last three bits of the first byte of the key
+        if (this.buffer != null) {
+            return this.position < this.limit ? getWireType(this.buffer[this.position]) : WireType.UNKNOWN;
+        }
         this.inputStream.mark(16);
         try {
-            return WireType.getAllValues()[this.inputStream.read() << 3];
+            return getWireType(this.inputStream.read());
         } finally {
             this.inputStream.reset();
         }
@@ -196,9 +266,217 @@ public class ProtobufParser implements AutoCloseable {
      * @throws IOException - if an IO error occurs
      */
     public int nextByte() throws IOException {
+        if (this.buffer != null) {
+            return this.position < this.limit ? Byte.toUnsignedInt(this.buffer[this.position++]) : -1;
+        }
         return this.inputStream.read();
     }
 
+    /**
+     * Get the next key. Use {@link #getField(int)} and {@link #getWireType(long)} to decode it.
+     *
+     * @return The next key
+     * @throws IOException - if an IO error occurs
+     * @since xxx
+     */
+    public int nextKey() throws IOException {
+        // I don't foresee having field numbers > {@code Integer#MAX_VALUE >> 3}
+        return (int) this.nextVarLong();
+    }
+
+    /**
+     * Get the next var int ({@link WireType#VARINT}) without allocating an intermediate byte array
+     *
+     * @return The next var int ({@code int32}, {@code int64}, {@code uint32}, {@code uint64}, {@code bool}, {@code enum})
+     * @throws IOException - if an IO error occurs, or if the var int is truncated
+     * @since xxx
+     */
+    public long nextVarLong() throws IOException {
+        long number = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += VAR_INT_BYTE_SIZE) {
+            final int currentByte = this.nextByte();
+            if (currentByte < 0) {
+                throw new EOFException("Truncated var int");
+            }
+            number |= (long) (currentByte & ~MOST_SIGNIFICANT_BYTE) << shift;
+            if ((currentByte & MOST_SIGNIFICANT_BYTE) == 0) {
+                return number;
+            }
+        }
+        throw new IOException("Var int is longer than 64 bits");
+    }
+
+    /**
+     * Get the next zig-zag encoded var int ({@link WireType#VARINT})
+     *
+     * @return The next signed var int ({@code sint32} or {@code sint64})
+     * @throws IOException - if an IO error occurs, or if the var int is truncated
+     * @since xxx
+     */
+    public long nextSignedVarLong() throws IOException {
+        return decodeZigZag(this.nextVarLong());
+    }
+
+    /**
+     * Get the next 32 bits ({@link WireType#THIRTY_TWO_BIT}) without allocating an intermediate byte array
+     *
+     * @return The next {@code fixed32} or {@code sfixed32}
+     * @throws IOException - if an IO error occurs, or if there are less than 4 bytes left
+     * @since xxx
+     */
+    public int nextFixed32Int() throws IOException {
+        return (int) this.nextLittleEndian(Integer.BYTES);
+    }
+
+    /**
+     * Get the next 64 bits ({@link WireType#SIXTY_FOUR_BIT}) without allocating an intermediate byte array
+     *
+     * @return The next {@code fixed64} or {@code sfixed64}
+     * @throws IOException - if an IO error occurs, or if there are less than 8 bytes left
+     * @since xxx
+     */
+    public long nextFixed64Long() throws IOException {
+        return this.nextLittleEndian(Long.BYTES);
+    }
+
+    /**
+     * Get the next float ({@link WireType#THIRTY_TWO_BIT})
+     *
+     * @return The next float
+     * @throws IOException - if an IO error occurs, or if there are less than 4 bytes left
+     * @since xxx
+     */
+    public float nextFloat() throws IOException {
+        return Float.intBitsToFloat(this.nextFixed32Int());
+    }
+
+    /**
+     * Get the next double ({@link WireType#SIXTY_FOUR_BIT})
+     *
+     * @return The next double
+     * @throws IOException - if an IO error occurs, or if there are less than 8 bytes left
+     * @since xxx
+     */
+    public double nextDouble() throws IOException {
+        return Double.longBitsToDouble(this.nextFixed64Long());
+    }
+
+    /**
+     * Get the next string ({@link WireType#LENGTH_DELIMITED})
+     *
+     * @return The string (decoded as {@link StandardCharsets#UTF_8}). The string is <i>not</i> interned.
+     * @throws IOException - if an IO error occurs, or if the string is truncated
+     * @since xxx
+     */
+    public String nextString() throws IOException {
+        final int length = this.nextLength();
+        if (this.buffer != null) {
+            final String string = new String(this.buffer, this.position, length, StandardCharsets.UTF_8);
+            this.position += length;
+            return string;
+        }
+        return new String(this.readNextBytes(length), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the next bytes field ({@link WireType#LENGTH_DELIMITED})
+     *
+     * @return A copy of the bytes
+     * @throws IOException - if an IO error occurs, or if the field is truncated
+     * @since xxx
+     */
+    public byte[] nextBytes() throws IOException {
+        return this.readNextBytes(this.nextLength());
+    }
+
+    /**
+     * Get a parser for the next length delimited field ({@link WireType#LENGTH_DELIMITED}). This is used for embedded
+     * messages and for iterating over packed repeated fields (see {@link #nextVarLong()}). When this parser reads from a
+     * byte array, the returned parser shares the array, so no bytes are copied.
+     *
+     * @return A parser for the next length delimited field
+     * @throws IOException - if an IO error occurs, or if the field is truncated
+     * @since xxx
+     */
+    public ProtobufParser nextLengthDelimitedParser() throws IOException {
+        final int length = this.nextLength();
+        if (this.buffer != null) {
+            final ProtobufParser parser = new ProtobufParser(this.buffer, this.position, length);
+            this.position += length;
+            return parser;
+        }
+        return new ProtobufParser(this.readNextBytes(length));
+    }
+
+    /**
+     * Get a parser for the values of a repeated var int field. Parsers must accept both packed and unpacked encodings for
+     * repeated fields, so this returns a parser for the single value if the field is not packed. Iterate over the values
+     * with {@link #hasNext()} and {@link #nextVarLong()}.
+     *
+     * @param key The key of the field, as read by {@link #nextKey()}
+     * @return A parser for the values of the field
+     * @throws IOException - if an IO error occurs, or if the field is truncated
+     * @since xxx
+     */
+    public ProtobufParser nextPackedParser(int key) throws IOException {
+        if (getWireType(key) != WireType.VARINT) {
+            return this.nextLengthDelimitedParser();
+        } else if (this.buffer != null) {
+            final int start = this.position;
+            this.nextVarLong();
+            return new ProtobufParser(this.buffer, start, this.position - start);
+        }
+        return new ProtobufParser(encodeVarLong(this.nextVarLong()));
+    }
+
+    /**
+     * Decode the values of a repeated var int field into an array. Both packed and unpacked encodings are accepted.
+     *
+     * @param key The key of the field, as read by {@link #nextKey()}
+     * @return The packed numbers
+     * @throws IOException - if an IO error occurs, or if the field is truncated
+     * @since xxx
+     */
+    public ProtobufPacked nextPacked(int key) throws IOException {
+        if (getWireType(key) == WireType.VARINT) {
+            if (this.buffer != null) {
+                final int start = this.position;
+                this.nextVarLong();
+                return new ProtobufPacked(this.buffer, start, this.position - start);
+            }
+            return new ProtobufPacked(encodeVarLong(this.nextVarLong()));
+        }
+        final int length = this.nextLength();
+        if (this.buffer != null) {
+            final ProtobufPacked packed = new ProtobufPacked(this.buffer, this.position, length);
+            this.position += length;
+            return packed;
+        }
+        return new ProtobufPacked(this.readNextBytes(length));
+    }
+
+    /**
+     * Skip the value of a field
+     *
+     * @param key The key of the field, as read by {@link #nextKey()}
+     * @throws IOException - if an IO error occurs, or if the wire type cannot be skipped
+     * @since xxx
+     */
+    public void skipField(int key) throws IOException {
+        final WireType type = getWireType(key);
+        if (type == WireType.VARINT) {
+            this.nextVarLong();
+        } else if (type == WireType.SIXTY_FOUR_BIT) {
+            this.skipBytes(Long.BYTES);
+        } else if (type == WireType.THIRTY_TWO_BIT) {
+            this.skipBytes(Integer.BYTES);
+        } else if (type == WireType.LENGTH_DELIMITED) {
+            this.skipBytes(this.nextLength());
+        } else {
+            throw new IOException("Cannot skip field " + getField(key) + " with wire type " + type);
+        }
+    }
+
     /**
      * Get the next 32 bits ({@link WireType#THIRTY_TWO_BIT})
      *
@@ -268,6 +546,12 @@ public class ProtobufParser implements AutoCloseable {
      * @throws IOException - if an IO error occurs
      */
     private byte[] readNextBytes(int size) throws IOException {
+        if (this.buffer != null) {
+            final int end = this.position + Math.min(size, this.limit - this.position);
+            final byte[] bytesRead = end > this.position ? Arrays.copyOfRange(this.buffer, this.position, end) : EMPTY_BYTE_ARRAY;
+            this.position = end;
+            return bytesRead;
+        }
         byte[] bytesRead = new byte[size];
         int read = this.inputStream.read(bytesRead);
         if (read == -1) {
@@ -277,4 +561,83 @@ public class ProtobufParser implements AutoCloseable {
         }
         return bytesRead;
     }
+
+    /**
+     * Encode a var int
+     *
+     * @param number The number to encode
+     * @return The encoded bytes
+     */
+    private static byte[] encodeVarLong(long number) {
+        final byte[] bytes = new byte[10];
+        int length = 0;
+        long remaining = number;
+        while ((remaining & ~0x7FL) != 0) {
+            bytes[length++] = (byte) (remaining | MOST_SIGNIFICANT_BYTE);
+            remaining >>>= VAR_INT_BYTE_SIZE;
+        }
+        bytes[length++] = (byte) remaining;
+        return Arrays.copyOf(bytes, length);
+    }
+
+    /**
+     * Read the length of a length delimited field, and check that the data is available
+     *
+     * @return The length of the field
+     * @throws IOException - if an IO error occurs, or if the length is invalid
+     */
+    private int nextLength() throws IOException {
+        final long length = this.nextVarLong();
+        if (length < 0 || length > Integer.MAX_VALUE || (this.buffer != null && length > this.limit - this.position)) {
+            throw new EOFException("Invalid length for a length delimited field: " + length);
+        }
+        return (int) length;
+    }
+
+    /**
+     * Read a little endian number
+     *
+     * @param size The number of bytes to read
+     * @return The number
+     * @throws IOException - if an IO error occurs, or if there are not enough bytes left
+     */
+    private long nextLittleEndian(int size) throws IOException {
+        long number = 0;
+        for (int i = 0; i < size; i++) {
+            final int currentByte = this.nextByte();
+            if (currentByte < 0) {
+                throw new EOFException("Truncated fixed width number");
+            }
+            number |= (long) currentByte << (BYTE_SIZE * i);
+        }
+        return number;
+    }
+
+    /**
+     * Skip an arbitrary number of bytes
+     *
+     * @param size The number of bytes to skip
+     * @throws IOException - if an IO error occurs, or if there are not enough bytes left
+     */
+    private void skipBytes(long size) throws IOException {
+        if (this.buffer != null) {
+            if (size > this.limit - this.position) {
+                throw new EOFException("Cannot skip " + size + " bytes");
+            }
+            this.position += (int) size;
+        } else {
+            long remaining = size;
+            while (remaining > 0) {
+                final long skipped = this.inputStream.skip(remaining);
+                if (skipped <= 0) {
+                    if (this.inputStream.read() < 0) {
+                        throw new EOFException("Cannot skip " + size + " bytes");
+                    }
+                    remaining--;
+                } else {
+                    remaining -= skipped;
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,181 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.protobuf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A basic Protobuf writer, the counterpart of {@link ProtobufParser}. The message is written into a growing byte array.
+ * <p>
+ * Packed repeated fields and embedded messages are written into their own writer first, and added with
+ * {@link #writeLengthDelimited(int, ProtobufWriter)}.
+ *
+ * @since xxx
+ */
+public class ProtobufWriter {
+    private byte[] buffer;
+    private int size;
+
+    /**
+     * Create a new writer
+     */
+    public ProtobufWriter() {
+        this(64);
+    }
+
+    /**
+     * Create a new writer
+     *
+     * @param initialCapacity The initial size of the buffer, in bytes
+     */
+    public ProtobufWriter(int initialCapacity) {
+        this.buffer = new byte[Math.max(16, initialCapacity)];
+    }
+
+    /**
+     * Encode a signed number with zig-zag encoding, so that numbers with a small absolute value are written with few bytes
+     *
+     * @param signed The signed number
+     * @return The zig-zag encoded number ({@code sint32} or {@code sint64})
+     * @see ProtobufParser#decodeZigZag(long)
+     */
+    public static long encodeZigZag(long signed) {
+        return (signed << 1) ^ (signed >> (Long.SIZE - 1));
+    }
+
+    /**
+     * Write the key of a field
+     *
+     * @param field The field number
+     * @param type  The wire type of the field
+     */
+    public void writeKey(int field, WireType type) {
+        this.writeVarLong(((long) field << 3) | type.getTypeRepresentation());
+    }
+
+    /**
+     * Write a var int ({@link WireType#VARINT}) without key. Negative numbers take 10 bytes.
+     *
+     * @param number The number ({@code int32}, {@code int64}, {@code uint32}, {@code uint64}, {@code bool}, {@code enum})
+     */
+    public void writeVarLong(long number) {
+        ensureCapacity(10);
+        long value = number;
+        while ((value & ~0x7FL) != 0) {
+            this.buffer[this.size++] = (byte) ((value & 0x7F) | ProtobufParser.MOST_SIGNIFICANT_BYTE);
+            value >>>= ProtobufParser.VAR_INT_BYTE_SIZE;
+        }
+        this.buffer[this.size++] = (byte) value;
+    }
+
+    /**
+     * Write a zig-zag encoded var int ({@link WireType#VARINT}) without key
+     *
+     * @param number The number ({@code sint32} or {@code sint64})
+     */
+    public void writeSignedVarLong(long number) {
+        this.writeVarLong(encodeZigZag(number));
+    }
+
+    /**
+     * Write a var int field
+     *
+     * @param field  The field number
+     * @param number The number ({@code int32}, {@code int64}, {@code uint32}, {@code uint64}, {@code bool}, {@code enum})
+     */
+    public void writeVarLong(int field, long number) {
+        this.writeKey(field, WireType.VARINT);
+        this.writeVarLong(number);
+    }
+
+    /**
+     * Write a zig-zag encoded var int field
+     *
+     * @param field  The field number
+     * @param number The number ({@code sint32} or {@code sint64})
+     */
+    public void writeSignedVarLong(int field, long number) {
+        this.writeKey(field, WireType.VARINT);
+        this.writeSignedVarLong(number);
+    }
+
+    /**
+     * Write a bytes field ({@link WireType#LENGTH_DELIMITED})
+     *
+     * @param field  The field number
+     * @param bytes  The array containing the bytes
+     * @param offset The offset of the bytes to write
+     * @param length The number of bytes to write
+     */
+    public void writeBytes(int field, byte[] bytes, int offset, int length) {
+        this.writeKey(field, WireType.LENGTH_DELIMITED);
+        this.writeVarLong(length);
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, this.buffer, this.size, length);
+        this.size += length;
+    }
+
+    /**
+     * Write a string field ({@link WireType#LENGTH_DELIMITED}), encoded in UTF-8
+     *
+     * @param field The field number
+     * @param value The string
+     */
+    public void writeString(int field, String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        this.writeBytes(field, bytes, 0, bytes.length);
+    }
+
+    /**
+     * Write an embedded message or a packed repeated field ({@link WireType#LENGTH_DELIMITED})
+     *
+     * @param field   The field number
+     * @param message The writer containing the message or the packed values
+     */
+    public void writeLengthDelimited(int field, ProtobufWriter message) {
+        this.writeBytes(field, message.buffer, 0, message.size);
+    }
+
+    /**
+     * Get the number of bytes written
+     *
+     * @return The size of the message
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Get a copy of the written bytes
+     *
+     * @return The message
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(this.buffer, this.size);
+    }
+
+    /**
+     * Write the message to a stream, without copy
+     *
+     * @param outputStream The stream to write to
+     * @throws IOException if the stream could not be written
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        outputStream.write(this.buffer, 0, this.size);
+    }
+
+    /**
+     * Discard the written bytes, to reuse the buffer for another message
+     */
+    public void reset() {
+        this.size = 0;
+    }
+
+    private void ensureCapacity(int length) {
+        if (this.size + length > this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, this.size + length));
+        }
+    }
+}
@@ -0,0 +1,367 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.validation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.openstreetmap.josm.data.osm.BBox;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.data.osm.event.AbstractDatasetChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataSetListener;
+import org.openstreetmap.josm.data.osm.event.NodeMovedEvent;
+import org.openstreetmap.josm.data.osm.event.PrimitivesAddedEvent;
+import org.openstreetmap.josm.data.osm.event.PrimitivesRemovedEvent;
+import org.openstreetmap.josm.data.osm.event.RelationMembersChangedEvent;
+import org.openstreetmap.josm.data.osm.event.TagsChangedEvent;
+import org.openstreetmap.josm.data.osm.event.WayNodesChangedEvent;
+import org.openstreetmap.josm.data.preferences.sources.ValidatorPrefHelper;
+import org.openstreetmap.josm.gui.MainApplication;
+import org.openstreetmap.josm.gui.layer.LayerManager.LayerAddEvent;
+import org.openstreetmap.josm.gui.layer.LayerManager.LayerChangeListener;
+import org.openstreetmap.josm.gui.layer.LayerManager.LayerOrderChangeEvent;
+import org.openstreetmap.josm.gui.layer.LayerManager.LayerRemoveEvent;
+import org.openstreetmap.josm.gui.layer.OsmDataLayer;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.gui.util.GuiHelper;
+import org.openstreetmap.josm.tools.Logging;
+
+/**
+ * Validates the modified primitives of a data set while they are edited, so that the errors of the primitives to upload
+ * are already known when the upload starts.
+ * <p>
+ * The validator listens to the changes of the data set, and validates the changed primitives in the background with the
+ * {@linkplain OsmValidator#getEnabledTests(boolean) tests enabled before upload}. Like the validation before upload, the tests
+ * only see a partial selection: geometry tests like {@code CrossingWays}, {@code UnconnectedWays}, {@code DuplicateNode} and
+ * {@code OverlappingWays} look up the neighbours of the changed primitives in the spatial index of the data set, which is always
+ * up to date, instead of building their grids from all primitives. The new errors of the changed primitives replace their previous
+ * errors, all other errors are kept.
+ * <p>
+ * Incremental validation is enabled with {@link ValidatorPrefHelper#PREF_INCREMENTAL}.
+ * @since xxx
+ */
+public final class IncrementalValidator implements DataSetListener {
+
+    /**
+     * The distance (in degrees) around primitives which changed without being modified, e.g. downloaded primitives,
+     * in which the modified primitives are validated again
+     */
+    private static final double NEIGHBOUR_DISTANCE = 0.001;
+
+    private static final Map<DataSet, IncrementalValidator> VALIDATORS = new ConcurrentHashMap<>();
+    private static boolean initialized;
+
+    private static final LayerChangeListener LAYER_LISTENER = new LayerChangeListener() {
+        @Override
+        public void layerAdded(LayerAddEvent e) {
+            if (e.getAddedLayer() instanceof OsmDataLayer) {
+                updateValidators();
+            }
+        }
+
+        @Override
+        public void layerRemoving(LayerRemoveEvent e) {
+            if (e.getRemovedLayer() instanceof OsmDataLayer) {
+                final IncrementalValidator validator = VALIDATORS.remove(((OsmDataLayer) e.getRemovedLayer()).getDataSet());
+                if (validator != null) {
+                    validator.stop();
+                }
+            }
+        }
+
+        @Override
+        public void layerOrderChanged(LayerOrderChangeEvent e) {
+            // Do nothing
+        }
+    };
+
+    private final DataSet dataSet;
+    private final Supplier<Collection<Test>> tests;
+    /** The primitives which changed since the last update, guarded by itself */
+    private final Set<OsmPrimitive> dirty = new HashSet<>();
+    /** Whether an update has been submitted to the worker, guarded by {@link #dirty} */
+    private boolean updateScheduled;
+    private volatile boolean stopped;
+
+    /** The primitives whose errors are known */
+    private final Set<OsmPrimitive> validated = new HashSet<>();
+    private final List<TestError> errors = new ArrayList<>();
+    /** The names of the tests the errors were found with */
+    private Set<String> testNames = Collections.emptySet();
+
+    /**
+     * Constructs a new {@code IncrementalValidator}
+     * @param dataSet the data set to validate
+     * @param tests supplies the tests to run when the changes are validated in the background
+     */
+    IncrementalValidator(DataSet dataSet, Supplier<Collection<Test>> tests) {
+        this.dataSet = dataSet;
+        this.tests = tests;
+    }
+
+    /**
+     * Starts the incremental validation of the data layers if it is enabled. This has to be done only once.
+     */
+    public static synchronized void initialize() {
+        if (!initialized) {
+            MainApplication.getLayerManager().addAndFireLayerChangeListener(LAYER_LISTENER);
+            ValidatorPrefHelper.PREF_INCREMENTAL.addListener(e -> GuiHelper.runInEDT(IncrementalValidator::updateValidators));
+            initialized = true;
+        }
+    }
+
+    /**
+     * Get the incremental validator of a data set
+     * @param dataSet the data set
+     * @return the validator, or {@code null} if the data set is not validated incrementally
+     */
+    public static IncrementalValidator get(DataSet dataSet) {
+        return dataSet == null ? null : VALIDATORS.get(dataSet);
+    }
+
+    private static void updateValidators() {
+        final Set<DataSet> dataSets = new HashSet<>();
+        if (Boolean.TRUE.equals(ValidatorPrefHelper.PREF_INCREMENTAL.get())) {
+            for (OsmDataLayer layer : MainApplication.getLayerManager().getLayersOfType(OsmDataLayer.class)) {
+                dataSets.add(layer.getDataSet());
+            }
+        }
+        VALIDATORS.entrySet().removeIf(entry -> {
+            if (dataSets.contains(entry.getKey())) {
+                return false;
+            }
+            entry.getValue().stop();
+            return true;
+        });
+        for (DataSet ds : dataSets) {
+            VALIDATORS.computeIfAbsent(ds, k -> {
+                final IncrementalValidator validator = new IncrementalValidator(k, IncrementalValidator::getUploadTests);
+                validator.start();
+                return validator;
+            });
+        }
+    }
+
+    private static Collection<Test> getUploadTests() {
+        OsmValidator.initializeTests();
+        return OsmValidator.getEnabledTests(true);
+    }
+
+    /**
+     * Start listening to the data set. The primitives which are already modified are validated in the background.
+     */
+    void start() {
+        dataSet.addDataSetListener(this);
+        changed(dataSet.getPrimitives(IncrementalValidator::isModified));
+    }
+
+    /**
+     * Stop listening to the data set and forget the known errors
+     */
+    void stop() {
+        stopped = true;
+        dataSet.removeDataSetListener(this);
+        synchronized (dirty) {
+            dirty.clear();
+        }
+        synchronized (this) {
+            validated.clear();
+            errors.clear();
+        }
+    }
+
+    private static boolean isModified(OsmPrimitive p) {
+        return p.isModified() || p.isNew();
+    }
+
+    private void changed(Collection<? extends OsmPrimitive> primitives) {
+        if (stopped || primitives.isEmpty())
+            return;
+        synchronized (dirty) {
+            dirty.addAll(primitives);
+            if (!updateScheduled) {
+                updateScheduled = true;
+                // validation tests are not thread-safe, all validations run on the worker
+                MainApplication.worker.execute(this::update);
+            }
+        }
+    }
+
+    /**
+     * Validate the primitives which changed since the last update with the tests enabled before upload
+     */
+    public synchronized void update() {
+        if (stopped)
+            return;
+        try {
+            update(tests.get());
+        } catch (RuntimeException e) {
+            Logging.error(e);
+        }
+    }
+
+    private void update(Collection<Test> tests) {
+        final Set<OsmPrimitive> batch;
+        synchronized (dirty) {
+            batch = new HashSet<>(dirty);
+            dirty.clear();
+            updateScheduled = false;
+        }
+        final Set<String> names = tests.stream().map(t -> t.getClass().getName()).collect(Collectors.toSet());
+        if (!names.equals(testNames)) {
+            // the known errors were found by other tests
+            batch.addAll(validated);
+            validated.clear();
+            errors.clear();
+            testNames = names;
+        }
+        validate(tests, batch, false);
+    }
+
+    /**
+     * Validate some primitives and replace their errors
+     * @param tests the tests to run
+     * @param primitives the primitives
+     * @param all {@code true} to validate all primitives, {@code false} to validate only modified primitives and primitives
+     *            whose errors are known. Other primitives only cause the validation of the known primitives nearby.
+     */
+    private void validate(Collection<Test> tests, Set<OsmPrimitive> primitives, boolean all) {
+        if (primitives.isEmpty())
+            return;
+        final List<OsmPrimitive> toValidate = new ArrayList<>();
+        final BBox neighbourArea = new BBox();
+        for (OsmPrimitive p : primitives) {
+            if (p.getDataSet() != dataSet || p.isDeleted()) {
+                continue;
+            }
+            if (all || isModified(p) || validated.contains(p)) {
+                toValidate.add(p);
+            } else if (p.getBBox().isValid()) {
+                neighbourArea.addPrimitive(p, NEIGHBOUR_DISTANCE);
+            }
+        }
+        if (neighbourArea.isValid()) {
+            for (OsmPrimitive p : validated) {
+                if (!primitives.contains(p) && p.getDataSet() == dataSet && !p.isDeleted() && p.getBBox().intersects(neighbourArea)) {
+                    toValidate.add(p);
+                }
+            }
+        }
+
+        final Set<OsmPrimitive> relevant = new HashSet<>(primitives);
+        final List<TestError> newErrors = new ArrayList<>();
+        if (!toValidate.isEmpty() && !tests.isEmpty()) {
+            final ValidationTask task = new ValidationTask(null, NullProgressMonitor.INSTANCE, tests, toValidate, null, true);
+            task.runTests();
+            final Set<OsmPrimitive> taskRelevant = task.getRelevantPrimitives();
+            for (TestError error : task.getErrors()) {
+                if (error.isConcerned(taskRelevant)) {
+                    newErrors.add(error);
+                }
+            }
+            relevant.addAll(taskRelevant);
+            validated.addAll(taskRelevant);
+        }
+        errors.removeIf(error -> error.getPrimitives().stream().anyMatch(relevant::contains));
+        errors.addAll(newErrors);
+        validated.removeIf(p -> p.getDataSet() != dataSet || p.isDeleted());
+    }
+
+    /**
+     * Get the errors of some primitives. The changes since the last update and the primitives whose errors are not known yet are
+     * validated first.
+     * @param tests the tests to run, usually the tests enabled before upload
+     * @param primitives the primitives
+     * @return the errors concerning one of the primitives, or {@code null} if the validator has been stopped
+     */
+    public synchronized List<TestError> getErrors(Collection<Test> tests, Set<OsmPrimitive> primitives) {
+        if (stopped)
+            return null;
+        update(tests);
+        final Set<OsmPrimitive> missing = new HashSet<>();
+        for (OsmPrimitive p : primitives) {
+            if (!validated.contains(p)) {
+                missing.add(p);
+            }
+        }
+        validate(tests, missing, true);
+        return errors.stream().filter(error -> error.isConcerned(primitives)).collect(Collectors.toList());
+    }
+
+    /**
+     * Get the known errors of the data set, after validating the changes since the last update
+     * @return the errors
+     */
+    public synchronized List<TestError> getErrors() {
+        update();
+        return new ArrayList<>(errors);
+    }
+
+    private static void addMembers(Collection<OsmPrimitive> primitives, OsmPrimitive p) {
+        if (p instanceof Way) {
+            primitives.addAll(((Way) p).getNodes());
+        } else if (p instanceof Relation) {
+            primitives.addAll(((Relation) p).getMemberPrimitivesList());
+        }
+    }
+
+    @Override
+    public void primitivesAdded(PrimitivesAddedEvent event) {
+        changed(event.getPrimitives());
+    }
+
+    @Override
+    public void primitivesRemoved(PrimitivesRemovedEvent event) {
+        // the members of removed primitives may have lost their parent
+        final Set<OsmPrimitive> primitives = new HashSet<>(event.getPrimitives());
+        for (OsmPrimitive p : event.getPrimitives()) {
+            addMembers(primitives, p);
+        }
+        changed(primitives);
+    }
+
+    @Override
+    public void tagsChanged(TagsChangedEvent event) {
+        changed(event.getPrimitives());
+    }
+
+    @Override
+    public void nodeMoved(NodeMovedEvent event) {
+        changed(event.getPrimitives());
+    }
+
+    @Override
+    public void wayNodesChanged(WayNodesChangedEvent event) {
+        changed(event.getPrimitives());
+    }
+
+    @Override
+    public void relationMembersChanged(RelationMembersChangedEvent event) {
+        changed(event.getPrimitives());
+    }
+
+    @Override
+    public void otherDatasetChange(AbstractDatasetChangedEvent event) {
+        // Do nothing
+    }
+
+    @Override
+    public void dataChanged(DataChangedEvent event) {
+        if (event.getEvents() != null) {
+            dataChangedIndividualEvents(event);
+        } else {
+            changed(event.getPrimitives());
+        }
+    }
+}
@@ -4,12 +4,15 @@ package org.openstreetmap.josm.data.validation;
 import static org.openstreetmap.josm.tools.I18n.tr;
 
 import java.awt.GridBagConstraints;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -81,6 +84,12 @@ public class Test implements OsmPrimitiveVisitor {
 
     private boolean showElementCount;
 
+    /** The pool used to split the primitives of a {@link #isThreadSafe() thread-safe} test, may be {@code null} */
+    private ForkJoinPool pool;
+
+    /** The minimum number of primitives visited by a single task of {@link #pool} */
+    private static final int MIN_CHUNK_SIZE = 256;
+
     /**
      * Constructor
      * @param name Name of the test
@@ -209,6 +218,10 @@ public class Test implements OsmPrimitiveVisitor {
         if (progressMonitor != null) {
             progressMonitor.setTicksCount(selection.size());
         }
+        if (pool != null && isThreadSafe() && selection.size() > MIN_CHUNK_SIZE) {
+            visitConcurrently(new ArrayList<>(selection), pool);
+            return;
+        }
         long cnt = 0;
         for (OsmPrimitive p : selection) {
             if (isCanceled()) {
@@ -229,6 +242,75 @@ public class Test implements OsmPrimitiveVisitor {
         }
     }
 
+    /**
+     * Visits the primitives in chunks, using the threads of a pool. The errors of each chunk are added in the order of the chunks,
+     * so that the errors are the same as if the primitives were visited one after another.
+     *
+     * @param selection The primitives to be tested
+     * @param pool      The pool to run the chunks in
+     */
+    private void visitConcurrently(List<OsmPrimitive> selection, ForkJoinPool pool) {
+        final int chunkSize = Math.max(MIN_CHUNK_SIZE, selection.size() / (4 * pool.getParallelism()));
+        final List<TestError> visitErrors = this.errors;
+        final ChunkErrors chunkErrors = new ChunkErrors();
+        final List<ForkJoinTask<List<TestError>>> tasks = new ArrayList<>();
+        this.errors = chunkErrors;
+        try {
+            for (int start = 0; start < selection.size(); start += chunkSize) {
+                final List<OsmPrimitive> chunk = selection.subList(start, Math.min(selection.size(), start + chunkSize));
+                tasks.add(pool.submit(() -> chunkErrors.collect(() -> {
+                    for (OsmPrimitive p : chunk) {
+                        if (isCanceled()) {
+                            break;
+                        }
+                        if (isPrimitiveUsable(p)) {
+                            p.accept(this);
+                        }
+                    }
+                })));
+            }
+            long cnt = 0;
+            for (ForkJoinTask<List<TestError>> task : tasks) {
+                visitErrors.addAll(task.join());
+                if (progressMonitor != null) {
+                    final int done = (int) Math.min(chunkSize, selection.size() - cnt);
+                    progressMonitor.worked(done);
+                    cnt += done;
+                    if (showElementCount) {
+                        progressMonitor.setExtraText(tr("{0} of {1} elements done", cnt, selection.size()));
+                    }
+                }
+            }
+        } finally {
+            tasks.forEach(task -> task.cancel(false));
+            this.errors = visitErrors;
+        }
+    }
+
+    /**
+     * Determines if this test is thread-safe. A thread-safe test may run at the same time as other thread-safe tests,
+     * and its primitives may be visited by several threads at the same time.
+     * <p>
+     * Thread-safe tests must not modify state shared with other tests, and must not modify their own state while visiting
+     * primitives, except for adding errors to {@link #errors}. Errors must only be added for the visited primitive, and
+     * must not depend on the errors of other primitives. Tests that analyse all primitives together in {@link #endTest()}
+     * are not thread-safe.
+     *
+     * @return {@code true} if this test is thread-safe
+     * @since xxx
+     */
+    public boolean isThreadSafe() {
+        return false;
+    }
+
+    /**
+     * Set the pool used to visit the primitives of a {@link #isThreadSafe() thread-safe} test in parallel
+     * @param pool the pool, or {@code null} to visit primitives on the calling thread
+     */
+    void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
     /**
      * Determines if the primitive is usable for tests.
      * @param p The primitive
@@ -403,4 +485,62 @@ public class Test implements OsmPrimitiveVisitor {
         }
         errors.removeIf(e -> !e.isConcerned(relevant));
     }
+
+    /**
+     * The errors of a test while its primitives are visited by several threads. Each thread adds its errors to the list of the chunk
+     * it is visiting, and only sees the errors of that chunk.
+     */
+    private static final class ChunkErrors extends AbstractList<TestError> {
+        private final ThreadLocal<List<TestError>> current = new ThreadLocal<>();
+
+        /**
+         * Run a chunk, and collect the errors it adds
+         * @param chunk the chunk to run
+         * @return the errors of the chunk
+         */
+        List<TestError> collect(Runnable chunk) {
+            final List<TestError> chunkErrors = new ArrayList<>();
+            final List<TestError> previous = current.get();
+            current.set(chunkErrors);
+            try {
+                chunk.run();
+            } finally {
+                current.set(previous);
+            }
+            return chunkErrors;
+        }
+
+        private List<TestError> chunkErrors() {
+            final List<TestError> chunkErrors = current.get();
+            if (chunkErrors == null) {
+                throw new IllegalStateException("Errors of a thread-safe test can only be accessed while visiting primitives");
+            }
+            return chunkErrors;
+        }
+
+        @Override
+        public TestError get(int index) {
+            return chunkErrors().get(index);
+        }
+
+        @Override
+        public int size() {
+            return chunkErrors().size();
+        }
+
+        @Override
+        public void add(int index, TestError element) {
+            chunkErrors().add(index, element);
+        }
+
+        @Override
+        public TestError set(int index, TestError element) {
+            return chunkErrors().set(index, element);
+        }
+
+        @Override
+        public TestError remove(int index) {
+            return chunkErrors().remove(index);
+        }
+    }
 }
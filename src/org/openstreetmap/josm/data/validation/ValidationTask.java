@@ -10,6 +10,8 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
@@ -17,6 +19,7 @@ import javax.swing.JOptionPane;
 
 import org.openstreetmap.josm.data.osm.OsmPrimitive;
 import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.data.preferences.IntegerProperty;
 import org.openstreetmap.josm.data.preferences.sources.ValidatorPrefHelper;
 import org.openstreetmap.josm.data.validation.util.AggregatePrimitivesVisitor;
 import org.openstreetmap.josm.gui.MainApplication;
@@ -33,6 +36,12 @@ import org.openstreetmap.josm.tools.Utils;
  * Asynchronous task for running a collection of tests against a collection of primitives
  */
 public class ValidationTask extends PleaseWaitRunnable {
+    /**
+     * The number of threads used to run {@link Test#isThreadSafe() thread-safe} tests. {@code 1} runs all tests on the calling thread.
+     * @since xxx
+     */
+    public static final IntegerProperty THREADS = new IntegerProperty("validator.threads", Runtime.getRuntime().availableProcessors());
+
     private final Consumer<List<TestError>> onFinish;
     private Collection<Test> tests;
     private final Collection<OsmPrimitive> initialPrimitives;
@@ -41,6 +50,8 @@ public class ValidationTask extends PleaseWaitRunnable {
     private boolean canceled;
     private final List<TestError> errors = new ArrayList<>();
     private BiConsumer<ValidationTask, Test> testConsumer;
+    private IncrementalValidator incrementalValidator;
+    private Set<OsmPrimitive> relevantPrimitives;
 
     /**
      * Constructs a new {@code ValidationTask}
@@ -159,9 +170,35 @@ public class ValidationTask extends PleaseWaitRunnable {
 
     @Override
     protected void realRun() {
-        if (Utils.isEmpty(tests))
+        if (!runTests())
             return;
-        int testCounter = 0;
+        if (Boolean.TRUE.equals(ValidatorPrefHelper.PREF_USE_IGNORE.get())) {
+            getProgressMonitor().setCustomText("");
+            getProgressMonitor().subTask(tr("Updating ignored errors ..."));
+            for (TestError error : errors) {
+                if (canceled) return;
+                error.updateIgnored();
+            }
+        }
+
+        if (errors.stream().anyMatch(e -> e.getPrimitives().stream().anyMatch(OsmPrimitive::isDisabledAndHidden))) {
+            final String msg = "<b>" + tr("Validation results contain elements hidden by a filter.") + "</b><br/>"
+                    + tr("Please review active filters to see the hidden results.");
+            GuiHelper.runInEDT(() -> new Notification(msg)
+                    .setDuration(Notification.TIME_LONG)
+                    .setIcon(JOptionPane.WARNING_MESSAGE)
+                    .setHelpTopic("Dialog/Validator")
+                    .show());
+        }
+    }
+
+    /**
+     * Run the tests and collect their errors
+     * @return {@code false} if there was nothing to do or the task was canceled
+     */
+    boolean runTests() {
+        if (Utils.isEmpty(tests))
+            return false;
         final boolean isPartial = this.beforeUpload || formerValidatedPrimitives != null;
         Set<OsmPrimitive> filter = null;
         Collection<OsmPrimitive> validatedPrimitives = initialPrimitives;
@@ -177,50 +214,97 @@ public class ValidationTask extends PleaseWaitRunnable {
             validatedPrimitives = extendedSet;
             filter = new HashSet<>(initialPrimitives);
             filter.addAll(other);
+            relevantPrimitives = filter;
+            if (incrementalValidator != null) {
+                final List<TestError> knownErrors = incrementalValidator.getErrors(tests, filter);
+                if (knownErrors != null) {
+                    errors.addAll(knownErrors);
+                    tests = null;
+                    return !canceled;
+                }
+            }
         }
         getProgressMonitor().setTicksCount(tests.size() * validatedPrimitives.size());
 
-        for (Test test : tests) {
-            if (canceled)
-                return;
-            testCounter++;
-            getProgressMonitor().setCustomText(tr("Test {0}/{1}: Starting {2}", testCounter, tests.size(), test.getName()));
-            test.setBeforeUpload(this.beforeUpload);
-            // Pre-upload checks only run on a partial selection.
-            test.setPartialSelection(isPartial);
-            test.startTest(getProgressMonitor().createSubTaskMonitor(validatedPrimitives.size(), false));
-            test.visit(validatedPrimitives);
-            test.endTest();
-            if (isPartial && Boolean.TRUE.equals(ValidatorPrefHelper.PREF_REMOVE_IRRELEVANT.get())) {
-                // #23397: remove errors for objects which were not in the initial list of primitives
-                test.removeIrrelevantErrors(filter);
+        final List<Test> testList = new ArrayList<>(tests);
+        final int threads = THREADS.get();
+        // Only thread-safe tests use the pool, don't start threads if none of them is
+        final ForkJoinPool pool = threads > 1 && testList.stream().anyMatch(Test::isThreadSafe) ? new ForkJoinPool(threads) : null;
+        try {
+            int start = 0;
+            while (start < testList.size()) {
+                if (canceled)
+                    return false;
+                // Consecutive thread-safe tests run at the same time, other tests run alone
+                int end = start + 1;
+                if (pool != null && testList.get(start).isThreadSafe()) {
+                    while (end < testList.size() && testList.get(end).isThreadSafe()) {
+                        end++;
+                    }
+                }
+                final List<Test> group = testList.subList(start, end);
+                final int firstTest = start;
+                final Collection<OsmPrimitive> primitives = validatedPrimitives;
+                final Set<OsmPrimitive> relevant = filter;
+                if (group.size() == 1) {
+                    runTest(group.get(0), firstTest + 1, primitives, isPartial, relevant, pool);
+                } else {
+                    final List<ForkJoinTask<?>> tasks = new ArrayList<>(group.size());
+                    for (int i = 0; i < group.size(); i++) {
+                        final Test test = group.get(i);
+                        final int testNumber = firstTest + i + 1;
+                        tasks.add(ForkJoinTask.adapt(() -> runTest(test, testNumber, primitives, isPartial, relevant, pool)));
+                    }
+                    pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+                }
+                // Errors are always reported in test order
+                for (Test test : group) {
+                    errors.addAll(test.getErrors());
+                    if (this.testConsumer != null) {
+                        this.testConsumer.accept(this, test);
+                    }
+                    test.clear();
+                    test.setBeforeUpload(false);
+                }
+                start = end;
             }
-
-            errors.addAll(test.getErrors());
-            if (this.testConsumer != null) {
-                this.testConsumer.accept(this, test);
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
             }
-            test.clear();
-            test.setBeforeUpload(false);
         }
         tests = null;
-        if (Boolean.TRUE.equals(ValidatorPrefHelper.PREF_USE_IGNORE.get())) {
-            getProgressMonitor().setCustomText("");
-            getProgressMonitor().subTask(tr("Updating ignored errors ..."));
-            for (TestError error : errors) {
-                if (canceled) return;
-                error.updateIgnored();
-            }
-        }
+        return true;
+    }
 
-        if (errors.stream().anyMatch(e -> e.getPrimitives().stream().anyMatch(OsmPrimitive::isDisabledAndHidden))) {
-            final String msg = "<b>" + tr("Validation results contain elements hidden by a filter.") + "</b><br/>"
-                    + tr("Please review active filters to see the hidden results.");
-            GuiHelper.runInEDT(() -> new Notification(msg)
-                    .setDuration(Notification.TIME_LONG)
-                    .setIcon(JOptionPane.WARNING_MESSAGE)
-                    .setHelpTopic("Dialog/Validator")
-                    .show());
+    /**
+     * Run a single test
+     * @param test the test to run
+     * @param testNumber the number of the test, for the progress monitor
+     * @param validatedPrimitives the primitives to validate
+     * @param isPartial {@code true} if only a part of the data is validated
+     * @param filter the primitives that errors are kept for, if irrelevant errors are removed
+     * @param pool the pool to visit the primitives of thread-safe tests in parallel, may be {@code null}
+     */
+    private void runTest(Test test, int testNumber, Collection<OsmPrimitive> validatedPrimitives, boolean isPartial,
+            Set<OsmPrimitive> filter, ForkJoinPool pool) {
+        if (canceled)
+            return;
+        getProgressMonitor().setCustomText(tr("Test {0}/{1}: Starting {2}", testNumber, tests.size(), test.getName()));
+        test.setBeforeUpload(this.beforeUpload);
+        // Pre-upload checks only run on a partial selection.
+        test.setPartialSelection(isPartial);
+        test.setPool(pool);
+        try {
+            test.startTest(getProgressMonitor().createSubTaskMonitor(validatedPrimitives.size(), false));
+            test.visit(validatedPrimitives);
+            test.endTest();
+        } finally {
+            test.setPool(null);
+        }
+        if (isPartial && Boolean.TRUE.equals(ValidatorPrefHelper.PREF_REMOVE_IRRELEVANT.get())) {
+            // #23397: remove errors for objects which were not in the initial list of primitives
+            test.removeIrrelevantErrors(filter);
         }
     }
 
@@ -232,6 +316,24 @@ public class ValidationTask extends PleaseWaitRunnable {
         return errors;
     }
 
+    /**
+     * Gets the primitives the errors of a partial validation are about, i.e. the validated primitives and their relevant parents.
+     * @return the relevant primitives, or {@code null} if the tests have not been run yet or all primitives were validated
+     */
+    Set<OsmPrimitive> getRelevantPrimitives() {
+        return relevantPrimitives;
+    }
+
+    /**
+     * Sets the incremental validator to get the errors of a partial validation from. If the validator knows the errors of the
+     * validated primitives for the tests of this task, the tests are not run again.
+     * @param incrementalValidator the incremental validator of the data set of the validated primitives, may be {@code null}
+     * @since xxx
+     */
+    public void setIncrementalValidator(IncrementalValidator incrementalValidator) {
+        this.incrementalValidator = incrementalValidator;
+    }
+
     /**
      * A test consumer to avoid filling up memory. A test consumer <i>may</i> remove tests it has consumed.
      * @param testConsumer The consumer which takes a {@link ValidationTask} ({@code this}) and the test that finished.
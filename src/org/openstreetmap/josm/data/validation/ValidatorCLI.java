@@ -28,6 +28,7 @@ import java.util.stream.Collectors;
 
 import org.openstreetmap.josm.actions.ExtensionFileFilter;
 import org.openstreetmap.josm.cli.CLIModule;
+import org.openstreetmap.josm.data.Bounds;
 import org.openstreetmap.josm.data.Preferences;
 import org.openstreetmap.josm.data.osm.DataSet;
 import org.openstreetmap.josm.data.preferences.JosmBaseDirectories;
@@ -48,6 +49,7 @@ import org.openstreetmap.josm.io.Compression;
 import org.openstreetmap.josm.io.GeoJSONMapRouletteWriter;
 import org.openstreetmap.josm.io.IllegalDataException;
 import org.openstreetmap.josm.io.OsmChangeReader;
+import org.openstreetmap.josm.io.OsmPbfReader;
 import org.openstreetmap.josm.spi.lifecycle.Lifecycle;
 import org.openstreetmap.josm.spi.preferences.Config;
 import org.openstreetmap.josm.spi.preferences.IPreferences;
@@ -81,6 +83,8 @@ public class ValidatorCLI implements CLIModule {
     private final Map<String, List<String>> changeFiles = new HashMap<>();
     /** The output file(s). If {@code null}, use input filename as base (replace extension with geojson). input → output */
     private final Map<String, String> output = new HashMap<>();
+    /** The area to validate, only supported for uncompressed PBF files. input → bounds */
+    private final Map<String, Bounds> bounds = new HashMap<>();
 
     private static final Supplier<ProgressMonitor> progressMonitorFactory = CLIProgressMonitor::new;
 
@@ -96,6 +100,8 @@ public class ValidatorCLI implements CLIModule {
         OUTPUT(true, 'o', OptionParser.OptionCount.MULTIPLE),
         /** --change-file=&lt;change-file&gt;         Add a change file */
         CHANGE_FILE(true, 'c', OptionParser.OptionCount.MULTIPLE),
+        /** --bounds=&lt;minlon,minlat,maxlon,maxlat&gt; Only validate an area of the current (.osm.pbf) input file */
+        BOUNDS(true, 'b', OptionParser.OptionCount.MULTIPLE),
         /** --debug                                   Set logging level to debug */
         DEBUG(false, '*'),
         /** --trace                                   Set logging level to trace */
@@ -249,7 +255,15 @@ public class ValidatorCLI implements CLIModule {
         final List<FileImporter> inputFileImporters = ExtensionFileFilter.getImporters().stream()
                 .filter(importer -> importer.acceptFile(inputFileFile)).collect(Collectors.toList());
         final Stopwatch stopwatch = Stopwatch.createStarted();
-        if (inputFileImporters.stream().noneMatch(fileImporter ->
+        final Bounds inputBounds = this.bounds.get(inputFile);
+        if (inputBounds != null) {
+            if (!inputFile.toLowerCase(Locale.ROOT).endsWith(".osm.pbf")) {
+                throw new IllegalArgumentException(tr("{0} is only supported for uncompressed .osm.pbf files: {1}", "--bounds", inputFile));
+            }
+            // Only decode the blocks of the file that are needed for the area
+            final DataSet dataSet = OsmPbfReader.parseDataSet(inputFileFile.toPath(), inputBounds, progressMonitorFactory.get());
+            MainApplication.getLayerManager().addLayer(new OsmDataLayer(dataSet, inputFileFile.getName(), inputFileFile));
+        } else if (inputFileImporters.stream().noneMatch(fileImporter ->
                 fileImporter.importDataHandleExceptions(inputFileFile, progressMonitorFactory.get()))) {
             throw new IOException(tr("Could not load input file: {0}", inputFile));
         }
@@ -441,6 +455,9 @@ public class ValidatorCLI implements CLIModule {
         case CHANGE_FILE:
             this.changeFiles.computeIfAbsent(currentInput, key -> new ArrayList<>()).add(argument);
             break;
+        case BOUNDS:
+            this.bounds.put(currentInput, new Bounds(argument, ",", Bounds.ParseMethod.LEFT_BOTTOM_RIGHT_TOP, false));
+            break;
         case LANGUAGE:
             I18n.set(argument);
             break;
@@ -490,7 +507,9 @@ public class ValidatorCLI implements CLIModule {
                 "\t--output|-o <file>        " + tr("Output data file name (.geojson, line-by-line delimited for MapRoulette). Optional.")
                                                + '\n' +
                 "\t--change-file|-c <file>   " + tr("Change file name (.osc). Can be specified multiple times per input.") + '\n' +
-                helpPadding                    + tr("Changes will be applied in the specified order. Optional.");
+                helpPadding                    + tr("Changes will be applied in the specified order. Optional.") + '\n' +
+                "\t--bounds|-b <bounds>      " + tr("Area to validate (minlon,minlat,maxlon,maxlat). Optional.") + '\n' +
+                helpPadding                    + tr("Only supported for uncompressed .osm.pbf files, which are indexed on first use.");
         // CHECKSTYLE.ON: SingleSpaceSeparator
     }
 }
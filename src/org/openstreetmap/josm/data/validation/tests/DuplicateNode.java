@@ -8,6 +8,7 @@ import static org.openstreetmap.josm.tools.I18n.tr;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -21,6 +22,7 @@ import java.util.stream.Stream;
 import org.openstreetmap.josm.actions.MergeNodesAction;
 import org.openstreetmap.josm.command.Command;
 import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.BBox;
 import org.openstreetmap.josm.data.osm.Hash;
 import org.openstreetmap.josm.data.osm.Node;
 import org.openstreetmap.josm.data.osm.OsmPrimitive;
@@ -75,6 +77,14 @@ public class DuplicateNode extends Test {
                 throw new AssertionError();
         }
 
+        /**
+         * Returns the maximum distance of two nodes which may be considered to be at the same position
+         * @return the distance in degrees
+         */
+        double getMaxDistance() {
+            return precision == 0 ? LatLon.MAX_SERVER_PRECISION : precision;
+        }
+
         @Override
         public boolean equals(Object k, Object t) {
             LatLon coorK = getLatLon(k);
@@ -111,6 +121,9 @@ public class DuplicateNode extends Test {
      * &lt;pos, List&lt;Node&gt;&gt;
      */
     private Storage<Object> potentialDuplicates;
+    private NodeHash nodeHash;
+    /** The visited nodes, if only a part of the data is tested */
+    private Set<Node> nodesToTest;
 
     /**
      * Constructor
@@ -123,12 +136,17 @@ public class DuplicateNode extends Test {
     @Override
     public void startTest(ProgressMonitor monitor) {
         super.startTest(monitor);
-        potentialDuplicates = new Storage<>(new NodeHash());
+        nodeHash = new NodeHash();
+        potentialDuplicates = new Storage<>(nodeHash);
+        nodesToTest = partialSelection ? new HashSet<>() : null;
     }
 
     @SuppressWarnings("unchecked")
     @Override
     public void endTest() {
+        if (nodesToTest != null) {
+            addNearbyNodes();
+        }
         for (Object v: potentialDuplicates) {
             if (v instanceof Node) {
                 // just one node at this position. Nothing to report as error
@@ -153,6 +171,26 @@ public class DuplicateNode extends Test {
         }
         super.endTest();
         potentialDuplicates = null;
+        nodeHash = null;
+        nodesToTest = null;
+    }
+
+    /**
+     * Add the nodes of the data set which are at the same position as a tested node, so that a partial test
+     * also finds the duplicates of a tested node which are not tested themselves.
+     */
+    private void addNearbyNodes() {
+        final double distance = nodeHash.getMaxDistance();
+        final Set<Node> added = new HashSet<>();
+        for (Node n : nodesToTest) {
+            if (n.getDataSet() == null || !n.isLatLonKnown())
+                continue;
+            for (Node other : n.getDataSet().searchNodes(new BBox(n.lon(), n.lat(), distance))) {
+                if (!nodesToTest.contains(other) && added.add(other)) {
+                    addPotentialDuplicate(other);
+                }
+            }
+        }
     }
 
     /**
@@ -250,9 +288,16 @@ public class DuplicateNode extends Test {
         return errors;
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public void visit(Node n) {
+        if (nodesToTest != null && n.isUsable()) {
+            nodesToTest.add(n);
+        }
+        addPotentialDuplicate(n);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addPotentialDuplicate(Node n) {
         if (n.isUsable()) {
             Object old = potentialDuplicates.get(n);
             if (old == null) {
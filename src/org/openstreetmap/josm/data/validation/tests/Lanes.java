@@ -94,6 +94,11 @@ public class Lanes extends Test.TagTest {
         checkNumberOfLanes(p);
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     @Override
     public boolean isPrimitiveUsable(OsmPrimitive p) {
         return p.isTagged() && p instanceof Way && p.hasTag("highway") && super.isPrimitiveUsable(p);
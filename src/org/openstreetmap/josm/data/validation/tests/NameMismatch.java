@@ -116,6 +116,11 @@ public class NameMismatch extends Test.TagTest {
         }
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     @Override
     public boolean isPrimitiveUsable(OsmPrimitive p) {
         return p.isTagged() && super.isPrimitiveUsable(p);
@@ -47,6 +47,8 @@ public class OverlappingWays extends Test {
 
     /** Bag of all way segments */
     private MultiMap<Pair<Node, Node>, WaySegment> nodePairs;
+    /** The visited ways, if only a part of the data is tested */
+    private Set<Way> waysToTest;
 
     private boolean onlyKnownLinear;
     private boolean includeOther;
@@ -83,6 +85,7 @@ public class OverlappingWays extends Test {
     public void startTest(ProgressMonitor monitor) {
         super.startTest(monitor);
         nodePairs = new MultiMap<>(1000);
+        waysToTest = partialSelection ? new HashSet<>() : null;
         includeOther = isBeforeUpload ? ValidatorPrefHelper.PREF_OTHER_UPLOAD.get() : ValidatorPrefHelper.PREF_OTHER.get();
         onlyKnownLinear = Config.getPref().getBoolean("overlapping-ways.only-known-linear", true);
         ignoreLayer = Config.getPref().getBoolean("overlapping-ways.ignore-layer", false);
@@ -95,6 +98,9 @@ public class OverlappingWays extends Test {
 
     @Override
     public void endTest() {
+        if (waysToTest != null) {
+            addConnectedWays();
+        }
         Map<List<Way>, Set<WaySegment>> seenWays = new HashMap<>(500);
 
         for (Set<WaySegment> duplicated : nodePairs.values()) {
@@ -113,10 +119,29 @@ public class OverlappingWays extends Test {
             }
         }
         nodePairs = null;
+        waysToTest = null;
 
         super.endTest();
     }
 
+    /**
+     * Add the segments of the ways which share a node with a tested way, so that a partial test also finds
+     * the overlaps of a tested way with ways which are not tested themselves.
+     */
+    private void addConnectedWays() {
+        final Set<Way> added = new HashSet<>();
+        for (Way w : waysToTest) {
+            for (Node n : w.getNodes()) {
+                for (Way other : n.getParentWays()) {
+                    if (!waysToTest.contains(other) && added.add(other) && other.isUsable()
+                            && checkDuplicateWaySegment(other).isEmpty()) {
+                        addSegments(other);
+                    }
+                }
+            }
+        }
+    }
+
     private void analyseOverlaps(Set<WaySegment> duplicated, Map<List<Way>, Set<WaySegment>> seenWays) {
         int ways = duplicated.size();
         if (ways <= 1)
@@ -256,6 +281,9 @@ public class OverlappingWays extends Test {
 
     @Override
     public void visit(Way w) {
+        if (waysToTest != null) {
+            waysToTest.add(w);
+        }
 
         final Set<WaySegment> duplicateWaySegment = checkDuplicateWaySegment(w);
         if (!duplicateWaySegment.isEmpty()) {
@@ -266,7 +294,10 @@ public class OverlappingWays extends Test {
                     .build());
             return;
         }
+        addSegments(w);
+    }
 
+    private void addSegments(Way w) {
         if (IGNORED.test(w))
             return;
 
@@ -1210,9 +1210,12 @@ public class TagChecker extends TagTest implements TaggingPresetListener {
     private int countDeprecated(OsmPrimitive p) {
         if (deprecatedChecker == null)
             return 0;
-        deprecatedChecker.getErrors().clear();
-        deprecatedChecker.visit(Collections.singleton(p), url -> url.endsWith("deprecated.mapcss"));
-        return deprecatedChecker.getErrors().size();
+        // the deprecated checker is shared by all threads visiting primitives of this test
+        synchronized (deprecatedChecker) {
+            deprecatedChecker.getErrors().clear();
+            deprecatedChecker.visit(Collections.singleton(p), url -> url.endsWith("deprecated.mapcss"));
+            return deprecatedChecker.getErrors().size();
+        }
     }
 
     private static boolean isNum(String harmonizedValue) {
@@ -1281,6 +1284,11 @@ public class TagChecker extends TagTest implements TaggingPresetListener {
         super.endTest();
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     @Override
     public void visit(Collection<OsmPrimitive> selection) {
         if (checkKeys || checkValues || checkComplex || checkFixmes || checkPresetsTypes || checkRegions) {
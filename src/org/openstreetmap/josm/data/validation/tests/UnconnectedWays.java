@@ -386,7 +386,7 @@ public abstract class UnconnectedWays extends Test {
         if (ds == null)
             return;
 
-        for (Way w : ds.getWays()) {
+        for (Way w : partialSelection ? getNearbyWays() : ds.getWays()) {
             if (isWantedWay(w) && w.getRealNodesCount() > 1) {
                 waySegments.addAll(getWaySegments(w));
                 addNode(w.firstNode(), endnodes);
@@ -425,6 +425,31 @@ public abstract class UnconnectedWays extends Test {
         super.endTest();
     }
 
+    /**
+     * Find the ways which are near the tested primitives, using the spatial index of the data set. All segments which can be
+     * found near a tested node, and all nodes which can be found near a tested way, belong to these ways, so a partial test finds
+     * the same errors as a test of all ways.
+     * @return the ways near the tested primitives
+     */
+    private Collection<Way> getNearbyWays() {
+        if (waysToTest.size() + nodesToTest.size() >= ds.getWays().size()) {
+            return ds.getWays();
+        }
+        // same conversion from meters to degrees as in MyWaySegment.nearbyNodes
+        final double fudge = Math.max(mindist, minmiddledist) * (360.0d / (Ellipsoid.WGS84.a * 2 * Math.PI));
+        final Set<Way> ways = new LinkedHashSet<>();
+        for (Collection<? extends OsmPrimitive> tested : Arrays.asList(waysToTest, nodesToTest)) {
+            for (OsmPrimitive p : tested) {
+                if (p.getBBox().isValid()) {
+                    final BBox bbox = new BBox();
+                    bbox.addPrimitive(p, fudge);
+                    ways.addAll(ds.searchWays(bbox));
+                }
+            }
+        }
+        return ways;
+    }
+
     private void fillSearchNodes(Collection<Node> nodes) {
         searchNodes.clear();
         for (Node n : nodes) {
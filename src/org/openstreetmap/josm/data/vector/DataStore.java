@@ -4,6 +4,7 @@ package org.openstreetmap.josm.data.vector;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.Set;
@@ -55,6 +56,8 @@ class DataStore<O extends IPrimitive, N extends INode, W extends IWay<N>, R exte
       .foreignKey(new Storage.PrimitiveIdHash()));
     protected final Collection<DataSource> dataSources = new LinkedList<>();
     private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+    /** The primitives which are not in the spatial index yet, see {@link #startBulkLoad()} */
+    private Set<O> pendingPrimitives;
 
     public QuadBucketPrimitiveStore<N, W, R> getStore() {
         return this.store;
@@ -96,7 +99,9 @@ class DataStore<O extends IPrimitive, N extends INode, W extends IWay<N>, R exte
         try {
             this.readWriteLock.writeLock().lockInterruptibly();
             if (this.allPrimitives.contains(primitive)) {
-                this.store.removePrimitive(primitive);
+                if (this.pendingPrimitives == null || !this.pendingPrimitives.remove(primitive)) {
+                    this.store.removePrimitive(primitive);
+                }
                 this.allPrimitives.remove(primitive);
                 this.primitivesMap.remove(primitive.getPrimitiveId());
             }
@@ -115,11 +120,38 @@ class DataStore<O extends IPrimitive, N extends INode, W extends IWay<N>, R exte
      * @param primitive The primitive to add
      */
     protected void addPrimitive(O primitive) {
-        this.store.addPrimitive(primitive);
+        if (this.pendingPrimitives != null) {
+            this.pendingPrimitives.add(primitive);
+        } else {
+            this.store.addPrimitive(primitive);
+        }
         this.allPrimitives.add(primitive);
         this.primitivesMap.put(primitive.getPrimitiveId(), primitive);
     }
 
+    /**
+     * Start adding many primitives. Until {@link #finishBulkLoad()} is called, the added primitives are not added to the
+     * spatial index, so that they can be changed freely, and the index can be built at once.
+     * @since xxx
+     */
+    protected void startBulkLoad() {
+        if (this.pendingPrimitives == null) {
+            this.pendingPrimitives = new LinkedHashSet<>();
+        }
+    }
+
+    /**
+     * Add the primitives added since {@link #startBulkLoad()} to the spatial index
+     * @since xxx
+     */
+    protected void finishBulkLoad() {
+        if (this.pendingPrimitives != null) {
+            final Set<O> primitives = this.pendingPrimitives;
+            this.pendingPrimitives = null;
+            this.store.addPrimitives(primitives);
+        }
+    }
+
     /**
      * Get the read/write lock for this dataset
      * @return The read/write lock
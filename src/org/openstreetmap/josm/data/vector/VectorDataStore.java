@@ -2,7 +2,6 @@
 package org.openstreetmap.josm.data.vector;
 
 import static java.util.stream.Collectors.toCollection;
-import static java.util.stream.Collectors.toList;
 
 import java.awt.Shape;
 import java.awt.geom.Area;
@@ -12,6 +11,7 @@ import java.awt.geom.PathIterator;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -50,6 +50,14 @@ public class VectorDataStore extends DataStore<VectorPrimitive, VectorNode, Vect
     private static final String ORIGINAL_ID = "original_id";
     private static final String MULTIPOLYGON_TYPE = "multipolygon";
     private static final String RELATION_TYPE = "type";
+    /** The minimal number of features of a layer for which their geometry is built in parallel */
+    private static final int PARALLEL_GEOMETRY_THRESHOLD = 64;
+
+    /**
+     * The nodes by their coordinates, to find the nodes shared by features without searching the spatial index.
+     * Nodes at the same position of a tile always have exactly the same coordinates.
+     */
+    private final Map<LatLon, VectorNode> nodesByCoordinates = new HashMap<>();
 
     @Override
     protected void addPrimitive(VectorPrimitive primitive) {
@@ -70,10 +78,10 @@ public class VectorDataStore extends DataStore<VectorPrimitive, VectorNode, Vect
           .get(new SimplePrimitiveId(primitive.getPrimitiveId().getUniqueId(),
             OsmPrimitiveType.RELATION));
         if (alreadyAdded == null || alreadyAdded.equals(primitive)) {
-            super.addPrimitive(primitive);
+            this.addToDataStore(primitive);
         } else if (mergedRelation != null && mergedRelation.get(JOSM_MERGE_TYPE_KEY) != null) {
             mergedRelation.addRelationMember(new VectorRelationMember("", primitive));
-            super.addPrimitive(primitive);
+            this.addToDataStore(primitive);
             // Check that all primitives can be merged
             if (mergedRelation.getMemberPrimitivesList().stream().allMatch(IWay.class::isInstance)) {
                 // This pretty much does the "right" thing
@@ -93,8 +101,27 @@ public class VectorDataStore extends DataStore<VectorPrimitive, VectorNode, Vect
                 temporaryRelation.addRelationMember(new VectorRelationMember("", alreadyAdded));
             }
             temporaryRelation.addRelationMember(new VectorRelationMember("", primitive));
-            super.addPrimitive(primitive);
-            super.addPrimitive(temporaryRelation);
+            this.addToDataStore(primitive);
+            this.addToDataStore(temporaryRelation);
+        }
+    }
+
+    /**
+     * Add a primitive to the underlying data store, and remember the position of nodes
+     * @param primitive The primitive to add
+     */
+    private void addToDataStore(VectorPrimitive primitive) {
+        super.addPrimitive(primitive);
+        if (primitive instanceof VectorNode && ((VectorNode) primitive).getCoor() != null) {
+            this.nodesByCoordinates.putIfAbsent(((VectorNode) primitive).getCoor(), (VectorNode) primitive);
+        }
+    }
+
+    @Override
+    protected void removePrimitive(VectorPrimitive primitive) {
+        super.removePrimitive(primitive);
+        if (primitive instanceof VectorNode && ((VectorNode) primitive).getCoor() != null) {
+            this.nodesByCoordinates.remove(((VectorNode) primitive).getCoor(), primitive);
         }
     }
 
@@ -176,11 +203,9 @@ public class VectorDataStore extends DataStore<VectorPrimitive, VectorNode, Vect
                 tileBbox.getMaxLat() - (tileBbox.getMaxLat() - tileBbox.getMinLat()) * y / layerExtent,
                 tileBbox.getMinLon() + (tileBbox.getMaxLon() - tileBbox.getMinLon()) * x / layerExtent
         );
-        final Collection<VectorNode> nodes = this.store
-          .searchNodes(new BBox(coords.lon(), coords.lat(), VectorDataSet.DUPE_NODE_DISTANCE));
+        final VectorNode first = this.nodesByCoordinates.get(coords);
         final VectorNode node;
-        if (!nodes.isEmpty()) {
-            final VectorNode first = nodes.iterator().next();
+        if (first != null) {
             if (first.isDisabled() || !first.isVisible()) {
                 // Only replace nodes that are not visible
                 node = new VectorNode(layer.getName());
@@ -294,24 +319,54 @@ public class VectorDataStore extends DataStore<VectorPrimitive, VectorNode, Vect
      * @param <T> The tile type
      */
     public <T extends Tile & VectorTile> void addDataTile(T tile) {
-        // Using a map reduces the cost of addFeatureData from 2,715,158,632 bytes to 235,042,184 bytes (-91.3%)
-        // This was somewhat variant, with some runs being closer to ~560 MB (still -80%).
-        for (Layer layer : tile.getLayers()) {
-            Map<GeometryTypes, List<Feature>> grouped = layer.getFeatures().stream().collect(Collectors.groupingBy(Feature::getGeometryType));
-            // Unknown -> Point -> LineString -> Polygon
-            for (GeometryTypes type : GeometryTypes.values()) {
-                if (grouped.containsKey(type)) {
-                    addFeatureData(tile, layer, grouped.get(type));
+        // The spatial index is only needed once the tile is complete, it is then built at once
+        this.startBulkLoad();
+        try {
+            // Using a map reduces the cost of addFeatureData from 2,715,158,632 bytes to 235,042,184 bytes (-91.3%)
+            // This was somewhat variant, with some runs being closer to ~560 MB (still -80%).
+            for (Layer layer : tile.getLayers()) {
+                prepareGeometry(layer.getFeatures());
+                Map<GeometryTypes, List<Feature>> grouped = layer.getFeatures().stream()
+                        .collect(Collectors.groupingBy(Feature::getGeometryType));
+                // Unknown -> Point -> LineString -> Polygon
+                for (GeometryTypes type : GeometryTypes.values()) {
+                    if (grouped.containsKey(type)) {
+                        addFeatureData(tile, layer, grouped.get(type));
+                    }
                 }
             }
+        } finally {
+            this.finishBulkLoad();
         }
         // Replace original_ids with the same object (reduce memory usage)
         // Strings aren't interned automatically in some GC implementations
-        Collection<IPrimitive> primitives = this.getAllPrimitives().stream().filter(p -> p.hasKey(ORIGINAL_ID)).collect(toList());
-        List<String> toReplace = primitives.stream().map(p -> p.get(ORIGINAL_ID)).filter(Objects::nonNull).collect(toList());
-        primitives.stream().filter(p -> toReplace.contains(p.get(ORIGINAL_ID)))
-                .forEach(p -> p.put(ORIGINAL_ID, toReplace.stream().filter(shared -> shared.equals(p.get(ORIGINAL_ID)))
-                        .findAny().orElse(null)));
+        Map<String, String> originalIds = new HashMap<>();
+        for (VectorPrimitive primitive : this.getAllPrimitives()) {
+            String originalId = primitive.get(ORIGINAL_ID);
+            if (originalId != null) {
+                String shared = originalIds.putIfAbsent(originalId, originalId);
+                if (shared != null) {
+                    primitive.put(ORIGINAL_ID, shared);
+                }
+            }
+        }
+    }
+
+    /**
+     * Build the geometry of many features in parallel. This is the most expensive part of the conversion of polygons.
+     * @param features The features of a layer
+     */
+    private static void prepareGeometry(Collection<Feature> features) {
+        if (features.size() >= PARALLEL_GEOMETRY_THRESHOLD) {
+            features.parallelStream().forEach(feature -> {
+                try {
+                    feature.getGeometryObject();
+                } catch (IllegalArgumentException e) {
+                    // Logged when the feature is added
+                    Logging.trace(e);
+                }
+            });
+        }
     }
 
     private <T extends Tile & VectorTile> void addFeatureData(T tile, Layer layer, Collection<Feature> features) {
@@ -405,5 +460,6 @@ public class VectorDataStore extends DataStore<VectorPrimitive, VectorNode, Vect
         this.store.clear();
         this.allPrimitives.clear();
         this.primitivesMap.clear();
+        this.nodesByCoordinates.clear();
     }
 }
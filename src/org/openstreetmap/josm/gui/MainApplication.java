@@ -23,6 +23,7 @@ import java.net.InetAddress;
 import java.net.ProxySelector;
 import java.net.URL;
 import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.AllPermission;
 import java.security.CodeSource;
@@ -154,6 +155,7 @@ import org.openstreetmap.josm.spi.preferences.Config;
 import org.openstreetmap.josm.tools.FontsManager;
 import org.openstreetmap.josm.tools.GBC;
 import org.openstreetmap.josm.tools.Http1Client;
+import org.openstreetmap.josm.tools.Http2Client;
 import org.openstreetmap.josm.tools.HttpClient;
 import org.openstreetmap.josm.tools.I18n;
 import org.openstreetmap.josm.tools.ImageProvider;
@@ -297,16 +299,33 @@ public class MainApplication {
      * Source of NTV2 shift files: Download from JOSM website.
      * @since 12777
      */
-    public static final NTV2GridShiftFileSource JOSM_WEBSITE_NTV2_SOURCE = gridFileName -> {
-        String location = Config.getUrls().getJOSMWebsite() + "/proj/" + gridFileName;
-        // Try to load grid file
-        @SuppressWarnings("resource")
-        CachedFile cf = new CachedFile(location);
-        try {
-            return cf.getInputStream();
-        } catch (IOException ex) {
-            Logging.warn(ex);
-            return null;
+    public static final NTV2GridShiftFileSource JOSM_WEBSITE_NTV2_SOURCE = new NTV2GridShiftFileSource() {
+        @Override
+        public InputStream getNTV2GridShiftFile(String gridFileName) {
+            // Try to load grid file
+            @SuppressWarnings("resource")
+            CachedFile cf = getCachedFile(gridFileName);
+            try {
+                return cf.getInputStream();
+            } catch (IOException ex) {
+                Logging.warn(ex);
+                return null;
+            }
+        }
+
+        @Override
+        public Path getNTV2GridShiftFilePath(String gridFileName) {
+            // Download the grid file into the cache
+            try (CachedFile cf = getCachedFile(gridFileName)) {
+                return cf.getFile().toPath();
+            } catch (IOException | InvalidPathException ex) {
+                Logging.warn(ex);
+                return null;
+            }
+        }
+
+        private CachedFile getCachedFile(String gridFileName) {
+            return new CachedFile(Config.getUrls().getJOSMWebsite() + "/proj/" + gridFileName);
         }
     };
 
@@ -1105,7 +1124,8 @@ public class MainApplication {
     }
 
     static void setupCallbacks() {
-        HttpClient.setFactory(Http1Client::new);
+        // HTTP/2 multiplexes the concurrent requests to a host, e.g. for imagery tiles, over a single connection
+        HttpClient.setFactory(Config.getPref().getBoolean("http.client.http2", false) ? Http2Client::new : Http1Client::new);
         OsmConnection.setOAuthAccessTokenFetcher(OAuthAuthorizationWizard::obtainAccessToken);
         AbstractCredentialsAgent.setCredentialsProvider(CredentialDialog::promptCredentials);
         MessageNotifier.setNotifierCallback(MainApplication::notifyNewMessages);
@@ -237,6 +237,15 @@ public class NavigatableComponent extends JComponent implements Helpful {
      */
     private transient MapViewState state;
 
+    /**
+     * The screen space index of the primitives, to search the primitives near the mouse pointer.
+     */
+    private transient NearestPrimitiveIndex nearestPrimitiveIndex;
+    /** The data set, its change count and the state of the last search without index */
+    private transient DataSet nearestSearchDataSet;
+    private transient int nearestSearchChangeCount;
+    private transient MapViewState nearestSearchState;
+
     /**
      * Main uses weak link to store this, so we need to keep a reference.
      */
@@ -265,6 +274,7 @@ public class NavigatableComponent extends JComponent implements Helpful {
         removeHierarchyListener(hierarchyListenerNavigatableComponent);
         removeComponentListener(componentListenerNavigatableComponent);
         removePrimitiveHoverMouseListeners();
+        disposeNearestPrimitiveIndex();
         super.removeNotify();
     }
 
@@ -1064,7 +1074,12 @@ public class NavigatableComponent extends JComponent implements Helpful {
             double snapDistanceSq = PROP_SNAP_DISTANCE.get();
             snapDistanceSq *= snapDistanceSq;
 
-            for (Node n : ds.searchNodes(getBBox(p, PROP_SNAP_DISTANCE.get()))) {
+            NearestPrimitiveIndex index = getNearestPrimitiveIndex(ds);
+            List<Node> candidates = index != null ? index.getNodes(p, PROP_SNAP_DISTANCE.get()) : null;
+            if (candidates == null) {
+                candidates = ds.searchNodes(getBBox(p, PROP_SNAP_DISTANCE.get()));
+            }
+            for (Node n : candidates) {
                 if (predicate.test(n)
                         && (dist = getPoint2D(n).distanceSq(p)) < snapDistanceSq) {
                     nearestMap.computeIfAbsent(dist, k -> new LinkedList<>()).add(n);
@@ -1261,10 +1276,15 @@ public class NavigatableComponent extends JComponent implements Helpful {
         DataSet ds = MainApplication.getLayerManager().getActiveDataSet();
 
         if (ds != null) {
-            double snapDistanceSq = Config.getPref().getInt("mappaint.segment.snap-distance", 10);
-            snapDistanceSq *= snapDistanceSq;
+            int snapDistance = Config.getPref().getInt("mappaint.segment.snap-distance", 10);
+            double snapDistanceSq = (double) snapDistance * snapDistance;
+            NearestPrimitiveIndex index = getNearestPrimitiveIndex(ds);
+            if (index != null && index.visitSegments(p, snapDistance, predicate,
+                    (w, from, to, i) -> addNearWaySegment(nearestMap, p, snapDistanceSq, w, from, to, i))) {
+                return nearestMap;
+            }
 
-            for (Way w : ds.searchWays(getBBox(p, Config.getPref().getInt("mappaint.segment.snap-distance", 10)))) {
+            for (Way w : ds.searchWays(getBBox(p, snapDistance))) {
                 if (!predicate.test(w)) {
                     continue;
                 }
@@ -1279,26 +1299,7 @@ public class NavigatableComponent extends JComponent implements Helpful {
                         lastN = n;
                         continue;
                     }
-
-                    Point2D pA = getPoint2D(lastN);
-                    Point2D pB = getPoint2D(n);
-                    double c = pA.distanceSq(pB);
-                    double a = p.distanceSq(pB);
-                    double b = p.distanceSq(pA);
-
-                    /* perpendicular distance squared
-                     * loose some precision to account for possible deviations in the calculation above
-                     * e.g. if identical (A and B) come about reversed in another way, values may differ
-                     * -- zero out least significant 32 dual digits of mantissa.
-                     */
-                    double perDistSq = Double.longBitsToDouble(
-                            Double.doubleToLongBits(a - (a - b + c) * (a - b + c) / 4 / c)
-                            >> 32 << 32); // resolution in numbers with large exponent not needed here.
-
-                    if (perDistSq < snapDistanceSq && a < c + snapDistanceSq && b < c + snapDistanceSq) {
-                        nearestMap.computeIfAbsent(perDistSq, k -> new LinkedList<>()).add(new WaySegment(w, i));
-                    }
-
+                    addNearWaySegment(nearestMap, p, snapDistanceSq, w, lastN, n, i);
                     lastN = n;
                 }
             }
@@ -1307,6 +1308,63 @@ public class NavigatableComponent extends JComponent implements Helpful {
         return nearestMap;
     }
 
+    private void addNearWaySegment(Map<Double, List<WaySegment>> nearestMap, Point p, double snapDistanceSq,
+            Way w, Node nodeA, Node nodeB, int i) {
+        Point2D pA = getPoint2D(nodeA);
+        Point2D pB = getPoint2D(nodeB);
+        double c = pA.distanceSq(pB);
+        double a = p.distanceSq(pB);
+        double b = p.distanceSq(pA);
+
+        /* perpendicular distance squared
+         * loose some precision to account for possible deviations in the calculation above
+         * e.g. if identical (A and B) come about reversed in another way, values may differ
+         * -- zero out least significant 32 dual digits of mantissa.
+         */
+        double perDistSq = Double.longBitsToDouble(
+                Double.doubleToLongBits(a - (a - b + c) * (a - b + c) / 4 / c)
+                >> 32 << 32); // resolution in numbers with large exponent not needed here.
+
+        if (perDistSq < snapDistanceSq && a < c + snapDistanceSq && b < c + snapDistanceSq) {
+            nearestMap.computeIfAbsent(perDistSq, k -> new LinkedList<>()).add(new WaySegment(w, i));
+        }
+    }
+
+    /**
+     * Returns the screen space index of the primitives of a data set, to search the primitives near a point.
+     * The index is only built when the same data set is searched again in the same view without having been changed
+     * in between, e.g. on mouse moves, but not while nodes are dragged.
+     * @param ds the data set
+     * @return the index, or {@code null} if the data set is searched for the first time in the current view
+     */
+    private synchronized NearestPrimitiveIndex getNearestPrimitiveIndex(DataSet ds) {
+        MapViewState current = getState();
+        if (nearestPrimitiveIndex != null) {
+            if (nearestPrimitiveIndex.isValidFor(ds, current))
+                return nearestPrimitiveIndex;
+            nearestPrimitiveIndex.dispose();
+            nearestPrimitiveIndex = null;
+        } else if (ds == nearestSearchDataSet && current == nearestSearchState && ds.getChangeCount() == nearestSearchChangeCount) {
+            nearestPrimitiveIndex = new NearestPrimitiveIndex(this, ds);
+            nearestSearchDataSet = null;
+            nearestSearchState = null;
+            return nearestPrimitiveIndex;
+        }
+        nearestSearchDataSet = ds;
+        nearestSearchChangeCount = ds.getChangeCount();
+        nearestSearchState = current;
+        return null;
+    }
+
+    private synchronized void disposeNearestPrimitiveIndex() {
+        if (nearestPrimitiveIndex != null) {
+            nearestPrimitiveIndex.dispose();
+            nearestPrimitiveIndex = null;
+        }
+        nearestSearchDataSet = null;
+        nearestSearchState = null;
+    }
+
     /**
      * The result *order* depends on the current map selection state.
      * Segments within 10px of p are searched and sorted by their distance to {@code p},
@@ -0,0 +1,323 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.openstreetmap.josm.data.osm.BBox;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.data.osm.event.AbstractDatasetChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataSetListener;
+import org.openstreetmap.josm.data.osm.event.NodeMovedEvent;
+import org.openstreetmap.josm.data.osm.event.PrimitivesAddedEvent;
+import org.openstreetmap.josm.data.osm.event.PrimitivesRemovedEvent;
+import org.openstreetmap.josm.data.osm.event.RelationMembersChangedEvent;
+import org.openstreetmap.josm.data.osm.event.TagsChangedEvent;
+import org.openstreetmap.josm.data.osm.event.WayNodesChangedEvent;
+
+/**
+ * Screen space index of the nodes and way segments of a data set shown in a {@link NavigatableComponent}.
+ * It is used to find the primitives near the mouse pointer without searching the data set and projecting
+ * all the candidates on each mouse move.
+ * <p>
+ * The view (and a margin around it) is divided into square cells, each cell lists the nodes within it and
+ * the way segments whose bounding box overlaps it. The index is only valid for the {@link MapViewState}
+ * it has been built for, and until the data set fires an event that may change the geometry.
+ * @since xxx
+ */
+final class NearestPrimitiveIndex implements DataSetListener {
+
+    /** The size of the cells, in pixels */
+    private static final int CELL_SIZE = 32;
+    /** The size of the indexed area around the view, in pixels */
+    private static final int MARGIN = 32;
+
+    /**
+     * Visitor for the way segments near a point.
+     */
+    @FunctionalInterface
+    interface SegmentVisitor {
+        /**
+         * Visits a way segment.
+         * @param way the way
+         * @param from the first node of the segment
+         * @param to the second node of the segment
+         * @param index the index of the segment, as in {@link org.openstreetmap.josm.data.osm.WaySegment}
+         */
+        void visit(Way way, Node from, Node to, int index);
+    }
+
+    private final DataSet ds;
+    private final MapViewState state;
+    private final Rectangle area;
+    private final int columns;
+    private final int rows;
+    private final Node[][] nodeCells;
+    /** For each cell, the ids of the overlapping way segments, in ascending order */
+    private final int[][] segmentCells;
+    private final Way[] segmentWays;
+    /** The index of the first node of each way segment in its way */
+    private final int[] segmentFrom;
+    /** The index of the second node of each way segment in its way */
+    private final int[] segmentTo;
+    private volatile boolean valid = true;
+
+    /**
+     * Builds the index of the primitives shown in a component, and registers it as listener of the data set.
+     * @param nc the component, its current state is indexed
+     * @param ds the data set
+     */
+    NearestPrimitiveIndex(NavigatableComponent nc, DataSet ds) {
+        this.ds = ds;
+        this.state = nc.getState();
+        this.area = new Rectangle(-MARGIN, -MARGIN, nc.getWidth() + 2 * MARGIN, nc.getHeight() + 2 * MARGIN);
+        this.columns = (area.width + CELL_SIZE - 1) / CELL_SIZE;
+        this.rows = (area.height + CELL_SIZE - 1) / CELL_SIZE;
+        BBox bbox = nc.getLatLonBounds(area).toBBox();
+        Node[][] newNodeCells = new Node[columns * rows][];
+        int[] nodeCounts = new int[columns * rows];
+        int[][] newSegmentCells = new int[columns * rows][];
+        int[] segmentCounts = new int[columns * rows];
+        Way[] ways = new Way[256];
+        int[] from = new int[256];
+        int[] to = new int[256];
+        int segments = 0;
+        ds.getReadLock().lock();
+        try {
+            for (Node n : ds.searchNodes(bbox)) {
+                Point2D p = nc.getPoint2D(n);
+                if (area.contains(p)) {
+                    int cell = row(p.getY()) * columns + column(p.getX());
+                    if (newNodeCells[cell] == null) {
+                        newNodeCells[cell] = new Node[4];
+                    } else if (nodeCounts[cell] == newNodeCells[cell].length) {
+                        newNodeCells[cell] = Arrays.copyOf(newNodeCells[cell], 2 * nodeCounts[cell]);
+                    }
+                    newNodeCells[cell][nodeCounts[cell]++] = n;
+                }
+            }
+            for (Way w : ds.searchWays(bbox)) {
+                // the same segments as in NavigatableComponent#getNearestWaySegmentsImpl
+                Point2D lastP = null;
+                int lastIndex = -1;
+                for (int i = 0; i < w.getNodesCount(); i++) {
+                    Node n = w.getNode(i);
+                    if (n.isDeleted() || n.isIncomplete()) {
+                        continue;
+                    }
+                    Point2D p = nc.getPoint2D(n);
+                    if (lastP != null && addSegment(newSegmentCells, segmentCounts, segments, lastP, p)) {
+                        if (segments == ways.length) {
+                            ways = Arrays.copyOf(ways, 2 * segments);
+                            from = Arrays.copyOf(from, 2 * segments);
+                            to = Arrays.copyOf(to, 2 * segments);
+                        }
+                        ways[segments] = w;
+                        from[segments] = lastIndex;
+                        to[segments] = i;
+                        segments++;
+                    }
+                    lastP = p;
+                    lastIndex = i;
+                }
+            }
+            // while the data set cannot be changed, so that no change is missed
+            ds.addDataSetListener(this);
+        } finally {
+            ds.getReadLock().unlock();
+        }
+        for (int cell = 0; cell < newNodeCells.length; cell++) {
+            if (newNodeCells[cell] != null) {
+                newNodeCells[cell] = Arrays.copyOf(newNodeCells[cell], nodeCounts[cell]);
+            }
+            if (newSegmentCells[cell] != null) {
+                newSegmentCells[cell] = Arrays.copyOf(newSegmentCells[cell], segmentCounts[cell]);
+            }
+        }
+        this.nodeCells = newNodeCells;
+        this.segmentCells = newSegmentCells;
+        this.segmentWays = Arrays.copyOf(ways, segments);
+        this.segmentFrom = Arrays.copyOf(from, segments);
+        this.segmentTo = Arrays.copyOf(to, segments);
+    }
+
+    /**
+     * Adds a way segment to the cells overlapped by its bounding box.
+     * @return {@code true} if the segment has been added, {@code false} if it is outside the indexed area
+     */
+    private boolean addSegment(int[][] cells, int[] counts, int segment, Point2D a, Point2D b) {
+        double minX = Math.min(a.getX(), b.getX());
+        double maxX = Math.max(a.getX(), b.getX());
+        double minY = Math.min(a.getY(), b.getY());
+        double maxY = Math.max(a.getY(), b.getY());
+        // also rejects NaN
+        if (!(maxX >= area.x && minX < area.getMaxX() && maxY >= area.y && minY < area.getMaxY()))
+            return false;
+        int maxColumn = column(maxX);
+        int maxRow = row(maxY);
+        for (int row = row(minY); row <= maxRow; row++) {
+            for (int column = column(minX); column <= maxColumn; column++) {
+                int cell = row * columns + column;
+                if (cells[cell] == null) {
+                    cells[cell] = new int[4];
+                } else if (counts[cell] == cells[cell].length) {
+                    cells[cell] = Arrays.copyOf(cells[cell], 2 * counts[cell]);
+                }
+                cells[cell][counts[cell]++] = segment;
+            }
+        }
+        return true;
+    }
+
+    private int column(double x) {
+        return Math.max(0, Math.min(columns - 1, (int) Math.floor((x - area.x) / CELL_SIZE)));
+    }
+
+    private int row(double y) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor((y - area.y) / CELL_SIZE)));
+    }
+
+    /**
+     * Determines if this index can be used.
+     * @param ds the data set
+     * @param state the current state of the component
+     * @return {@code true} if this index has been built for the data set and the state, and the data set has not changed since
+     */
+    boolean isValidFor(DataSet ds, MapViewState state) {
+        return valid && this.ds == ds && this.state == state;
+    }
+
+    /**
+     * Determines if the area within a distance of a point is indexed.
+     * The distance is increased by one pixel, to account for the loss of precision of the distance calculations.
+     */
+    private boolean covers(Point p, int distance) {
+        return p.x - distance - 1 >= area.x && p.x + distance + 1 < area.getMaxX()
+            && p.y - distance - 1 >= area.y && p.y + distance + 1 < area.getMaxY();
+    }
+
+    /**
+     * Returns the nodes that may be within a distance of a point.
+     * @param p the point
+     * @param distance the distance, in pixels
+     * @return the candidate nodes, or {@code null} if the area around the point is not indexed
+     */
+    List<Node> getNodes(Point p, int distance) {
+        if (!covers(p, distance))
+            return null;
+        List<Node> result = new ArrayList<>();
+        int maxColumn = column(p.x + distance + 1.0);
+        int maxRow = row(p.y + distance + 1.0);
+        for (int row = row(p.y - distance - 1.0); row <= maxRow; row++) {
+            for (int column = column(p.x - distance - 1.0); column <= maxColumn; column++) {
+                Node[] nodes = nodeCells[row * columns + column];
+                if (nodes != null) {
+                    result.addAll(Arrays.asList(nodes));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Visits the way segments that may be within a distance of a point, grouped by way.
+     * @param p the point
+     * @param distance the distance, in pixels
+     * @param predicate the condition the ways have to fulfill
+     * @param visitor the visitor
+     * @return {@code false} if the area around the point is not indexed, and nothing has been visited
+     */
+    boolean visitSegments(Point p, int distance, Predicate<OsmPrimitive> predicate, SegmentVisitor visitor) {
+        if (!covers(p, distance))
+            return false;
+        int[] candidates = new int[0];
+        int count = 0;
+        int maxColumn = column(p.x + distance + 1.0);
+        int maxRow = row(p.y + distance + 1.0);
+        for (int row = row(p.y - distance - 1.0); row <= maxRow; row++) {
+            for (int column = column(p.x - distance - 1.0); column <= maxColumn; column++) {
+                int[] segments = segmentCells[row * columns + column];
+                if (segments != null) {
+                    candidates = Arrays.copyOf(candidates, count + segments.length);
+                    System.arraycopy(segments, 0, candidates, count, segments.length);
+                    count += segments.length;
+                }
+            }
+        }
+        // segments overlapping several cells are found several times, the ids of the segments of a way are consecutive
+        Arrays.sort(candidates, 0, count);
+        Way lastWay = null;
+        boolean accepted = false;
+        for (int i = 0; i < count; i++) {
+            int segment = candidates[i];
+            if (i > 0 && segment == candidates[i - 1])
+                continue;
+            Way w = segmentWays[segment];
+            if (w != lastWay) {
+                lastWay = w;
+                accepted = predicate.test(w);
+            }
+            if (accepted) {
+                visitor.visit(w, w.getNode(segmentFrom[segment]), w.getNode(segmentTo[segment]), segmentTo[segment] - 1);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Unregisters this index from the data set. It cannot be used anymore.
+     */
+    void dispose() {
+        valid = false;
+        ds.removeDataSetListener(this);
+    }
+
+    @Override
+    public void primitivesAdded(PrimitivesAddedEvent event) {
+        dispose();
+    }
+
+    @Override
+    public void primitivesRemoved(PrimitivesRemovedEvent event) {
+        dispose();
+    }
+
+    @Override
+    public void tagsChanged(TagsChangedEvent event) {
+        // Do nothing, the ways are tested against the predicate when searched
+    }
+
+    @Override
+    public void nodeMoved(NodeMovedEvent event) {
+        dispose();
+    }
+
+    @Override
+    public void wayNodesChanged(WayNodesChangedEvent event) {
+        dispose();
+    }
+
+    @Override
+    public void relationMembersChanged(RelationMembersChangedEvent event) {
+        // Do nothing, relations are not indexed
+    }
+
+    @Override
+    public void otherDatasetChange(AbstractDatasetChangedEvent event) {
+        dispose();
+    }
+
+    @Override
+    public void dataChanged(DataChangedEvent event) {
+        dispose();
+    }
+}
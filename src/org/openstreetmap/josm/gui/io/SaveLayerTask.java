@@ -52,7 +52,8 @@ public class SaveLayerTask extends AbstractIOTask {
                 setFailed(true);
                 return;
             }
-            if (!isCanceled()) {
+            // a layer exported to a file that cannot hold all of its data is not associated with that file, and stays unsaved
+            if (!isCanceled() && layerInfo.getFile().equals(layerInfo.getLayer().getAssociatedFile())) {
                 layerInfo.getLayer().onPostSaveToFile();
             }
         } catch (JosmRuntimeException | IllegalArgumentException | IllegalStateException e) {
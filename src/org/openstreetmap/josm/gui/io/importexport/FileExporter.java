@@ -66,6 +66,16 @@ public abstract class FileExporter implements ActiveLayerChangeListener {
         exportData(file, layer); //backwards compatibility
     }
 
+    /**
+     * Determines if this exporter only exports a copy of the layer, because the file format cannot hold all of its data.
+     * In that case the layer is neither associated with the exported file nor marked as saved.
+     * @return {@code true} if the exported file must not replace the layer file
+     * @since xxx
+     */
+    public boolean isExportOnly() {
+        return false;
+    }
+
     /**
      * Returns the enabled state of this {@code FileExporter}. When enabled, it is listed and usable in "File → Save" dialogs.
      * @return true if this {@code FileExporter} is enabled
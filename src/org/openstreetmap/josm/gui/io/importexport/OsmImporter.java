@@ -94,9 +94,16 @@ public class OsmImporter extends FileImporter {
      * @throws IllegalDataException if an error was found while parsing the OSM data
      */
     protected void importData(InputStream in, final File associatedFile, ProgressMonitor pm) throws IllegalDataException {
-        final OsmImporterData data = loadLayer(in, associatedFile,
-                associatedFile == null ? OsmDataLayer.createNewName() : associatedFile.getName(), pm);
+        addLayer(loadLayer(in, associatedFile,
+                associatedFile == null ? OsmDataLayer.createNewName() : associatedFile.getName(), pm));
+    }
 
+    /**
+     * Adds a loaded layer to the layer manager, and runs its post layer task
+     * @param data the loaded layer
+     * @since xxx
+     */
+    protected void addLayer(final OsmImporterData data) {
         final OsmDataLayer layer = data.getLayer();
         // Note: addLayer calls GuiHelper.runInEDTAndWaitWithException
         MainApplication.getLayerManager().addLayer(layer);
@@ -118,7 +125,20 @@ public class OsmImporter extends FileImporter {
      */
     public OsmImporterData loadLayer(InputStream in, final File associatedFile, final String layerName, ProgressMonitor progressMonitor)
             throws IllegalDataException {
-        final DataSet dataSet = parseDataSet(in, progressMonitor);
+        return createLayerData(parseDataSet(in, progressMonitor), associatedFile, layerName);
+    }
+
+    /**
+     * Create the osm data layer for a parsed dataset.
+     * @param dataSet the parsed dataset
+     * @param associatedFile filename of data (can be <code>null</code> if the data does not come from a file)
+     * @param layerName name of generated layer
+     * @return Utility class containing the OSM layer, and a task to run after it is added to MapView
+     * @throws IllegalDataException if the dataset is null
+     * @since xxx
+     */
+    protected OsmImporterData createLayerData(final DataSet dataSet, final File associatedFile, final String layerName)
+            throws IllegalDataException {
         if (dataSet == null) {
             throw new IllegalDataException(tr("Invalid dataset"));
         }
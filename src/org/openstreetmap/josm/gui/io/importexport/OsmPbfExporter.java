@@ -0,0 +1,49 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.io.importexport;
+
+import static org.openstreetmap.josm.tools.I18n.tr;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.openstreetmap.josm.actions.ExtensionFileFilter;
+import org.openstreetmap.josm.gui.layer.OsmDataLayer;
+import org.openstreetmap.josm.io.OsmPbfWriter;
+
+/**
+ * OSM data exporter that writes the OSM PBF format, which is smaller and faster to read and write than compressed XML.
+ * <p>
+ * Deleted primitives are not saved, and modified primitives are not marked as such in the file, see {@link OsmPbfWriter}.
+ * This is why the layer is only exported: it is neither associated with the PBF file nor marked as saved.
+ * @since xxx
+ */
+public class OsmPbfExporter extends OsmExporter {
+
+    /**
+     * Constructs a new {@code OsmPbfExporter}.
+     */
+    public OsmPbfExporter() {
+        super(new ExtensionFileFilter(
+            "osm.pbf", "osm.pbf", tr("OSM PBF Files") + " (*.osm.pbf)"));
+    }
+
+    @Override
+    public boolean isExportOnly() {
+        return true;
+    }
+
+    @Override
+    protected void doSave(File file, OsmDataLayer layer) throws IOException {
+        // the blocks are already compressed, the file is never wrapped in another compression
+        try (OsmPbfWriter w = new OsmPbfWriter(new BufferedOutputStream(Files.newOutputStream(file.toPath())))) {
+            layer.data.getReadLock().lock();
+            try {
+                w.write(layer.data);
+            } finally {
+                layer.data.getReadLock().unlock();
+            }
+        }
+    }
+}
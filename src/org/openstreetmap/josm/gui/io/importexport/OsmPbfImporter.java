@@ -3,12 +3,25 @@ package org.openstreetmap.josm.gui.io.importexport;
 
 import static org.openstreetmap.josm.tools.I18n.tr;
 
+import java.awt.Dimension;
+import java.awt.GraphicsEnvironment;
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
+import java.util.Locale;
+
+import javax.swing.JOptionPane;
 
 import org.openstreetmap.josm.actions.ExtensionFileFilter;
+import org.openstreetmap.josm.data.Bounds;
 import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.preferences.IntegerProperty;
+import org.openstreetmap.josm.gui.ExtendedDialog;
+import org.openstreetmap.josm.gui.MainApplication;
+import org.openstreetmap.josm.gui.bbox.SlippyMapBBoxChooser;
 import org.openstreetmap.josm.gui.progress.ProgressMonitor;
+import org.openstreetmap.josm.gui.util.GuiHelper;
 import org.openstreetmap.josm.io.IllegalDataException;
 import org.openstreetmap.josm.io.OsmPbfReader;
 
@@ -24,6 +37,13 @@ public class OsmPbfImporter extends OsmImporter {
             "osm.pbf", "osm.pbf", tr("OSM PBF Files") + " (*.osm.pbf, *.osm.pbf.gz, *.osm.pbf.bz2, *.osm.pbf.xz, *.osm.pbf.zip)",
             ExtensionFileFilter.AddArchiveExtension.NONE, Arrays.asList("gz", "bz", "bz2", "xz", "zip"));
 
+    /**
+     * The minimum size (in MiB) of an uncompressed PBF file for which the user is asked to load only an area of the file.
+     * A negative value disables the area selection.
+     * @since xxx
+     */
+    public static final IntegerProperty AREA_SELECTION_MIN_SIZE = new IntegerProperty("pbf.importer.area-selection.min-size", 256);
+
     /**
      * Constructs a new {@code OsmPbfImporter}.
      */
@@ -39,8 +59,73 @@ public class OsmPbfImporter extends OsmImporter {
         super(filter);
     }
 
+    /**
+     * Imports OSM data from file. For large uncompressed files, the user can choose to load only an area of the file.
+     * Such a partial layer is not associated with the file, so that saving the layer does not overwrite the whole file.
+     * @param file file to read data from
+     * @param progressMonitor handler for progress monitoring and canceling
+     */
+    @Override
+    public void importData(File file, ProgressMonitor progressMonitor) throws IOException, IllegalDataException {
+        if (GraphicsEnvironment.isHeadless() || !isAreaSelectionSupported(file)) {
+            super.importData(file, progressMonitor);
+            return;
+        }
+        final AreaSelectionDialog dialog = GuiHelper.runInEDTAndWaitAndReturn(() -> {
+            final AreaSelectionDialog areaSelectionDialog = new AreaSelectionDialog(file);
+            areaSelectionDialog.showDialog();
+            return areaSelectionDialog;
+        });
+        final Bounds bounds = dialog.getSelectedBounds();
+        if (dialog.getValue() == 1 && bounds != null) {
+            final DataSet dataSet = OsmPbfReader.parseDataSet(file.toPath(), bounds, progressMonitor);
+            addLayer(createLayerData(dataSet, null, file.getName()));
+        } else if (dialog.getValue() == 1 || dialog.getValue() == 2) {
+            super.importData(file, progressMonitor);
+        }
+    }
+
+    /**
+     * Check if only an area of a file can be loaded
+     * @param file The file to check
+     * @return {@code true} if the file is an uncompressed PBF file larger than {@link #AREA_SELECTION_MIN_SIZE}
+     */
+    static boolean isAreaSelectionSupported(File file) {
+        final int minSize = AREA_SELECTION_MIN_SIZE.get();
+        return minSize >= 0 && file.getName().toLowerCase(Locale.ROOT).endsWith(".osm.pbf")
+                && file.length() >= minSize * 1024L * 1024L;
+    }
+
     @Override
     protected DataSet parseDataSet(InputStream in, ProgressMonitor progressMonitor) throws IllegalDataException {
         return OsmPbfReader.parseDataSet(in, progressMonitor);
     }
+
+    /**
+     * A dialog to select the area of a file that should be loaded
+     */
+    private static final class AreaSelectionDialog extends ExtendedDialog {
+        private final SlippyMapBBoxChooser chooser = new SlippyMapBBoxChooser();
+
+        AreaSelectionDialog(File file) {
+            super(MainApplication.getMainFrame(), tr("Open OSM PBF file"), tr("Load area"), tr("Load whole file"), tr("Cancel"));
+            setButtonIcons("download_in_view", "open", "cancel");
+            setToolTipTexts(tr("Load only the data in the selected area"),
+                    tr("Load all the data of the file (this may need a lot of memory)"), null);
+            chooser.setPreferredSize(new Dimension(600, 400));
+            if (MainApplication.isDisplayingMapView()) {
+                chooser.setBoundingBox(MainApplication.getMap().mapView.getRealBounds());
+            }
+            setContent(chooser, false);
+            setIcon(JOptionPane.QUESTION_MESSAGE);
+        }
+
+        /**
+         * Get the area selected by the user
+         * @return The selected area, or {@code null}
+         */
+        Bounds getSelectedBounds() {
+            return chooser.getBoundingBox();
+        }
+    }
 }
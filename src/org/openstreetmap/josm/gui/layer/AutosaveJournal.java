@@ -0,0 +1,504 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.layer;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+import org.openstreetmap.josm.command.Command;
+import org.openstreetmap.josm.data.UndoRedoHandler;
+import org.openstreetmap.josm.data.UndoRedoHandler.CommandAddedEvent;
+import org.openstreetmap.josm.data.UndoRedoHandler.CommandQueueCleanedEvent;
+import org.openstreetmap.josm.data.UndoRedoHandler.CommandQueuePreciseListener;
+import org.openstreetmap.josm.data.UndoRedoHandler.CommandRedoneEvent;
+import org.openstreetmap.josm.data.UndoRedoHandler.CommandUndoneEvent;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.DataSourceChangeEvent;
+import org.openstreetmap.josm.data.osm.DataSourceListener;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
+import org.openstreetmap.josm.data.osm.PrimitiveId;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.UploadPolicy;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.data.osm.event.AbstractDatasetChangedEvent;
+import org.openstreetmap.josm.data.osm.event.AbstractDatasetChangedEvent.DatasetEventType;
+import org.openstreetmap.josm.data.osm.event.DataChangedEvent;
+import org.openstreetmap.josm.io.Compression;
+import org.openstreetmap.josm.io.OsmWriter;
+import org.openstreetmap.josm.io.OsmWriterFactory;
+import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.Utils;
+import org.openstreetmap.josm.tools.XmlUtils;
+
+/**
+ * Append-only journal of the changes made to the data set of a layer since its last autosave snapshot.
+ * <p>
+ * Each record contains the ids of the primitives removed since the previous record, and the current state of the primitives
+ * changed since the previous record, in the OSM XML format. Writing a record costs in proportion to the changes, not to the
+ * size of the data set. The changed primitives are collected from the data set events and the commands of the undo/redo
+ * stack. When the journal grows too large compared to the snapshot, {@link AutosaveTask} writes a new snapshot instead.
+ * <p>
+ * {@link #replay(File)} merges a journal into its snapshot, so that the snapshot can be opened as usual.
+ *
+ * @since xxx
+ */
+final class AutosaveJournal implements DataSourceListener, CommandQueuePreciseListener {
+    /** The extension appended to the name of a snapshot file to get the name of its journal */
+    static final String EXTENSION = ".journal";
+
+    private static final int RECORD_MAGIC = 0x4a4f534a;
+    private static final QName ID = new QName("id");
+    private static final String[] PRIMITIVE_ELEMENTS = {
+        OsmPrimitiveType.NODE.getAPIName(), OsmPrimitiveType.WAY.getAPIName(), OsmPrimitiveType.RELATION.getAPIName()};
+
+    private final DataSet data;
+    /** The primitives changed since the last record, guarded by {@code this} */
+    private Set<OsmPrimitive> changed = newIdentitySet();
+    /** If the whole data set must be saved, guarded by {@code this} */
+    private boolean snapshotRequired = true;
+    /** The ids under which new primitives have been written, they change when the primitives are uploaded */
+    private final Map<OsmPrimitive, PrimitiveId> writtenNewIds = new IdentityHashMap<>();
+    private File snapshot;
+    private long snapshotLength;
+    private int snapshotPrimitives;
+    private long journalLength;
+
+    /**
+     * Constructs a new {@code AutosaveJournal}, and starts listening to the changes of the data set
+     * @param data the data set of the layer
+     */
+    AutosaveJournal(DataSet data) {
+        this.data = data;
+        data.addDataSourceListener(this);
+        UndoRedoHandler.getInstance().addCommandQueuePreciseListener(this);
+    }
+
+    /**
+     * Stops listening to the changes of the data set
+     */
+    void dispose() {
+        data.removeDataSourceListener(this);
+        UndoRedoHandler.getInstance().removeCommandQueuePreciseListener(this);
+    }
+
+    private static Set<OsmPrimitive> newIdentitySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    /**
+     * Returns the journal file of a snapshot file
+     * @param snapshot the snapshot file
+     * @return the journal file, which may not exist
+     */
+    static File getJournalFile(File snapshot) {
+        return new File(snapshot.getParentFile(), snapshot.getName() + EXTENSION);
+    }
+
+    /**
+     * Requires the next autosave to save the whole data set.
+     */
+    synchronized void requireSnapshot() {
+        snapshotRequired = true;
+        changed = newIdentitySet();
+    }
+
+    /**
+     * Determines if changes have been appended to the journal of the last snapshot.
+     * @return {@code true} if the last snapshot is not up to date without its journal
+     */
+    boolean hasRecords() {
+        return journalLength > 0;
+    }
+
+    /**
+     * Records the primitives changed by a data set event.
+     * @param event the data set event
+     */
+    void processDatasetEvent(AbstractDatasetChangedEvent event) {
+        if (event instanceof DataChangedEvent) {
+            List<AbstractDatasetChangedEvent> events = ((DataChangedEvent) event).getEvents();
+            if (events == null) {
+                requireSnapshot();
+            } else {
+                events.forEach(this::processDatasetEvent);
+            }
+        } else if (event.getType() != DatasetEventType.FILTERS_CHANGED) {
+            primitivesChanged(event.getPrimitives());
+        }
+    }
+
+    private synchronized void primitivesChanged(Collection<? extends OsmPrimitive> primitives) {
+        if (!snapshotRequired) {
+            changed.addAll(primitives);
+        }
+    }
+
+    private void commandChanged(Command command) {
+        if (command.getAffectedDataSet() == data) {
+            primitivesChanged(command.getParticipatingPrimitives());
+        }
+    }
+
+    @Override
+    public void dataSourceChange(DataSourceChangeEvent event) {
+        // data sources are only written in snapshots
+        requireSnapshot();
+    }
+
+    @Override
+    public void commandAdded(CommandAddedEvent e) {
+        commandChanged(e.getCommand());
+    }
+
+    @Override
+    public void cleaned(CommandQueueCleanedEvent e) {
+        // Do nothing
+    }
+
+    @Override
+    public void commandUndone(CommandUndoneEvent e) {
+        commandChanged(e.getCommand());
+    }
+
+    @Override
+    public void commandRedone(CommandRedoneEvent e) {
+        commandChanged(e.getCommand());
+    }
+
+    /**
+     * Saves the whole data set, and starts a new journal.
+     * @param layer the layer of the data set
+     * @param file the snapshot file
+     * @throws IOException if the snapshot cannot be written
+     */
+    void writeSnapshot(AbstractModifiableLayer layer, File file) throws IOException {
+        synchronized (this) {
+            snapshotRequired = false;
+            changed = newIdentitySet();
+        }
+        data.getReadLock().lock();
+        try {
+            layer.autosave(file);
+            writtenNewIds.clear();
+            int count = 0;
+            for (OsmPrimitive primitive : data.allPrimitives()) {
+                count++;
+                if (primitive.isNew()) {
+                    writtenNewIds.put(primitive, primitive.getPrimitiveId());
+                }
+            }
+            snapshotPrimitives = count;
+        } catch (IOException | RuntimeException e) {
+            requireSnapshot();
+            throw e;
+        } finally {
+            data.getReadLock().unlock();
+        }
+        snapshot = file;
+        snapshotLength = file.length();
+        journalLength = 0;
+    }
+
+    /**
+     * Appends the changes since the last record to the journal.
+     * @return {@code false} if the whole data set must be saved with {@link #writeSnapshot} instead
+     * @throws IOException if the journal cannot be written
+     */
+    boolean append() throws IOException {
+        final Set<OsmPrimitive> toWrite;
+        synchronized (this) {
+            if (snapshotRequired || snapshot == null || snapshotPrimitives < AutosaveTask.PROP_JOURNAL_MIN_PRIMITIVES.get()) {
+                return false;
+            }
+            toWrite = changed;
+            changed = newIdentitySet();
+        }
+        try {
+            final ByteArrayOutputStream record = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(record)) {
+                data.getReadLock().lock();
+                try {
+                    if (!writeRecord(toWrite, out)) {
+                        return true;
+                    }
+                } finally {
+                    data.getReadLock().unlock();
+                }
+            }
+            if ((journalLength + record.size()) * 100 > snapshotLength * AutosaveTask.PROP_JOURNAL_MAX_SIZE.get()) {
+                // compact the journal
+                return false;
+            }
+            try (OutputStream out = new FileOutputStream(getJournalFile(snapshot), true)) {
+                record.writeTo(out);
+            }
+            journalLength += record.size();
+            return true;
+        } catch (IOException | RuntimeException e) {
+            requireSnapshot();
+            throw e;
+        }
+    }
+
+    private boolean writeRecord(Set<OsmPrimitive> primitives, DataOutputStream out) throws IOException {
+        final Set<PrimitiveId> removed = new LinkedHashSet<>();
+        for (Iterator<Map.Entry<OsmPrimitive, PrimitiveId>> it = writtenNewIds.entrySet().iterator(); it.hasNext();) {
+            final Map.Entry<OsmPrimitive, PrimitiveId> entry = it.next();
+            final OsmPrimitive primitive = entry.getKey();
+            // the id of new primitives changes when they are uploaded
+            if (primitive.getDataSet() != data || primitive.getUniqueId() != entry.getValue().getUniqueId()) {
+                removed.add(entry.getValue());
+                it.remove();
+                if (primitive.getDataSet() == data) {
+                    // the referrers have been written with the old id
+                    primitives.add(primitive);
+                    primitives.addAll(primitive.getReferrers());
+                }
+            }
+        }
+        final List<Node> nodes = new ArrayList<>();
+        final List<Way> ways = new ArrayList<>();
+        final List<Relation> relations = new ArrayList<>();
+        for (OsmPrimitive primitive : primitives) {
+            // same condition as OsmWriter
+            if (primitive.getDataSet() != data || primitive.isIncomplete() || (primitive.isNewOrUndeleted() && primitive.isDeleted())) {
+                removed.add(primitive.getPrimitiveId());
+                writtenNewIds.remove(primitive);
+            } else {
+                if (primitive.isNew()) {
+                    writtenNewIds.put(primitive, primitive.getPrimitiveId());
+                }
+                if (primitive instanceof Node) {
+                    nodes.add((Node) primitive);
+                } else if (primitive instanceof Way) {
+                    ways.add((Way) primitive);
+                } else if (primitive instanceof Relation) {
+                    relations.add((Relation) primitive);
+                }
+            }
+        }
+        if (removed.isEmpty() && nodes.isEmpty() && ways.isEmpty() && relations.isEmpty()) {
+            return false;
+        }
+        out.writeInt(RECORD_MAGIC);
+        out.writeInt(removed.size());
+        for (PrimitiveId id : removed) {
+            out.writeUTF(id.getType().getAPIName());
+            out.writeLong(id.getUniqueId());
+        }
+        final ByteArrayOutputStream xml = new ByteArrayOutputStream();
+        try (OsmWriter writer = OsmWriterFactory.createOsmWriter(
+                new PrintWriter(new OutputStreamWriter(xml, StandardCharsets.UTF_8)), false, data.getVersion())) {
+            writer.header();
+            writer.setWithVisible(UploadPolicy.NORMAL == data.getUploadPolicy());
+            writer.writeNodes(nodes);
+            writer.writeWays(ways);
+            writer.writeRelations(relations);
+            writer.footer();
+        }
+        out.writeInt(xml.size());
+        xml.writeTo(out);
+        return true;
+    }
+
+    /**
+     * Merges the journal of a snapshot file into the snapshot file, and deletes the journal.
+     * Does nothing if the snapshot has no journal.
+     * An incomplete record at the end of the journal, written when JOSM crashed, is ignored.
+     * @param snapshot the snapshot file
+     * @throws IOException if the files cannot be read or written
+     */
+    static void replay(File snapshot) throws IOException {
+        final File journal = getJournalFile(snapshot);
+        if (!journal.isFile()) {
+            return;
+        }
+        final File merged = new File(snapshot.getParentFile(), snapshot.getName() + ".merged");
+        try (InputStream in = Compression.getUncompressedFileInputStream(snapshot);
+             OutputStream file = Files.newOutputStream(merged.toPath());
+             OutputStream out = Compression.byExtension(snapshot.getName()).getCompressedOutputStream(file)) {
+            merge(in, readJournal(journal), out);
+        } catch (XMLStreamException e) {
+            Utils.deleteFile(merged);
+            throw new IOException(e);
+        }
+        Files.move(merged.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Utils.deleteFile(journal);
+    }
+
+    /**
+     * Reads the changes of a journal.
+     * @param journal the journal file
+     * @return the last state of the changed primitives, by type and id, {@code null} for removed primitives
+     */
+    private static Map<String, List<XMLEvent>> readJournal(File journal) throws IOException, XMLStreamException {
+        final Map<String, List<XMLEvent>> changes = new LinkedHashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journal.toPath())))) {
+            while (true) {
+                final List<String> removed = new ArrayList<>();
+                final byte[] xml;
+                try {
+                    final int magic = in.readInt();
+                    final int count = in.readInt();
+                    if (magic != RECORD_MAGIC || count < 0) {
+                        Logging.warn("Invalid record in autosave journal " + journal);
+                        break;
+                    }
+                    for (int i = 0; i < count; i++) {
+                        removed.add(in.readUTF() + ' ' + in.readLong());
+                    }
+                    final int length = in.readInt();
+                    if (length < 0) {
+                        Logging.warn("Invalid record in autosave journal " + journal);
+                        break;
+                    }
+                    xml = new byte[length];
+                    in.readFully(xml);
+                } catch (EOFException e) {
+                    // end of the journal, or last record truncated by a crash
+                    Logging.trace(e);
+                    break;
+                }
+                // primitives are removed before the changed primitives are written, an id may be reused
+                for (String key : removed) {
+                    changes.put(key, null);
+                }
+                readPrimitives(new ByteArrayInputStream(xml), changes);
+            }
+        }
+        return changes;
+    }
+
+    private static void readPrimitives(InputStream in, Map<String, List<XMLEvent>> changes) throws XMLStreamException {
+        final XMLEventReader reader = XmlUtils.newSafeXMLInputFactory().createXMLEventReader(in);
+        try {
+            int depth = 0;
+            while (reader.hasNext()) {
+                final XMLEvent event = reader.nextEvent();
+                final String key = depth == 1 ? getKey(event) : null;
+                if (key != null) {
+                    changes.put(key, readElement(event, reader));
+                } else if (event.isStartElement()) {
+                    depth++;
+                } else if (event.isEndElement()) {
+                    depth--;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void merge(InputStream in, Map<String, List<XMLEvent>> changes, OutputStream out) throws XMLStreamException {
+        final XMLEventReader reader = XmlUtils.newSafeXMLInputFactory().createXMLEventReader(in);
+        final XMLEventWriter writer = XMLOutputFactory.newInstance().createXMLEventWriter(out, StandardCharsets.UTF_8.name());
+        final XMLEvent newLine = XMLEventFactory.newInstance().createCharacters("\n");
+        final Set<String> merged = new HashSet<>();
+        try {
+            int depth = 0;
+            while (reader.hasNext()) {
+                final XMLEvent event = reader.nextEvent();
+                final String key = depth == 1 ? getKey(event) : null;
+                if (key != null && changes.containsKey(key)) {
+                    // replace the saved state
+                    readElement(event, reader);
+                    addAll(writer, changes.get(key));
+                    merged.add(key);
+                    continue;
+                }
+                if (event.isStartElement()) {
+                    depth++;
+                } else if (event.isEndElement() && --depth == 0) {
+                    // primitives created after the snapshot
+                    for (String type : PRIMITIVE_ELEMENTS) {
+                        for (Map.Entry<String, List<XMLEvent>> change : changes.entrySet()) {
+                            if (change.getValue() != null && change.getKey().startsWith(type + ' ') && !merged.contains(change.getKey())) {
+                                addAll(writer, change.getValue());
+                                writer.add(newLine);
+                            }
+                        }
+                    }
+                }
+                writer.add(event);
+            }
+            writer.flush();
+        } finally {
+            writer.close();
+            reader.close();
+        }
+    }
+
+    private static void addAll(XMLEventWriter writer, List<XMLEvent> events) throws XMLStreamException {
+        if (events != null) {
+            for (XMLEvent event : events) {
+                writer.add(event);
+            }
+        }
+    }
+
+    private static String getKey(XMLEvent event) {
+        if (event.isStartElement()) {
+            final StartElement element = event.asStartElement();
+            final String name = element.getName().getLocalPart();
+            final Attribute id = element.getAttributeByName(ID);
+            for (String type : PRIMITIVE_ELEMENTS) {
+                if (type.equals(name) && id != null) {
+                    return name + ' ' + id.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static List<XMLEvent> readElement(XMLEvent start, XMLEventReader reader) throws XMLStreamException {
+        final List<XMLEvent> events = new ArrayList<>();
+        events.add(start);
+        int depth = 1;
+        while (depth > 0) {
+            final XMLEvent event = reader.nextEvent();
+            events.add(event);
+            if (event.isStartElement()) {
+                depth++;
+            } else if (event.isEndElement()) {
+                depth--;
+            }
+        }
+        return events;
+    }
+}
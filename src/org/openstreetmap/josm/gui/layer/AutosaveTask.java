@@ -25,9 +25,11 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -71,6 +73,10 @@ import org.openstreetmap.josm.tools.Utils;
  *
  *      The deleted layers dir keeps at most PROP_DELETED_LAYERS files.
  *
+ * Large data layers are not saved again on every change: the changed primitives are appended
+ * to a journal next to the last copy (see {@link AutosaveJournal}), until the journal grows larger
+ * than PROP_JOURNAL_MAX_SIZE percent of the copy. The journal is merged into the copy when it is recovered.
+ *
  * @since  3378 (creation)
  * @since 10386 (new LayerChangeListener interface)
  */
@@ -104,12 +110,23 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
      * Defines if a notification should be displayed after each autosave
      */
     public static final BooleanProperty PROP_NOTIFICATION = new BooleanProperty("autosave.notification", false);
+    /**
+     * The minimum number of primitives of a data layer to save its changes in a journal, instead of saving the whole layer
+     * @since xxx
+     */
+    public static final IntegerProperty PROP_JOURNAL_MIN_PRIMITIVES = new IntegerProperty("autosave.journal.min-primitives", 10_000);
+    /**
+     * The maximum size of a journal, in percent of the size of the layer copy, before the whole layer is saved again
+     * @since xxx
+     */
+    public static final IntegerProperty PROP_JOURNAL_MAX_SIZE = new IntegerProperty("autosave.journal.max-size", 50);
 
     protected static final class AutosaveLayerInfo<T extends AbstractModifiableLayer> {
         private final T layer;
         private String layerName;
         private String layerFileName;
         private final Deque<File> backupFiles = new LinkedList<>();
+        private AutosaveJournal journal;
 
         AutosaveLayerInfo(T layer) {
             this.layer = layer;
@@ -118,6 +135,7 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
 
     private final DataSetListenerAdapter datasetAdapter = new DataSetListenerAdapter(this);
     private final Set<Data> changedData = new HashSet<>();
+    private final Map<Data, AutosaveJournal> journals = new ConcurrentHashMap<>();
     private final List<AutosaveLayerInfo<?>> layersInfo = new ArrayList<>();
     private final Object layersLock = new Object();
     private final Deque<File> deletedLayers = new LinkedList<>();
@@ -230,14 +248,22 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
         if (!info.layer.getName().equals(info.layerName)) {
             setLayerFileName(info);
             info.layerName = info.layer.getName();
+            if (info.journal != null) {
+                // the journal belongs to a file with the old name
+                info.journal.requireSnapshot();
+            }
         }
         try {
             Data data = info.layer.getData();
-            if (data != null && changedData.remove(data)) {
+            if (data != null && changedData.remove(data) && (info.journal == null || !info.journal.append())) {
                 File file = getNewLayerFile(info, Instant.now(), 0);
                 if (file != null) {
                     info.backupFiles.add(file);
-                    info.layer.autosave(file);
+                    if (info.journal != null) {
+                        info.journal.writeSnapshot(info.layer, file);
+                    } else {
+                        info.layer.autosave(file);
+                    }
                 }
             }
         } catch (IOException e) {
@@ -247,10 +273,18 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
             File oldFile = info.backupFiles.remove();
             if (Utils.deleteFile(oldFile, marktr("Unable to delete old backup file {0}"))) {
                 Utils.deleteFile(getPidFile(oldFile), marktr("Unable to delete old backup file {0}"));
+                deleteJournal(oldFile);
             }
         }
     }
 
+    private static void deleteJournal(File file) {
+        File journal = AutosaveJournal.getJournalFile(file);
+        if (journal.exists()) {
+            Utils.deleteFile(journal, marktr("Unable to delete old backup file {0}"));
+        }
+    }
+
     @Override
     public void run() {
         synchronized (layersLock) {
@@ -283,8 +317,11 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
 
     private void registerNewlayer(OsmDataLayer layer) {
         synchronized (layersLock) {
+            AutosaveLayerInfo<OsmDataLayer> info = new AutosaveLayerInfo<>(layer);
+            info.journal = new AutosaveJournal(layer.getDataSet());
+            journals.put(layer.getDataSet(), info.journal);
             layer.getDataSet().addDataSetListener(datasetAdapter);
-            layersInfo.add(new AutosaveLayerInfo<>(layer));
+            layersInfo.add(info);
         }
     }
 
@@ -340,6 +377,15 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
             AutosaveLayerInfo<?> info = it.next();
             if (info.layer == removedLayer) {
 
+                if (info.journal != null) {
+                    if (info.journal.hasRecords()) {
+                        // only keep a complete copy
+                        info.journal.requireSnapshot();
+                        dataUpdated(info.layer.getData());
+                    }
+                    journals.remove(info.layer.getData());
+                    info.journal.dispose();
+                }
                 savelayer(info);
                 File lastFile = info.backupFiles.pollLast();
                 if (lastFile != null) {
@@ -348,6 +394,7 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
                 for (File file: info.backupFiles) {
                     if (Utils.deleteFile(file)) {
                         Utils.deleteFile(getPidFile(file));
+                        deleteJournal(file);
                     }
                 }
 
@@ -358,6 +405,10 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
 
     @Override
     public void processDatasetEvent(AbstractDatasetChangedEvent event) {
+        AutosaveJournal journal = journals.get(event.getDataset());
+        if (journal != null) {
+            journal.processDatasetEvent(event);
+        }
         dataUpdated(event.getDataset());
     }
 
@@ -439,6 +490,7 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
      */
     public Future<?> recoverUnsavedLayers() {
         List<File> files = getUnsavedLayersFiles();
+        MainApplication.worker.submit(() -> files.forEach(AutosaveTask::replayJournal));
         final OpenFileTask openFileTsk = new OpenFileTask(files, null, tr("Restoring files"));
         final Future<?> openFilesFuture = MainApplication.worker.submit(openFileTsk);
         return MainApplication.worker.submit(() -> {
@@ -454,6 +506,14 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
         });
     }
 
+    private static void replayJournal(File file) {
+        try {
+            AutosaveJournal.replay(file);
+        } catch (IOException e) {
+            Logging.log(Logging.LEVEL_ERROR, tr("Unable to merge the autosave journal of {0}", file.getName()), e);
+        }
+    }
+
     /**
      * Move file to the deleted layers directory.
      * If moving does not work, it will try to delete the file directly.
@@ -463,6 +523,7 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
      * @param f the file, usually from the autosave dir
      */
     private void moveToDeletedLayersFolder(File f) {
+        replayJournal(f);
         File backupFile = new File(deletedLayersDir, f.getName());
         File pidFile = getPidFile(f);
 
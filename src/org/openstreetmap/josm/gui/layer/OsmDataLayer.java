@@ -183,9 +183,18 @@ public class OsmDataLayer extends AbstractOsmDataLayer implements Listener, Data
      */
     public static final BooleanProperty PROPERTY_HIDE_LABELS_WHILE_DRAGGING = new BooleanProperty("mappaint.hide.labels.while.dragging", true);
 
+    /**
+     * Property to determine if the layer is painted from cached tiles, which are only rendered again when their data changes.
+     * @since xxx
+     */
+    public static final BooleanProperty PROPERTY_TILED_RENDERING = new BooleanProperty("mappaint.tiled-rendering", false);
+
     private static final NamedColorProperty PROPERTY_BACKGROUND_COLOR = new NamedColorProperty(marktr("background"), Color.BLACK);
     private static final NamedColorProperty PROPERTY_OUTSIDE_COLOR = new NamedColorProperty(marktr("outside downloaded area"), Color.YELLOW);
 
+    /** The cached tiles, if the layer is painted from tiles */
+    private volatile OsmDataLayerTileCache tileCache;
+
     /** List of recent relations */
     private final Map<Relation, Void> recentRelations = new LruCache<>(PROPERTY_RECENT_RELATIONS_NUMBER.get());
 
@@ -537,13 +546,31 @@ public class OsmDataLayer extends AbstractOsmDataLayer implements Listener, Data
             }
         }
 
-        AbstractMapRenderer painter = MapRendererFactory.getInstance().createActiveRenderer(g, mv, inactive);
-        painter.enableSlowOperations(mv.getMapMover() == null || !mv.getMapMover().movementInProgress()
-                || !PROPERTY_HIDE_LABELS_WHILE_DRAGGING.get());
-        painter.render(data, virtual, box);
+        if (!paintTiles(g, mv, inactive, virtual)) {
+            AbstractMapRenderer painter = MapRendererFactory.getInstance().createActiveRenderer(g, mv, inactive);
+            painter.enableSlowOperations(mv.getMapMover() == null || !mv.getMapMover().movementInProgress()
+                    || !PROPERTY_HIDE_LABELS_WHILE_DRAGGING.get());
+            painter.render(data, virtual, box);
+        }
         MainApplication.getMap().conflictDialog.paintConflicts(g, mv);
     }
 
+    private boolean paintTiles(Graphics2D g, MapView mv, boolean inactive, boolean virtual) {
+        OsmDataLayerTileCache cache = tileCache;
+        if (!PROPERTY_TILED_RENDERING.get()) {
+            if (cache != null) {
+                tileCache = null;
+                cache.destroy();
+            }
+            return false;
+        }
+        if (cache == null) {
+            cache = new OsmDataLayerTileCache(data);
+            tileCache = cache;
+        }
+        return cache.paint(g, mv, inactive, virtual);
+    }
+
     @Override public String getToolTipText() {
         DataCountVisitor counter = new DataCountVisitor();
         for (final OsmPrimitive osm : data.allPrimitives()) {
@@ -1144,6 +1171,11 @@ public class OsmDataLayer extends AbstractOsmDataLayer implements Listener, Data
         data.removeDataSetListener(dataSetListenerAdapter);
         data.removeDataSetListener(MultipolygonCache.getInstance());
         data.clearSelection();
+        OsmDataLayerTileCache cache = tileCache;
+        if (cache != null) {
+            tileCache = null;
+            cache.destroy();
+        }
         validationErrors.clear();
         removeClipboardDataFor(this);
         recentRelations.clear();
@@ -1165,6 +1197,10 @@ public class OsmDataLayer extends AbstractOsmDataLayer implements Listener, Data
 
     @Override
     public void processDatasetEvent(AbstractDatasetChangedEvent event) {
+        OsmDataLayerTileCache cache = tileCache;
+        if (cache != null) {
+            cache.invalidate(event);
+        }
         invalidate();
         setRequiresSaveToFile(true);
         setRequiresUploadToServer(event.getDataset().requiresUploadToServer());
@@ -1172,6 +1208,11 @@ public class OsmDataLayer extends AbstractOsmDataLayer implements Listener, Data
 
     @Override
     public void selectionChanged(SelectionChangeEvent event) {
+        OsmDataLayerTileCache cache = tileCache;
+        if (cache != null) {
+            cache.invalidate(event.getRemoved());
+            cache.invalidate(event.getAdded());
+        }
         invalidate();
     }
 
@@ -1179,6 +1220,10 @@ public class OsmDataLayer extends AbstractOsmDataLayer implements Listener, Data
     public void projectionChanged(Projection oldValue, Projection newValue) {
          // No reprojection required. The dataset itself is registered as projection
          // change listener and already got notified.
+        // Project all nodes in the background, instead of one by one while the layer is painted
+        if (newValue != null) {
+            MainApplication.worker.submit(() -> data.cacheEastNorth(newValue));
+        }
     }
 
     @Override
@@ -1305,6 +1350,10 @@ public class OsmDataLayer extends AbstractOsmDataLayer implements Listener, Data
 
     @Override
     public void highlightUpdated(HighlightUpdateEvent e) {
+        OsmDataLayerTileCache cache = tileCache;
+        if (cache != null) {
+            cache.invalidate(e.getPrimitives());
+        }
         invalidate();
     }
 
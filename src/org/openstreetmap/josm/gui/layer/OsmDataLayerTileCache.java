@@ -0,0 +1,441 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.layer;
+
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.coor.EastNorth;
+import org.openstreetmap.josm.data.osm.BBox;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.event.AbstractDatasetChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataChangedEvent;
+import org.openstreetmap.josm.data.osm.event.NodeMovedEvent;
+import org.openstreetmap.josm.data.osm.event.RelationMembersChangedEvent;
+import org.openstreetmap.josm.data.osm.event.TagsChangedEvent;
+import org.openstreetmap.josm.data.osm.event.WayNodesChangedEvent;
+import org.openstreetmap.josm.data.osm.visitor.paint.AbstractMapRenderer;
+import org.openstreetmap.josm.data.osm.visitor.paint.MapRendererFactory;
+import org.openstreetmap.josm.data.preferences.IntegerProperty;
+import org.openstreetmap.josm.data.projection.Projection;
+import org.openstreetmap.josm.data.projection.ProjectionRegistry;
+import org.openstreetmap.josm.gui.NavigatableComponent;
+import org.openstreetmap.josm.gui.util.LruCache;
+import org.openstreetmap.josm.spi.preferences.Config;
+import org.openstreetmap.josm.spi.preferences.PreferenceChangeEvent;
+import org.openstreetmap.josm.spi.preferences.PreferenceChangedListener;
+
+/**
+ * A cache of rendered tiles of an {@link OsmDataLayer}. The layer is painted by compositing the tiles, instead of
+ * rendering all visible primitives on each repaint: panning the map only renders the tiles which become visible.
+ * <p>
+ * The tiles are squares of {@value #TILE_SIZE} pixels, aligned to the pixel grid of the map view. They are kept for
+ * the last zoom steps, so that zooming back does not render again: the scales are grouped in steps of
+ * {@value #ZOOM_STEPS} per doubling, and each step keeps the tiles of the last scale painted in it. A tile is invalidated
+ * when a primitive drawn in it (or in a margin of {@value #MARGIN} pixels around it) changes, is selected or highlighted.
+ * The whole cache is cleared when the styles, the preferences or the projection change.
+ * <p>
+ * Since each tile is rendered on its own, labels placed along ways or inside areas may be repeated or cut at the edges
+ * of the tiles.
+ * @since xxx
+ */
+final class OsmDataLayerTileCache implements PreferenceChangedListener {
+
+    /**
+     * The size of the tiles, in pixels
+     */
+    static final int TILE_SIZE = 512;
+
+    /**
+     * The margin around the tiles, in pixels, in which primitives are rendered to draw their symbols and labels
+     * overlapping the tile
+     */
+    static final int MARGIN = 64;
+
+    /**
+     * The number of zoom steps per doubling of the scale, by which the tiles are cached
+     */
+    static final int ZOOM_STEPS = 16;
+
+    /**
+     * The number of changed primitives from which all tiles are invalidated, rather than looking for the tiles showing them
+     */
+    static final int MAX_INVALIDATED_PRIMITIVES = 10_000;
+
+    /**
+     * The maximal number of cached tiles
+     */
+    static final IntegerProperty PROPERTY_MAX_TILES = new IntegerProperty("mappaint.tile-cache.max-tiles", 64);
+
+    private final DataSet data;
+    private final Map<TileKey, Tile> tiles = new LruCache<>(Math.max(1, PROPERTY_MAX_TILES.get()));
+    private RenderState state;
+    /**
+     * Incremented on each invalidation, to ignore tiles rendered while the data changed
+     */
+    private int modCount;
+    private boolean destroyed;
+
+    /**
+     * Constructs a new {@code OsmDataLayerTileCache}.
+     * @param data the data set of the layer
+     */
+    OsmDataLayerTileCache(DataSet data) {
+        this.data = Objects.requireNonNull(data, "data");
+        // the tiles showing moved primitives are found with their bounding boxes before the move
+        data.requestOldBBoxes();
+        Config.getPref().addPreferenceChangeListener(this);
+    }
+
+    /**
+     * Paints the layer by compositing the cached tiles, and renders the missing tiles.
+     * @param g the graphics of the map view, without scaling
+     * @param nc the map view
+     * @param inactive {@code true} to render the layer in inactive mode
+     * @param virtual {@code true} to render the virtual nodes
+     * @return {@code false} if the layer cannot be painted with tiles in the current state of the map view, e.g. with
+     * a scaled graphics. The caller must then render the layer itself.
+     */
+    boolean paint(Graphics2D g, NavigatableComponent nc, boolean inactive, boolean virtual) {
+        AffineTransform transform = g.getTransform();
+        if (transform.getType() != AffineTransform.TYPE_IDENTITY && transform.getType() != AffineTransform.TYPE_TRANSLATION) {
+            return false;
+        }
+        double scale = nc.getScale();
+        int zoom = (int) Math.round(Math.log(scale) / Math.log(2) * ZOOM_STEPS);
+        Point2D origin = nc.getState().getPointFor(new EastNorth(0, 0)).getInView();
+        Point alignedOrigin = align(origin);
+        if (alignedOrigin == null) {
+            return false;
+        }
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, nc.getWidth(), nc.getHeight());
+        }
+        synchronized (this) {
+            RenderState current = new RenderState(ProjectionRegistry.getProjection(), data.getMappaintCacheIndex(), inactive, virtual);
+            if (!current.equals(state)) {
+                clear();
+                state = current;
+            }
+        }
+        int minX = Math.floorDiv(clip.x - alignedOrigin.x, TILE_SIZE);
+        int maxX = Math.floorDiv(clip.x + clip.width - 1 - alignedOrigin.x, TILE_SIZE);
+        int minY = Math.floorDiv(clip.y - alignedOrigin.y, TILE_SIZE);
+        int maxY = Math.floorDiv(clip.y + clip.height - 1 - alignedOrigin.y, TILE_SIZE);
+        BufferedImage[] images = new BufferedImage[(maxX - minX + 1) * (maxY - minY + 1)];
+        // the view used to render the missing tiles, confined to the current thread
+        TileView tileView = null;
+        for (int y = minY, i = 0; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++, i++) {
+                TileKey key = new TileKey(zoom, x, y);
+                images[i] = getCachedTile(key, scale);
+                if (images[i] == null) {
+                    if (tileView == null) {
+                        tileView = new TileView();
+                    }
+                    images[i] = renderTile(tileView, key, scale, inactive, virtual);
+                }
+                if (images[i] == null) {
+                    return false;
+                }
+            }
+        }
+        for (int y = minY, i = 0; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++, i++) {
+                g.drawImage(images[i], alignedOrigin.x + x * TILE_SIZE, alignedOrigin.y + y * TILE_SIZE, null);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Rounds the position of the east/north origin on the map view, which is aligned to the pixel grid
+     * @param origin the position of the origin
+     * @return the rounded position, or {@code null} if the origin is not aligned
+     */
+    private static Point align(Point2D origin) {
+        long x = Math.round(origin.getX());
+        long y = Math.round(origin.getY());
+        if (Math.abs(origin.getX() - x) > 0.01 || Math.abs(origin.getY() - y) > 0.01
+                || Math.abs(x) > Integer.MAX_VALUE / 2 || Math.abs(y) > Integer.MAX_VALUE / 2) {
+            return null;
+        }
+        return new Point((int) x, (int) y);
+    }
+
+    /**
+     * Returns a cached tile
+     * @param key the position of the tile
+     * @param scale the scale of the map view
+     * @return the image of the tile, or {@code null} if the tile has not been rendered at this scale
+     */
+    private synchronized BufferedImage getCachedTile(TileKey key, double scale) {
+        Tile tile = tiles.get(key);
+        return tile != null && isSameScale(tile.scale, scale) ? tile.image : null;
+    }
+
+    private static boolean isSameScale(double scale1, double scale2) {
+        return Math.abs(scale1 - scale2) <= scale2 * 1e-9;
+    }
+
+    /**
+     * Renders a tile and caches it, unless the data changed in the meantime
+     * @param tileView the view used to render the tile
+     * @param key the position of the tile
+     * @param scale the scale of the map view
+     * @param inactive {@code true} to render the layer in inactive mode
+     * @param virtual {@code true} to render the virtual nodes
+     * @return the image of the tile, or {@code null} if the tile cannot be rendered
+     */
+    private BufferedImage renderTile(TileView tileView, TileKey key, double scale, boolean inactive, boolean virtual) {
+        int expectedModCount;
+        synchronized (this) {
+            expectedModCount = modCount;
+        }
+        Tile tile = render(tileView, key, scale, inactive, virtual);
+        if (tile != null) {
+            synchronized (this) {
+                if (modCount == expectedModCount) {
+                    tiles.put(key, tile);
+                }
+            }
+        }
+        return tile != null ? tile.image : null;
+    }
+
+    private Tile render(TileView tileView, TileKey key, double scale, boolean inactive, boolean virtual) {
+        // the east/north origin is at the pixel (-x * TILE_SIZE, -y * TILE_SIZE) of the tile
+        EastNorth center = new EastNorth((key.x * TILE_SIZE + TILE_SIZE / 2.0) * scale,
+                -(key.y * TILE_SIZE + TILE_SIZE / 2.0) * scale);
+        tileView.zoomTo(center, scale, true);
+        Point2D origin = tileView.getState().getPointFor(new EastNorth(0, 0)).getInView();
+        Point alignedOrigin = align(origin);
+        if (alignedOrigin == null || alignedOrigin.x != -key.x * TILE_SIZE || alignedOrigin.y != -key.y * TILE_SIZE
+                || !isSameScale(tileView.getScale(), scale)) {
+            // the scale or the position has been adjusted by the view, e.g. at the bounds of the projection
+            return null;
+        }
+        Rectangle area = new Rectangle(-MARGIN, -MARGIN, TILE_SIZE + 2 * MARGIN, TILE_SIZE + 2 * MARGIN);
+        Bounds bounds = tileView.getLatLonBounds(area);
+        BufferedImage image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            AbstractMapRenderer painter = MapRendererFactory.getInstance().createActiveRenderer(g, tileView, inactive);
+            painter.enableSlowOperations(true);
+            painter.render(data, virtual, bounds);
+        } finally {
+            g.dispose();
+        }
+        return new Tile(image, scale, bounds.toBBox());
+    }
+
+    /**
+     * Invalidates the tiles showing the primitives changed by a data set event.
+     * @param event the event
+     */
+    void invalidate(AbstractDatasetChangedEvent event) {
+        if (event instanceof DataChangedEvent) {
+            if (((DataChangedEvent) event).getEvents() == null) {
+                clearTiles();
+            } else {
+                ((DataChangedEvent) event).getEvents().forEach(this::invalidate);
+            }
+            return;
+        }
+        Collection<? extends OsmPrimitive> primitives = event.getPrimitives();
+        if (primitives == null || primitives.isEmpty()) {
+            // e.g. filters changed
+            clearTiles();
+            return;
+        }
+        invalidate(primitives);
+        if (event instanceof NodeMovedEvent) {
+            Node node = ((NodeMovedEvent) event).getNode();
+            invalidate(((NodeMovedEvent) event).getOldBBox());
+            invalidate(node.getParentWays());
+        } else if (event instanceof WayNodesChangedEvent) {
+            invalidate(((WayNodesChangedEvent) event).getOldBBox());
+        } else if (event instanceof RelationMembersChangedEvent) {
+            invalidate(((RelationMembersChangedEvent) event).getOldBBox());
+        } else if (event instanceof TagsChangedEvent) {
+            // the styles of the parents may depend on the tags of their children
+            invalidate(((TagsChangedEvent) event).getPrimitive().getReferrers());
+        }
+    }
+
+    /**
+     * Invalidates the tiles showing some primitives.
+     * @param primitives the primitives, or {@code null} to invalidate all tiles
+     */
+    void invalidate(Collection<? extends OsmPrimitive> primitives) {
+        if (primitives == null || primitives.size() > MAX_INVALIDATED_PRIMITIVES) {
+            clearTiles();
+            return;
+        }
+        for (OsmPrimitive primitive : primitives) {
+            invalidate(primitive.getBBox());
+        }
+    }
+
+    private synchronized void invalidate(BBox bbox) {
+        if (bbox != null && bbox.isValid()) {
+            modCount++;
+            tiles.values().removeIf(tile -> tile.bounds.intersects(bbox));
+        }
+    }
+
+    /**
+     * Removes all tiles from the cache.
+     */
+    synchronized void clearTiles() {
+        modCount++;
+        tiles.clear();
+    }
+
+    private void clear() {
+        clearTiles();
+        state = null;
+    }
+
+    /**
+     * Returns the number of cached tiles
+     * @return the number of cached tiles
+     */
+    synchronized int size() {
+        return tiles.size();
+    }
+
+    @Override
+    public void preferenceChanged(PreferenceChangeEvent e) {
+        clearTiles();
+    }
+
+    /**
+     * Removes the cache from the preference listeners, releases its request for old bounding boxes, and frees the tiles.
+     */
+    void destroy() {
+        synchronized (this) {
+            if (destroyed) {
+                return;
+            }
+            destroyed = true;
+        }
+        data.releaseOldBBoxes();
+        Config.getPref().removePreferenceChangeListener(this);
+        clearTiles();
+    }
+
+    /**
+     * The state of the layer and the map view used to render the tiles, except the scale.
+     */
+    private static final class RenderState {
+        private final Projection projection;
+        private final short mappaintCacheIndex;
+        private final boolean inactive;
+        private final boolean virtual;
+
+        RenderState(Projection projection, short mappaintCacheIndex, boolean inactive, boolean virtual) {
+            this.projection = projection;
+            this.mappaintCacheIndex = mappaintCacheIndex;
+            this.inactive = inactive;
+            this.virtual = virtual;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null || getClass() != obj.getClass())
+                return false;
+            RenderState other = (RenderState) obj;
+            return projection == other.projection && mappaintCacheIndex == other.mappaintCacheIndex
+                    && inactive == other.inactive && virtual == other.virtual;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(projection), mappaintCacheIndex, inactive, virtual);
+        }
+    }
+
+    /**
+     * The position of a tile: the zoom step of the map view, and the indices of the tile from the east/north origin.
+     */
+    static final class TileKey {
+        final int zoom;
+        final int x;
+        final int y;
+
+        TileKey(int zoom, int x, int y) {
+            this.zoom = zoom;
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null || getClass() != obj.getClass())
+                return false;
+            TileKey other = (TileKey) obj;
+            return zoom == other.zoom && x == other.x && y == other.y;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(zoom, x, y);
+        }
+    }
+
+    /**
+     * A rendered tile
+     */
+    private static final class Tile {
+        final BufferedImage image;
+        /**
+         * The scale at which the tile has been rendered
+         */
+        final double scale;
+        /**
+         * The area rendered in the tile, including the margin
+         */
+        final BBox bounds;
+
+        Tile(BufferedImage image, double scale, BBox bounds) {
+            this.image = image;
+            this.scale = scale;
+            this.bounds = bounds;
+        }
+    }
+
+    /**
+     * The view used to render a tile
+     */
+    private static final class TileView extends NavigatableComponent {
+        TileView() {
+            setBounds(0, 0, TILE_SIZE, TILE_SIZE);
+            updateLocationState();
+        }
+
+        @Override
+        protected boolean isVisibleOnScreen() {
+            return true;
+        }
+
+        @Override
+        public Point getLocationOnScreen() {
+            return new Point(0, 0);
+        }
+    }
+}
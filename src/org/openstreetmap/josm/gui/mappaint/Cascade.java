@@ -2,6 +2,7 @@
 package org.openstreetmap.josm.gui.mappaint;
 
 import java.awt.Color;
+import java.lang.reflect.Field;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -14,14 +15,65 @@ import java.util.stream.Collectors;
 import org.openstreetmap.josm.gui.mappaint.mapcss.CSSColors;
 import org.openstreetmap.josm.tools.ColorHelper;
 import org.openstreetmap.josm.tools.GenericParser;
+import org.openstreetmap.josm.tools.JosmRuntimeException;
 import org.openstreetmap.josm.tools.Logging;
 
 /**
  * Simple map of properties with dynamic typing.
+ * <p>
+ * The well-known properties (see {@link StyleKeys}) are stored in fixed slots of an array, and their values are kept
+ * once converted to the type requested by the style elements. Other properties are stored in a map.
  */
 public final class Cascade {
 
-    private final Map<String, Object> prop;
+    /**
+     * The slots of the well-known properties
+     */
+    private static final Map<String, Integer> SLOTS = new HashMap<>();
+
+    static {
+        // the most common properties first, to keep the slot arrays short
+        for (String key : Arrays.asList(StyleKeys.MODIFIER, StyleKeys.WIDTH, StyleKeys.COLOR, StyleKeys.Z_INDEX,
+                StyleKeys.MAJOR_Z_INDEX, StyleKeys.OBJECT_Z_INDEX, StyleKeys.OPACITY, StyleKeys.DASHES, StyleKeys.TEXT,
+                StyleKeys.FILL_COLOR, StyleKeys.FILL_OPACITY, StyleKeys.ICON_IMAGE, StyleKeys.TEXT_COLOR, StyleKeys.FONT_SIZE,
+                "symbol-shape", "symbol-size", "symbol-stroke-width", "symbol-stroke-color", "symbol-stroke-opacity",
+                "symbol-fill-color", "symbol-fill-opacity", "casing-width", "casing-color", "casing-opacity", "casing-dashes",
+                "casing-linecap", "casing-linejoin")) {
+            addSlot(key);
+        }
+        for (Field f : StyleKeys.class.getDeclaredFields()) {
+            try {
+                addSlot((String) f.get(null));
+            } catch (IllegalArgumentException | IllegalAccessException ex) {
+                throw new JosmRuntimeException(ex);
+            }
+        }
+    }
+
+    private static final int SLOT_COUNT = SLOTS.size();
+
+    /**
+     * The value of a property explicitly set to {@code null}, in a slot
+     */
+    private static final Object NULL = new Object();
+
+    private static final Object[] NO_SLOTS = new Object[0];
+
+    /**
+     * The values of the well-known properties, by slot. Grows up to the last slot used.
+     */
+    private Object[] slots;
+
+    /**
+     * The values of the well-known properties converted to another type, as pairs of type and converted value.
+     * Allocated on demand.
+     */
+    private Object[] converted;
+
+    /**
+     * The other properties. Allocated on demand.
+     */
+    private Map<String, Object> prop;
 
     private boolean defaultSelectedHandling = true;
 
@@ -42,7 +94,7 @@ public final class Cascade {
      * Constructs a new {@code Cascade}.
      */
     public Cascade() {
-        this.prop = new HashMap<>();
+        this.slots = NO_SLOTS;
     }
 
     /**
@@ -50,7 +102,18 @@ public final class Cascade {
      * @param other other Cascade
      */
     public Cascade(Cascade other) {
-        this.prop = new HashMap<>(other.prop);
+        this.slots = other.slots.length == 0 ? NO_SLOTS : other.slots.clone();
+        this.converted = other.converted != null ? other.converted.clone() : null;
+        this.prop = other.prop != null ? new HashMap<>(other.prop) : null;
+    }
+
+    private static void addSlot(String key) {
+        SLOTS.putIfAbsent(key, SLOTS.size());
+    }
+
+    private static int slot(String key) {
+        Integer slot = SLOTS.get(key);
+        return slot != null ? slot : -1;
     }
 
     /**
@@ -80,10 +143,16 @@ public final class Cascade {
     public <T> T get(String key, T def, Class<T> klass, boolean suppressWarnings) {
         if (def != null && !klass.isInstance(def))
             throw new IllegalArgumentException(def+" is not an instance of "+klass);
-        Object o = prop.get(key);
+        int slot = slot(key);
+        Object o = slot >= 0 ? getSlot(slot) : getOther(key);
         if (o == null)
             return def;
-        T res = convertTo(o, klass);
+        T res;
+        if (slot < 0 || klass.isInstance(o)) {
+            res = convertTo(o, klass);
+        } else {
+            res = getConverted(slot, o, klass);
+        }
         if (res == null) {
             if (!suppressWarnings) {
                 Logging.warn(String.format("Unable to convert property %s to type %s: found %s of type %s!", key, klass, o, o.getClass()));
@@ -99,7 +168,39 @@ public final class Cascade {
      * @return The value or <code>null</code> if it is not set. May be of any type
      */
     public Object get(String key) {
-        return prop.get(key);
+        int slot = slot(key);
+        return slot >= 0 ? getSlot(slot) : getOther(key);
+    }
+
+    private Object getSlot(int slot) {
+        return slot < slots.length ? unmask(slots[slot]) : null;
+    }
+
+    private Object getOther(String key) {
+        return prop != null ? prop.get(key) : null;
+    }
+
+    private static Object unmask(Object value) {
+        return value == NULL ? null : value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T getConverted(int slot, Object o, Class<T> klass) {
+        if (converted != null && 2 * slot < converted.length && converted[2 * slot] == klass) {
+            return (T) converted[2 * slot + 1];
+        }
+        T res = convertTo(o, klass);
+        // arrays may be modified by the caller, they are not kept
+        if (res != null && !klass.isArray()) {
+            if (converted == null) {
+                converted = new Object[2 * slots.length];
+            } else if (2 * slot >= converted.length) {
+                converted = Arrays.copyOf(converted, 2 * slots.length);
+            }
+            converted[2 * slot] = klass;
+            converted[2 * slot + 1] = res;
+        }
+        return res;
     }
 
     /**
@@ -108,7 +209,29 @@ public final class Cascade {
      * @param val The value
      */
     public void put(String key, Object val) {
-        prop.put(key, val);
+        int slot = slot(key);
+        if (slot >= 0) {
+            set(slot, val == null ? NULL : val);
+        } else {
+            if (prop == null) {
+                prop = new HashMap<>();
+            }
+            prop.put(key, val);
+        }
+    }
+
+    private void set(int slot, Object val) {
+        if (slot >= slots.length) {
+            if (val == null) {
+                return;
+            }
+            slots = Arrays.copyOf(slots, Math.max(slot + 1, Math.min(Math.max(8, 2 * slots.length), SLOT_COUNT)));
+        }
+        slots[slot] = val;
+        if (converted != null && 2 * slot < converted.length) {
+            converted[2 * slot] = null;
+            converted[2 * slot + 1] = null;
+        }
     }
 
     /**
@@ -118,9 +241,9 @@ public final class Cascade {
      */
     public void putOrClear(String key, Object val) {
         if (val != null) {
-            prop.put(key, val);
+            put(key, val);
         } else {
-            prop.remove(key);
+            remove(key);
         }
     }
 
@@ -129,7 +252,12 @@ public final class Cascade {
      * @param key The key
      */
     public void remove(String key) {
-        prop.remove(key);
+        int slot = slot(key);
+        if (slot >= 0) {
+            set(slot, null);
+        } else if (prop != null) {
+            prop.remove(key);
+        }
     }
 
     /**
@@ -242,7 +370,16 @@ public final class Cascade {
         // List properties in alphabetical order to be deterministic, without changing "prop" to a TreeMap
         // (no reason too, not sure about the potential memory/performance impact of such a change)
         TreeSet<String> props = new TreeSet<>();
-        for (Entry<String, Object> entry : prop.entrySet()) {
+        Map<String, Object> all = new HashMap<>();
+        for (Entry<String, Integer> slot : SLOTS.entrySet()) {
+            if (slot.getValue() < slots.length && slots[slot.getValue()] != null) {
+                all.put(slot.getKey(), getSlot(slot.getValue()));
+            }
+        }
+        if (prop != null) {
+            all.putAll(prop);
+        }
+        for (Entry<String, Object> entry : all.entrySet()) {
             StringBuilder sb = new StringBuilder(entry.getKey()).append(':');
             Object val = entry.getValue();
             if (val instanceof float[]) {
@@ -264,7 +401,8 @@ public final class Cascade {
      * @return <code>true</code> if there is a value
      */
     public boolean containsKey(String key) {
-        return prop.containsKey(key);
+        int slot = slot(key);
+        return slot >= 0 ? slot < slots.length && slots[slot] != null : prop != null && prop.containsKey(key);
     }
 
     /**
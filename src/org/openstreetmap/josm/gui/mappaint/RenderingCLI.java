@@ -10,6 +10,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -35,9 +36,11 @@ import org.openstreetmap.josm.data.preferences.JosmUrls;
 import org.openstreetmap.josm.data.projection.Projection;
 import org.openstreetmap.josm.data.projection.ProjectionRegistry;
 import org.openstreetmap.josm.data.projection.Projections;
+import org.openstreetmap.josm.gui.io.importexport.OsmPbfImporter;
 import org.openstreetmap.josm.gui.mappaint.RenderingHelper.StyleData;
 import org.openstreetmap.josm.io.Compression;
 import org.openstreetmap.josm.io.IllegalDataException;
+import org.openstreetmap.josm.io.OsmPbfReader;
 import org.openstreetmap.josm.io.OsmReader;
 import org.openstreetmap.josm.spi.lifecycle.Lifecycle;
 import org.openstreetmap.josm.spi.preferences.Config;
@@ -392,7 +395,7 @@ public class RenderingCLI implements CLIModule {
                 tr("Renders data and saves the result to an image file.")+"\n\n"+
                 tr("Options")+":\n"+
                 "\t--help|-h                 "+tr("Show this help")+"\n"+
-                "\t--input|-i <file>         "+tr("Input data file name (.osm)")+"\n"+
+                "\t--input|-i <file>         "+tr("Input data file name (.osm, .osm.pbf)")+"\n"+
                 "\t--output|-o <file>        "+tr("Output image file name (.png); defaults to ''{0}''", "out.png")+"\n"+
                 "\t--style|-s <file>         "+tr("Style file to use for rendering (.mapcss or .zip)")+"\n"+
                 "\t                          "+tr("This option can be repeated to load multiple styles.")+"\n"+
@@ -582,8 +585,16 @@ public class RenderingCLI implements CLIModule {
         if (argInput == null) {
             throw new IllegalArgumentException(tr("Missing argument - input data file ({0})", "--input|-i"));
         }
-        try (InputStream inputStream = Compression.getUncompressedFileInputStream(Paths.get(argInput))) {
-            return OsmReader.parseDataSet(inputStream, null);
+        final Path inputPath = Paths.get(argInput);
+        final boolean pbf = OsmPbfImporter.FILE_FILTER.acceptName(argInput);
+        try {
+            if (pbf && argBounds != null && argInput.toLowerCase(Locale.ROOT).endsWith(".osm.pbf")) {
+                // Only decode the blocks of the file that are needed for the rendered area
+                return OsmPbfReader.parseDataSet(inputPath, argBounds, null);
+            }
+            try (InputStream inputStream = Compression.getUncompressedFileInputStream(inputPath)) {
+                return pbf ? OsmPbfReader.parseDataSet(inputStream, null) : OsmReader.parseDataSet(inputStream, null);
+            }
         } catch (IllegalDataException e) {
             throw new IllegalDataException(tr("In .osm data file ''{0}'' - ", argInput) + e.getMessage(), e);
         }
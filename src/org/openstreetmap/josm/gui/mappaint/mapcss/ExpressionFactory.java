@@ -18,6 +18,7 @@ import java.util.function.BiFunction;
 import java.util.function.DoubleBinaryOperator;
 import java.util.function.DoubleUnaryOperator;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.openstreetmap.josm.data.osm.PrimitiveId;
 import org.openstreetmap.josm.gui.mappaint.Cascade;
@@ -89,11 +90,20 @@ public final class ExpressionFactory {
     interface Factory {
         Expression createExpression(List<Expression> args);
 
-        static Factory of(DoubleUnaryOperator operator) {
+        static PureFactory of(DoubleUnaryOperator operator) {
             return of(Double.class, operator::applyAsDouble);
         }
 
-        static Factory ofNumberVarArgs(double identity, DoubleUnaryOperator unaryOperator, DoubleBinaryOperator operator) {
+        /**
+         * Create a {@link Factory} for a function which has side effects, and thus must not be evaluated in advance
+         * @param factory the factory of the function
+         * @return a factory which is not a {@link PureFactory}
+         */
+        static Factory withSideEffects(Factory factory) {
+            return factory::createExpression;
+        }
+
+        static PureFactory ofNumberVarArgs(double identity, DoubleUnaryOperator unaryOperator, DoubleBinaryOperator operator) {
             return args -> env -> {
                 if (args.isEmpty()) {
                     return identity;
@@ -121,14 +131,14 @@ public final class ExpressionFactory {
                     .toArray(Object[]::new));
         }
 
-        static <T> Factory of(Class<T> type, Function<T, ?> function) {
+        static <T> PureFactory of(Class<T> type, Function<T, ?> function) {
             return args -> env -> {
                 T v = Cascade.convertTo(args.get(0).evaluate(env), type);
                 return v == null ? null : function.apply(v);
             };
         }
 
-        static <T, U> Factory of(Class<T> type1, Class<U> type2, BiFunction<T, U, ?> function) {
+        static <T, U> PureFactory of(Class<T> type1, Class<U> type2, BiFunction<T, U, ?> function) {
             return args -> env -> {
                 T v1 = Cascade.convertTo(args.get(0).evaluate(env), type1);
                 U v2 = Cascade.convertTo(args.get(1).evaluate(env), type2);
@@ -136,7 +146,7 @@ public final class ExpressionFactory {
             };
         }
 
-        static <T, U, V> Factory of(Class<T> type1, Class<U> type2, Class<V> type3,
+        static <T, U, V> PureFactory of(Class<T> type1, Class<U> type2, Class<V> type3,
                                     BiFunction<T, U, ?> biFunction, TriFunction<T, U, V, ?> triFunction) {
             return args -> env -> {
                 T v1 = !args.isEmpty() ? Cascade.convertTo(args.get(0).evaluate(env), type1) : null;
@@ -146,7 +156,7 @@ public final class ExpressionFactory {
             };
         }
 
-        static <T, U, V, W> Factory of(Class<T> type1, Class<U> type2, Class<V> type3, Class<W> type4,
+        static <T, U, V, W> PureFactory of(Class<T> type1, Class<U> type2, Class<V> type3, Class<W> type4,
                                        QuadFunction<T, U, V, W, ?> function) {
             return args -> env -> {
                 T v1 = !args.isEmpty() ? Cascade.convertTo(args.get(0).evaluate(env), type1) : null;
@@ -165,7 +175,7 @@ public final class ExpressionFactory {
          * @return The result of the function call
          */
         @SuppressWarnings("unchecked")
-        static <T> Factory ofIterable(Class<T> type, Function<Iterable<T>, ?> function) {
+        static <T> PureFactory ofIterable(Class<T> type, Function<Iterable<T>, ?> function) {
             return args -> env -> {
                 Object arg0 = args.get(0).evaluate(env);
                 if (args.size() == 1 && arg0 instanceof Iterable) {
@@ -240,6 +250,14 @@ public final class ExpressionFactory {
         }
     }
 
+    /**
+     * A factory of functions whose result only depends on their arguments. Such functions can be evaluated once
+     * when all their arguments are constant, see {@link MapCSSCompiler}.
+     */
+    @FunctionalInterface
+    interface PureFactory extends Factory {
+    }
+
     static final Map<String, Factory> FACTORY_MAP = new HashMap<>();
 
     static {
@@ -324,8 +342,8 @@ public final class ExpressionFactory {
         FACTORY_MAP.put("parent_tags", Factory.ofEnv(String.class, Functions::parent_tags));
         FACTORY_MAP.put("parent_way_angle", Factory.ofEnv(Functions::parent_way_angle));
         FACTORY_MAP.put("plus", Factory.ofNumberVarArgs(0.0, DoubleUnaryOperator.identity(), Functions::plus));
-        FACTORY_MAP.put("print", Factory.of(Object.class, Functions::print));
-        FACTORY_MAP.put("println", Factory.of(Object.class, Functions::println));
+        FACTORY_MAP.put("print", Factory.withSideEffects(Factory.of(Object.class, Functions::print)));
+        FACTORY_MAP.put("println", Factory.withSideEffects(Factory.of(Object.class, Functions::println)));
         FACTORY_MAP.put("prop", Factory.ofEnv(String.class, String.class, Functions::prop, Functions::prop));
         FACTORY_MAP.put("red", Factory.of(Color.class, Functions::red));
         FACTORY_MAP.put("regexp_match", Factory.of(String.class, String.class, String.class, Functions::regexp_match, Functions::regexp_match));
@@ -379,6 +397,19 @@ public final class ExpressionFactory {
      * returns {@link NullExpression#INSTANCE}.
      */
     public static Expression createFunctionExpression(String name, List<Expression> args) {
+        if ("inside".equals(name) && args.size() == 1)
+            return new IsInsideFunction(args.get(0));
+        Expression function = createFunction(name, args);
+        return function == NullExpression.INSTANCE ? function : new FunctionExpression(name, args, function);
+    }
+
+    /**
+     * Creates the implementation of a function-like expression, without keeping track of its name and arguments.
+     * @param name the name of the function or operator
+     * @param args the list of arguments (as expressions)
+     * @return the function, or {@link NullExpression#INSTANCE} if no suitable function can be found
+     */
+    static Expression createFunction(String name, List<Expression> args) {
         if ("cond".equals(name) && args.size() == 3)
             return new CondOperator(args.get(0), args.get(1), args.get(2));
         else if ("and".equals(name))
@@ -391,8 +422,6 @@ public final class ExpressionFactory {
             return new MinMaxFunction(args, true);
         else if ("min".equals(name) && !args.isEmpty())
             return new MinMaxFunction(args, false);
-        else if ("inside".equals(name) && args.size() == 1)
-            return new IsInsideFunction(args.get(0));
         else if ("random".equals(name))
             return env -> Math.random();
 
@@ -403,6 +432,53 @@ public final class ExpressionFactory {
         return NullExpression.INSTANCE;
     }
 
+    /**
+     * Determines if a function only depends on its arguments, without side effects.
+     * @param name the name of the function or operator
+     * @return {@code true} if the function can be evaluated in advance when its arguments are constant
+     */
+    static boolean isPure(String name) {
+        switch (name) {
+            case "cond":
+            case "and":
+            case "or":
+            case "length":
+            case "max":
+            case "min":
+                return true;
+            case "random":
+                return false;
+            default:
+                return FACTORY_MAP.get(name) instanceof PureFactory;
+        }
+    }
+
+    /**
+     * A function-like expression, which keeps its name and arguments so that it can be compiled, see {@link MapCSSCompiler}.
+     */
+    static final class FunctionExpression implements Expression {
+
+        final String name;
+        final List<Expression> args;
+        private final Expression function;
+
+        FunctionExpression(String name, List<Expression> args, Expression function) {
+            this.name = name;
+            this.args = args;
+            this.function = function;
+        }
+
+        @Override
+        public Object evaluate(Environment env) {
+            return function.evaluate(env);
+        }
+
+        @Override
+        public String toString() {
+            return name + args.stream().map(String::valueOf).collect(Collectors.joining(", ", "(", ")"));
+        }
+    }
+
     /**
      * Expression that always evaluates to null.
      */
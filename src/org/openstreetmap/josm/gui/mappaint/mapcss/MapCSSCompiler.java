@@ -0,0 +1,275 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.mappaint.mapcss;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openstreetmap.josm.gui.mappaint.Cascade;
+import org.openstreetmap.josm.gui.mappaint.Environment;
+import org.openstreetmap.josm.gui.mappaint.Keyword;
+import org.openstreetmap.josm.gui.mappaint.StyleSource;
+import org.openstreetmap.josm.gui.mappaint.mapcss.ConditionFactory.ExpressionCondition;
+import org.openstreetmap.josm.gui.mappaint.mapcss.ConditionFactory.KeyCondition;
+import org.openstreetmap.josm.gui.mappaint.mapcss.ConditionFactory.KeyMatchType;
+import org.openstreetmap.josm.gui.mappaint.mapcss.ConditionFactory.SimpleKeyValueCondition;
+import org.openstreetmap.josm.gui.mappaint.mapcss.ExpressionFactory.FunctionExpression;
+import org.openstreetmap.josm.gui.mappaint.mapcss.ExpressionFactory.NullExpression;
+import org.openstreetmap.josm.gui.mappaint.mapcss.Instruction.AssignmentInstruction;
+import org.openstreetmap.josm.gui.mappaint.mapcss.Selector.ChildOrParentSelector;
+import org.openstreetmap.josm.gui.mappaint.mapcss.Selector.GeneralSelector;
+import org.openstreetmap.josm.tools.Logging;
+
+/**
+ * Compiles the rules of a {@link MapCSSStyleIndex} into specialized evaluators, which compute the same styles
+ * as the parsed rules with less work per primitive:
+ * <ul>
+ * <li>function expressions with constant arguments are evaluated once, as well as the settings of the style</li>
+ * <li>function expressions are bound to their implementation, see {@link ExpressionFactory#createFunction}</li>
+ * <li>conditions which are always true are removed, and rules whose conditions are never fulfilled are not indexed</li>
+ * <li>the {@code key=value} or {@code key} condition already checked by the tag table of the {@link MapCSSRuleIndex},
+ * and the base of the selector already checked by the {@link MapCSSStyleIndex}, are not evaluated again</li>
+ * </ul>
+ * The style settings are evaluated when the style is loaded, the style must thus be reloaded when a setting changes.
+ * <p>
+ * Compilation can be disabled with {@link MapCSSStyleSource#COMPILE_RULES}, to compare with the parsed rules.
+ * @since xxx
+ */
+final class MapCSSCompiler {
+
+    /**
+     * The condition of a selector which is always fulfilled
+     */
+    private static final Condition ALWAYS = env -> true;
+
+    /**
+     * The condition of a selector which is never fulfilled
+     */
+    private static final Condition NEVER = env -> false;
+
+    private final StyleSource source;
+    private final Map<Declaration, Declaration> declarations = new IdentityHashMap<>();
+
+    /**
+     * Constructs a new {@code MapCSSCompiler}.
+     * @param source the style source of the rules, which provides the values of the style settings
+     */
+    MapCSSCompiler(StyleSource source) {
+        this.source = source;
+    }
+
+    /**
+     * Compiles a rule of a {@link MapCSSStyleIndex}. Since the style index only returns the rules whose base matches
+     * the primitive, the base of the rightmost selectors is not checked anymore.
+     * @param rule the rule
+     * @param indexed the condition of the rightmost selector which is checked by the rule index, if the rule has only one selector.
+     * Can be {@code null}.
+     * @return the compiled rule, or {@code null} if the rule never applies
+     */
+    MapCSSRule compile(MapCSSRule rule, Condition indexed) {
+        List<Selector> selectors = new ArrayList<>(rule.selectors.size());
+        for (Selector selector : rule.selectors) {
+            Selector compiled = compileSelector(selector, true, isCheckedByIndex(indexed) ? indexed : null);
+            if (compiled != null) {
+                selectors.add(compiled);
+            }
+        }
+        if (selectors.isEmpty()) {
+            return null;
+        }
+        return new MapCSSRule(selectors, declarations.computeIfAbsent(rule.declaration, this::compileDeclaration));
+    }
+
+    /**
+     * Determines if a condition used by the rule index is also checked by the index. This is the case of {@code [key=value]}
+     * and {@code [key]}, but not of {@code [key?]} or other operators.
+     * @param condition the condition used by the rule index
+     * @return {@code true} if the rule index only returns the rule when the condition is fulfilled
+     */
+    private static boolean isCheckedByIndex(Condition condition) {
+        if (condition instanceof SimpleKeyValueCondition) {
+            return true;
+        } else if (condition instanceof KeyCondition) {
+            KeyCondition keyCondition = (KeyCondition) condition;
+            return keyCondition.matchType == KeyMatchType.EQ && !keyCondition.negateResult;
+        }
+        return false;
+    }
+
+    /**
+     * Compiles a selector
+     * @param selector the selector
+     * @param rightmost {@code true} for the rightmost selector of the rule, which is matched against the styled primitive
+     * @param indexed the condition checked by the rule index, or {@code null}
+     * @return the compiled selector, or {@code null} if the rightmost selector never matches
+     */
+    private Selector compileSelector(Selector selector, boolean rightmost, Condition indexed) {
+        if (selector instanceof ChildOrParentSelector) {
+            ChildOrParentSelector childOrParent = (ChildOrParentSelector) selector;
+            Selector right = compileSelector(childOrParent.right, rightmost, indexed);
+            if (right == null) {
+                return null;
+            }
+            Selector left = compileSelector(childOrParent.left, false, null);
+            return new ChildOrParentSelector(left, childOrParent.link, right, childOrParent.type);
+        } else if (selector instanceof GeneralSelector) {
+            GeneralSelector general = (GeneralSelector) selector;
+            List<Condition> conditions = new ArrayList<>();
+            for (Condition condition : general.getConditions()) {
+                if (condition == indexed) {
+                    continue;
+                }
+                Condition compiled = compileCondition(condition);
+                if (compiled == NEVER) {
+                    // the rightmost selector fails first, but other selectors are needed for the negated child selectors
+                    return rightmost ? null : selector;
+                } else if (compiled != ALWAYS) {
+                    conditions.add(compiled);
+                }
+            }
+            return new CompiledSelector(general, conditions, rightmost);
+        }
+        return selector;
+    }
+
+    private Condition compileCondition(Condition condition) {
+        if (condition instanceof ExpressionCondition) {
+            Expression expression = compileExpression(((ExpressionCondition) condition).getExpression());
+            if (isConstant(expression)) {
+                Boolean b = Cascade.convertTo(expression.evaluate(null), Boolean.class);
+                return b != null && b ? ALWAYS : NEVER;
+            }
+            return new ExpressionCondition(expression);
+        }
+        return condition;
+    }
+
+    private Declaration compileDeclaration(Declaration declaration) {
+        List<Instruction> instructions = new ArrayList<>(declaration.instructions.size());
+        boolean compiled = false;
+        for (Instruction instruction : declaration.instructions) {
+            Instruction i = compileInstruction(instruction);
+            compiled |= i != instruction;
+            instructions.add(i);
+        }
+        return compiled ? new Declaration(instructions, declaration.idx) : declaration;
+    }
+
+    private Instruction compileInstruction(Instruction instruction) {
+        if (instruction instanceof AssignmentInstruction && ((AssignmentInstruction) instruction).val instanceof Expression) {
+            AssignmentInstruction assignment = (AssignmentInstruction) instruction;
+            Expression expression = compileExpression((Expression) assignment.val);
+            if (expression == assignment.val) {
+                return instruction;
+            }
+            if (expression instanceof LiteralExpression) {
+                // a literal value of an assignment has a special meaning, e.g. for "text", keep the value of the expression
+                expression = new ConstantExpression(((LiteralExpression) expression).getLiteral());
+            }
+            return new AssignmentInstruction(assignment.key, expression, assignment.isSetInstruction);
+        }
+        return instruction;
+    }
+
+    /**
+     * Compiles an expression
+     * @param expression the expression
+     * @return the compiled expression, which is constant if possible
+     */
+    Expression compileExpression(Expression expression) {
+        if (!(expression instanceof FunctionExpression)) {
+            return expression;
+        }
+        FunctionExpression function = (FunctionExpression) expression;
+        List<Expression> args = new ArrayList<>(function.args.size());
+        boolean constantArgs = true;
+        for (Expression arg : function.args) {
+            Expression compiled = compileExpression(arg);
+            constantArgs &= isConstant(compiled);
+            args.add(compiled);
+        }
+        if (constantArgs && "setting".equals(function.name) && args.size() == 1 && source != null) {
+            String key = Cascade.convertTo(args.get(0).evaluate(null), String.class);
+            Expression setting = constant(key == null ? null : source.settingValues.get(key));
+            if (setting != null) {
+                return setting;
+            }
+        }
+        Expression compiled = ExpressionFactory.createFunction(function.name, args);
+        if (constantArgs && ExpressionFactory.isPure(function.name)) {
+            try {
+                Expression value = constant(compiled.evaluate(null));
+                if (value != null) {
+                    return value;
+                }
+            } catch (RuntimeException e) {
+                // keep the function, so that the error is reported when the style is applied
+                Logging.trace(e);
+            }
+        }
+        if ("cond".equals(function.name) && args.size() == 3 && isConstant(args.get(0))) {
+            Boolean b = Cascade.convertTo(args.get(0).evaluate(null), boolean.class);
+            return b != null && b ? args.get(1) : args.get(2);
+        }
+        return compiled;
+    }
+
+    private static boolean isConstant(Expression expression) {
+        return expression instanceof LiteralExpression || expression instanceof ConstantExpression || expression == NullExpression.INSTANCE;
+    }
+
+    /**
+     * Returns an expression for a constant value, if the value is immutable
+     * @param value the value
+     * @return the constant expression, or {@code null} if the value cannot be shared by the evaluations of the expression
+     */
+    private static Expression constant(Object value) {
+        if (value == null) {
+            return NullExpression.INSTANCE;
+        } else if (value instanceof String || value instanceof Number || value instanceof Boolean || value instanceof Color
+                || value instanceof Keyword) {
+            return new ConstantExpression(value);
+        }
+        return null;
+    }
+
+    /**
+     * The result of a function evaluated in advance
+     */
+    private static final class ConstantExpression implements Expression {
+        private final Object value;
+
+        ConstantExpression(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public Object evaluate(Environment env) {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return "Constant<" + value + '>';
+        }
+    }
+
+    /**
+     * A general selector with compiled conditions, which may skip the check of the base
+     */
+    private static final class CompiledSelector extends GeneralSelector {
+        private final boolean baseChecked;
+
+        CompiledSelector(GeneralSelector selector, List<Condition> conditions, boolean baseChecked) {
+            super(selector.base, selector.range, conditions, selector.subpart);
+            this.baseChecked = baseChecked;
+        }
+
+        @Override
+        public boolean matches(Environment e) {
+            return baseChecked ? matchesConditions(e) : super.matches(e);
+        }
+    }
+}
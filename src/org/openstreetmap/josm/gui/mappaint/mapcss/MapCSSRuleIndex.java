@@ -152,9 +152,20 @@ public class MapCSSRuleIndex {
      * You must own the write lock of STYLE_SOURCE_LOCK when calling this method.
      */
     public void initIndex() {
+        initIndex(null);
+    }
+
+    /**
+     * Initialize the index, and compile the indexed rules.
+     * <p>
+     * You must own the write lock of STYLE_SOURCE_LOCK when calling this method.
+     * @param compiler the compiler of the rules, or {@code null} to keep the rules as they are
+     */
+    void initIndex(MapCSSCompiler compiler) {
         Collections.sort(rules);
         for (int ruleIndex = 0; ruleIndex < rules.size(); ruleIndex++) {
             MapCSSRule r = rules.get(ruleIndex);
+            Condition indexed = null;
             for (Selector selector : r.selectors) {
                 Selector selRightmost = selector;
                 while (selRightmost instanceof Selector.ChildOrParentSelector) {
@@ -170,40 +181,61 @@ public class MapCSSRuleIndex {
                         .reduce((first, last) -> last);
                 if (lastCondition.isPresent()) {
                     getEntryInIndex(lastCondition.get().k).addForKeyAndValue(lastCondition.get().v, ruleIndex);
+                    indexed = lastCondition.get();
                 } else {
-                    String key = findAnyRequiredKey(conditions);
-                    if (key != null) {
-                        getEntryInIndex(key).addForKey(ruleIndex);
+                    Condition keyCondition = findAnyRequiredKeyCondition(conditions);
+                    if (keyCondition != null) {
+                        getEntryInIndex(getKey(keyCondition)).addForKey(ruleIndex);
+                        indexed = keyCondition;
                     } else {
                         remaining.set(ruleIndex);
                     }
                 }
             }
+            if (compiler != null) {
+                compile(compiler, ruleIndex, r.selectors.size() == 1 ? indexed : null);
+            }
+        }
+    }
+
+    private void compile(MapCSSCompiler compiler, int ruleIndex, Condition indexed) {
+        MapCSSRule compiled = compiler.compile(rules.get(ruleIndex), indexed);
+        if (compiled != null) {
+            rules.set(ruleIndex, compiled);
+        } else {
+            // the rule never applies
+            remaining.clear(ruleIndex);
+            for (MapCSSKeyRules keyRules : index.values()) {
+                keyRules.generalRules.clear(ruleIndex);
+                keyRules.specialRules.values().forEach(r -> r.clear(ruleIndex));
+            }
         }
     }
 
     /**
-     * Search for any key that condition might depend on.
+     * Search for any key condition that the rule might depend on.
      *
      * @param conds The conditions to search through.
-     * @return An arbitrary key this rule depends on or <code>null</code> if there is no such key.
+     * @return An arbitrary condition requiring a key this rule depends on or <code>null</code> if there is no such condition.
      */
-    private static String findAnyRequiredKey(List<Condition> conds) {
-        String key = null;
+    private static Condition findAnyRequiredKeyCondition(List<Condition> conds) {
+        Condition keyCondition = null;
         for (Condition c : conds) {
             if (c instanceof KeyCondition && VALID_INDEX_KEY_TYPES.contains(((KeyCondition) c).matchType)) {
-                KeyCondition keyCondition = (KeyCondition) c;
-                if (!keyCondition.negateResult) {
-                    key = keyCondition.label;
+                if (!((KeyCondition) c).negateResult) {
+                    keyCondition = c;
                 }
             } else if (c instanceof KeyValueCondition) {
-                KeyValueCondition keyValueCondition = (KeyValueCondition) c;
-                if (keyValueCondition.requiresExactKeyMatch()) {
-                    key = keyValueCondition.k;
+                if (((KeyValueCondition) c).requiresExactKeyMatch()) {
+                    keyCondition = c;
                 }
             }
         }
-        return key;
+        return keyCondition;
+    }
+
+    private static String getKey(Condition keyCondition) {
+        return keyCondition instanceof KeyCondition ? ((KeyCondition) keyCondition).label : ((KeyValueCondition) keyCondition).k;
     }
 
     private MapCSSKeyRules getEntryInIndex(String key) {
@@ -70,6 +70,17 @@ public final class MapCSSStyleIndex {
      * @param ruleStream the rules to index
      */
     public void buildIndex(Stream<MapCSSRule> ruleStream) {
+        buildIndex(ruleStream, null);
+    }
+
+    /**
+     * Builds and initializes the index, with compiled rules.
+     * <p>
+     * You must own the write lock of STYLE_SOURCE_LOCK when calling this method.
+     * @param ruleStream the rules to index
+     * @param compiler the compiler of the rules, or {@code null} to keep the rules as they are
+     */
+    void buildIndex(Stream<MapCSSRule> ruleStream, MapCSSCompiler compiler) {
         clear();
         // optimization: filter rules for different primitive types
         ruleStream.forEach(rule -> {
@@ -121,16 +132,16 @@ public final class MapCSSStyleIndex {
                 }
             });
         });
-        initIndex();
+        initIndex(compiler);
     }
 
-    private void initIndex() {
-        nodeRules.initIndex();
-        wayRules.initIndex();
-        wayNoAreaRules.initIndex();
-        relationRules.initIndex();
-        multipolygonRules.initIndex();
-        canvasRules.initIndex();
+    private void initIndex(MapCSSCompiler compiler) {
+        nodeRules.initIndex(compiler);
+        wayRules.initIndex(compiler);
+        wayNoAreaRules.initIndex(compiler);
+        relationRules.initIndex(compiler);
+        multipolygonRules.initIndex(compiler);
+        canvasRules.initIndex(compiler);
     }
 
     /**
@@ -29,6 +29,7 @@ import java.util.zip.ZipFile;
 import org.openstreetmap.josm.data.Version;
 import org.openstreetmap.josm.data.osm.IPrimitive;
 import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.preferences.BooleanProperty;
 import org.openstreetmap.josm.data.preferences.sources.SourceEntry;
 import org.openstreetmap.josm.gui.mappaint.Cascade;
 import org.openstreetmap.josm.gui.mappaint.Environment;
@@ -89,6 +90,13 @@ public class MapCSSStyleSource extends StyleSource {
      */
     public static final ReadWriteLock STYLE_SOURCE_LOCK = new ReentrantReadWriteLock();
 
+    /**
+     * Determines if the indexed rules are compiled when the style is loaded, see {@link MapCSSCompiler}.
+     * Disable it to compare the styles and the performance with the parsed rules.
+     * @since xxx
+     */
+    public static final BooleanProperty COMPILE_RULES = new BooleanProperty("mappaint.mapcss.compile-rules", true);
+
     /**
      * Set of all supported MapCSS keys.
      */
@@ -197,7 +205,7 @@ public class MapCSSStyleSource extends StyleSource {
                 return;
             }
             // optimization: filter rules for different primitive types
-            ruleIndex.buildIndex(rules.stream());
+            ruleIndex.buildIndex(rules.stream(), COMPILE_RULES.get() ? new MapCSSCompiler(this) : null);
             loaded = true;
         } finally {
             STYLE_SOURCE_LOCK.writeLock().unlock();
@@ -359,7 +367,9 @@ public class MapCSSStyleSource extends StyleSource {
         Iterator<MapCSSRule> candidates = ruleIndex.getRuleCandidates(osm);
         while (candidates.hasNext()) {
             MapCSSRule r = candidates.next();
-            for (Selector s : r.selectors) {
+            // indexed loop, iterating over the singleton lists of most rules allocates an iterator
+            for (int i = 0; i < r.selectors.size(); i++) {
+                Selector s = r.selectors.get(i);
                 env.clearSelectorMatchingInformation();
                 env.layer = s.getSubpart().getId(env);
                 String sub = env.layer;
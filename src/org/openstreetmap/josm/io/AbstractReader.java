@@ -35,6 +35,7 @@ import org.openstreetmap.josm.data.osm.RelationData;
 import org.openstreetmap.josm.data.osm.RelationMember;
 import org.openstreetmap.josm.data.osm.RelationMemberData;
 import org.openstreetmap.josm.data.osm.SimplePrimitiveId;
+import org.openstreetmap.josm.data.osm.TagPool;
 import org.openstreetmap.josm.data.osm.Tagged;
 import org.openstreetmap.josm.data.osm.UploadPolicy;
 import org.openstreetmap.josm.data.osm.User;
@@ -87,7 +88,7 @@ public abstract class AbstractReader {
     }
 
     /**
-     * A lookup table to avoid calling {@link String#intern()} unnecessarily.
+     * A lookup table to avoid looking up the {@link TagPool} unnecessarily.
      */
     private final Map<String, String> tagMap = new HashMap<>();
 
@@ -141,11 +142,13 @@ public abstract class AbstractReader {
      *
      */
     protected void processNodesAfterParsing() {
+        List<Node> nodes = new ArrayList<>();
         for (OsmPrimitive primitive: externalIdMap.values()) {
             if (primitive instanceof Node) {
-                this.ds.addPrimitive(primitive);
+                nodes.add((Node) primitive);
             }
         }
+        this.ds.addPrimitives(nodes);
     }
 
     /**
@@ -155,6 +158,7 @@ public abstract class AbstractReader {
      * @throws IllegalDataException if a data integrity problem is detected
      */
     protected void processWaysAfterParsing() throws IllegalDataException {
+        List<Way> parsedWays = new ArrayList<>(ways.size());
         for (Entry<Long, Collection<Long>> entry : ways.entrySet()) {
             Long externalWayId = entry.getKey();
             Way w = (Way) externalIdMap.get(new SimplePrimitiveId(externalWayId, OsmPrimitiveType.WAY));
@@ -185,8 +189,9 @@ public abstract class AbstractReader {
                 Logging.info(tr("Way {0} with {1} nodes is incomplete because at least one node was missing in the loaded data.",
                         Long.toString(externalWayId), w.getNodesCount()));
             }
-            ds.addPrimitive(w);
+            parsedWays.add(w);
         }
+        ds.addPrimitives(parsedWays);
     }
 
     /**
@@ -610,7 +615,7 @@ public abstract class AbstractReader {
             // Drop the tag on import, but flag the primitive as modified
             ((AbstractPrimitive) t).setModified(true);
         } else {
-            t.put(this.tagMap.computeIfAbsent(key, Utils::intern), this.tagMap.computeIfAbsent(value, Utils::intern));
+            t.put(this.tagMap.computeIfAbsent(key, TagPool::intern), this.tagMap.computeIfAbsent(value, TagPool::intern));
         }
     }
 
@@ -673,6 +678,10 @@ public abstract class AbstractReader {
             p = pd.getType().newVersionedInstance(pd.getId(), pd.getVersion());
         }
         p.setVisible(pd.isVisible());
+        if (p instanceof Node) {
+            // the node is added to the data set after parsing, write its coordinates to the store of the data set at once
+            ds.reserveNodeCoordinates((Node) p);
+        }
         p.load(pd);
         externalIdMap.put(pd.getPrimitiveId(), p);
         return p;
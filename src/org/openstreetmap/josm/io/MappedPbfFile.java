@@ -0,0 +1,97 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A read-only, memory-mapped OSM PBF file. Files larger than 2 GiB are mapped as several overlapping windows, so that every
+ * file block can be read from a single window. All read methods may be called concurrently.
+ * @since xxx
+ */
+final class MappedPbfFile implements AutoCloseable {
+    /** The distance between the start of two windows */
+    private static final long WINDOW_SIZE = 1L << 30;
+    /** The maximum size of a file block (length prefix, BlobHeader and Blob), used as overlap between two windows */
+    private static final long MAX_BLOCK_SIZE = 4L + OsmPbfReader.MAX_BLOBHEADER_SIZE + OsmPbfReader.MAX_BLOB_SIZE;
+
+    private final FileChannel channel;
+    private final long size;
+    private final MappedByteBuffer[] windows;
+
+    /**
+     * Map a file into memory
+     * @param file The file to map
+     * @throws IOException if the file could not be opened or mapped
+     */
+    MappedPbfFile(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            this.size = this.channel.size();
+            this.windows = new MappedByteBuffer[(int) Math.max(1, (this.size + WINDOW_SIZE - 1) / WINDOW_SIZE)];
+            for (int i = 0; i < this.windows.length; i++) {
+                final long start = i * WINDOW_SIZE;
+                this.windows[i] = this.channel.map(FileChannel.MapMode.READ_ONLY, start,
+                        Math.min(WINDOW_SIZE + MAX_BLOCK_SIZE, this.size - start));
+            }
+        } catch (IOException | RuntimeException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Get the size of the file
+     * @return The size in bytes
+     */
+    long size() {
+        return this.size;
+    }
+
+    /**
+     * Read a big-endian int, as used for the length prefix of the BlobHeader
+     * @param offset The offset in the file
+     * @return The int at the offset
+     * @throws IOException if the int is not inside the file
+     */
+    int readInt(long offset) throws IOException {
+        checkRange(offset, Integer.BYTES);
+        return this.windows[(int) (offset / WINDOW_SIZE)].getInt((int) (offset % WINDOW_SIZE));
+    }
+
+    /**
+     * Copy a part of the file
+     * @param offset The offset in the file
+     * @param length The number of bytes to copy, must not be larger than a file block
+     * @return The bytes
+     * @throws IOException if the range is not inside the file
+     */
+    byte[] read(long offset, int length) throws IOException {
+        checkRange(offset, length);
+        if (length > MAX_BLOCK_SIZE) {
+            throw new IOException("Cannot read " + length + " bytes at once from a mapped PBF file");
+        }
+        // duplicate() keeps the position of the shared buffer untouched
+        final ByteBuffer window = this.windows[(int) (offset / WINDOW_SIZE)].duplicate();
+        window.position((int) (offset % WINDOW_SIZE));
+        final byte[] bytes = new byte[length];
+        window.get(bytes);
+        return bytes;
+    }
+
+    private void checkRange(long offset, int length) throws EOFException {
+        if (offset < 0 || length < 0 || offset + length > this.size) {
+            throw new EOFException("Cannot read " + length + " bytes at offset " + offset + " of a " + this.size + " byte file");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
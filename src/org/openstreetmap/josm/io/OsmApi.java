@@ -5,7 +5,10 @@ import static org.openstreetmap.josm.tools.I18n.marktr;
 import static org.openstreetmap.josm.tools.I18n.tr;
 import static org.openstreetmap.josm.tools.I18n.trn;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.StringReader;
 import java.io.StringWriter;
@@ -25,6 +28,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
 import java.util.function.UnaryOperator;
+import java.util.zip.GZIPOutputStream;
 
 import javax.xml.parsers.ParserConfigurationException;
 
@@ -86,6 +90,19 @@ public class OsmApi extends OsmConnection {
      */
     public static final BooleanProperty USE_OAUTH_FOR_ALL_REQUESTS = new BooleanProperty("oauth.use-for-all-requests", true);
 
+    /**
+     * Defines whether diff uploads are written directly to the connection, instead of being built in memory first.
+     * Streamed uploads are sent in chunks without a Content-length header, which not all API servers accept.
+     * @since xxx
+     */
+    public static final BooleanProperty STREAM_DIFF_UPLOAD = new BooleanProperty("osm-server.upload-diff.streaming", false);
+
+    /**
+     * Defines whether streamed diff uploads are gzip compressed. Not all API servers accept compressed requests.
+     * @since xxx
+     */
+    public static final BooleanProperty COMPRESS_DIFF_UPLOAD = new BooleanProperty("osm-server.upload-diff.compression", false);
+
     // The collection of instantiated OSM APIs
     private static final Map<String, OsmApi> instances = new HashMap<>();
 
@@ -589,20 +606,32 @@ public class OsmApi extends OsmConnection {
 
             initialize(monitor);
 
-            // prepare upload request
-            //
-            OsmChangeBuilder changeBuilder = new OsmChangeBuilder(changeset);
-            monitor.subTask(tr("Preparing upload request..."));
-            changeBuilder.start();
-            changeBuilder.append(list);
-            changeBuilder.finish();
-            String diffUploadRequest = changeBuilder.getDocument();
-
-            // Upload to the server
-            //
-            monitor.indeterminateSubTask(
-                    trn("Uploading {0} object...", "Uploading {0} objects...", list.size(), list.size()));
-            String diffUploadResponse = sendPostRequest(CHANGESET_SLASH + changeset.getId() + "/upload", diffUploadRequest, monitor);
+            final String urlSuffix = CHANGESET_SLASH + changeset.getId() + "/upload";
+            String diffUploadResponse;
+            if (Boolean.TRUE.equals(STREAM_DIFF_UPLOAD.get())) {
+                // Upload to the server while the request is written
+                //
+                final boolean compress = Boolean.TRUE.equals(COMPRESS_DIFF_UPLOAD.get());
+                monitor.indeterminateSubTask(
+                        trn("Uploading {0} object...", "Uploading {0} objects...", list.size(), list.size()));
+                diffUploadResponse = sendStreamedRequest("POST", urlSuffix, out -> writeDiff(list, out, compress),
+                        compress ? "gzip" : null, monitor);
+            } else {
+                // prepare upload request
+                //
+                OsmChangeBuilder changeBuilder = new OsmChangeBuilder(changeset);
+                monitor.subTask(tr("Preparing upload request..."));
+                changeBuilder.start();
+                changeBuilder.append(list);
+                changeBuilder.finish();
+                String diffUploadRequest = changeBuilder.getDocument();
+
+                // Upload to the server
+                //
+                monitor.indeterminateSubTask(
+                        trn("Uploading {0} object...", "Uploading {0} objects...", list.size(), list.size()));
+                diffUploadResponse = sendPostRequest(urlSuffix, diffUploadRequest, monitor);
+            }
 
             // Process the response from the server
             //
@@ -622,6 +651,21 @@ public class OsmApi extends OsmConnection {
         }
     }
 
+    private void writeDiff(Collection<? extends OsmPrimitive> list, OutputStream out, boolean compress) throws IOException {
+        // the stream belongs to the connection, the gzip stream is finished but not closed
+        final GZIPOutputStream gzip = compress ? new GZIPOutputStream(out, 65_536) : null;
+        final OsmChangeBuilder changeBuilder = new OsmChangeBuilder(changeset, null,
+                new BufferedWriter(new OutputStreamWriter(compress ? gzip : out, StandardCharsets.UTF_8)));
+        changeBuilder.start();
+        changeBuilder.append(list);
+        changeBuilder.finish();
+        if (changeBuilder.checkError())
+            throw new IOException(tr("Failed to write the upload request."));
+        if (gzip != null) {
+            gzip.finish();
+        }
+    }
+
     private void sleepAndListen(int retry, ProgressMonitor monitor) throws OsmTransferCanceledException {
         Logging.info(tr("Waiting 10 seconds ... "));
         for (int i = 0; i < 10; i++) {
@@ -757,9 +801,38 @@ public class OsmApi extends OsmConnection {
      */
     protected final String sendRequest(String requestMethod, String urlSuffix, String requestBody, ProgressMonitor monitor,
             String contentType, boolean doAuthenticate, boolean fastFail) throws OsmTransferException {
+        return sendRequest(requestMethod, urlSuffix, requestBody, null, null, monitor, contentType, doAuthenticate, fastFail);
+    }
+
+    /**
+     * Sends an authenticated request to the OSM API, whose body is written directly to the connection.
+     * <p>
+     * The body is sent in chunks while it is written, so it is never held in memory as a whole.
+     * It is written again if the request is retried. The progress is reported in bytes sent.
+     *
+     * @param requestMethod The http method used when talking with the server.
+     * @param urlSuffix The suffix to add at the server url, not including the version number.
+     * @param requestBody the writer of the body of the HTTP request, in XML
+     * @param contentEncoding the {@code Content-Encoding} of the body, e.g. {@code gzip}, or {@code null}
+     * @param monitor the progress monitor
+     * @return the body of the HTTP response, if and only if the response code was "200 OK".
+     * @throws OsmTransferException if the HTTP return code was not 200 (and retries have
+     *    been exhausted), or rewrapping a Java exception.
+     * @since xxx
+     */
+    protected final String sendStreamedRequest(String requestMethod, String urlSuffix, HttpClient.RequestBodyWriter requestBody,
+            String contentEncoding, ProgressMonitor monitor) throws OsmTransferException {
+        return sendRequest(requestMethod, urlSuffix, null, requestBody, contentEncoding, monitor, null, true, false);
+    }
+
+    private String sendRequest(String requestMethod, String urlSuffix, String requestBody, HttpClient.RequestBodyWriter requestBodyWriter,
+            String contentEncoding, ProgressMonitor monitor, String contentType, boolean doAuthenticate, boolean fastFail)
+            throws OsmTransferException {
         int retries = fastFail ? 0 : getMaxRetries();
 
         while (true) { // the retry loop
+            final ProgressMonitor uploadMonitor = requestBodyWriter != null && monitor != null
+                    ? monitor.createSubTaskMonitor(0, false) : null;
             try {
                 url = new URL(new URL(getBaseUrl()), urlSuffix);
                 final HttpClient client = HttpClient.create(url, requestMethod)
@@ -785,10 +858,22 @@ public class OsmApi extends OsmConnection {
                     // Since Java will not generate a Content-length header unless
                     // we use the output stream, we create an output stream for PUT/POST
                     // even if there is no payload.
-                    client.setRequestBody((requestBody != null ? requestBody : "").getBytes(StandardCharsets.UTF_8));
+                    if (requestBodyWriter != null) {
+                        client.setRequestBody(requestBodyWriter);
+                        client.setHeader("Content-Encoding", contentEncoding);
+                    } else {
+                        client.setRequestBody((requestBody != null ? requestBody : "").getBytes(StandardCharsets.UTF_8));
+                    }
                 }
 
-                final HttpClient.Response response = client.connect();
+                final HttpClient.Response response;
+                if (uploadMonitor != null) {
+                    // report the bytes sent, the monitor is finished once the response has been read
+                    client.setFinishOnCloseOutput(false);
+                    response = client.connect(uploadMonitor);
+                } else {
+                    response = client.connect();
+                }
                 Logging.info(response.getResponseMessage());
                 int retCode = response.getResponseCode();
 
@@ -847,6 +932,10 @@ public class OsmApi extends OsmConnection {
                 throw new OsmTransferException(e);
             } catch (IOException e) {
                 throw new OsmTransferException(e);
+            } finally {
+                if (uploadMonitor != null) {
+                    uploadMonitor.finishTask();
+                }
             }
         }
     }
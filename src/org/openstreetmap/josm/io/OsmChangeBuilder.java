@@ -5,6 +5,7 @@ import static org.openstreetmap.josm.tools.I18n.tr;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.util.Collection;
 
 import org.openstreetmap.josm.data.osm.Changeset;
@@ -40,9 +41,21 @@ public class OsmChangeBuilder {
      * @param apiVersion OSM API version
      */
     public OsmChangeBuilder(Changeset changeset, String apiVersion) {
+        this(changeset, apiVersion, new StringWriter());
+    }
+
+    /**
+     * Constructs a new {@code OsmChangeBuilder} which writes the document to the given writer, e.g., directly into an HTTP request.
+     * The document is not kept in memory, so {@link #getDocument()} cannot be used.
+     * @param changeset changeset
+     * @param apiVersion OSM API version
+     * @param out the writer to write the document to. It is flushed by {@link #finish()}, but not closed.
+     * @since xxx
+     */
+    public OsmChangeBuilder(Changeset changeset, String apiVersion, Writer out) {
         this.apiVersion = apiVersion == null ? DEFAULT_API_VERSION : apiVersion;
-        swriter = new StringWriter();
-        writer = new PrintWriter(swriter);
+        swriter = out instanceof StringWriter ? (StringWriter) out : null;
+        writer = out instanceof PrintWriter ? (PrintWriter) out : new PrintWriter(out);
         osmwriter = OsmWriterFactory.createOsmWriter(writer, false, apiVersion);
         osmwriter.setChangeset(changeset);
         osmwriter.setIsOsmChange(true);
@@ -140,13 +153,26 @@ public class OsmChangeBuilder {
             writer.println(">");
         }
         writer.println("</osmChange>");
+        writer.flush();
+    }
+
+    /**
+     * Determines if an error occurred while writing the document to the underlying writer.
+     * @return {@code true} if writing failed, as {@link PrintWriter} does not throw any {@code IOException}
+     * @since xxx
+     */
+    public boolean checkError() {
+        return writer.checkError();
     }
 
     /**
      * Returns XML document.
      * @return XML document
+     * @throws IllegalStateException if the document has been written to another writer than a {@link StringWriter}
      */
     public String getDocument() {
+        if (swriter == null)
+            throw new IllegalStateException(tr("OsmChange document was not written to memory."));
         return swriter.toString();
     }
 }
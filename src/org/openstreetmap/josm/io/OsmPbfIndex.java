@@ -0,0 +1,349 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.openstreetmap.josm.data.osm.BBox;
+import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
+import org.openstreetmap.josm.data.preferences.BooleanProperty;
+import org.openstreetmap.josm.spi.preferences.Config;
+import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.Utils;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+/**
+ * An index of the file blocks of an OSM PBF file. For every data block, the index records the id range of each primitive type and the
+ * area covered by its nodes, so that bbox and id queries only have to decode the blocks they need.
+ * <p>
+ * Building the index requires decoding the whole file once. The index is then cached in the JOSM cache directory, keyed by the
+ * path of the PBF file, and is invalidated when the size or modification time of the PBF file changes.
+ * @since xxx
+ */
+public final class OsmPbfIndex {
+    /**
+     * Whether the index is cached in the JOSM cache directory
+     */
+    public static final BooleanProperty CACHE = new BooleanProperty("pbf.index.cache", true);
+
+    /** The directory of the cache files, in the JOSM cache directory */
+    static final String CACHE_DIRECTORY = "pbf-index";
+    private static final int MAGIC = 0x4a504249; // JPBI
+    private static final int VERSION = 2;
+    /** The primitive types stored in PBF data blocks */
+    private static final OsmPrimitiveType[] TYPES = {OsmPrimitiveType.NODE, OsmPrimitiveType.WAY, OsmPrimitiveType.RELATION};
+
+    private final List<Block> blocks;
+
+    OsmPbfIndex(List<Block> blocks) {
+        this.blocks = Collections.unmodifiableList(new ArrayList<>(blocks));
+    }
+
+    /**
+     * Load the index of a PBF file from the cache, or build (and cache) it if there is no valid cached index
+     *
+     * @param file The PBF file, must not be compressed
+     * @return The index
+     * @throws IOException          if the file could not be read
+     * @throws IllegalDataException if the file is not a valid PBF file
+     */
+    @Nonnull
+    public static OsmPbfIndex load(Path file) throws IOException, IllegalDataException {
+        try (MappedPbfFile mappedFile = new MappedPbfFile(file)) {
+            return load(file, mappedFile);
+        }
+    }
+
+    /**
+     * Load the index of a PBF file from the cache, or build (and cache) it if there is no valid cached index
+     *
+     * @param file       The PBF file
+     * @param mappedFile The mapped PBF file, used when the index has to be built
+     * @return The index
+     * @throws IOException          if the file could not be read
+     * @throws IllegalDataException if the file is not a valid PBF file
+     */
+    static OsmPbfIndex load(Path file, MappedPbfFile mappedFile) throws IOException, IllegalDataException {
+        final long fileSize = Files.size(file);
+        final long lastModified = Files.getLastModifiedTime(file).toMillis();
+        final String path = file.toAbsolutePath().normalize().toString();
+        final Path cacheFile = getCacheFile(file);
+        if (Boolean.TRUE.equals(CACHE.get())) {
+            final OsmPbfIndex cached = read(cacheFile, path, fileSize, lastModified);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        final OsmPbfIndex index = new OsmPbfIndex(OsmPbfReader.indexBlocks(mappedFile, OsmPbfReader.THREADS.get()));
+        if (Boolean.TRUE.equals(CACHE.get())) {
+            try {
+                index.write(cacheFile, path, fileSize, lastModified);
+            } catch (IOException e) {
+                Logging.warn("Could not write OSM PBF index to " + cacheFile + ": " + e.getMessage());
+                Logging.debug(e);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Get the file the index of a PBF file is cached in
+     *
+     * @param file The PBF file
+     * @return The cache file
+     */
+    @Nonnull
+    public static Path getCacheFile(Path file) {
+        final String path = file.toAbsolutePath().normalize().toString();
+        return new File(new File(Config.getDirs().getCacheDirectory(true), CACHE_DIRECTORY), Utils.md5Hex(path) + ".idx").toPath();
+    }
+
+    /**
+     * Get the blocks of the file, in file order
+     *
+     * @return The blocks (unmodifiable)
+     */
+    @Nonnull
+    public List<Block> getBlocks() {
+        return this.blocks;
+    }
+
+    @Nullable
+    private static OsmPbfIndex read(Path cacheFile, String path, long fileSize, long lastModified) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !path.equals(in.readUTF())
+                    || in.readLong() != fileSize || in.readLong() != lastModified) {
+                Logging.debug("Ignoring outdated OSM PBF index {0}", cacheFile);
+                return null;
+            }
+            final int count = in.readInt();
+            final List<Block> blocks = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                final long offset = in.readLong();
+                final int size = in.readInt();
+                final String type = Utils.intern(in.readUTF());
+                final long[] minIds = new long[TYPES.length];
+                final long[] maxIds = new long[TYPES.length];
+                for (int j = 0; j < TYPES.length; j++) {
+                    minIds[j] = in.readLong();
+                    maxIds[j] = in.readLong();
+                }
+                BBox bbox = null;
+                if (in.readBoolean()) {
+                    bbox = new BBox(in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble()).toImmutable();
+                }
+                blocks.add(new Block(offset, size, type, minIds, maxIds, bbox));
+            }
+            return new OsmPbfIndex(blocks);
+        } catch (NoSuchFileException e) {
+            Logging.trace(e);
+        } catch (IOException e) {
+            Logging.warn("Could not read OSM PBF index " + cacheFile + ": " + e.getMessage());
+            Logging.debug(e);
+        }
+        return null;
+    }
+
+    private void write(Path cacheFile, String path, long fileSize, long lastModified) throws IOException {
+        Files.createDirectories(cacheFile.getParent());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(cacheFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(path);
+            out.writeLong(fileSize);
+            out.writeLong(lastModified);
+            out.writeInt(this.blocks.size());
+            for (Block block : this.blocks) {
+                out.writeLong(block.offset);
+                out.writeInt(block.size);
+                out.writeUTF(block.type);
+                for (int j = 0; j < TYPES.length; j++) {
+                    out.writeLong(block.minIds[j]);
+                    out.writeLong(block.maxIds[j]);
+                }
+                out.writeBoolean(block.bbox != null);
+                if (block.bbox != null) {
+                    out.writeDouble(block.bbox.getMinLon());
+                    out.writeDouble(block.bbox.getMinLat());
+                    out.writeDouble(block.bbox.getMaxLon());
+                    out.writeDouble(block.bbox.getMaxLat());
+                }
+            }
+        }
+    }
+
+    /**
+     * A single file block of a PBF file
+     */
+    public static final class Block {
+        private final long offset;
+        private final int size;
+        private final String type;
+        private final long[] minIds;
+        private final long[] maxIds;
+        private final BBox bbox;
+
+        /**
+         * Create a new block
+         *
+         * @param offset The offset of the length prefix of the block in the file
+         * @param size   The size of the block, including the length prefix
+         * @param type   The BlobHeader type, e.g. {@code OSMHeader} or {@code OSMData}
+         * @param minIds The minimum id for each primitive type, {@link Long#MAX_VALUE} if the block does not contain the type
+         * @param maxIds The maximum id for each primitive type, {@link Long#MIN_VALUE} if the block does not contain the type
+         * @param bbox   The area covered by the nodes of the block, may be {@code null}
+         */
+        Block(long offset, int size, String type, long[] minIds, long[] maxIds, BBox bbox) {
+            this.offset = offset;
+            this.size = size;
+            this.type = type;
+            this.minIds = minIds;
+            this.maxIds = maxIds;
+            this.bbox = bbox;
+        }
+
+        /**
+         * Create an id statistics array for a block
+         * @param value The initial value of the entries
+         * @return A new array with one entry per primitive type
+         */
+        static long[] newIdRange(long value) {
+            final long[] ids = new long[TYPES.length];
+            Arrays.fill(ids, value);
+            return ids;
+        }
+
+        /**
+         * Get the offset of the block
+         * @return The offset of the length prefix of the block in the file
+         */
+        public long getOffset() {
+            return this.offset;
+        }
+
+        /**
+         * Get the size of the block
+         * @return The size of the block in bytes, including the length prefix
+         */
+        public int getSize() {
+            return this.size;
+        }
+
+        /**
+         * Get the type of the block
+         * @return The BlobHeader type, e.g. {@code OSMHeader} or {@code OSMData}
+         */
+        @Nonnull
+        public String getType() {
+            return this.type;
+        }
+
+        /**
+         * Check if this block contains primitives of a type
+         * @param primitiveType The primitive type
+         * @return {@code true} if the block has at least one primitive of the type
+         */
+        public boolean contains(OsmPrimitiveType primitiveType) {
+            final int index = typeIndex(primitiveType);
+            return index >= 0 && this.minIds[index] <= this.maxIds[index];
+        }
+
+        /**
+         * Get the lowest id of a type in this block
+         * @param primitiveType The primitive type
+         * @return The lowest id, or {@link Long#MAX_VALUE} if there is no primitive of the type in the block
+         */
+        public long getMinId(OsmPrimitiveType primitiveType) {
+            final int index = typeIndex(primitiveType);
+            return index >= 0 ? this.minIds[index] : Long.MAX_VALUE;
+        }
+
+        /**
+         * Get the highest id of a type in this block
+         * @param primitiveType The primitive type
+         * @return The highest id, or {@link Long#MIN_VALUE} if there is no primitive of the type in the block
+         */
+        public long getMaxId(OsmPrimitiveType primitiveType) {
+            final int index = typeIndex(primitiveType);
+            return index >= 0 ? this.maxIds[index] : Long.MIN_VALUE;
+        }
+
+        /**
+         * Check if the id range of a type in this block includes at least one of the given ids
+         * @param primitiveType The primitive type
+         * @param sortedIds     The ids, sorted in ascending order
+         * @return {@code true} if the block may contain one of the ids
+         */
+        public boolean mayContainAny(OsmPrimitiveType primitiveType, long[] sortedIds) {
+            if (!contains(primitiveType)) {
+                return false;
+            }
+            final int index = Arrays.binarySearch(sortedIds, getMinId(primitiveType));
+            if (index >= 0) {
+                return true;
+            }
+            final int insertion = -index - 1;
+            return insertion < sortedIds.length && sortedIds[insertion] <= getMaxId(primitiveType);
+        }
+
+        /**
+         * Get the area covered by the nodes of this block
+         * @return The area, or {@code null} if the block has no nodes
+         */
+        @Nullable
+        public BBox getBBox() {
+            return this.bbox;
+        }
+
+        /**
+         * Check if nodes of this block may be inside an area
+         * @param area The area to check
+         * @return {@code true} if the block has nodes, and they may be inside the area
+         */
+        public boolean mayIntersect(BBox area) {
+            return this.bbox != null && this.bbox.intersects(area);
+        }
+
+        private static int typeIndex(OsmPrimitiveType primitiveType) {
+            for (int i = 0; i < TYPES.length; i++) {
+                if (TYPES[i] == primitiveType) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Record a primitive in the statistics arrays of a block
+         * @param minIds        The minimum ids
+         * @param maxIds        The maximum ids
+         * @param primitiveType The type of the primitive
+         * @param id            The id of the primitive
+         */
+        static void addId(long[] minIds, long[] maxIds, OsmPrimitiveType primitiveType, long id) {
+            final int index = typeIndex(primitiveType);
+            if (index >= 0) {
+                minIds[index] = Math.min(minIds[index], id);
+                maxIds[index] = Math.max(maxIds[index], id);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Block [offset=" + this.offset + ", size=" + this.size + ", type=" + this.type + ']';
+        }
+    }
+}
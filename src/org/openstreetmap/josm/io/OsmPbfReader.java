@@ -2,18 +2,30 @@
 package org.openstreetmap.josm.io;
 
 import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import org.openstreetmap.josm.data.Bounds;
 import org.openstreetmap.josm.data.DataSource;
@@ -23,8 +35,10 @@ import org.openstreetmap.josm.data.osm.DataSet;
 import org.openstreetmap.josm.data.osm.NodeData;
 import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
 import org.openstreetmap.josm.data.osm.PrimitiveData;
+import org.openstreetmap.josm.data.osm.PrimitiveId;
 import org.openstreetmap.josm.data.osm.RelationData;
 import org.openstreetmap.josm.data.osm.RelationMemberData;
+import org.openstreetmap.josm.data.osm.TagPool;
 import org.openstreetmap.josm.data.osm.Tagged;
 import org.openstreetmap.josm.data.osm.UploadPolicy;
 import org.openstreetmap.josm.data.osm.User;
@@ -33,9 +47,8 @@ import org.openstreetmap.josm.data.osm.pbf.Blob;
 import org.openstreetmap.josm.data.osm.pbf.BlobHeader;
 import org.openstreetmap.josm.data.osm.pbf.HeaderBlock;
 import org.openstreetmap.josm.data.osm.pbf.Info;
-import org.openstreetmap.josm.data.protobuf.ProtobufPacked;
+import org.openstreetmap.josm.data.preferences.IntegerProperty;
 import org.openstreetmap.josm.data.protobuf.ProtobufParser;
-import org.openstreetmap.josm.data.protobuf.ProtobufRecord;
 import org.openstreetmap.josm.data.protobuf.WireType;
 import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
 import org.openstreetmap.josm.gui.progress.ProgressMonitor;
@@ -49,191 +62,567 @@ import jakarta.annotation.Nullable;
  * @since 18695
  */
 public final class OsmPbfReader extends AbstractReader {
+    private static final long[] EMPTY_LONG = new long[0];
     /**
-     * This could be replaced by {@link org.apache.commons.io.input.BoundedInputStream} from Apache Commons IO.
-     * However, Commons IO is not <i>currently</i> (2024-05-13) a required JOSM dependency, so we should avoid using it
-     * for now. Commons IO is a <i>transitive</i> dependency, currently pulled in by {@link org.apache.commons.compress}
-     * (see {@link org.apache.commons.compress.utils.BoundedInputStream}).
+     * Nano degrees
      */
-    private static final class BoundedInputStream extends InputStream {
-        private final InputStream source;
-        private long count;
-        private long mark;
+    private static final double NANO_DEGREES = 1e-9;
+    /**
+     * The maximum BlobHeader size. BlobHeaders should (but not must) be less than half this
+     */
+    static final int MAX_BLOBHEADER_SIZE = 64 * 1024;
+    /**
+     * The maximum Blob size. Blobs should (but not must) be less than half this
+     */
+    static final int MAX_BLOB_SIZE = 32 * 1024 * 1024;
 
-        BoundedInputStream(InputStream source) {
-            this.source = source;
-        }
+    /**
+     * The number of threads used to decode data blocks. {@code 1} disables the decoding pipeline.
+     * @since xxx
+     */
+    public static final IntegerProperty THREADS = new IntegerProperty("pbf.reader.threads", Runtime.getRuntime().availableProcessors());
 
-        @Override
-        public int read() throws IOException {
-            final int read = this.source.read();
-            if (read > 0) {
-                count++;
-            }
-            return read;
-        }
+    private final int threads;
 
-        @Override
-        public int read(@Nonnull byte[] b, int off, int len) throws IOException {
-            final int read = this.source.read(b, off, len);
-            if (read > 0) {
-                this.count += read;
-            }
-            return read;
-        }
+    private OsmPbfReader(int threads) {
+        this.threads = threads;
+    }
 
-        @Override
-        public long skip(long n) throws IOException {
-            long skipped = super.skip(n);
-            this.count += skipped;
-            return skipped;
-        }
+    /**
+     * Parse the given input source and return the dataset.
+     *
+     * @param source          the source input stream. Must not be null.
+     * @param progressMonitor the progress monitor. If null, {@link NullProgressMonitor#INSTANCE} is assumed
+     * @return the dataset with the parsed data
+     * @throws IllegalDataException     if an error was found while parsing the data from the source
+     * @throws IllegalArgumentException if source is null
+     */
+    public static DataSet parseDataSet(InputStream source, ProgressMonitor progressMonitor) throws IllegalDataException {
+        return parseDataSet(source, progressMonitor, THREADS.get());
+    }
 
-        @Override
-        public int available() throws IOException {
-            return this.source.available();
-        }
+    /**
+     * Parse the given input source and return the dataset.
+     * <p>
+     * With more than one thread, data blocks are inflated and decoded in parallel while the calling thread reads the file,
+     * and the decoded primitives are merged in file order.
+     *
+     * @param source          the source input stream. Must not be null.
+     * @param progressMonitor the progress monitor. If null, {@link NullProgressMonitor#INSTANCE} is assumed
+     * @param threads         the number of threads used to decode data blocks, {@code 1} decodes everything on the calling thread
+     * @return the dataset with the parsed data
+     * @throws IllegalDataException     if an error was found while parsing the data from the source
+     * @throws IllegalArgumentException if source is null
+     * @since xxx
+     */
+    public static DataSet parseDataSet(InputStream source, ProgressMonitor progressMonitor, int threads) throws IllegalDataException {
+        return new OsmPbfReader(threads).doParseDataSet(source, progressMonitor);
+    }
 
-        @Override
-        public void close() throws IOException {
-            this.source.close();
-        }
+    @Override
+    protected DataSet doParseDataSet(InputStream source, ProgressMonitor progressMonitor) throws IllegalDataException {
+        return doParseDataSet(source, progressMonitor, this::parse);
+    }
 
-        @Override
-        public synchronized void mark(int readlimit) {
-            this.source.mark(readlimit);
-            this.mark = this.count;
-        }
+    /**
+     * Read the primitives of an uncompressed PBF file that are needed for an area. Only the blocks that may contain these primitives are
+     * decoded, using the {@link OsmPbfIndex} of the file (which is built and cached when the file is read for the first time).
+     * <p>
+     * The returned dataset contains the nodes inside the area, the ways with at least one of these nodes (including all their nodes),
+     * and the relations with at least one of these nodes or ways as member.
+     *
+     * @param file            the PBF file. Must not be compressed.
+     * @param bounds          the area to read
+     * @param progressMonitor the progress monitor. If null, {@link NullProgressMonitor#INSTANCE} is assumed
+     * @return the dataset with the parsed data
+     * @throws IllegalDataException if an error was found while reading the file
+     * @since xxx
+     */
+    public static DataSet parseDataSet(Path file, Bounds bounds, ProgressMonitor progressMonitor) throws IllegalDataException {
+        final OsmPbfReader reader = new OsmPbfReader(THREADS.get());
+        return reader.doParseDataSet(InputStream.nullInputStream(), progressMonitor,
+                (BinaryParserWorker) ignored -> reader.parseArea(file, bounds));
+    }
+
+    /**
+     * Read primitives from an uncompressed PBF file by id. Only the blocks whose id range includes one of the ids are decoded, using
+     * the {@link OsmPbfIndex} of the file (which is built and cached when the file is read for the first time).
+     * <p>
+     * The nodes of the requested ways are read as well. Relation members that were not requested are incomplete.
+     *
+     * @param file            the PBF file. Must not be compressed.
+     * @param ids             the primitives to read. Ids that are not in the file are ignored.
+     * @param progressMonitor the progress monitor. If null, {@link NullProgressMonitor#INSTANCE} is assumed
+     * @return the dataset with the parsed data
+     * @throws IllegalDataException if an error was found while reading the file
+     * @since xxx
+     */
+    public static DataSet parseDataSet(Path file, Collection<? extends PrimitiveId> ids, ProgressMonitor progressMonitor)
+            throws IllegalDataException {
+        final OsmPbfReader reader = new OsmPbfReader(THREADS.get());
+        return reader.doParseDataSet(InputStream.nullInputStream(), progressMonitor,
+                (BinaryParserWorker) ignored -> reader.parsePrimitives(file, ids));
+    }
+
+    private void parseArea(Path file, Bounds bounds) throws IOException, IllegalDataException {
+        try (MappedPbfFile mappedFile = new MappedPbfFile(file)) {
+            final OsmPbfIndex index = OsmPbfIndex.load(file, mappedFile);
+            final HeaderBlock headerBlock = parseHeaderBlock(mappedFile, index);
+            final BBox area = bounds.toBBox();
+            final Set<Long> nodeIds = new HashSet<>();
+            final Set<Long> wayIds = new HashSet<>();
+            final List<PrimitiveBatch> batches = new ArrayList<>();
+
+            // Nodes inside the area
+            batches.addAll(decodeBlocks(mappedFile, headerBlock,
+                    selectBlocks(index, block -> block.contains(OsmPrimitiveType.NODE) && block.mayIntersect(area)),
+                    (primitive, batch) -> primitive instanceof NodeData && bounds.contains((NodeData) primitive)));
+            collectIds(batches, nodeIds);
+
+            // Ways with at least one node inside the area. Way blocks have no coordinates, so all of them have to be decoded.
+            final List<PrimitiveBatch> wayBatches = decodeBlocks(mappedFile, headerBlock,
+                    selectBlocks(index, block -> block.contains(OsmPrimitiveType.WAY)),
+                    (primitive, batch) -> primitive instanceof WayData
+                            && batch.ways.get(primitive.getUniqueId()).stream().anyMatch(nodeIds::contains));
+            collectIds(wayBatches, wayIds);
+            batches.addAll(wayBatches);
 
-        @Override
-        public synchronized void reset() throws IOException {
-            this.source.reset();
-            this.count = this.mark;
+            // The nodes of these ways outside the area
+            final Set<Long> missingNodeIds = new HashSet<>();
+            for (PrimitiveBatch batch : wayBatches) {
+                for (Collection<Long> wayNodes : batch.ways.values()) {
+                    for (Long nodeId : wayNodes) {
+                        if (!nodeIds.contains(nodeId)) {
+                            missingNodeIds.add(nodeId);
+                        }
+                    }
+                }
+            }
+            final long[] sortedMissingNodeIds = toSortedArray(missingNodeIds);
+            batches.addAll(decodeBlocks(mappedFile, headerBlock,
+                    selectBlocks(index, block -> block.mayContainAny(OsmPrimitiveType.NODE, sortedMissingNodeIds)),
+                    (primitive, batch) -> primitive instanceof NodeData && missingNodeIds.contains(primitive.getUniqueId())));
+            nodeIds.addAll(missingNodeIds);
+
+            // Relations with at least one of these nodes or ways as member
+            batches.addAll(decodeBlocks(mappedFile, headerBlock,
+                    selectBlocks(index, block -> block.contains(OsmPrimitiveType.RELATION)),
+                    (primitive, batch) -> primitive instanceof RelationData
+                            && batch.relations.get(primitive.getUniqueId()).stream().anyMatch(member ->
+                            (member.isNode() && nodeIds.contains(member.getMemberId()))
+                                    || (member.isWay() && wayIds.contains(member.getMemberId())))));
+
+            for (PrimitiveBatch batch : batches) {
+                mergeBatch(batch);
+            }
+            getDataSet().addDataSource(new DataSource(bounds,
+                    headerBlock.source() != null ? headerBlock.source() : file.getFileName().toString()));
         }
+    }
 
-        @Override
-        public boolean markSupported() {
-            return this.source.markSupported();
+    private void parsePrimitives(Path file, Collection<? extends PrimitiveId> ids) throws IOException, IllegalDataException {
+        final Set<Long> nodeIds = new HashSet<>();
+        final Set<Long> wayIds = new HashSet<>();
+        final Set<Long> relationIds = new HashSet<>();
+        for (PrimitiveId id : ids) {
+            if (id.getType() == OsmPrimitiveType.NODE) {
+                nodeIds.add(id.getUniqueId());
+            } else if (id.getType() == OsmPrimitiveType.WAY) {
+                wayIds.add(id.getUniqueId());
+            } else if (id.getType() == OsmPrimitiveType.RELATION) {
+                relationIds.add(id.getUniqueId());
+            }
         }
+        try (MappedPbfFile mappedFile = new MappedPbfFile(file)) {
+            final OsmPbfIndex index = OsmPbfIndex.load(file, mappedFile);
+            final HeaderBlock headerBlock = parseHeaderBlock(mappedFile, index);
+            final long[] sortedWayIds = toSortedArray(wayIds);
+            final long[] sortedRelationIds = toSortedArray(relationIds);
+            final List<PrimitiveBatch> batches = new ArrayList<>(decodeBlocks(mappedFile, headerBlock,
+                    selectBlocks(index, block -> block.mayContainAny(OsmPrimitiveType.WAY, sortedWayIds)
+                            || block.mayContainAny(OsmPrimitiveType.RELATION, sortedRelationIds)),
+                    (primitive, batch) -> (primitive instanceof WayData && wayIds.contains(primitive.getUniqueId()))
+                            || (primitive instanceof RelationData && relationIds.contains(primitive.getUniqueId()))));
 
-        long getCount() {
-            return this.count;
+            // The requested nodes, and the nodes of the requested ways
+            for (PrimitiveBatch batch : batches) {
+                batch.ways.values().forEach(nodeIds::addAll);
+            }
+            final long[] sortedNodeIds = toSortedArray(nodeIds);
+            batches.addAll(decodeBlocks(mappedFile, headerBlock,
+                    selectBlocks(index, block -> block.mayContainAny(OsmPrimitiveType.NODE, sortedNodeIds)),
+                    (primitive, batch) -> primitive instanceof NodeData && nodeIds.contains(primitive.getUniqueId())));
+
+            for (PrimitiveBatch batch : batches) {
+                mergeBatch(batch);
+            }
         }
     }
 
-    private static final long[] EMPTY_LONG = new long[0];
     /**
-     * Nano degrees
+     * Find and parse the header block of an indexed file
+     *
+     * @param file  The mapped file
+     * @param index The index of the file
+     * @return The header block
+     * @throws IOException          if the file could not be read
+     * @throws IllegalDataException if the file has no header block, or requires unsupported features
      */
-    private static final double NANO_DEGREES = 1e-9;
+    private static HeaderBlock parseHeaderBlock(MappedPbfFile file, OsmPbfIndex index) throws IOException, IllegalDataException {
+        for (OsmPbfIndex.Block block : index.getBlocks()) {
+            if ("OSMHeader".equals(block.getType())) {
+                final HeaderBlock headerBlock = parseHeaderBlock(readBlock(file, block));
+                checkRequiredFeatures(headerBlock);
+                return headerBlock;
+            }
+        }
+        throw new IllegalDataException("OSM PBF has no header block");
+    }
+
+    private static List<OsmPbfIndex.Block> selectBlocks(OsmPbfIndex index, Predicate<OsmPbfIndex.Block> predicate) {
+        return index.getBlocks().stream()
+                .filter(block -> "OSMData".equals(block.getType()) && predicate.test(block))
+                .collect(Collectors.toList());
+    }
+
     /**
-     * The maximum BlobHeader size. BlobHeaders should (but not must) be less than half this
+     * Decode some data blocks of a mapped file, in parallel. Only the primitives accepted by the filter are kept.
+     *
+     * @param file        The mapped file
+     * @param headerBlock The header block of the file
+     * @param blocks      The blocks to decode
+     * @param filter      The filter for the decoded primitives. This is called from several threads.
+     * @return The filtered primitives of each block, in the order of the blocks
+     * @throws IOException          if a block could not be read
+     * @throws IllegalDataException if a block contained invalid data
      */
-    private static final int MAX_BLOBHEADER_SIZE = 64 * 1024;
+    private List<PrimitiveBatch> decodeBlocks(MappedPbfFile file, HeaderBlock headerBlock, List<OsmPbfIndex.Block> blocks,
+                                              PrimitiveFilter filter) throws IOException, IllegalDataException {
+        final ExecutorService executor = newExecutor(Math.min(this.threads, blocks.size()));
+        try {
+            final List<Future<PrimitiveBatch>> futures = new ArrayList<>(blocks.size());
+            for (OsmPbfIndex.Block block : blocks) {
+                if (this.cancel) {
+                    break;
+                } else if (executor == null) {
+                    futures.add(CompletableFuture.completedFuture(parseDataBlock(headerBlock, readBlock(file, block)).filter(filter)));
+                } else {
+                    futures.add(executor.submit(() -> parseDataBlock(headerBlock, readBlock(file, block)).filter(filter)));
+                }
+            }
+            final List<PrimitiveBatch> batches = new ArrayList<>(futures.size());
+            for (Future<PrimitiveBatch> future : futures) {
+                if (this.cancel) {
+                    break;
+                }
+                batches.add(getResult(future));
+            }
+            return batches;
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
     /**
-     * The maximum Blob size. Blobs should (but not must) be less than half this
+     * Build the index entries for the blocks of a file. This decodes every data block of the file.
+     *
+     * @param file    The mapped file
+     * @param threads The number of threads used to decode data blocks
+     * @return The index entries, in file order
+     * @throws IOException          if the file could not be read
+     * @throws IllegalDataException if the file contained invalid data
      */
-    private static final int MAX_BLOB_SIZE = 32 * 1024 * 1024;
+    static List<OsmPbfIndex.Block> indexBlocks(MappedPbfFile file, int threads) throws IOException, IllegalDataException {
+        final ExecutorService executor = newExecutor(threads);
+        try {
+            final List<Future<OsmPbfIndex.Block>> futures = new ArrayList<>();
+            HeaderBlock headerBlock = null;
+            long offset = 0;
+            while (offset < file.size()) {
+                final int headerLength = file.readInt(offset);
+                checkBlobHeaderSize(headerLength);
+                final BlobHeader blobHeader = parseBlobHeader(file.read(offset + 4, headerLength));
+                final long blockOffset = offset;
+                final int blockSize = 4 + headerLength + blobHeader.dataSize();
+                final long[] minIds = OsmPbfIndex.Block.newIdRange(Long.MAX_VALUE);
+                final long[] maxIds = OsmPbfIndex.Block.newIdRange(Long.MIN_VALUE);
+                if ("OSMData".equals(blobHeader.type())) {
+                    if (headerBlock == null) {
+                        throw new IllegalStateException("A header block must occur before the first data block");
+                    }
+                    final HeaderBlock currentHeaderBlock = headerBlock;
+                    final Callable<OsmPbfIndex.Block> task = () -> {
+                        final Blob blob = parseBlob(file.read(blockOffset + 4 + headerLength, blobHeader.dataSize()));
+                        BBox bbox = null;
+                        for (PrimitiveData primitive : parseDataBlock(currentHeaderBlock, blob).primitives) {
+                            OsmPrimitiveType type = primitive.getType();
+                            OsmPbfIndex.Block.addId(minIds, maxIds, type, primitive.getUniqueId());
+                            if (primitive instanceof NodeData) {
+                                if (bbox == null) {
+                                    bbox = new BBox((NodeData) primitive);
+                                } else {
+                                    bbox.add((NodeData) primitive);
+                                }
+                            }
+                        }
+                        return new OsmPbfIndex.Block(blockOffset, blockSize, blobHeader.type(), minIds, maxIds,
+                                bbox != null ? bbox.toImmutable() : null);
+                    };
+                    futures.add(executor != null ? executor.submit(task) : CompletableFuture.completedFuture(callIndexTask(task)));
+                } else {
+                    if ("OSMHeader".equals(blobHeader.type())) {
+                        if (headerBlock != null) {
+                            throw new IllegalDataException("Too many header blocks in protobuf");
+                        }
+                        headerBlock = parseHeaderBlock(parseBlob(file.read(offset + 4 + headerLength, blobHeader.dataSize())));
+                        checkRequiredFeatures(headerBlock);
+                    }
+                    futures.add(CompletableFuture.completedFuture(
+                            new OsmPbfIndex.Block(blockOffset, blockSize, blobHeader.type(), minIds, maxIds, null)));
+                }
+                offset += blockSize;
+            }
+            final List<OsmPbfIndex.Block> blocks = new ArrayList<>(futures.size());
+            for (Future<OsmPbfIndex.Block> future : futures) {
+                blocks.add(getResult(future));
+            }
+            return blocks;
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
 
-    private OsmPbfReader() {
-        // Hide constructor
+    private static OsmPbfIndex.Block callIndexTask(Callable<OsmPbfIndex.Block> task) throws IOException, IllegalDataException {
+        try {
+            return task.call();
+        } catch (IOException | IllegalDataException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
     }
 
     /**
-     * Parse the given input source and return the dataset.
+     * Read and parse the blob of an indexed block
      *
-     * @param source          the source input stream. Must not be null.
-     * @param progressMonitor the progress monitor. If null, {@link NullProgressMonitor#INSTANCE} is assumed
-     * @return the dataset with the parsed data
-     * @throws IllegalDataException     if an error was found while parsing the data from the source
-     * @throws IllegalArgumentException if source is null
+     * @param file  The mapped file
+     * @param block The block to read
+     * @return The blob of the block
+     * @throws IOException if the block could not be read
      */
-    public static DataSet parseDataSet(InputStream source, ProgressMonitor progressMonitor) throws IllegalDataException {
-        return new OsmPbfReader().doParseDataSet(source, progressMonitor);
+    private static Blob readBlock(MappedPbfFile file, OsmPbfIndex.Block block) throws IOException {
+        final int headerLength = file.readInt(block.getOffset());
+        return parseBlob(file.read(block.getOffset() + 4 + headerLength, block.getSize() - 4 - headerLength));
     }
 
-    @Override
-    protected DataSet doParseDataSet(InputStream source, ProgressMonitor progressMonitor) throws IllegalDataException {
-        return doParseDataSet(source, progressMonitor, this::parse);
+    private static void collectIds(Collection<PrimitiveBatch> batches, Set<Long> ids) {
+        for (PrimitiveBatch batch : batches) {
+            for (PrimitiveData primitive : batch.primitives) {
+                ids.add(primitive.getUniqueId());
+            }
+        }
+    }
+
+    private static long[] toSortedArray(Collection<Long> ids) {
+        final long[] array = ids.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(array);
+        return array;
+    }
+
+    @Nullable
+    private static ExecutorService newExecutor(int threads) {
+        return threads > 1
+                ? Executors.newFixedThreadPool(threads, Utils.newThreadFactory("pbf-reader-%d", Thread.NORM_PRIORITY))
+                : null;
     }
 
     private void parse(InputStream source) throws IllegalDataException, IOException {
-        final BoundedInputStream inputStream;
-        if (source.markSupported()) {
-            inputStream = new BoundedInputStream(source);
-        } else {
-            inputStream = new BoundedInputStream(new BufferedInputStream(source));
-        }
-        try (ProtobufParser parser = new ProtobufParser(inputStream)) {
-            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final DataInputStream inputStream = new DataInputStream(source.markSupported() ? source : new BufferedInputStream(source));
+        final int threads = Math.max(1, this.threads);
+        final ExecutorService executor = newExecutor(threads);
+        // Decoded blocks are merged in file order; this bounds the number of blocks held in memory at the same time
+        final Deque<Future<PrimitiveBatch>> pending = new ArrayDeque<>();
+        try {
             HeaderBlock headerBlock = null;
-            BlobHeader blobHeader = null;
-            while (parser.hasNext() && !this.cancel) {
-                if (blobHeader == null) {
-                    blobHeader = parseBlobHeader(inputStream, baos, parser);
-                } else if ("OSMHeader".equals(blobHeader.type())) {
+            BlobHeader blobHeader;
+            while (!this.cancel && (blobHeader = readBlobHeader(inputStream)) != null) {
+                final byte[] blobBytes = new byte[blobHeader.dataSize()];
+                inputStream.readFully(blobBytes);
+                if ("OSMHeader".equals(blobHeader.type())) {
                     if (headerBlock != null) {
                         throw new IllegalDataException("Too many header blocks in protobuf");
                     }
                     // OSM PBF is fun -- it has *nested* pbf data
-                    final Blob blob = parseBlob(blobHeader, inputStream, parser, baos);
-                    headerBlock = parseHeaderBlock(blob, baos);
+                    headerBlock = parseHeaderBlock(parseBlob(blobBytes));
                     checkRequiredFeatures(headerBlock);
-                    blobHeader = null;
                 } else if ("OSMData".equals(blobHeader.type())) {
                     if (headerBlock == null) {
                         throw new IllegalStateException("A header block must occur before the first data block");
                     }
-                    final Blob blob = parseBlob(blobHeader, inputStream, parser, baos);
-                    parseDataBlock(baos, headerBlock, blob);
-                    blobHeader = null;
+                    final Blob blob = parseBlob(blobBytes);
+                    if (executor == null) {
+                        mergeBatch(parseDataBlock(headerBlock, blob));
+                    } else {
+                        final HeaderBlock currentHeaderBlock = headerBlock;
+                        pending.add(executor.submit(() -> parseDataBlock(currentHeaderBlock, blob)));
+                        mergeFinishedBatches(pending, 2 * threads);
+                    }
                 } // Other software *may* extend the FileBlocks (from just "OSMHeader" and "OSMData"), so don't throw an error.
             }
+            mergeFinishedBatches(pending, 0);
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Merge decoded blocks into the reader state, in file order.
+     *
+     * @param pending    The blocks that are currently being decoded, in file order
+     * @param maxPending The maximum number of blocks that may still be pending when this method returns
+     * @throws IOException          if a block could not be read
+     * @throws IllegalDataException if a block contained invalid data
+     */
+    private void mergeFinishedBatches(Deque<Future<PrimitiveBatch>> pending, int maxPending) throws IOException, IllegalDataException {
+        while (!pending.isEmpty() && (pending.size() > maxPending || pending.peekFirst().isDone())) {
+            final Future<PrimitiveBatch> future = pending.pollFirst();
+            if (this.cancel) {
+                future.cancel(true);
+                continue;
+            }
+            mergeBatch(getResult(future));
+        }
+    }
+
+    /**
+     * Wait for a decoding task, and rethrow its exception if it failed
+     *
+     * @param future The decoding task
+     * @param <T>    The result type
+     * @return The result of the task
+     * @throws IOException          if a block could not be read
+     * @throws IllegalDataException if a block contained invalid data
+     */
+    private static <T> T getResult(Future<T> future) throws IOException, IllegalDataException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IllegalDataException) {
+                throw (IllegalDataException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Hand the primitives of a decoded block over to the {@link AbstractReader}. This must be called in file order.
+     *
+     * @param batch The decoded block
+     */
+    private void mergeBatch(PrimitiveBatch batch) {
+        final DataSet dataSet = getDataSet();
+        try {
+            dataSet.beginUpdate();
+            if (batch.dataSource != null) {
+                dataSet.addDataSource(batch.dataSource);
+            }
+            if (batch.uploadDiscouraged) {
+                dataSet.setUploadPolicy(UploadPolicy.DISCOURAGED);
+            }
+            for (PrimitiveData primitiveData : batch.primitives) {
+                buildPrimitive(primitiveData);
+            }
+        } finally {
+            dataSet.endUpdate();
+        }
+        this.ways.putAll(batch.ways);
+        this.relations.putAll(batch.relations);
+    }
+
+    /**
+     * Read the next BlobHeader, including its length prefix
+     *
+     * @param inputStream The stream to read from
+     * @return The BlobHeader message, or {@code null} if the end of the stream was reached
+     * @throws IOException          if the stream has an issue
+     * @throws IllegalDataException If the OSM PBF is (probably) corrupted
+     */
+    @Nullable
+    private static BlobHeader readBlobHeader(DataInputStream inputStream) throws IOException, IllegalDataException {
+        final int first = inputStream.read();
+        if (first < 0) {
+            return null;
+        }
+        final int length = first << 24 | inputStream.readUnsignedByte() << 16 | inputStream.readUnsignedByte() << 8
+                | inputStream.readUnsignedByte();
+        checkBlobHeaderSize(length);
+        final byte[] bytes = new byte[length];
+        inputStream.readFully(bytes);
+        return parseBlobHeader(bytes);
+    }
+
+    /**
+     * Check the size of a BlobHeader
+     *
+     * @param length The size from the length prefix of the BlobHeader
+     * @throws IllegalDataException If the OSM PBF is (probably) corrupted
+     */
+    static void checkBlobHeaderSize(int length) throws IllegalDataException {
+        if (length < 0 || length > MAX_BLOBHEADER_SIZE) { // There is a hard limit of 64 KiB for the BlobHeader. It *should* be less than 32 KiB.
+            throw new IllegalDataException("OSM PBF BlobHeader is too large. PBF is probably corrupted. (" +
+                    Utils.getSizeString(MAX_BLOBHEADER_SIZE, Locale.ENGLISH) + " < " + Utils.getSizeString(length, Locale.ENGLISH));
         }
     }
 
     /**
      * Parse a blob header
      *
-     * @param cis    A counting stream to ensure we don't read too much data
-     * @param baos   A reusable stream
-     * @param parser The parser to read from
+     * @param bytes The BlobHeader message
      * @return The BlobHeader message
-     * @throws IOException          if one of the streams has an issue
+     * @throws IOException          if the message is truncated
      * @throws IllegalDataException If the OSM PBF is (probably) corrupted
      */
     @Nonnull
-    private static BlobHeader parseBlobHeader(BoundedInputStream cis, ByteArrayOutputStream baos, ProtobufParser parser)
-            throws IOException, IllegalDataException {
+    static BlobHeader parseBlobHeader(byte[] bytes) throws IOException, IllegalDataException {
         String type = null;
         byte[] indexData = null;
         int datasize = Integer.MIN_VALUE;
-        int length = 0;
-        long start = cis.getCount();
-        while (parser.hasNext() && (length == 0 || cis.getCount() - start < length)) {
-            final ProtobufRecord current = new ProtobufRecord(baos, parser);
-            switch (current.getField()) {
-                case 1:
-                    type = current.asString();
-                    break;
-                case 2:
-                    indexData = current.getBytes();
-                    break;
-                case 3:
-                    datasize = current.asUnsignedVarInt().intValue();
-                    break;
-                default:
-                    start = cis.getCount();
-                    length += current.asUnsignedVarInt().intValue();
-                    if (length > MAX_BLOBHEADER_SIZE) { // There is a hard limit of 64 KiB for the BlobHeader. It *should* be less than 32 KiB.
-                        throw new IllegalDataException("OSM PBF BlobHeader is too large. PBF is probably corrupted. (" +
-                                Utils.getSizeString(MAX_BLOBHEADER_SIZE, Locale.ENGLISH) + " < " + Utils.getSizeString(length, Locale.ENGLISH));
-                    }
+        try (ProtobufParser parser = new ProtobufParser(bytes)) {
+            while (parser.hasNext()) {
+                final int key = parser.nextKey();
+                switch (ProtobufParser.getField(key)) {
+                    case 1:
+                        type = Utils.intern(parser.nextString());
+                        break;
+                    case 2:
+                        indexData = parser.nextBytes();
+                        break;
+                    case 3:
+                        datasize = (int) parser.nextVarLong();
+                        break;
+                    default:
+                        parser.skipField(key);
+                }
             }
         }
         if (type == null || Integer.MIN_VALUE == datasize) {
             throw new IllegalDataException("OSM PBF BlobHeader could not be read. PBF is probably corrupted.");
-        } else if (datasize > MAX_BLOB_SIZE) { // There is a hard limit of 32 MiB for the blob size. It *should* be less than 16 MiB.
+        } else if (datasize < 0 || datasize > MAX_BLOB_SIZE) {
+            // There is a hard limit of 32 MiB for the blob size. It *should* be less than 16 MiB.
             throw new IllegalDataException("OSM PBF Blob size is too large. PBF is probably corrupted. ("
                     + Utils.getSizeString(MAX_BLOB_SIZE, Locale.ENGLISH) + " < " + Utils.getSizeString(datasize, Locale.ENGLISH));
         }
@@ -243,74 +632,69 @@ public final class OsmPbfReader extends AbstractReader {
     /**
      * Parse a blob from the PBF file
      *
-     * @param header The header with the blob information (most critically, the length of the blob)
-     * @param cis    Used to ensure we don't read too much data
-     * @param parser The parser to read records from
-     * @param baos   The reusable output stream
+     * @param bytes The Blob message
      * @return The blob to use elsewhere
-     * @throws IOException If one of the streams has an issue
+     * @throws IOException If the message is truncated
      */
     @Nonnull
-    private static Blob parseBlob(BlobHeader header, BoundedInputStream cis, ProtobufParser parser, ByteArrayOutputStream baos)
-            throws IOException {
-        long start = cis.getCount();
+    static Blob parseBlob(byte[] bytes) throws IOException {
         int size = Integer.MIN_VALUE;
         Blob.CompressionType type = null;
         // Needed since size and compression type + compression data may be in a different order
-        byte[] bytes = null;
-        while (parser.hasNext() && cis.getCount() - start < header.dataSize()) {
-            try (ProtobufRecord current = new ProtobufRecord(baos, parser)) {
-                switch (current.getField()) {
+        byte[] data = null;
+        try (ProtobufParser parser = new ProtobufParser(bytes)) {
+            while (parser.hasNext()) {
+                final int key = parser.nextKey();
+                final int field = ProtobufParser.getField(key);
+                switch (field) {
                     case 1:
                         type = Blob.CompressionType.raw;
-                        bytes = current.getBytes();
+                        data = parser.nextBytes();
                         break;
                     case 2:
-                        size = current.asUnsignedVarInt().intValue();
+                        size = (int) parser.nextVarLong();
                         break;
                     case 3:
                         type = Blob.CompressionType.zlib;
-                        bytes = current.getBytes();
+                        data = parser.nextBytes();
                         break;
                     case 4:
                         type = Blob.CompressionType.lzma;
-                        bytes = current.getBytes();
+                        data = parser.nextBytes();
                         break;
                     case 5:
                         type = Blob.CompressionType.bzip2;
-                        bytes = current.getBytes();
+                        data = parser.nextBytes();
                         break;
                     case 6:
                         type = Blob.CompressionType.lz4;
-                        bytes = current.getBytes();
+                        data = parser.nextBytes();
                         break;
                     case 7:
                         type = Blob.CompressionType.zstd;
-                        bytes = current.getBytes();
+                        data = parser.nextBytes();
                         break;
                     default:
-                        throw new IllegalStateException("Unknown compression type: " + current.getField());
+                        throw new IllegalStateException("Unknown compression type: " + field);
                 }
             }
         }
         if (type == null) {
             throw new IllegalStateException("Compression type not found, pbf may be malformed");
         }
-        return new Blob(size, type, bytes);
+        return new Blob(size, type, data);
     }
 
     /**
      * Parse a header block. This assumes that the parser has hit a string with the text "OSMHeader".
      *
      * @param blob The blob with the header block data
-     * @param baos The reusable output stream to use
      * @return The parsed HeaderBlock
      * @throws IOException if one of the {@link InputStream}s has a problem
      */
     @Nonnull
-    private static HeaderBlock parseHeaderBlock(Blob blob, ByteArrayOutputStream baos) throws IOException {
-        try (InputStream blobInput = blob.inputStream();
-             ProtobufParser parser = new ProtobufParser(blobInput)) {
+    private static HeaderBlock parseHeaderBlock(Blob blob) throws IOException {
+        try (ProtobufParser parser = new ProtobufParser(readBlob(blob))) {
             BBox bbox = null;
             List<String> required = new ArrayList<>();
             List<String> optional = new ArrayList<>();
@@ -320,33 +704,34 @@ public final class OsmPbfReader extends AbstractReader {
             Long osmosisReplicationSequenceNumber = null;
             String osmosisReplicationBaseUrl = null;
             while (parser.hasNext()) {
-                final ProtobufRecord current = new ProtobufRecord(baos, parser);
-                switch (current.getField()) {
+                final int key = parser.nextKey();
+                switch (ProtobufParser.getField(key)) {
                     case 1: // bbox
-                        bbox = parseBBox(baos, current);
+                        bbox = parseBBox(parser.nextLengthDelimitedParser());
                         break;
                     case 4: // repeated required features
-                        required.add(current.asString());
+                        required.add(Utils.intern(parser.nextString()));
                         break;
                     case 5: // repeated optional features
-                        optional.add(current.asString());
+                        optional.add(Utils.intern(parser.nextString()));
                         break;
                     case 16: // writing program
-                        program = current.asString();
+                        program = Utils.intern(parser.nextString());
                         break;
                     case 17: // source
-                        source = current.asString();
+                        source = Utils.intern(parser.nextString());
                         break;
                     case 32: // osmosis replication timestamp
-                        osmosisReplicationTimestamp = current.asSignedVarInt().longValue();
+                        osmosisReplicationTimestamp = parser.nextSignedVarLong();
                         break;
                     case 33: // osmosis replication sequence number
-                        osmosisReplicationSequenceNumber = current.asSignedVarInt().longValue();
+                        osmosisReplicationSequenceNumber = parser.nextSignedVarLong();
                         break;
                     case 34: // osmosis replication base url
-                        osmosisReplicationBaseUrl = current.asString();
+                        osmosisReplicationBaseUrl = Utils.intern(parser.nextString());
                         break;
-                    default: // fall through -- unknown header block field
+                    default: // unknown header block field
+                        parser.skipField(key);
                 }
             }
             return new HeaderBlock(bbox, required.toArray(new String[0]), optional.toArray(new String[0]), program,
@@ -354,6 +739,23 @@ public final class OsmPbfReader extends AbstractReader {
         }
     }
 
+    /**
+     * Read the decompressed contents of a blob. The nested messages are decoded from this array without further copies.
+     *
+     * @param blob The blob to read
+     * @return The decompressed bytes
+     * @throws IOException if we don't support the compression type, or the blob could not be decompressed
+     */
+    @Nonnull
+    private static byte[] readBlob(Blob blob) throws IOException {
+        if (blob.compressionType() == Blob.CompressionType.raw) {
+            return blob.bytes();
+        }
+        try (InputStream inputStream = blob.inputStream()) {
+            return inputStream.readAllBytes();
+        }
+    }
+
     /**
      * Ensure that we support all the required features in the PBF
      *
@@ -372,109 +774,98 @@ public final class OsmPbfReader extends AbstractReader {
     /**
      * Parse a data blob (should be "OSMData")
      *
-     * @param baos        The reusable stream
      * @param headerBlock The header block with data source information
      * @param blob        The blob to read OSM data from
+     * @return The decoded primitives. This method does not modify the reader state, so it may be called from any thread.
      * @throws IOException          if we don't support the compression type
      * @throws IllegalDataException If an invalid OSM primitive was read
      */
-    private void parseDataBlock(ByteArrayOutputStream baos, HeaderBlock headerBlock, Blob blob) throws IOException, IllegalDataException {
+    private static PrimitiveBatch parseDataBlock(HeaderBlock headerBlock, Blob blob) throws IOException, IllegalDataException {
         String[] stringTable = null; // field 1, note that stringTable[0] is a delimiter, so it is always blank and unused
         // field 2 -- we cannot parse these live just in case the following fields come later
-        final List<ProtobufRecord> primitiveGroups = new ArrayList<>();
+        final List<ProtobufParser> primitiveGroups = new ArrayList<>();
         int granularity = 100; // field 17
         long latOffset = 0; // field 19
         long lonOffset = 0; // field 20
         int dateGranularity = 1000; // field 18, default is milliseconds since the 1970 epoch
-        try (InputStream inputStream = blob.inputStream();
-             ProtobufParser parser = new ProtobufParser(inputStream)) {
+        try (ProtobufParser parser = new ProtobufParser(readBlob(blob))) {
             while (parser.hasNext()) {
-                final ProtobufRecord protobufRecord = new ProtobufRecord(baos, parser);
-                switch (protobufRecord.getField()) {
+                final int key = parser.nextKey();
+                switch (ProtobufParser.getField(key)) {
                     case 1:
-                        stringTable = parseStringTable(baos, protobufRecord.getBytes());
+                        stringTable = parseStringTable(parser.nextLengthDelimitedParser());
                         break;
                     case 2:
-                        primitiveGroups.add(protobufRecord);
+                        primitiveGroups.add(parser.nextLengthDelimitedParser());
                         break;
                     case 17:
-                        granularity = protobufRecord.asUnsignedVarInt().intValue();
+                        granularity = (int) parser.nextVarLong();
                         break;
                     case 18:
-                        dateGranularity = protobufRecord.asUnsignedVarInt().intValue();
+                        dateGranularity = (int) parser.nextVarLong();
                         break;
                     case 19:
-                        latOffset = protobufRecord.asUnsignedVarInt().longValue();
+                        latOffset = parser.nextVarLong();
                         break;
                     case 20:
-                        lonOffset = protobufRecord.asUnsignedVarInt().longValue();
+                        lonOffset = parser.nextVarLong();
                         break;
                     default: // Pass, since someone might have extended the format
+                        parser.skipField(key);
                 }
             }
         }
         final PrimitiveBlockRecord primitiveBlockRecord = new PrimitiveBlockRecord(stringTable, granularity, latOffset, lonOffset,
                 dateGranularity);
-        final DataSet ds = getDataSet();
+        final PrimitiveBatch batch = new PrimitiveBatch();
         if (!primitiveGroups.isEmpty() && headerBlock.bbox() != null) {
-            try {
-                ds.beginUpdate();
-                ds.addDataSource(new DataSource(new Bounds((LatLon) headerBlock.bbox().getMin(), (LatLon) headerBlock.bbox().getMax()),
-                        headerBlock.source()));
-            } finally {
-                ds.endUpdate();
-            }
+            batch.dataSource = new DataSource(new Bounds((LatLon) headerBlock.bbox().getMin(), (LatLon) headerBlock.bbox().getMax()),
+                    headerBlock.source());
         }
-        for (ProtobufRecord primitiveGroup : primitiveGroups) {
-            try (primitiveGroup) {
-                ds.beginUpdate();
-                parsePrimitiveGroup(baos, primitiveGroup.getBytes(), primitiveBlockRecord);
-            } finally {
-                ds.endUpdate();
-            }
+        for (ProtobufParser primitiveGroup : primitiveGroups) {
+            parsePrimitiveGroup(primitiveGroup, primitiveBlockRecord, batch);
         }
+        return batch;
     }
 
     /**
-     * This parses a bbox from a record (HeaderBBox message)
+     * This parses a bbox from a HeaderBBox message
      *
-     * @param baos    The reusable {@link ByteArrayOutputStream} to avoid unnecessary allocations
-     * @param current The current record
+     * @param parser The parser for the HeaderBBox message
      * @return The <i>immutable</i> bbox, or {@code null}
-     * @throws IOException If something happens with the {@link InputStream}s (probably won't happen)
+     * @throws IOException If the message is truncated
      */
     @Nullable
-    private static BBox parseBBox(ByteArrayOutputStream baos, ProtobufRecord current) throws IOException {
-        try (ByteArrayInputStream bboxInputStream = new ByteArrayInputStream(current.getBytes());
-             ProtobufParser bboxParser = new ProtobufParser(bboxInputStream)) {
-            double left = Double.NaN;
-            double right = Double.NaN;
-            double top = Double.NaN;
-            double bottom = Double.NaN;
-            while (bboxParser.hasNext()) {
-                final ProtobufRecord protobufRecord = new ProtobufRecord(baos, bboxParser);
-                if (protobufRecord.getType() == WireType.VARINT) {
-                    double value = protobufRecord.asSignedVarInt().longValue() * NANO_DEGREES;
-                    switch (protobufRecord.getField()) {
-                        case 1:
-                            left = value;
-                            break;
-                        case 2:
-                            right = value;
-                            break;
-                        case 3:
-                            top = value;
-                            break;
-                        case 4:
-                            bottom = value;
-                            break;
-                        default: // Fall through -- someone might have extended the format
-                    }
+    private static BBox parseBBox(ProtobufParser parser) throws IOException {
+        double left = Double.NaN;
+        double right = Double.NaN;
+        double top = Double.NaN;
+        double bottom = Double.NaN;
+        while (parser.hasNext()) {
+            final int key = parser.nextKey();
+            if (ProtobufParser.getWireType(key) == WireType.VARINT) {
+                double value = parser.nextSignedVarLong() * NANO_DEGREES;
+                switch (ProtobufParser.getField(key)) {
+                    case 1:
+                        left = value;
+                        break;
+                    case 2:
+                        right = value;
+                        break;
+                    case 3:
+                        top = value;
+                        break;
+                    case 4:
+                        bottom = value;
+                        break;
+                    default: // Fall through -- someone might have extended the format
                 }
+            } else {
+                parser.skipField(key);
             }
-            if (!Double.isNaN(left) && !Double.isNaN(top) && !Double.isNaN(right) && !Double.isNaN(bottom)) {
-                return new BBox(left, top, right, bottom).toImmutable();
-            }
+        }
+        if (!Double.isNaN(left) && !Double.isNaN(top) && !Double.isNaN(right) && !Double.isNaN(bottom)) {
+            return new BBox(left, top, right, bottom).toImmutable();
         }
         return null;
     }
@@ -482,59 +873,55 @@ public final class OsmPbfReader extends AbstractReader {
     /**
      * Parse the string table
      *
-     * @param baos  The reusable stream
-     * @param bytes The message bytes
-     * @return The parsed table (reminder: index 0 is empty, note that all strings are already interned by {@link String#intern()})
-     * @throws IOException if something happened while reading a {@link ByteArrayInputStream}
+     * @param parser The parser for the StringTable message
+     * @return The parsed table (reminder: index 0 is empty, note that all strings are already pooled by {@link TagPool#intern(String)})
+     * @throws IOException if the message is truncated
      */
     @Nonnull
-    private static String[] parseStringTable(ByteArrayOutputStream baos, byte[] bytes) throws IOException {
-        try (ByteArrayInputStream is = new ByteArrayInputStream(bytes);
-             ProtobufParser parser = new ProtobufParser(is)) {
-            final List<String> list = new ArrayList<>();
-            while (parser.hasNext()) {
-                final ProtobufRecord protobufRecord = new ProtobufRecord(baos, parser);
-                if (protobufRecord.getField() == 1) {
-                    list.add(protobufRecord.asString().intern()); // field is technically repeated bytes
-                }
+    private static String[] parseStringTable(ProtobufParser parser) throws IOException {
+        final List<String> list = new ArrayList<>();
+        while (parser.hasNext()) {
+            final int key = parser.nextKey();
+            if (ProtobufParser.getField(key) == 1) {
+                list.add(TagPool.intern(parser.nextString())); // field is technically repeated bytes
+            } else {
+                parser.skipField(key);
             }
-            return list.toArray(new String[0]);
         }
+        return list.toArray(new String[0]);
     }
 
     /**
      * Parse a PrimitiveGroup. Note: this parsing implementation doesn't check and make certain that all primitives in the group are the same
      * type.
      *
-     * @param baos                 The reusable stream
-     * @param bytes                The bytes to decode
+     * @param parser               The parser for the PrimitiveGroup message
      * @param primitiveBlockRecord The record to use for creating the primitives
+     * @param batch                The batch to add the decoded primitives to
      * @throws IllegalDataException if one of the primitive records was invalid
-     * @throws IOException          if something happened while reading a {@link ByteArrayInputStream}
+     * @throws IOException          if the message is truncated
      */
-    private void parsePrimitiveGroup(ByteArrayOutputStream baos, byte[] bytes, PrimitiveBlockRecord primitiveBlockRecord)
+    private static void parsePrimitiveGroup(ProtobufParser parser, PrimitiveBlockRecord primitiveBlockRecord, PrimitiveBatch batch)
             throws IllegalDataException, IOException {
-        try (ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
-             ProtobufParser parser = new ProtobufParser(bais)) {
-            while (parser.hasNext()) {
-                final ProtobufRecord protobufRecord = new ProtobufRecord(baos, parser);
-                switch (protobufRecord.getField()) {
-                    case 1: // Nodes, repeated
-                        parseNode(baos, protobufRecord.getBytes(), primitiveBlockRecord);
-                        break;
-                    case 2: // Dense nodes, not repeated
-                        parseDenseNodes(baos, protobufRecord.getBytes(), primitiveBlockRecord);
-                        break;
-                    case 3: // Ways, repeated
-                        parseWay(baos, protobufRecord.getBytes(), primitiveBlockRecord);
-                        break;
-                    case 4: // relations, repeated
-                        parseRelation(baos, protobufRecord.getBytes(), primitiveBlockRecord);
-                        break;
-                    case 5: // Changesets, repeated
-                        // Skip -- we don't have a good way to store changeset information in JOSM
-                    default: // OSM PBF could be extended
-                }
+        while (parser.hasNext()) {
+            final int key = parser.nextKey();
+            switch (ProtobufParser.getField(key)) {
+                case 1: // Nodes, repeated
+                    parseNode(parser.nextLengthDelimitedParser(), primitiveBlockRecord, batch);
+                    break;
+                case 2: // Dense nodes, not repeated
+                    parseDenseNodes(parser.nextLengthDelimitedParser(), primitiveBlockRecord, batch);
+                    break;
+                case 3: // Ways, repeated
+                    parseWay(parser.nextLengthDelimitedParser(), primitiveBlockRecord, batch);
+                    break;
+                case 4: // relations, repeated
+                    parseRelation(parser.nextLengthDelimitedParser(), primitiveBlockRecord, batch);
+                    break;
+                case 5: // Changesets, repeated
+                    // Skip -- we don't have a good way to store changeset information in JOSM
+                default: // OSM PBF could be extended
+                    parser.skipField(key);
             }
         }
     }
@@ -542,107 +929,95 @@ public final class OsmPbfReader extends AbstractReader {
     /**
      * Parse a singular node
      *
-     * @param baos                 The reusable stream
-     * @param bytes                The bytes to decode
+     * @param parser               The parser for the Node message
      * @param primitiveBlockRecord The record to use (mostly for tags and lat/lon calculations)
+     * @param batch                The batch to add the decoded primitives to
      * @throws IllegalDataException if the PBF did not provide all the data necessary for node creation
-     * @throws IOException          if something happened while reading a {@link ByteArrayInputStream}
+     * @throws IOException          if the message is truncated
      */
-    private void parseNode(ByteArrayOutputStream baos, byte[] bytes, PrimitiveBlockRecord primitiveBlockRecord)
+    private static void parseNode(ProtobufParser parser, PrimitiveBlockRecord primitiveBlockRecord, PrimitiveBatch batch)
             throws IllegalDataException, IOException {
-        try (ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
-             ProtobufParser parser = new ProtobufParser(bais)) {
-            long id = Long.MIN_VALUE;
-            final List<String> keys = new ArrayList<>();
-            final List<String> values = new ArrayList<>();
-            Info info = null;
-            long lat = Long.MIN_VALUE;
-            long lon = Long.MIN_VALUE;
-            while (parser.hasNext()) {
-                final ProtobufRecord protobufRecord = new ProtobufRecord(baos, parser);
-                switch (protobufRecord.getField()) {
-                    case 1:
-                        id = protobufRecord.asSignedVarInt().intValue();
-                        break;
-                    case 2:
-                        for (long number : new ProtobufPacked(protobufRecord.getBytes()).getArray()) {
-                            keys.add(primitiveBlockRecord.stringTable[(int) number]);
-                        }
-                        break;
-                    case 3:
-                        for (long number : new ProtobufPacked(protobufRecord.getBytes()).getArray()) {
-                            values.add(primitiveBlockRecord.stringTable[(int) number]);
-                        }
-                        break;
-                    case 4:
-                        info = parseInfo(baos, protobufRecord.getBytes());
-                        break;
-                    case 8:
-                        lat = protobufRecord.asSignedVarInt().longValue();
-                        break;
-                    case 9:
-                        lon = protobufRecord.asSignedVarInt().longValue();
-                        break;
-                    default: // Fall through -- PBF could be extended (unlikely)
-                }
-            }
-            if (id == Long.MIN_VALUE || lat == Long.MIN_VALUE || lon == Long.MIN_VALUE) {
-                throw new IllegalDataException("OSM PBF did not provide all the required node information");
-            }
-            final NodeData node = new NodeData(id);
-            node.setCoor(calculateLatLon(primitiveBlockRecord, lat, lon));
-            addTags(node, keys, values);
-            if (info != null) {
-                setOsmPrimitiveData(primitiveBlockRecord, node, info);
-            } else {
-                ds.setUploadPolicy(UploadPolicy.DISCOURAGED);
+        long id = Long.MIN_VALUE;
+        final List<String> keys = new ArrayList<>();
+        final List<String> values = new ArrayList<>();
+        Info info = null;
+        long lat = Long.MIN_VALUE;
+        long lon = Long.MIN_VALUE;
+        while (parser.hasNext()) {
+            final int key = parser.nextKey();
+            switch (ProtobufParser.getField(key)) {
+                case 1:
+                    id = parser.nextSignedVarLong();
+                    break;
+                case 2:
+                    readStrings(parser.nextPackedParser(key), primitiveBlockRecord, keys);
+                    break;
+                case 3:
+                    readStrings(parser.nextPackedParser(key), primitiveBlockRecord, values);
+                    break;
+                case 4:
+                    info = parseInfo(parser.nextLengthDelimitedParser());
+                    break;
+                case 8:
+                    lat = parser.nextSignedVarLong();
+                    break;
+                case 9:
+                    lon = parser.nextSignedVarLong();
+                    break;
+                default: // Fall through -- PBF could be extended (unlikely)
+                    parser.skipField(key);
             }
-            buildPrimitive(node);
         }
+        if (id == Long.MIN_VALUE || lat == Long.MIN_VALUE || lon == Long.MIN_VALUE) {
+            throw new IllegalDataException("OSM PBF did not provide all the required node information");
+        }
+        final NodeData node = new NodeData(id);
+        node.setCoor(calculateLatLon(primitiveBlockRecord, lat, lon));
+        addTags(node, keys, values);
+        if (info != null) {
+            setOsmPrimitiveData(primitiveBlockRecord, node, info);
+        } else {
+            batch.uploadDiscouraged = true;
+        }
+        batch.primitives.add(node);
     }
 
     /**
      * Parse dense nodes from a record
      *
-     * @param baos                 The reusable output stream
-     * @param bytes                The bytes for the dense node
+     * @param parser               The parser for the DenseNodes message
      * @param primitiveBlockRecord Used for data that is common between several different objects.
+     * @param batch                The batch to add the decoded primitives to
      * @throws IllegalDataException if the nodes could not be parsed, or one of the nodes would be malformed
-     * @throws IOException          if something happened while reading a {@link ByteArrayInputStream}
+     * @throws IOException          if the message is truncated
      */
-    private void parseDenseNodes(ByteArrayOutputStream baos, byte[] bytes, PrimitiveBlockRecord primitiveBlockRecord)
+    private static void parseDenseNodes(ProtobufParser parser, PrimitiveBlockRecord primitiveBlockRecord, PrimitiveBatch batch)
             throws IllegalDataException, IOException {
         long[] ids = EMPTY_LONG;
         long[] lats = EMPTY_LONG;
         long[] lons = EMPTY_LONG;
         long[] keyVals = EMPTY_LONG; // technically can be int
         Info[] denseInfo = null;
-        try (ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
-             ProtobufParser parser = new ProtobufParser(bais)) {
-            while (parser.hasNext()) {
-                final ProtobufRecord protobufRecord = new ProtobufRecord(baos, parser);
-                switch (protobufRecord.getField()) {
-                    case 1: // packed node ids, DELTA encoded
-                        long[] tids = decodePackedSInt64(new ProtobufPacked(protobufRecord.getBytes()).getArray());
-                        ids = joinArrays(ids, tids);
-                        break;
-                    case 5: // DenseInfo
-                        denseInfo = parseDenseInfo(baos, protobufRecord.getBytes()); // not repeated or packed
-                        break;
-                    case 8: // packed lat, DELTA encoded
-                        long[] tlats = decodePackedSInt64(new ProtobufPacked(protobufRecord.getBytes()).getArray());
-                        lats = joinArrays(lats, tlats);
-                        break;
-                    case 9: // packed lon, DELTA encoded
-                        long[] tlons = decodePackedSInt64(new ProtobufPacked(protobufRecord.getBytes()).getArray());
-                        lons = joinArrays(lons, tlons);
-                        break;
-                    case 10: // key_val mappings, packed. '0' used as separator between nodes
-                        long[] tkeyVal = new ProtobufPacked(protobufRecord.getBytes()).getArray();
-                        keyVals = joinArrays(keyVals, tkeyVal);
-                        break;
-                    default: // Someone might have extended the PBF format
-                }
+        while (parser.hasNext()) {
+            final int key = parser.nextKey();
+            switch (ProtobufParser.getField(key)) {
+                case 1: // packed node ids, DELTA encoded
+                    ids = joinArrays(ids, decodePackedSInt64(parser.nextPacked(key).getArray()));
+                    break;
+                case 5: // DenseInfo
+                    denseInfo = parseDenseInfo(parser.nextLengthDelimitedParser()); // not repeated or packed
+                    break;
+                case 8: // packed lat, DELTA encoded
+                    lats = joinArrays(lats, decodePackedSInt64(parser.nextPacked(key).getArray()));
+                    break;
+                case 9: // packed lon, DELTA encoded
+                    lons = joinArrays(lons, decodePackedSInt64(parser.nextPacked(key).getArray()));
+                    break;
+                case 10: // key_val mappings, packed. '0' used as separator between nodes
+                    keyVals = joinArrays(keyVals, parser.nextPacked(key).getArray());
+                    break;
+                default: // Someone might have extended the PBF format
+                    parser.skipField(key);
             }
         }
 
@@ -659,7 +1034,7 @@ public final class OsmPbfReader extends AbstractReader {
                     final Info info = denseInfo[i];
                     setOsmPrimitiveData(primitiveBlockRecord, node, info);
                 } else {
-                    ds.setUploadPolicy(UploadPolicy.DISCOURAGED);
+                    batch.uploadDiscouraged = true;
                 }
                 lat += lats[i];
                 lon += lons[i];
@@ -682,8 +1057,7 @@ public final class OsmPbfReader extends AbstractReader {
                         break;
                     }
                 }
-                // Just add the nodes as we make them -- avoid creating another list that expands every time we parse a node
-                buildPrimitive(node);
+                batch.primitives.add(node);
             }
         } else {
             throw new IllegalDataException("OSM PBF has mismatched DenseNode lengths");
@@ -693,13 +1067,13 @@ public final class OsmPbfReader extends AbstractReader {
     /**
      * Parse a way from the PBF
      *
-     * @param baos                 The reusable stream
-     * @param bytes                The bytes for the way
+     * @param parser               The parser for the Way message
      * @param primitiveBlockRecord Used for common information, like tags
+     * @param batch                The batch to add the decoded primitives to
      * @throws IllegalDataException if an invalid way could have been created
-     * @throws IOException          if something happened while reading a {@link ByteArrayInputStream}
+     * @throws IOException          if the message is truncated
      */
-    private void parseWay(ByteArrayOutputStream baos, byte[] bytes, PrimitiveBlockRecord primitiveBlockRecord)
+    private static void parseWay(ProtobufParser parser, PrimitiveBlockRecord primitiveBlockRecord, PrimitiveBatch batch)
             throws IllegalDataException, IOException {
         long id = Long.MIN_VALUE;
         List<String> keys = new ArrayList<>();
@@ -708,35 +1082,28 @@ public final class OsmPbfReader extends AbstractReader {
         long[] refs = EMPTY_LONG; // DELTA encoded
         // We don't do live drawing, so we don't care about lats and lons (we essentially throw them away with the current parser)
         // This is for the optional feature "LocationsOnWays"
-        try (ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
-             ProtobufParser parser = new ProtobufParser(bais)) {
-            while (parser.hasNext()) {
-                final ProtobufRecord protobufRecord = new ProtobufRecord(baos, parser);
-                switch (protobufRecord.getField()) {
-                    case 1:
-                        id = protobufRecord.asUnsignedVarInt().longValue();
-                        break;
-                    case 2:
-                        for (long number : new ProtobufPacked(protobufRecord.getBytes()).getArray()) {
-                            keys.add(primitiveBlockRecord.stringTable[(int) number]);
-                        }
-                        break;
-                    case 3:
-                        for (long number : new ProtobufPacked(protobufRecord.getBytes()).getArray()) {
-                            values.add(primitiveBlockRecord.stringTable[(int) number]);
-                        }
-                        break;
-                    case 4:
-                        info = parseInfo(baos, protobufRecord.getBytes());
-                        break;
-                    case 8:
-                        long[] tRefs = decodePackedSInt64(new ProtobufPacked(protobufRecord.getBytes()).getArray());
-                        refs = joinArrays(refs, tRefs);
-                        break;
-                    // case 9 and 10 are for "LocationsOnWays" -- this is only usable if we can create the way geometry directly
-                    // if this is ever supported, lats = joinArrays(lats, decodePackedSInt64(...))
-                    default: // PBF could be expanded by other people
-                }
+        while (parser.hasNext()) {
+            final int key = parser.nextKey();
+            switch (ProtobufParser.getField(key)) {
+                case 1:
+                    id = parser.nextVarLong();
+                    break;
+                case 2:
+                    readStrings(parser.nextPackedParser(key), primitiveBlockRecord, keys);
+                    break;
+                case 3:
+                    readStrings(parser.nextPackedParser(key), primitiveBlockRecord, values);
+                    break;
+                case 4:
+                    info = parseInfo(parser.nextLengthDelimitedParser());
+                    break;
+                case 8:
+                    refs = joinArrays(refs, decodePackedSInt64(parser.nextPacked(key).getArray()));
+                    break;
+                // case 9 and 10 are for "LocationsOnWays" -- this is only usable if we can create the way geometry directly
+                // if this is ever supported, lats = joinArrays(lats, decodePackedSInt64(...))
+                default: // PBF could be expanded by other people
+                    parser.skipField(key);
             }
         }
         if (refs.length == 0 || id == Long.MIN_VALUE) {
@@ -749,26 +1116,26 @@ public final class OsmPbfReader extends AbstractReader {
             ref += tRef;
             nodeIds.add(ref);
         }
-        this.ways.put(wayData.getUniqueId(), nodeIds);
+        batch.ways.put(wayData.getUniqueId(), nodeIds);
         addTags(wayData, keys, values);
         if (info != null) {
             setOsmPrimitiveData(primitiveBlockRecord, wayData, info);
         } else {
-            ds.setUploadPolicy(UploadPolicy.DISCOURAGED);
+            batch.uploadDiscouraged = true;
         }
-        buildPrimitive(wayData);
+        batch.primitives.add(wayData);
     }
 
     /**
      * Parse a relation from a PBF
      *
-     * @param baos                 The reusable stream
-     * @param bytes                The bytes to use
+     * @param parser               The parser for the Relation message
      * @param primitiveBlockRecord Mostly used for tags
+     * @param batch                The batch to add the decoded primitives to
      * @throws IllegalDataException if the PBF had a bad relation definition
-     * @throws IOException          if something happened while reading a {@link ByteArrayInputStream}
+     * @throws IOException          if the message is truncated
      */
-    private void parseRelation(ByteArrayOutputStream baos, byte[] bytes, PrimitiveBlockRecord primitiveBlockRecord)
+    private static void parseRelation(ProtobufParser parser, PrimitiveBlockRecord primitiveBlockRecord, PrimitiveBatch batch)
             throws IllegalDataException, IOException {
         long id = Long.MIN_VALUE;
         final List<String> keys = new ArrayList<>();
@@ -777,41 +1144,32 @@ public final class OsmPbfReader extends AbstractReader {
         long[] rolesStringId = EMPTY_LONG; // Technically int
         long[] memids = EMPTY_LONG;
         long[] types = EMPTY_LONG; // Technically an enum
-        try (ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
-             ProtobufParser parser = new ProtobufParser(bais)) {
-            while (parser.hasNext()) {
-                final ProtobufRecord protobufRecord = new ProtobufRecord(baos, parser);
-                switch (protobufRecord.getField()) {
-                    case 1:
-                        id = protobufRecord.asUnsignedVarInt().longValue();
-                        break;
-                    case 2:
-                        for (long number : new ProtobufPacked(protobufRecord.getBytes()).getArray()) {
-                            keys.add(primitiveBlockRecord.stringTable[(int) number]);
-                        }
-                        break;
-                    case 3:
-                        for (long number : new ProtobufPacked(protobufRecord.getBytes()).getArray()) {
-                            values.add(primitiveBlockRecord.stringTable[(int) number]);
-                        }
-                        break;
-                    case 4:
-                        info = parseInfo(baos, protobufRecord.getBytes());
-                        break;
-                    case 8:
-                        long[] tRoles = new ProtobufPacked(protobufRecord.getBytes()).getArray();
-                        rolesStringId = joinArrays(rolesStringId, tRoles);
-                        break;
-                    case 9:
-                        long[] tMemids = decodePackedSInt64(new ProtobufPacked(protobufRecord.getBytes()).getArray());
-                        memids = joinArrays(memids, tMemids);
-                        break;
-                    case 10:
-                        long[] tTypes = new ProtobufPacked(protobufRecord.getBytes()).getArray();
-                        types = joinArrays(types, tTypes);
-                        break;
-                    default: // Fall through for PBF extensions
-                }
+        while (parser.hasNext()) {
+            final int key = parser.nextKey();
+            switch (ProtobufParser.getField(key)) {
+                case 1:
+                    id = parser.nextVarLong();
+                    break;
+                case 2:
+                    readStrings(parser.nextPackedParser(key), primitiveBlockRecord, keys);
+                    break;
+                case 3:
+                    readStrings(parser.nextPackedParser(key), primitiveBlockRecord, values);
+                    break;
+                case 4:
+                    info = parseInfo(parser.nextLengthDelimitedParser());
+                    break;
+                case 8:
+                    rolesStringId = joinArrays(rolesStringId, parser.nextPacked(key).getArray());
+                    break;
+                case 9:
+                    memids = joinArrays(memids, decodePackedSInt64(parser.nextPacked(key).getArray()));
+                    break;
+                case 10:
+                    types = joinArrays(types, parser.nextPacked(key).getArray());
+                    break;
+                default: // Fall through for PBF extensions
+                    parser.skipField(key);
             }
         }
         if (keys.size() != values.size() || rolesStringId.length != memids.length || memids.length != types.length || id == Long.MIN_VALUE) {
@@ -821,7 +1179,7 @@ public final class OsmPbfReader extends AbstractReader {
         if (info != null) {
             setOsmPrimitiveData(primitiveBlockRecord, data, info);
         } else {
-            ds.setUploadPolicy(UploadPolicy.DISCOURAGED);
+            batch.uploadDiscouraged = true;
         }
         addTags(data, keys, values);
         OsmPrimitiveType[] valueTypes = OsmPrimitiveType.values();
@@ -833,53 +1191,65 @@ public final class OsmPbfReader extends AbstractReader {
             OsmPrimitiveType type = valueTypes[(int) types[i]];
             members.add(new RelationMemberData(role, type, memberId));
         }
-        this.relations.put(data.getUniqueId(), members);
-        buildPrimitive(data);
+        batch.relations.put(data.getUniqueId(), members);
+        batch.primitives.add(data);
     }
 
     /**
      * Parse info for an object
      *
-     * @param baos  The reusable stream to use
-     * @param bytes The bytes to decode
+     * @param parser The parser for the Info message
      * @return The info for an object
-     * @throws IOException if something happened while reading a {@link ByteArrayInputStream}
+     * @throws IOException if the message is truncated
      */
     @Nonnull
-    private static Info parseInfo(ByteArrayOutputStream baos, byte[] bytes) throws IOException {
-        try (ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
-             ProtobufParser parser = new ProtobufParser(bais)) {
-            int version = -1;
-            Long timestamp = null;
-            Long changeset = null;
-            Integer uid = null;
-            Integer userSid = null;
-            boolean visible = true;
-            while (parser.hasNext()) {
-                final ProtobufRecord protobufRecord = new ProtobufRecord(baos, parser);
-                switch (protobufRecord.getField()) {
-                    case 1:
-                        version = protobufRecord.asUnsignedVarInt().intValue();
-                        break;
-                    case 2:
-                        timestamp = protobufRecord.asUnsignedVarInt().longValue();
-                        break;
-                    case 3:
-                        changeset = protobufRecord.asUnsignedVarInt().longValue();
-                        break;
-                    case 4:
-                        uid = protobufRecord.asUnsignedVarInt().intValue();
-                        break;
-                    case 5:
-                        userSid = protobufRecord.asUnsignedVarInt().intValue();
-                        break;
-                    case 6:
-                        visible = protobufRecord.asUnsignedVarInt().byteValue() == 1;
-                        break;
-                    default: // Fall through, since the PBF format could be extended
-                }
+    private static Info parseInfo(ProtobufParser parser) throws IOException {
+        int version = -1;
+        Long timestamp = null;
+        Long changeset = null;
+        Integer uid = null;
+        Integer userSid = null;
+        boolean visible = true;
+        while (parser.hasNext()) {
+            final int key = parser.nextKey();
+            switch (ProtobufParser.getField(key)) {
+                case 1:
+                    version = (int) parser.nextVarLong();
+                    break;
+                case 2:
+                    timestamp = parser.nextVarLong();
+                    break;
+                case 3:
+                    changeset = parser.nextVarLong();
+                    break;
+                case 4:
+                    uid = (int) parser.nextVarLong();
+                    break;
+                case 5:
+                    userSid = (int) parser.nextVarLong();
+                    break;
+                case 6:
+                    visible = parser.nextVarLong() == 1;
+                    break;
+                default: // Fall through, since the PBF format could be extended
+                    parser.skipField(key);
             }
-            return new Info(version, timestamp, changeset, uid, userSid, visible);
+        }
+        return new Info(version, timestamp, changeset, uid, userSid, visible);
+    }
+
+    /**
+     * Add the strings referenced by a packed field of string table indexes to a list
+     *
+     * @param packed               The parser for the packed field
+     * @param primitiveBlockRecord The record with the string table
+     * @param strings              The list to add the strings to
+     * @throws IOException if the field is truncated
+     */
+    private static void readStrings(ProtobufParser packed, PrimitiveBlockRecord primitiveBlockRecord, List<String> strings)
+            throws IOException {
+        while (packed.hasNext()) {
+            strings.add(primitiveBlockRecord.stringTable[(int) packed.nextVarLong()]);
         }
     }
 
@@ -928,7 +1298,8 @@ public final class OsmPbfReader extends AbstractReader {
         if (info.timestamp() != null) {
             primitive.setRawTimestamp(Math.toIntExact(info.timestamp() * primitiveBlockRecord.dateGranularity / 1000));
         }
-        if (info.uid() != null && info.userSid() != null) {
+        if (info.uid() != null && info.userSid() != null && (info.uid() != 0 || info.userSid() != 0)) {
+            // uid 0 with the empty user name is how dense nodes store a primitive without user
             primitive.setUser(User.createOsmUser(info.uid(), primitiveBlockRecord.stringTable[info.userSid()]));
         } else if (info.uid() != null) {
             primitive.setUser(User.getById(info.uid()));
@@ -978,51 +1349,42 @@ public final class OsmPbfReader extends AbstractReader {
     /**
      * Parse dense info
      *
-     * @param baos  The reusable stream
-     * @param bytes The bytes to decode
+     * @param parser The parser for the DenseInfo message
      * @return The dense info array
      * @throws IllegalDataException If the data has mismatched array lengths
-     * @throws IOException          if something happened while reading a {@link ByteArrayInputStream}
+     * @throws IOException          if the message is truncated
      */
     @Nonnull
-    private static Info[] parseDenseInfo(ByteArrayOutputStream baos, byte[] bytes) throws IllegalDataException, IOException {
+    private static Info[] parseDenseInfo(ProtobufParser parser) throws IllegalDataException, IOException {
         long[] version = EMPTY_LONG; // technically ints
         long[] timestamp = EMPTY_LONG;
         long[] changeset = EMPTY_LONG;
         long[] uid = EMPTY_LONG; // technically int
         long[] userSid = EMPTY_LONG; // technically int
         long[] visible = EMPTY_LONG; // optional, true if not set, technically booleans
-        try (ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
-             ProtobufParser parser = new ProtobufParser(bais)) {
-            while (parser.hasNext()) {
-                final ProtobufRecord protobufRecord = new ProtobufRecord(baos, parser);
-                switch (protobufRecord.getField()) {
-                    case 1:
-                        long[] tVersion = new ProtobufPacked(protobufRecord.getBytes()).getArray();
-                        version = joinArrays(version, tVersion);
-                        break;
-                    case 2:
-                        long[] tTimestamp = decodePackedSInt64(new ProtobufPacked(protobufRecord.getBytes()).getArray());
-                        timestamp = joinArrays(timestamp, tTimestamp);
-                        break;
-                    case 3:
-                        long[] tChangeset = decodePackedSInt64(new ProtobufPacked(protobufRecord.getBytes()).getArray());
-                        changeset = joinArrays(changeset, tChangeset);
-                        break;
-                    case 4:
-                        long[] tUid = decodePackedSInt64(new ProtobufPacked(protobufRecord.getBytes()).getArray());
-                        uid = joinArrays(uid, tUid);
-                        break;
-                    case 5:
-                        long[] tUserSid = decodePackedSInt64(new ProtobufPacked(protobufRecord.getBytes()).getArray());
-                        userSid = joinArrays(userSid, tUserSid);
-                        break;
-                    case 6:
-                        long[] tVisible = new ProtobufPacked(protobufRecord.getBytes()).getArray();
-                        visible = joinArrays(visible, tVisible);
-                        break;
-                    default: // Fall through
-                }
+        while (parser.hasNext()) {
+            final int key = parser.nextKey();
+            switch (ProtobufParser.getField(key)) {
+                case 1:
+                    version = joinArrays(version, parser.nextPacked(key).getArray());
+                    break;
+                case 2:
+                    timestamp = joinArrays(timestamp, decodePackedSInt64(parser.nextPacked(key).getArray()));
+                    break;
+                case 3:
+                    changeset = joinArrays(changeset, decodePackedSInt64(parser.nextPacked(key).getArray()));
+                    break;
+                case 4:
+                    uid = joinArrays(uid, decodePackedSInt64(parser.nextPacked(key).getArray()));
+                    break;
+                case 5:
+                    userSid = joinArrays(userSid, decodePackedSInt64(parser.nextPacked(key).getArray()));
+                    break;
+                case 6:
+                    visible = joinArrays(visible, parser.nextPacked(key).getArray());
+                    break;
+                default: // Fall through
+                    parser.skipField(key);
             }
         }
         if (version.length > 0) {
@@ -1048,6 +1410,54 @@ public final class OsmPbfReader extends AbstractReader {
         throw new IllegalDataException("OSM PBF has mismatched DenseInfo lengths");
     }
 
+    /**
+     * The primitives decoded from a single PrimitiveBlock, waiting to be merged into the reader state
+     */
+    private static final class PrimitiveBatch {
+        private final List<PrimitiveData> primitives = new ArrayList<>();
+        private final Map<Long, Collection<Long>> ways = new HashMap<>();
+        private final Map<Long, Collection<RelationMemberData>> relations = new HashMap<>();
+        private DataSource dataSource;
+        private boolean uploadDiscouraged;
+
+        /**
+         * Create a copy of this batch with only some of the primitives. The data source is not copied.
+         *
+         * @param filter The primitives to keep
+         * @return The filtered batch
+         */
+        PrimitiveBatch filter(PrimitiveFilter filter) {
+            final PrimitiveBatch filtered = new PrimitiveBatch();
+            filtered.uploadDiscouraged = this.uploadDiscouraged;
+            for (PrimitiveData primitive : this.primitives) {
+                if (filter.test(primitive, this)) {
+                    filtered.primitives.add(primitive);
+                    if (primitive instanceof WayData) {
+                        filtered.ways.put(primitive.getUniqueId(), this.ways.get(primitive.getUniqueId()));
+                    } else if (primitive instanceof RelationData) {
+                        filtered.relations.put(primitive.getUniqueId(), this.relations.get(primitive.getUniqueId()));
+                    }
+                }
+            }
+            return filtered;
+        }
+    }
+
+    /**
+     * A filter for the primitives of a decoded block
+     */
+    @FunctionalInterface
+    private interface PrimitiveFilter {
+        /**
+         * Check if a primitive should be kept
+         *
+         * @param primitive The primitive
+         * @param batch     The decoded block, used to look up way nodes and relation members
+         * @return {@code true} if the primitive should be kept
+         */
+        boolean test(PrimitiveData primitive, PrimitiveBatch batch);
+    }
+
     /**
      * A record class for passing PrimitiveBlock information to the PrimitiveGroup parser
      */
@@ -0,0 +1,591 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.DataSource;
+import org.openstreetmap.josm.data.osm.BBox;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.RelationMember;
+import org.openstreetmap.josm.data.osm.User;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.data.osm.pbf.Blob;
+import org.openstreetmap.josm.data.osm.pbf.BlobHeader;
+import org.openstreetmap.josm.data.osm.pbf.HeaderBlock;
+import org.openstreetmap.josm.data.preferences.IntegerProperty;
+import org.openstreetmap.josm.data.protobuf.ProtobufWriter;
+import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * Save a dataset into a stream in the OSM PBF format.
+ * <p>
+ * Nodes are written as dense nodes, all numbers are delta coded and each block has its own string table, sorted by
+ * frequency. With more than one thread, the blocks are encoded and compressed in parallel while the calling thread
+ * writes the finished blocks in order, so the output does not depend on the number of threads.
+ * <p>
+ * The format has no equivalent of the {@code action} attribute of the OSM XML format: deleted primitives are not
+ * written, and modified primitives are read back as unmodified. Incomplete primitives and ways without nodes are not
+ * written either.
+ * @since xxx
+ */
+public final class OsmPbfWriter implements Closeable {
+
+    /**
+     * The number of threads used to encode and compress data blocks. {@code 1} disables the encoding pipeline.
+     */
+    public static final IntegerProperty THREADS = new IntegerProperty("pbf.writer.threads", Runtime.getRuntime().availableProcessors());
+
+    /**
+     * The maximal number of primitives in a data block, as used by other writers of the format
+     */
+    static final int BLOCK_SIZE = 8000;
+
+    /**
+     * Coordinates are stored in units of 100 nanodegrees, the default granularity
+     */
+    private static final double COORDINATE_UNITS = 1e7;
+
+    private final OutputStream out;
+    private final int threads;
+
+    /**
+     * Constructs a new {@code OsmPbfWriter}.
+     * @param out the stream to write to. It is closed by {@link #close()}.
+     */
+    public OsmPbfWriter(OutputStream out) {
+        this(out, THREADS.get());
+    }
+
+    /**
+     * Constructs a new {@code OsmPbfWriter}.
+     * @param out the stream to write to. It is closed by {@link #close()}.
+     * @param threads the number of threads used to encode data blocks, {@code 1} encodes everything on the calling thread
+     */
+    public OsmPbfWriter(OutputStream out, int threads) {
+        this.out = Objects.requireNonNull(out, "out");
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Writes the full OSM PBF file for the given data set (header block, then nodes, ways and relations sorted by id).
+     * The data set must not be modified while it is written, see {@link DataSet#getReadLock()}.
+     * @param data OSM data set
+     * @throws IOException if the stream could not be written
+     */
+    public void write(DataSet data) throws IOException {
+        final List<Node> nodes = sortById(data.getNodes());
+        final List<Way> ways = sortById(data.getWays());
+        final List<Relation> relations = sortById(data.getRelations());
+        nodes.removeIf(node -> !node.isLatLonKnown());
+        ways.removeIf(way -> way.getNodesCount() == 0);
+        final boolean historical = nodes.stream().anyMatch(p -> !p.isVisible()) || ways.stream().anyMatch(p -> !p.isVisible())
+                || relations.stream().anyMatch(p -> !p.isVisible());
+
+        writeFileBlock("OSMHeader", encodeHeaderBlock(createHeaderBlock(data, historical)));
+        final ExecutorService executor = threads > 1
+                ? Executors.newFixedThreadPool(threads, Utils.newThreadFactory("pbf-writer-%d", Thread.NORM_PRIORITY))
+                : null;
+        // Encoded blocks are written in order; this bounds the number of blocks held in memory at the same time
+        final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+        try {
+            for (List<? extends OsmPrimitive> primitives : List.of(nodes, ways, relations)) {
+                for (int start = 0; start < primitives.size(); start += BLOCK_SIZE) {
+                    final List<? extends OsmPrimitive> block = primitives.subList(start, Math.min(primitives.size(), start + BLOCK_SIZE));
+                    if (executor == null) {
+                        out.write(encodeDataBlock(block, historical));
+                    } else {
+                        pending.add(executor.submit(() -> encodeDataBlock(block, historical)));
+                        writeFinishedBlocks(pending, 2 * threads);
+                    }
+                }
+            }
+            writeFinishedBlocks(pending, 0);
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+        out.flush();
+    }
+
+    private static <T extends OsmPrimitive> List<T> sortById(Collection<T> primitives) {
+        final List<T> result = new ArrayList<>(primitives.size());
+        for (T primitive : primitives) {
+            // same primitives as OsmWriter, except deleted ones which cannot be marked as such
+            if (!primitive.isIncomplete() && !primitive.isDeleted()) {
+                result.add(primitive);
+            }
+        }
+        result.sort(Comparator.comparingLong(OsmPrimitive::getUniqueId));
+        return result;
+    }
+
+    /**
+     * Write the encoded blocks to the stream, in order.
+     *
+     * @param pending    The blocks that are currently being encoded, in order
+     * @param maxPending The maximum number of blocks that may still be pending when this method returns
+     * @throws IOException if a block could not be encoded or written
+     */
+    private void writeFinishedBlocks(Deque<Future<byte[]>> pending, int maxPending) throws IOException {
+        while (!pending.isEmpty() && (pending.size() > maxPending || pending.peekFirst().isDone())) {
+            try {
+                out.write(pending.pollFirst().get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(e.getMessage());
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                } else if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IOException(e.getCause());
+            }
+        }
+    }
+
+    private void writeFileBlock(String type, ProtobufWriter block) throws IOException {
+        out.write(encodeFileBlock(type, block));
+    }
+
+    /**
+     * Encode a file block: the length of the BlobHeader, the BlobHeader, and the zlib compressed Blob
+     *
+     * @param type  The type of the block, {@code OSMHeader} or {@code OSMData}
+     * @param block The uncompressed block
+     * @return The bytes of the file block
+     * @throws IOException if the block could not be compressed
+     */
+    private static byte[] encodeFileBlock(String type, ProtobufWriter block) throws IOException {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(block.size() / 2 + 64);
+        final Deflater deflater = new Deflater();
+        try (DeflaterOutputStream deflaterOutputStream = new DeflaterOutputStream(compressed, deflater)) {
+            block.writeTo(deflaterOutputStream);
+        } finally {
+            deflater.end();
+        }
+        final ProtobufWriter blob = encodeBlob(new Blob(block.size(), Blob.CompressionType.zlib, compressed.toByteArray()));
+        if (blob.size() > OsmPbfReader.MAX_BLOB_SIZE) {
+            throw new IOException("OSM PBF Blob is too large: " + blob.size());
+        }
+        final ProtobufWriter blobHeader = encodeBlobHeader(new BlobHeader(type, null, blob.size()));
+
+        final int length = blobHeader.size();
+        final byte[] lengthBytes = {(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length};
+        final ByteArrayOutputStream result = new ByteArrayOutputStream(4 + blobHeader.size() + blob.size());
+        result.write(lengthBytes);
+        blobHeader.writeTo(result);
+        blob.writeTo(result);
+        return result.toByteArray();
+    }
+
+    /**
+     * Encode a BlobHeader message, the counterpart of {@link OsmPbfReader}'s parser
+     *
+     * @param blobHeader The header to encode
+     * @return The message
+     */
+    private static ProtobufWriter encodeBlobHeader(BlobHeader blobHeader) {
+        final ProtobufWriter message = new ProtobufWriter();
+        message.writeString(1, blobHeader.type());
+        if (blobHeader.indexData() != null) {
+            message.writeBytes(2, blobHeader.indexData(), 0, blobHeader.indexData().length);
+        }
+        message.writeVarLong(3, blobHeader.dataSize());
+        return message;
+    }
+
+    /**
+     * Encode a Blob message, the counterpart of {@link OsmPbfReader}'s parser
+     *
+     * @param blob The blob to encode, its bytes are already compressed
+     * @return The message
+     */
+    private static ProtobufWriter encodeBlob(Blob blob) {
+        final ProtobufWriter message = new ProtobufWriter(blob.bytes().length + 16);
+        if (blob.rawSize() != null) {
+            message.writeVarLong(2, blob.rawSize());
+        }
+        final int field;
+        switch (blob.compressionType()) {
+            case raw:
+                field = 1;
+                break;
+            case zlib:
+                field = 3;
+                break;
+            case lzma:
+                field = 4;
+                break;
+            case bzip2:
+                field = 5;
+                break;
+            case lz4:
+                field = 6;
+                break;
+            case zstd:
+                field = 7;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown compression type: " + blob.compressionType());
+        }
+        message.writeBytes(field, blob.bytes(), 0, blob.bytes().length);
+        return message;
+    }
+
+    /**
+     * Create the header block of a data set: the bounds and origin of its data sources, and the features needed to read the file
+     *
+     * @param data       The data set
+     * @param historical {@code true} if the visibility of the primitives is written
+     * @return The header block
+     */
+    private static HeaderBlock createHeaderBlock(DataSet data, boolean historical) {
+        Bounds bounds = null;
+        String source = null;
+        for (DataSource dataSource : data.getDataSources()) {
+            if (bounds == null) {
+                bounds = new Bounds(dataSource.bounds);
+                source = dataSource.origin;
+            } else {
+                bounds.extend(dataSource.bounds);
+            }
+        }
+        final String[] requiredFeatures = historical
+                ? new String[] {"OsmSchema-V0.6", "DenseNodes", "HistoricalInformation"}
+                : new String[] {"OsmSchema-V0.6", "DenseNodes"};
+        return new HeaderBlock(bounds != null ? bounds.toBBox() : null, requiredFeatures, new String[0], "JOSM", source,
+                null, null, null);
+    }
+
+    /**
+     * Encode a HeaderBlock message, the counterpart of {@link OsmPbfReader}'s parser
+     *
+     * @param headerBlock The header block to encode
+     * @return The message
+     */
+    private static ProtobufWriter encodeHeaderBlock(HeaderBlock headerBlock) {
+        final ProtobufWriter header = new ProtobufWriter();
+        final BBox bounds = headerBlock.bbox();
+        if (bounds != null) {
+            final ProtobufWriter bbox = new ProtobufWriter();
+            bbox.writeSignedVarLong(1, Math.round(bounds.getTopLeftLon() * 1e9)); // left
+            bbox.writeSignedVarLong(2, Math.round(bounds.getBottomRightLon() * 1e9)); // right
+            bbox.writeSignedVarLong(3, Math.round(bounds.getTopLeftLat() * 1e9)); // top
+            bbox.writeSignedVarLong(4, Math.round(bounds.getBottomRightLat() * 1e9)); // bottom
+            header.writeLengthDelimited(1, bbox);
+        }
+        for (String feature : headerBlock.requiredFeatures()) {
+            header.writeString(4, feature);
+        }
+        for (String feature : headerBlock.optionalFeatures()) {
+            header.writeString(5, feature);
+        }
+        if (headerBlock.writingProgram() != null) {
+            header.writeString(16, headerBlock.writingProgram());
+        }
+        if (headerBlock.source() != null) {
+            header.writeString(17, headerBlock.source());
+        }
+        if (headerBlock.osmosisReplicationTimestamp() != null) {
+            header.writeVarLong(32, headerBlock.osmosisReplicationTimestamp());
+        }
+        if (headerBlock.osmosisReplicationSequenceNumber() != null) {
+            header.writeVarLong(33, headerBlock.osmosisReplicationSequenceNumber());
+        }
+        if (headerBlock.osmosisReplicationBaseUrl() != null) {
+            header.writeString(34, headerBlock.osmosisReplicationBaseUrl());
+        }
+        return header;
+    }
+
+    /**
+     * Encode and compress a data block. This method does not modify the writer state, so it may be called from any thread.
+     *
+     * @param primitives The primitives of the block, all of the same type
+     * @param historical {@code true} to write the visibility of the primitives
+     * @return The bytes of the file block
+     * @throws IOException if the block could not be compressed
+     */
+    private static byte[] encodeDataBlock(List<? extends OsmPrimitive> primitives, boolean historical) throws IOException {
+        final StringTable stringTable = new StringTable(primitives);
+        final ProtobufWriter group = new ProtobufWriter(primitives.size() * 16);
+        if (primitives.get(0) instanceof Node) {
+            group.writeLengthDelimited(2, encodeDenseNodes(primitives, stringTable, historical));
+        } else {
+            final ProtobufWriter message = new ProtobufWriter();
+            for (OsmPrimitive primitive : primitives) {
+                message.reset();
+                if (primitive instanceof Way) {
+                    encodeWay((Way) primitive, stringTable, historical, message);
+                    group.writeLengthDelimited(3, message);
+                } else {
+                    encodeRelation((Relation) primitive, stringTable, historical, message);
+                    group.writeLengthDelimited(4, message);
+                }
+            }
+        }
+        final ProtobufWriter block = new ProtobufWriter(stringTable.size() + group.size() + 16);
+        block.writeLengthDelimited(1, stringTable.encode());
+        block.writeLengthDelimited(2, group);
+        // granularity (100 nanodegrees), date granularity (1 second) and offsets (0) are the defaults
+        return encodeFileBlock("OSMData", block);
+    }
+
+    private static ProtobufWriter encodeDenseNodes(List<? extends OsmPrimitive> nodes, StringTable stringTable, boolean historical) {
+        final ProtobufWriter ids = new ProtobufWriter(nodes.size() * 2);
+        final ProtobufWriter lats = new ProtobufWriter(nodes.size() * 3);
+        final ProtobufWriter lons = new ProtobufWriter(nodes.size() * 3);
+        final ProtobufWriter keysVals = new ProtobufWriter(nodes.size());
+        final DenseInfo info = new DenseInfo(nodes.size(), historical);
+        long lastId = 0;
+        long lastLat = 0;
+        long lastLon = 0;
+        boolean tagged = false;
+        for (OsmPrimitive primitive : nodes) {
+            final Node node = (Node) primitive;
+            ids.writeSignedVarLong(node.getUniqueId() - lastId);
+            lastId = node.getUniqueId();
+            final long lat = Math.round(node.lat() * COORDINATE_UNITS);
+            final long lon = Math.round(node.lon() * COORDINATE_UNITS);
+            lats.writeSignedVarLong(lat - lastLat);
+            lons.writeSignedVarLong(lon - lastLon);
+            lastLat = lat;
+            lastLon = lon;
+            tagged |= node.hasKeys();
+            node.visitKeys((p, key, value) -> {
+                keysVals.writeVarLong(stringTable.indexOf(key));
+                keysVals.writeVarLong(stringTable.indexOf(value));
+            });
+            keysVals.writeVarLong(0); // delimiter between the tags of the nodes
+            info.add(node, stringTable);
+        }
+        final ProtobufWriter denseNodes = new ProtobufWriter(ids.size() + lats.size() + lons.size() + keysVals.size() + 64);
+        denseNodes.writeLengthDelimited(1, ids);
+        denseNodes.writeLengthDelimited(5, info.encode());
+        denseNodes.writeLengthDelimited(8, lats);
+        denseNodes.writeLengthDelimited(9, lons);
+        if (tagged) {
+            // may be omitted if no node of the block has tags
+            denseNodes.writeLengthDelimited(10, keysVals);
+        }
+        return denseNodes;
+    }
+
+    private static void encodeWay(Way way, StringTable stringTable, boolean historical, ProtobufWriter message) {
+        message.writeVarLong(1, way.getUniqueId());
+        encodeTagsAndInfo(way, stringTable, historical, message);
+        final ProtobufWriter refs = new ProtobufWriter(way.getNodesCount() * 3);
+        long lastRef = 0;
+        for (int i = 0; i < way.getNodesCount(); i++) {
+            final long ref = way.getNodeId(i);
+            refs.writeSignedVarLong(ref - lastRef);
+            lastRef = ref;
+        }
+        message.writeLengthDelimited(8, refs);
+    }
+
+    private static void encodeRelation(Relation relation, StringTable stringTable, boolean historical, ProtobufWriter message) {
+        message.writeVarLong(1, relation.getUniqueId());
+        encodeTagsAndInfo(relation, stringTable, historical, message);
+        final ProtobufWriter roles = new ProtobufWriter(relation.getMembersCount());
+        final ProtobufWriter memberIds = new ProtobufWriter(relation.getMembersCount() * 3);
+        final ProtobufWriter types = new ProtobufWriter(relation.getMembersCount());
+        long lastId = 0;
+        for (RelationMember member : relation.getMembers()) {
+            roles.writeVarLong(stringTable.indexOf(member.getRole()));
+            memberIds.writeSignedVarLong(member.getUniqueId() - lastId);
+            lastId = member.getUniqueId();
+            // NODE = 0, WAY = 1, RELATION = 2, as OsmPrimitiveType
+            types.writeVarLong(member.getType().ordinal());
+        }
+        message.writeLengthDelimited(8, roles);
+        message.writeLengthDelimited(9, memberIds);
+        message.writeLengthDelimited(10, types);
+    }
+
+    private static void encodeTagsAndInfo(OsmPrimitive primitive, StringTable stringTable, boolean historical, ProtobufWriter message) {
+        if (primitive.hasKeys()) {
+            final ProtobufWriter keys = new ProtobufWriter();
+            final ProtobufWriter values = new ProtobufWriter();
+            primitive.visitKeys((p, key, value) -> {
+                keys.writeVarLong(stringTable.indexOf(key));
+                values.writeVarLong(stringTable.indexOf(value));
+            });
+            message.writeLengthDelimited(2, keys);
+            message.writeLengthDelimited(3, values);
+        }
+        // the info is always written, otherwise the upload of the data would be discouraged when it is read
+        final ProtobufWriter info = new ProtobufWriter();
+        info.writeVarLong(1, primitive.getVersion());
+        if (!primitive.isTimestampEmpty()) {
+            info.writeVarLong(2, primitive.getRawTimestamp());
+        }
+        if (primitive.getChangesetId() > 0 && !primitive.isNew()) {
+            info.writeVarLong(3, primitive.getChangesetId());
+        }
+        final User user = primitive.getUser();
+        if (user != null && user.isOsmUser()) {
+            info.writeVarLong(4, user.getId());
+            info.writeVarLong(5, stringTable.indexOf(user.getName()));
+        }
+        if (historical) {
+            info.writeVarLong(6, primitive.isVisible() ? 1 : 0);
+        }
+        message.writeLengthDelimited(4, info);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * The DenseInfo of dense nodes, written as parallel packed arrays
+     */
+    private static final class DenseInfo {
+        private final ProtobufWriter versions;
+        private final ProtobufWriter timestamps;
+        private final ProtobufWriter changesets;
+        private final ProtobufWriter uids;
+        private final ProtobufWriter userSids;
+        private final ProtobufWriter visible;
+        private long lastTimestamp;
+        private long lastChangeset;
+        private long lastUid;
+        private long lastUserSid;
+
+        DenseInfo(int size, boolean historical) {
+            versions = new ProtobufWriter(size);
+            timestamps = new ProtobufWriter(size);
+            changesets = new ProtobufWriter(size);
+            uids = new ProtobufWriter(size);
+            userSids = new ProtobufWriter(size);
+            visible = historical ? new ProtobufWriter(size) : null;
+        }
+
+        void add(OsmPrimitive primitive, StringTable stringTable) {
+            versions.writeVarLong(primitive.getVersion());
+            final long timestamp = primitive.getRawTimestamp();
+            timestamps.writeSignedVarLong(timestamp - lastTimestamp);
+            lastTimestamp = timestamp;
+            final long changeset = primitive.getChangesetId() > 0 && !primitive.isNew() ? primitive.getChangesetId() : 0;
+            changesets.writeSignedVarLong(changeset - lastChangeset);
+            lastChangeset = changeset;
+            // uid 0 with the empty user name (index 0) is read as a primitive without user
+            final User user = primitive.getUser();
+            final long uid = user != null && user.isOsmUser() ? user.getId() : 0;
+            final long userSid = uid != 0 ? stringTable.indexOf(user.getName()) : 0;
+            uids.writeSignedVarLong(uid - lastUid);
+            userSids.writeSignedVarLong(userSid - lastUserSid);
+            lastUid = uid;
+            lastUserSid = userSid;
+            if (visible != null) {
+                visible.writeVarLong(primitive.isVisible() ? 1 : 0);
+            }
+        }
+
+        ProtobufWriter encode() {
+            final ProtobufWriter info = new ProtobufWriter(versions.size() + timestamps.size() + changesets.size()
+                    + uids.size() + userSids.size() + 32);
+            info.writeLengthDelimited(1, versions);
+            info.writeLengthDelimited(2, timestamps);
+            info.writeLengthDelimited(3, changesets);
+            info.writeLengthDelimited(4, uids);
+            info.writeLengthDelimited(5, userSids);
+            if (visible != null) {
+                info.writeLengthDelimited(6, visible);
+            }
+            return info;
+        }
+    }
+
+    /**
+     * The string table of a block. The most frequent strings get the smallest indexes, index 0 is the empty string.
+     */
+    private static final class StringTable {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<String> strings;
+        private int size;
+
+        StringTable(List<? extends OsmPrimitive> primitives) {
+            final Map<String, int[]> counts = new HashMap<>();
+            for (OsmPrimitive primitive : primitives) {
+                primitive.visitKeys((p, key, value) -> {
+                    counts.computeIfAbsent(key, k -> new int[1])[0]++;
+                    counts.computeIfAbsent(value, k -> new int[1])[0]++;
+                });
+                final User user = primitive.getUser();
+                if (user != null && user.isOsmUser()) {
+                    counts.computeIfAbsent(user.getName(), k -> new int[1])[0]++;
+                }
+                if (primitive instanceof Relation) {
+                    for (RelationMember member : ((Relation) primitive).getMembers()) {
+                        counts.computeIfAbsent(member.getRole(), k -> new int[1])[0]++;
+                    }
+                }
+            }
+            strings = new ArrayList<>(counts.size() + 1);
+            // the first string is a delimiter, an empty key, value or role gets another index
+            strings.add("");
+            counts.entrySet().stream()
+                    .sorted(Comparator.<Map.Entry<String, int[]>>comparingInt(e -> -e.getValue()[0]).thenComparing(Map.Entry::getKey))
+                    .forEachOrdered(e -> strings.add(e.getKey()));
+            for (int i = strings.size() - 1; i >= 0; i--) {
+                indexes.putIfAbsent(strings.get(i), i);
+                size += strings.get(i).length() + 2;
+            }
+        }
+
+        int indexOf(String string) {
+            final Integer index = indexes.get(string == null ? "" : string);
+            if (index == null) {
+                // cannot happen unless the primitive is modified while it is written
+                Logging.warn("OSM PBF writer: string not in table: " + string);
+                return 0;
+            }
+            return index;
+        }
+
+        /**
+         * Get the approximate size of the encoded table
+         * @return the size of the table, in bytes
+         */
+        int size() {
+            return size;
+        }
+
+        ProtobufWriter encode() {
+            final ProtobufWriter table = new ProtobufWriter(size + 16);
+            for (String string : strings) {
+                table.writeString(1, string);
+            }
+            return table;
+        }
+    }
+}
@@ -12,13 +12,16 @@ import org.openstreetmap.josm.spi.preferences.Config;
 import org.openstreetmap.josm.tools.Logging;
 
 /**
- * Simple HTTP server that spawns a {@link RequestProcessor} for every
- * connection.
+ * Simple HTTP server that submits a {@link RequestProcessor} for every
+ * connection to a thread pool.
  *
  * Taken from YWMS plugin by frsantos.
  */
 public class RemoteControlHttpServer extends Thread {
 
+    /** The maximum number of connections waiting to be accepted */
+    private static final int BACKLOG = 50;
+
     /** The server socket */
     private final ServerSocket server;
 
@@ -87,12 +90,12 @@ public class RemoteControlHttpServer extends Thread {
     public RemoteControlHttpServer(int port, boolean ipv6) throws IOException {
         super("RemoteControl HTTP Server");
         this.setDaemon(true);
-        this.server = new ServerSocket(port, 1, ipv6 ?
+        this.server = new ServerSocket(port, BACKLOG, ipv6 ?
             RemoteControl.getInet6Address() : RemoteControl.getInet4Address());
     }
 
     /**
-     * The main loop, spawns a {@link RequestProcessor} for each connection
+     * The main loop, submits a {@link RequestProcessor} for each connection
      */
     @Override
     public void run() {
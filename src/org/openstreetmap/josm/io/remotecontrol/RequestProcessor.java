@@ -8,11 +8,11 @@ import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -20,6 +20,11 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.StringTokenizer;
 import java.util.TreeMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
@@ -27,6 +32,7 @@ import java.util.stream.Stream;
 import jakarta.json.Json;
 
 import org.openstreetmap.josm.data.Version;
+import org.openstreetmap.josm.data.preferences.IntegerProperty;
 import org.openstreetmap.josm.gui.help.HelpUtil;
 import org.openstreetmap.josm.io.remotecontrol.handler.AddNodeHandler;
 import org.openstreetmap.josm.io.remotecontrol.handler.AddWayHandler;
@@ -50,8 +56,22 @@ import org.openstreetmap.josm.tools.Utils;
 
 /**
  * Processes HTTP "remote control" requests.
+ * <p>
+ * Connections are processed by a bounded pool of threads, and are kept open between requests (HTTP keep-alive).
  */
-public class RequestProcessor extends Thread {
+public class RequestProcessor implements Runnable {
+
+    /** preference to define the maximum number of connections processed at the same time */
+    public static final IntegerProperty MAX_THREADS = new IntegerProperty("remotecontrol.threads", 16);
+    /** preference to define how long (in milliseconds) a connection is kept open while waiting for a request */
+    public static final IntegerProperty KEEP_ALIVE_TIMEOUT = new IntegerProperty("remotecontrol.keep-alive.timeout", 5000);
+
+    private static final int MAX_QUEUED_CONNECTIONS = 1024;
+    private static final int MAX_REQUESTS_PER_CONNECTION = 100;
+    private static final int MAX_HEADERS = 100;
+
+    /** The pool processing the connections, created on first use */
+    private static ThreadPoolExecutor executor;
 
     private static final Charset RESPONSE_CHARSET = StandardCharsets.UTF_8;
     private static final String RESPONSE_TEMPLATE = "<!DOCTYPE html><html><head><meta charset=\""
@@ -78,6 +98,8 @@ public class RequestProcessor extends Thread {
 
     /** The socket this processor listens on */
     private final Socket request;
+    /** Whether the connection is kept open after the current response */
+    private boolean keepAlive;
 
     /**
      * Collection of request handlers.
@@ -96,17 +118,45 @@ public class RequestProcessor extends Thread {
      * @param request A socket to read the request.
      */
     public RequestProcessor(Socket request) {
-        super("RemoteControl request processor");
-        this.setDaemon(true);
         this.request = Objects.requireNonNull(request);
     }
 
     /**
-     * Spawns a new thread for the request
+     * Processes the connection in the request thread pool.
+     * The connection is closed if too many connections are already waiting.
      * @param request The request to process
      */
     public static void processRequest(Socket request) {
-        new RequestProcessor(request).start();
+        try {
+            getExecutor().execute(new RequestProcessor(request));
+        } catch (RejectedExecutionException e) {
+            Logging.warn("RemoteControl: too many pending connections, closing connection from " + request.getInetAddress());
+            Logging.debug(e);
+            try {
+                request.close();
+            } catch (IOException ex) {
+                Logging.debug(Logging.getErrorMessage(ex));
+            }
+        }
+    }
+
+    private static synchronized ThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            final int threads = Math.max(1, MAX_THREADS.get());
+            final ThreadFactory factory = Utils.newThreadFactory("remote-control-request-%d", Thread.NORM_PRIORITY);
+            executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(MAX_QUEUED_CONNECTIONS),
+                    runnable -> {
+                        final Thread thread = factory.newThread(runnable);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            executor.allowCoreThreadTimeOut(true);
+        }
+        return executor;
+    }
+
+    private static synchronized boolean hasQueuedConnections() {
+        return executor != null && !executor.getQueue().isEmpty();
     }
 
     /**
@@ -177,7 +227,7 @@ public class RequestProcessor extends Thread {
     }
 
     /**
-     * The work is done here.
+     * The work is done here. Requests are read from the connection until the client or the server closes it.
      */
     @Override
     public void run() {
@@ -185,110 +235,29 @@ public class RequestProcessor extends Thread {
         try { // NOPMD
             out = new OutputStreamWriter(new BufferedOutputStream(request.getOutputStream()), RESPONSE_CHARSET);
             BufferedReader in = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.US_ASCII)); // NOPMD
-
-            String get = in.readLine();
-            if (get == null) {
-                sendInternalError(out, null);
-                return;
-            }
-            Logging.info("RemoteControl received: " + get);
-
-            StringTokenizer st = new StringTokenizer(get);
-            if (!st.hasMoreTokens()) {
-                sendInternalError(out, null);
-                return;
-            }
-            String method = st.nextToken();
-            if (!st.hasMoreTokens()) {
-                sendInternalError(out, null);
-                return;
-            }
-            String url = st.nextToken();
-
-            if (!"GET".equals(method)) {
-                sendNotImplemented(out);
-                return;
-            }
-
-            int questionPos = url.indexOf('?');
-
-            String command = questionPos < 0 ? url : url.substring(0, questionPos);
-
-            Map<String, String> headers = new HashMap<>();
-            int k = 0;
-            int maxHeaders = 20;
-            while (k < maxHeaders) {
-                get = in.readLine();
-                if (get == null) break;
-                k++;
-                String[] h = get.split(": ", 2);
-                if (h.length == 2) {
-                    headers.put(h[0], h[1]);
-                } else break;
-            }
-
-            // Who sent the request: trying our best to detect
-            // not from localhost => sender = IP
-            // from localhost: sender = referer header, if exists
-            String sender = null;
-
-            if (!request.getInetAddress().isLoopbackAddress()) {
-                sender = request.getInetAddress().getHostAddress();
-            } else {
-                String ref = headers.get("Referer");
-                Pattern r = Pattern.compile("(https?://)?([^/]*)");
-                if (ref != null) {
-                    Matcher m = r.matcher(ref);
-                    if (m.find()) {
-                        sender = m.group(2);
+            // do not let idle connections block a thread of the pool
+            request.setSoTimeout(KEEP_ALIVE_TIMEOUT.get());
+            int count = 0;
+            do {
+                String get = in.readLine();
+                if (get == null) {
+                    if (count == 0) {
+                        sendInternalError(out, null);
                     }
+                    return;
                 }
-                if (sender == null) {
-                    sender = "localhost";
-                }
-            }
-
-            // find a handler for this command
-            Class<? extends RequestHandler> handlerClass = handlers.get(command);
-            if (handlerClass == null) {
-                String usage = getUsageAsHtml();
-                String websiteDoc = HelpUtil.getWikiBaseHelpUrl() +"/Help/Preferences/RemoteControl";
-                String help = "No command specified! The following commands are available:<ul>" + usage
-                        + "</ul>" + "See <a href=\""+websiteDoc+"\">"+websiteDoc+"</a> for complete documentation.";
-                sendErrorHtml(out, 400, "Bad Request", help);
-            } else {
-                // create handler object
-                RequestHandler handler = handlerClass.getConstructor().newInstance();
-                try {
-                    handler.setCommand(command);
-                    handler.setUrl(url);
-                    handler.setSender(sender);
-                    handler.handle();
-                    sendHeader(out, "200 OK", handler.getContentType(), false);
-                    out.write("Content-length: " + handler.getContent().length()
-                            + "\r\n");
-                    out.write("\r\n");
-                    out.write(handler.getContent());
-                    out.flush();
-                } catch (RequestHandlerOsmApiException ex) {
-                    Logging.debug(ex);
-                    sendBadGateway(out, ex.getMessage());
-                } catch (RequestHandlerErrorException ex) {
-                    Logging.debug(ex);
-                    sendInternalError(out, ex.getMessage());
-                } catch (RequestHandlerBadRequestException ex) {
-                    Logging.debug(ex);
-                    sendBadRequest(out, ex.getMessage());
-                } catch (RequestHandlerForbiddenException ex) {
-                    Logging.debug(ex);
-                    sendForbidden(out, ex.getMessage());
-                }
-            }
+                count++;
+                keepAlive = false;
+                handleRequest(get, in, out, count < MAX_REQUESTS_PER_CONNECTION);
+            } while (keepAlive);
+        } catch (SocketTimeoutException e) {
+            Logging.trace(e);
         } catch (IOException ioe) {
             Logging.debug(Logging.getErrorMessage(ioe));
         } catch (ReflectiveOperationException e) {
             Logging.error(e);
             try {
+                keepAlive = false;
                 sendInternalError(out, e.getMessage());
             } catch (IOException e1) {
                 Logging.warn(e1);
@@ -302,19 +271,132 @@ public class RequestProcessor extends Thread {
         }
     }
 
-    private static void sendError(Writer out, int errorCode, String errorName, String help) throws IOException {
+    /**
+     * Processes a single request and sends the response.
+     * @param get the request line
+     * @param in the reader of the connection, positioned after the request line
+     * @param out the writer of the connection
+     * @param mayKeepAlive if the connection may be kept open after this request
+     * @throws IOException if an I/O error occurs
+     * @throws ReflectiveOperationException if the request handler cannot be instantiated
+     */
+    private void handleRequest(String get, BufferedReader in, Writer out, boolean mayKeepAlive)
+            throws IOException, ReflectiveOperationException {
+        Logging.info("RemoteControl received: " + get);
+
+        StringTokenizer st = new StringTokenizer(get);
+        if (!st.hasMoreTokens()) {
+            sendInternalError(out, null);
+            return;
+        }
+        String method = st.nextToken();
+        if (!st.hasMoreTokens()) {
+            sendInternalError(out, null);
+            return;
+        }
+        String url = st.nextToken();
+        String version = st.hasMoreTokens() ? st.nextToken() : "HTTP/1.0";
+
+        if (!"GET".equals(method)) {
+            sendNotImplemented(out);
+            return;
+        }
+
+        int questionPos = url.indexOf('?');
+
+        String command = questionPos < 0 ? url : url.substring(0, questionPos);
+
+        Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        boolean headersComplete = false;
+        for (int k = 0; k < MAX_HEADERS; k++) {
+            String header = in.readLine();
+            if (header == null) break;
+            if (header.isEmpty()) {
+                headersComplete = true;
+                break;
+            }
+            String[] h = header.split(": ", 2);
+            if (h.length == 2) {
+                headers.put(h[0], h[1]);
+            }
+        }
+        // close the connection when other connections are waiting for a thread
+        keepAlive = mayKeepAlive && headersComplete && isKeepAliveRequested(version, headers.get("Connection"))
+                && !hasQueuedConnections();
+
+        // Who sent the request: trying our best to detect
+        // not from localhost => sender = IP
+        // from localhost: sender = referer header, if exists
+        String sender = null;
+
+        if (!request.getInetAddress().isLoopbackAddress()) {
+            sender = request.getInetAddress().getHostAddress();
+        } else {
+            String ref = headers.get("Referer");
+            Pattern r = Pattern.compile("(https?://)?([^/]*)");
+            if (ref != null) {
+                Matcher m = r.matcher(ref);
+                if (m.find()) {
+                    sender = m.group(2);
+                }
+            }
+            if (sender == null) {
+                sender = "localhost";
+            }
+        }
+
+        // find a handler for this command
+        Class<? extends RequestHandler> handlerClass = handlers.get(command);
+        if (handlerClass == null) {
+            String usage = getUsageAsHtml();
+            String websiteDoc = HelpUtil.getWikiBaseHelpUrl() +"/Help/Preferences/RemoteControl";
+            String help = "No command specified! The following commands are available:<ul>" + usage
+                    + "</ul>" + "See <a href=\""+websiteDoc+"\">"+websiteDoc+"</a> for complete documentation.";
+            sendErrorHtml(out, 400, "Bad Request", help);
+        } else {
+            // create handler object
+            RequestHandler handler = handlerClass.getConstructor().newInstance();
+            try {
+                handler.setCommand(command);
+                handler.setUrl(url);
+                handler.setSender(sender);
+                handler.handle();
+                sendResponse(out, "200 OK", handler.getContentType(), handler.getContent());
+            } catch (RequestHandlerOsmApiException ex) {
+                Logging.debug(ex);
+                sendBadGateway(out, ex.getMessage());
+            } catch (RequestHandlerErrorException ex) {
+                Logging.debug(ex);
+                sendInternalError(out, ex.getMessage());
+            } catch (RequestHandlerBadRequestException ex) {
+                Logging.debug(ex);
+                sendBadRequest(out, ex.getMessage());
+            } catch (RequestHandlerForbiddenException ex) {
+                Logging.debug(ex);
+                sendForbidden(out, ex.getMessage());
+            }
+        }
+    }
+
+    private static boolean isKeepAliveRequested(String version, String connection) {
+        String value = connection == null ? "" : connection.toLowerCase(Locale.ENGLISH);
+        if ("HTTP/1.0".equals(version)) {
+            return value.contains("keep-alive");
+        }
+        return !value.contains("close");
+    }
+
+    private void sendError(Writer out, int errorCode, String errorName, String help) throws IOException {
         sendErrorHtml(out, errorCode, errorName, help == null ? "" : "<p>"+Utils.escapeReservedCharactersHTML(help) + "</p>");
     }
 
-    private static void sendErrorHtml(Writer out, int errorCode, String errorName, String helpHtml) throws IOException {
-        sendHeader(out, errorCode + " " + errorName, "text/html", true);
-        out.write(String.format(
+    private void sendErrorHtml(Writer out, int errorCode, String errorName, String helpHtml) throws IOException {
+        sendResponse(out, errorCode + " " + errorName, "text/html", String.format(
                 RESPONSE_TEMPLATE,
                 "<title>" + errorName + "</title>",
                 "<h1>HTTP Error " + errorCode + ": " + errorName + "</h1>" +
                 helpHtml
         ));
-        out.flush();
     }
 
     /**
@@ -327,7 +409,7 @@ public class RequestProcessor extends Thread {
      * @throws IOException
      *             If the error can not be written
      */
-    private static void sendInternalError(Writer out, String help) throws IOException {
+    private void sendInternalError(Writer out, String help) throws IOException {
         sendError(out, 500, "Internal Server Error", help);
     }
 
@@ -339,7 +421,7 @@ public class RequestProcessor extends Thread {
      * @throws IOException
      *             If the error can not be written
      */
-    private static void sendNotImplemented(Writer out) throws IOException {
+    private void sendNotImplemented(Writer out) throws IOException {
         sendError(out, 501, "Not Implemented", null);
     }
 
@@ -353,7 +435,7 @@ public class RequestProcessor extends Thread {
      * @throws IOException
      *             If the error can not be written
      */
-    private static void sendBadGateway(Writer out, String help) throws IOException {
+    private void sendBadGateway(Writer out, String help) throws IOException {
         sendError(out, 502, "Bad Gateway", help);
     }
 
@@ -367,7 +449,7 @@ public class RequestProcessor extends Thread {
      * @throws IOException
      *             If the error can not be written
      */
-    private static void sendForbidden(Writer out, String help) throws IOException {
+    private void sendForbidden(Writer out, String help) throws IOException {
         sendError(out, 403, "Forbidden", help);
     }
 
@@ -378,12 +460,12 @@ public class RequestProcessor extends Thread {
      * @param help Optional help content to display, can be null
      * @throws IOException If the error can not be written
      */
-    private static void sendBadRequest(Writer out, String help) throws IOException {
+    private void sendBadRequest(Writer out, String help) throws IOException {
         sendError(out, 400, "Bad Request", help);
     }
 
     /**
-     * Send common HTTP headers to the client.
+     * Send a complete response to the client.
      *
      * @param out
      *            The Writer
@@ -391,20 +473,22 @@ public class RequestProcessor extends Thread {
      *            The status string ("200 OK", "500", etc)
      * @param contentType
      *            The content type of the data sent
-     * @param endHeaders
-     *            If true, adds a new line, ending the headers.
+     * @param content
+     *            The content
      * @throws IOException
      *             When error
      */
-    private static void sendHeader(Writer out, String status, String contentType,
-            boolean endHeaders) throws IOException {
+    private void sendResponse(Writer out, String status, String contentType, String content) throws IOException {
         out.write("HTTP/1.1 " + status + "\r\n");
         out.write("Date: " + new Date() + "\r\n");
         out.write("Server: " + JOSM_REMOTE_CONTROL + "\r\n");
         out.write("Content-type: " + contentType + "; charset=" + RESPONSE_CHARSET.name().toLowerCase(Locale.ENGLISH) + "\r\n");
+        out.write("Content-length: " + content.getBytes(RESPONSE_CHARSET).length + "\r\n");
+        out.write("Connection: " + (keepAlive ? "keep-alive" : "close") + "\r\n");
         out.write("Access-Control-Allow-Origin: *\r\n");
-        if (endHeaders)
-            out.write("\r\n");
+        out.write("\r\n");
+        out.write(content);
+        out.flush();
     }
 
     /**
@@ -3,9 +3,17 @@ package org.openstreetmap.josm.io.remotecontrol.handler;
 
 import static org.openstreetmap.josm.tools.I18n.tr;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
@@ -13,6 +21,7 @@ import java.util.stream.Collectors;
 import org.openstreetmap.josm.data.osm.DataSet;
 import org.openstreetmap.josm.data.osm.PrimitiveId;
 import org.openstreetmap.josm.data.osm.SimplePrimitiveId;
+import org.openstreetmap.josm.data.preferences.BooleanProperty;
 import org.openstreetmap.josm.gui.MainApplication;
 import org.openstreetmap.josm.gui.io.DownloadPrimitivesWithReferrersTask;
 import org.openstreetmap.josm.gui.util.GuiHelper;
@@ -24,6 +33,9 @@ import org.openstreetmap.josm.tools.Logging;
  * Loads OSM primitives using their ID
  * similar to the "Download object" dialog (@see DownloadPrimitiveAction}.
  * For instance, {@code /load_object?objects=n1,w2,r3[&new_layer=false&relation_members=true]}.
+ * <p>
+ * Requests received while a download with the same options is waiting for its turn are merged into this download,
+ * unless they ask for a new layer. A download which has already started is not changed.
  */
 public class LoadObjectHandler extends RequestHandler {
 
@@ -32,6 +44,12 @@ public class LoadObjectHandler extends RequestHandler {
      */
     public static final String command = "load_object";
 
+    /** preference to merge the objects of requests received while a download is waiting into this download */
+    public static final BooleanProperty MERGE_REQUESTS = new BooleanProperty("remotecontrol.load_object.merge", true);
+
+    /** The downloads waiting for {@link MainApplication#worker}, by download options */
+    private static final Map<List<Object>, Batch> PENDING = new HashMap<>();
+
     private final List<PrimitiveId> ps = new LinkedList<>();
 
     @Override
@@ -67,17 +85,18 @@ public class LoadObjectHandler extends RequestHandler {
             final boolean newLayer = getDownloadParams().isNewLayer();
             final boolean relationMembers = Boolean.parseBoolean(args.get("relation_members"));
             final boolean referrers = Boolean.parseBoolean(args.get("referrers"));
-            final DownloadPrimitivesWithReferrersTask task = new DownloadPrimitivesWithReferrersTask(
-                    newLayer, ps, referrers, relationMembers, args.get("layer_name"), null);
+            final Batch batch = Batch.enqueue(ps, newLayer, referrers, relationMembers, args.get("layer_name"));
             try {
-                MainApplication.worker.submit(task).get(OSM_DOWNLOAD_TIMEOUT.get(), TimeUnit.SECONDS);
+                batch.future.get(OSM_DOWNLOAD_TIMEOUT.get(), TimeUnit.SECONDS);
             } catch (InterruptedException | ExecutionException | TimeoutException e) {
                 Logging.error(e);
             }
+            final Set<PrimitiveId> requested = new HashSet<>(ps);
             MainApplication.worker.submit(() -> {
-                final List<PrimitiveId> downloaded = task.getDownloadedId();
+                final List<PrimitiveId> downloaded = batch.task != null ? batch.task.getDownloadedId() : null;
                 final DataSet ds = MainApplication.getLayerManager().getEditDataSet();
                 if (downloaded != null) {
+                    downloaded.retainAll(requested);
                     GuiHelper.runInEDT(() -> ds.setSelected(downloaded));
                     AddTagsDialog.addTags(args, sender, downloaded.stream().map(ds::getPrimitiveById).collect(Collectors.toSet()));
                 }
@@ -103,7 +122,13 @@ public class LoadObjectHandler extends RequestHandler {
         for (String i : splitArg("objects", SPLITTER_COMMA)) {
             if (!i.isEmpty()) {
                 try {
-                    ps.add(SimplePrimitiveId.fromString(i));
+                    final PrimitiveId id = SimplePrimitiveId.fromString(i);
+                    // new objects cannot be downloaded, and would make the whole (merged) download fail
+                    if (id.isNew()) {
+                        Logging.warn("RemoteControl: new object '"+i+"' ignored.");
+                    } else {
+                        ps.add(id);
+                    }
                 } catch (IllegalArgumentException e) {
                     Logging.log(Logging.LEVEL_WARN, "RemoteControl: invalid selection '"+i+"' ignored.", e);
                 }
@@ -113,4 +138,67 @@ public class LoadObjectHandler extends RequestHandler {
             throw new RequestHandlerBadRequestException(tr("No valid object identifier has been provided"));
         }
     }
+
+    /**
+     * A download of the objects of one or several requests.
+     */
+    private static final class Batch implements Runnable {
+        private final List<Object> key;
+        private final boolean newLayer;
+        private final boolean referrers;
+        private final boolean relationMembers;
+        private final String layerName;
+        /** The objects to download, guarded by {@link #PENDING} */
+        private final Set<PrimitiveId> ids = new LinkedHashSet<>();
+        private Future<?> future;
+        /** The download, set in {@link MainApplication#worker} */
+        private DownloadPrimitivesWithReferrersTask task;
+
+        private Batch(List<Object> key, boolean newLayer, boolean referrers, boolean relationMembers, String layerName) {
+            this.key = key;
+            this.newLayer = newLayer;
+            this.referrers = referrers;
+            this.relationMembers = relationMembers;
+            this.layerName = layerName;
+        }
+
+        /**
+         * Adds objects to the waiting download with the same options, or to a new download.
+         * @param ids the objects to download
+         * @param newLayer if the data should be downloaded into a new layer, such downloads are never merged
+         * @param referrers if the referrers of the objects should be downloaded as well
+         * @param relationMembers if the members of relations should be downloaded as well
+         * @param layerName the name to use for the new layer, can be null
+         * @return the download of the objects
+         */
+        static Batch enqueue(List<PrimitiveId> ids, boolean newLayer, boolean referrers, boolean relationMembers, String layerName) {
+            final List<Object> key = newLayer || !MERGE_REQUESTS.get() ? null : Arrays.asList(referrers, relationMembers, layerName);
+            synchronized (PENDING) {
+                Batch batch = key == null ? null : PENDING.get(key);
+                if (batch == null) {
+                    batch = new Batch(key, newLayer, referrers, relationMembers, layerName);
+                    if (key != null) {
+                        PENDING.put(key, batch);
+                    }
+                    batch.future = MainApplication.worker.submit(batch);
+                }
+                batch.ids.addAll(ids);
+                return batch;
+            }
+        }
+
+        @Override
+        public void run() {
+            final List<PrimitiveId> toDownload;
+            synchronized (PENDING) {
+                // requests received from now on are merged into the next download
+                if (key != null) {
+                    PENDING.remove(key, this);
+                }
+                toDownload = new ArrayList<>(ids);
+            }
+            task = new DownloadPrimitivesWithReferrersTask(newLayer, toDownload, referrers, relationMembers, layerName, null);
+            task.run();
+        }
+    }
 }
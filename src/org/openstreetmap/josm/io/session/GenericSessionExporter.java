@@ -49,6 +49,8 @@ public abstract class GenericSessionExporter<T extends Layer> extends AbstractSe
 
     private final JRadioButton link;
     private final JRadioButton include;
+    /** The state of {@link #include}, read on the event dispatch thread so that the layer can be exported from another thread */
+    private volatile boolean includeData;
 
     /**
      * Constructs a new {@code GenericSessionExporter}.
@@ -66,6 +68,7 @@ public abstract class GenericSessionExporter<T extends Layer> extends AbstractSe
         this.link = new JRadioButton(tr("local file"));
         /* I18n: Include OSM/GPX data in session file */
         this.include = new JRadioButton(tr("include"));
+        this.include.addItemListener(e -> includeData = include.isSelected());
     }
 
     private class LayerSaveAction extends AbstractAction {
@@ -192,10 +195,12 @@ public abstract class GenericSessionExporter<T extends Layer> extends AbstractSe
             String zipPath = "layers/" + String.format("%02d", support.getLayerIndex()) + "/data." + extension;
             file.appendChild(support.createTextNode(zipPath));
             addDataFile(support.getOutputStreamZip(zipPath));
-            layer.setAssociatedFile(null);
-            if (layer instanceof AbstractModifiableLayer) {
-                ((AbstractModifiableLayer) layer).onPostSaveToFile();
-            }
+            GuiHelper.runInEDT(() -> {
+                layer.setAssociatedFile(null);
+                if (layer instanceof AbstractModifiableLayer) {
+                    ((AbstractModifiableLayer) layer).onPostSaveToFile();
+                }
+            });
         } else {
             try {
                 File f = layer.getAssociatedFile();
@@ -211,7 +216,7 @@ public abstract class GenericSessionExporter<T extends Layer> extends AbstractSe
 
     @Override
     public boolean requiresZip() {
-        if (include.isSelected()) {
+        if (includeData) {
             return true;
         }
         for (PluginSessionExporter exporter : PluginHandler.load(PluginSessionExporter.class)) {
@@ -28,6 +28,8 @@ public class GpxTracksSessionExporter extends GenericSessionExporter<GpxLayer> {
 
     private Instant metaTime;
     private JCheckBox chkMarkers;
+    /** The state of {@link #chkMarkers}, read on the event dispatch thread so that the layer can be exported from another thread */
+    private volatile boolean includeMarkers = true;
     private boolean hasMarkerLayer;
 
     /**
@@ -56,6 +58,7 @@ public class GpxTracksSessionExporter extends GenericSessionExporter<GpxLayer> {
             chkMarkers = new JCheckBox();
             chkMarkers.setText(tr("include marker layer \"{0}\"", layer.getLinkedMarkerLayer().getName()));
             chkMarkers.setSelected(true);
+            chkMarkers.addItemListener(e -> includeMarkers = chkMarkers.isSelected());
             p.add(chkMarkers, GBC.eol().insets(12, 0, 0, 5));
         }
         return p;
@@ -64,7 +67,7 @@ public class GpxTracksSessionExporter extends GenericSessionExporter<GpxLayer> {
     @Override
     public Element export(ExportSupport support) throws IOException {
         Element el = super.export(support);
-        if (hasMarkerLayer && (chkMarkers == null || chkMarkers.isSelected())) {
+        if (hasMarkerLayer && includeMarkers) {
             Element markerEl = support.createElement("markerLayer");
             markerEl.setAttribute("index", Integer.toString(support.getLayerIndexOf(layer.getLinkedMarkerLayer())));
             markerEl.setAttribute("name", layer.getLinkedMarkerLayer().getName());
@@ -77,6 +80,11 @@ public class GpxTracksSessionExporter extends GenericSessionExporter<GpxLayer> {
         return el;
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     @Override
     // The new closable resources in this method will close the input OutputStream
     @SuppressWarnings({"squid:S2095", "PMD.CloseResource"})
@@ -24,6 +24,11 @@ import org.w3c.dom.NodeList;
  */
 public class GpxTracksSessionImporter implements SessionLayerImporter {
 
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     @Override
     public Layer load(Element elem, SessionReader.ImportSupport support, ProgressMonitor progressMonitor)
             throws IOException, IllegalDataException {
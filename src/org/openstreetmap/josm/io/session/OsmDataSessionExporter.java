@@ -26,6 +26,11 @@ public class OsmDataSessionExporter extends GenericSessionExporter<OsmDataLayer>
         super(layer, "osm-data", "0.1", "osm");
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     @Override
     protected void addDataFile(OutputStream out) {
         exportData(layer.data, out);
@@ -52,4 +52,18 @@ public interface SessionLayerExporter {
      * @throws IOException  if any I/O error occurs
      */
     Element export(ExportSupport support) throws IOException;
+
+    /**
+     * Determines if this exporter is thread-safe. With {@link SessionWriter.SessionWriterFlags#PARALLEL}, the
+     * {@link #export(ExportSupport)} method of a thread-safe exporter runs on a worker thread, at the same time as other exporters.
+     * <p>
+     * Thread-safe exporters must not access Swing components nor wait for the event dispatch thread during the export,
+     * since the session may be saved from it. The state of the export panel must be read before.
+     *
+     * @return {@code true} if this exporter is thread-safe
+     * @since xxx
+     */
+    default boolean isThreadSafe() {
+        return false;
+    }
 }
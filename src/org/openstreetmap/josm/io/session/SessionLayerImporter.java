@@ -27,5 +27,19 @@ public interface SessionLayerImporter {
      * @throws IllegalDataException if invalid data is read
      */
     Layer load(Element elem, ImportSupport support, ProgressMonitor progressMonitor) throws IOException, IllegalDataException;
+
+    /**
+     * Determines if this importer is thread-safe. In {@linkplain SessionReader#setParallel(boolean) parallel} mode,
+     * the {@link #load(Element, ImportSupport, ProgressMonitor)} method of a thread-safe importer runs on a worker thread,
+     * at the same time as other importers.
+     * <p>
+     * Thread-safe importers must not access Swing components nor wait for the event dispatch thread while loading.
+     *
+     * @return {@code true} if this importer is thread-safe
+     * @since xxx
+     */
+    default boolean isThreadSafe() {
+        return false;
+    }
 }
 
@@ -20,10 +20,24 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.zip.ZipEntry;
@@ -166,6 +180,8 @@ public class SessionReader {
     private final List<Runnable> postLoadTasks = new ArrayList<>();
     private SessionViewportData viewport;
     private SessionProjectionChoiceData projectionChoice;
+    private boolean parallel;
+    private Consumer<Layer> layerConsumer;
 
     static {
         registerSessionLayerImporter("osm-data", OsmDataSessionImporter.class);
@@ -247,6 +263,26 @@ public class SessionReader {
         return projectionChoice;
     }
 
+    /**
+     * Sets whether the layers are loaded in parallel. A layer is still loaded after the layers it depends on.
+     * @param parallel {@code true} to load the layers in parallel
+     * @since xxx
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Sets a consumer which gets the layers as soon as they have been loaded, before the whole session has been loaded.
+     * The layers are passed in the order of {@link #getLayers()}, once all layers before them have been loaded,
+     * from the thread which has loaded them.
+     * @param layerConsumer the consumer of the loaded layers, can be {@code null}
+     * @since xxx
+     */
+    public void setLayerConsumer(Consumer<Layer> layerConsumer) {
+        this.layerConsumer = layerConsumer;
+    }
+
     /**
      * Returns whether plugins loaded additonal data
      * @return {@code true} if at least one plugin loaded additional data
@@ -291,7 +327,9 @@ public class SessionReader {
          * @param task task to run in EDT
          */
         public void addPostLayersTask(Runnable task) {
-            postLoadTasks.add(task);
+            synchronized (postLoadTasks) {
+                postLoadTasks.add(task);
+            }
         }
 
         /**
@@ -548,23 +586,162 @@ public class SessionReader {
         }
 
         List<Integer> sorted = Utils.topologicalSort(deps);
-        final Map<Integer, Layer> layersMap = new TreeMap<>(Collections.reverseOrder());
-        final Map<Integer, SessionLayerImporter> importers = new HashMap<>();
-
+        LayerLoader loader = new LayerLoader(elems, deps, sorted, progressMonitor);
         progressMonitor.setTicksCount(sorted.size());
-        LAYER: for (int idx: sorted) {
+        if (parallel && sorted.size() > 1) {
+            if (!loader.loadInParallel())
+                return;
+        } else {
+            for (int idx: sorted) {
+                if (!loader.load(idx))
+                    return;
+                loader.loaded(idx);
+                if (progressMonitor.isCanceled())
+                    return;
+                progressMonitor.worked(1);
+            }
+        }
+
+        layers = new ArrayList<>();
+        for (Entry<Integer, Layer> entry : loader.layersMap.entrySet()) {
+            Layer layer = entry.getValue();
+            if (layer != null) {
+                layers.add(layer);
+            }
+        }
+    }
+
+    /**
+     * Loads the layers of a session, in the order of their dependencies.
+     */
+    private final class LayerLoader {
+        private final Map<Integer, Element> elems;
+        private final MultiMap<Integer, Integer> deps;
+        private final ProgressMonitor progressMonitor;
+        private final List<Integer> sorted;
+        private final Map<Integer, Layer> layersMap = Collections.synchronizedMap(new TreeMap<>(Collections.reverseOrder()));
+        private final Map<Integer, SessionLayerImporter> importers = new ConcurrentHashMap<>();
+        /** The indexes of the layers which have not been loaded yet */
+        private final NavigableSet<Integer> pending;
+        /** The indexes of the layers which have been passed to the {@link #layerConsumer} */
+        private final Set<Integer> consumed = new HashSet<>();
+        private volatile boolean aborted;
+
+        LayerLoader(Map<Integer, Element> elems, MultiMap<Integer, Integer> deps, List<Integer> sorted, ProgressMonitor progressMonitor) {
+            this.elems = elems;
+            this.deps = deps;
+            this.progressMonitor = progressMonitor;
+            this.sorted = sorted;
+            this.pending = new TreeSet<>(sorted);
+        }
+
+        /**
+         * Loads the layers in parallel. Each layer is loaded as soon as the layers it depends on have been loaded.
+         * The {@linkplain SessionLayerImporter#isThreadSafe() thread-safe} importers run on a thread pool,
+         * the other ones one after another on the calling thread.
+         * @return {@code false} if loading has been canceled
+         * @throws IllegalDataException if invalid data is detected
+         */
+        boolean loadInParallel() throws IllegalDataException {
+            Set<Integer> threadSafe = sorted.stream().filter(this::isThreadSafe).collect(Collectors.toSet());
+            ExecutorService executor = Executors.newFixedThreadPool(
+                    Math.max(1, Math.min(threadSafe.size(), Runtime.getRuntime().availableProcessors())),
+                    Utils.newThreadFactory("session-reader-%d", Thread.NORM_PRIORITY));
+            BlockingQueue<Runnable> callerTasks = new LinkedBlockingQueue<>();
+            try {
+                Map<Integer, CompletableFuture<Boolean>> results = new LinkedHashMap<>();
+                for (int idx : sorted) {
+                    CompletableFuture<?>[] dependencies = deps.get(idx).stream()
+                            .map(results::get).filter(Objects::nonNull).toArray(CompletableFuture[]::new);
+                    results.put(idx, CompletableFuture.allOf(dependencies).thenApplyAsync(x -> {
+                        try {
+                            boolean done = !aborted && !progressMonitor.isCanceled() && load(idx);
+                            if (done) {
+                                loaded(idx);
+                            }
+                            return done;
+                        } catch (IllegalDataException e) {
+                            aborted = true;
+                            throw new CompletionException(e);
+                        } catch (RuntimeException e) {
+                            aborted = true;
+                            throw e;
+                        }
+                    }, threadSafe.contains(idx) ? executor : callerTasks::add));
+                }
+                runCallerTasks(CompletableFuture.allOf(results.values().toArray(new CompletableFuture[0])), callerTasks);
+                // wait for all layers, so that none of them is passed to the consumer once the session has been loaded
+                boolean result = true;
+                CompletionException failure = null;
+                for (CompletableFuture<Boolean> future : results.values()) {
+                    try {
+                        result &= future.join();
+                    } catch (CompletionException e) {
+                        aborted = true;
+                        failure = failure == null ? e : failure;
+                    }
+                }
+                if (failure != null) {
+                    if (failure.getCause() instanceof IllegalDataException) {
+                        throw (IllegalDataException) failure.getCause();
+                    } else if (failure.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) failure.getCause();
+                    }
+                    throw new JosmRuntimeException(failure.getCause());
+                }
+                return result && !progressMonitor.isCanceled();
+            } finally {
+                executor.shutdown();
+            }
+        }
+
+        private boolean isThreadSafe(int idx) {
+            Element e = elems.get(idx);
+            SessionLayerImporter imp = e != null ? getSessionLayerImporter(e.getAttribute("type")) : null;
+            return imp != null && imp.isThreadSafe();
+        }
+
+        /**
+         * Runs the loading tasks of the importers which are not thread-safe, until all layers have been loaded.
+         * @param all the future completed once all layers have been loaded
+         * @param callerTasks the tasks to run on the calling thread
+         */
+        private void runCallerTasks(CompletableFuture<?> all, BlockingQueue<Runnable> callerTasks) {
+            all.whenComplete((x, t) -> callerTasks.add(() -> { }));
+            boolean interrupted = false;
+            while (!all.isDone()) {
+                try {
+                    callerTasks.take().run();
+                } catch (InterruptedException e) {
+                    // the remaining tasks still have to run to complete their futures, they skip loading once aborted
+                    interrupted = true;
+                    aborted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Loads a layer.
+         * @param idx the layer index
+         * @return {@code false} if loading has been canceled
+         * @throws IllegalDataException if invalid data is detected
+         */
+        boolean load(int idx) throws IllegalDataException {
             Element e = elems.get(idx);
             if (e == null) {
                 error(tr("missing layer with index {0}", idx));
-                return;
+                return false;
             } else if (!e.hasAttribute("name")) {
                 error(tr("missing mandatory attribute ''name'' for element ''layer''"));
-                return;
+                return false;
             }
             String name = e.getAttribute("name");
             if (!e.hasAttribute("type")) {
                 error(tr("missing mandatory attribute ''type'' for element ''layer''"));
-                return;
+                return false;
             }
             String type = e.getAttribute("type");
             SessionLayerImporter imp = getSessionLayerImporter(type);
@@ -577,9 +754,9 @@ public class SessionReader {
                 );
                 if (dialog.isCancel()) {
                     progressMonitor.cancel();
-                    return;
+                    return false;
                 } else {
-                    continue;
+                    return true;
                 }
             } else if (imp != null) {
                 importers.put(idx, imp);
@@ -595,9 +772,9 @@ public class SessionReader {
                         );
                         if (dialog.isCancel()) {
                             progressMonitor.cancel();
-                            return;
+                            return false;
                         } else {
-                            continue LAYER;
+                            return true;
                         }
                     }
                     depsImp.add(new LayerDependency(d, layersMap.get(d), dImp));
@@ -626,9 +803,9 @@ public class SessionReader {
                         );
                         if (dialog.isCancel()) {
                             progressMonitor.cancel();
-                            return;
+                            return false;
                         } else {
-                            continue;
+                            return true;
                         }
                     }
                 }
@@ -645,19 +822,26 @@ public class SessionReader {
                         setLayerAttributes(subLayer, subElement);
                     });
                 }
-
             }
-            if (progressMonitor.isCanceled())
-                return;
-            progressMonitor.worked(1);
+            return true;
         }
 
-
-        layers = new ArrayList<>();
-        for (Entry<Integer, Layer> entry : layersMap.entrySet()) {
-            Layer layer = entry.getValue();
-            if (layer != null) {
-                layers.add(layer);
+        /**
+         * Marks a layer as loaded, and passes the layers which are now available in order to the {@link #layerConsumer}.
+         * @param idx the layer index
+         */
+        void loaded(int idx) {
+            synchronized (layersMap) {
+                pending.remove(idx);
+                if (layerConsumer == null)
+                    return;
+                for (Entry<Integer, Layer> entry : layersMap.entrySet()) {
+                    if (!pending.isEmpty() && entry.getKey() <= pending.last())
+                        break;
+                    if (consumed.add(entry.getKey()) && entry.getValue() != null) {
+                        layerConsumer.accept(entry.getValue());
+                    }
+                }
             }
         }
     }
@@ -4,10 +4,12 @@ package org.openstreetmap.josm.io.session;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.EnumSet;
 import java.util.HashMap;
@@ -16,6 +18,11 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
@@ -72,7 +79,13 @@ public class SessionWriter {
         /**
          * Use if there are plugins that want to save information
          */
-        SAVE_PLUGIN_INFORMATION
+        SAVE_PLUGIN_INFORMATION,
+        /**
+         * Use to run the {@linkplain SessionLayerExporter#isThreadSafe() thread-safe} layer exporters in parallel,
+         * each one writing its data to its own zip entry
+         * @since xxx
+         */
+        PARALLEL
     }
 
     private static final Map<Class<? extends Layer>, Class<? extends SessionLayerExporter>> sessionLayerExporters = new HashMap<>();
@@ -83,8 +96,13 @@ public class SessionWriter {
     private final MultiMap<Layer, Layer> dependencies;
     private final boolean zip;
     private final boolean plugins;
+    private final boolean parallel;
 
     private ZipOutputStream zipOut;
+    /** The exporter currently writing into {@link #zipOut}, in parallel mode */
+    private ExportSupport archiveOwner;
+    /** The entries which have been written to temporary files while the archive was busy, in parallel mode */
+    private final List<SpooledEntry> spooled = new ArrayList<>();
 
     static {
         registerSessionLayerExporter(OsmDataLayer.class, OsmDataSessionExporter.class);
@@ -161,6 +179,7 @@ public class SessionWriter {
                 EnumSet.of(flags[0], flags);
         this.zip = flagSet.contains(SessionWriterFlags.IS_ZIP);
         this.plugins = flagSet.contains(SessionWriterFlags.SAVE_PLUGIN_INFORMATION);
+        this.parallel = flagSet.contains(SessionWriterFlags.PARALLEL);
     }
 
     /**
@@ -170,6 +189,7 @@ public class SessionWriter {
     public class ExportSupport {
         private final Document doc;
         private final int layerIndex;
+        private SpooledEntry spooledEntry;
 
         /**
          * Constructs a new {@code ExportSupport}.
@@ -229,11 +249,36 @@ public class SessionWriter {
          */
         public OutputStream getOutputStreamZip(String zipPath) throws IOException {
             if (!isZip()) throw new JosmRuntimeException("not zip");
+            if (parallel) {
+                closeEntry();
+                if (!acquireArchive(this)) {
+                    // another exporter is writing into the archive, the entry will be copied to it later
+                    spooledEntry = new SpooledEntry(zipPath);
+                    return spooledEntry.out;
+                }
+            }
             ZipEntry entry = new ZipEntry(zipPath);
             zipOut.putNextEntry(entry);
             return zipOut;
         }
 
+        /**
+         * Finishes the entry written by this exporter in parallel mode, and lets the next exporter write into the archive.
+         * @throws IOException if any I/O error occurs
+         */
+        private void closeEntry() throws IOException {
+            if (spooledEntry != null) {
+                spooledEntry.out.close();
+                addSpooledEntry(spooledEntry);
+                spooledEntry = null;
+                if (acquireArchive(this)) {
+                    releaseArchive();
+                }
+            } else if (isArchiveOwner(this)) {
+                releaseArchive();
+            }
+        }
+
         /**
          * Check, if the session is exported as a zip archive.
          *
@@ -275,11 +320,11 @@ public class SessionWriter {
         }
         root.appendChild(layersEl);
 
+        boolean anyThreadSafe = layers.stream().anyMatch(layer -> exporters.get(layer).isThreadSafe());
+        List<Element> elements = parallel && anyThreadSafe && layers.size() > 1 ? exportLayersInParallel(builder, doc) : exportLayers(doc);
         for (int index = 0; index < layers.size(); ++index) {
             Layer layer = layers.get(index);
-            SessionLayerExporter exporter = exporters.get(layer);
-            ExportSupport support = new ExportSupport(doc, index+1);
-            Element el = exporter.export(support);
+            Element el = elements.get(index);
             if (el == null) continue;
             el.setAttribute("index", Integer.toString(index+1));
             el.setAttribute("name", layer.getName());
@@ -305,6 +350,151 @@ public class SessionWriter {
         return doc;
     }
 
+    private List<Element> exportLayers(Document doc) throws IOException {
+        List<Element> elements = new ArrayList<>(layers.size());
+        for (int index = 0; index < layers.size(); ++index) {
+            SessionLayerExporter exporter = exporters.get(layers.get(index));
+            elements.add(exporter.export(new ExportSupport(doc, index+1)));
+        }
+        return elements;
+    }
+
+    /**
+     * Runs the thread-safe layer exporters in parallel, while the other ones run one after another on the calling thread.
+     * Each exporter builds its element in its own document, and writes its data straight into the archive
+     * if no other exporter is writing into it, or to a temporary file otherwise.
+     * @param builder document builder
+     * @param doc session document, the elements are imported into it
+     * @return the exported elements, in the order of the layers
+     * @throws IOException if any I/O error occurs
+     */
+    private List<Element> exportLayersInParallel(DocumentBuilder builder, Document doc) throws IOException {
+        int threadSafe = (int) layers.stream().filter(layer -> exporters.get(layer).isThreadSafe()).count();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threadSafe, Runtime.getRuntime().availableProcessors()),
+                Utils.newThreadFactory("session-writer-%d", Thread.NORM_PRIORITY));
+        try {
+            List<Future<Element>> results = new ArrayList<>(layers.size());
+            List<FutureTask<Element>> sequential = new ArrayList<>();
+            for (int index = 0; index < layers.size(); ++index) {
+                SessionLayerExporter exporter = exporters.get(layers.get(index));
+                ExportSupport support = new ExportSupport(builder.newDocument(), index+1);
+                FutureTask<Element> task = new FutureTask<>(() -> {
+                    try {
+                        return exporter.export(support);
+                    } finally {
+                        support.closeEntry();
+                    }
+                });
+                if (exporter.isThreadSafe()) {
+                    executor.execute(task);
+                } else {
+                    sequential.add(task);
+                }
+                results.add(task);
+            }
+            sequential.forEach(FutureTask::run);
+            // wait for all exporters, so that none of them is still writing if one has failed
+            List<Element> elements = new ArrayList<>(layers.size());
+            ExecutionException failure = null;
+            for (Future<Element> result : results) {
+                try {
+                    Element el = result.get();
+                    elements.add(el == null ? null : (Element) doc.importNode(el, true));
+                } catch (ExecutionException e) {
+                    failure = failure == null ? e : failure;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            // an entry may have been spooled after the last exporter writing into the archive has released it
+            releaseArchive();
+            return elements;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new JosmRuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+            synchronized (this) {
+                spooled.forEach(SpooledEntry::delete);
+                spooled.clear();
+            }
+        }
+    }
+
+    private synchronized boolean acquireArchive(ExportSupport support) {
+        if (archiveOwner != null) {
+            return false;
+        }
+        archiveOwner = support;
+        return true;
+    }
+
+    private synchronized boolean isArchiveOwner(ExportSupport support) {
+        return archiveOwner == support;
+    }
+
+    private synchronized void addSpooledEntry(SpooledEntry entry) {
+        spooled.add(entry);
+    }
+
+    /**
+     * Copies the spooled entries into the archive, then lets the next exporter write into it.
+     * Must only be called by the owner of the archive.
+     * @throws IOException if any I/O error occurs
+     */
+    private void releaseArchive() throws IOException {
+        while (true) {
+            SpooledEntry entry;
+            synchronized (this) {
+                if (spooled.isEmpty()) {
+                    archiveOwner = null;
+                    return;
+                }
+                entry = spooled.remove(0);
+            }
+            entry.copyTo(zipOut);
+        }
+    }
+
+    /**
+     * A zip entry written to a temporary file, because another exporter was writing into the archive.
+     */
+    private static final class SpooledEntry {
+        private final String zipPath;
+        private final File file;
+        private final OutputStream out;
+
+        SpooledEntry(String zipPath) throws IOException {
+            this.zipPath = zipPath;
+            this.file = File.createTempFile("session_", ".tmp", Utils.getJosmTempDir());
+            this.out = new BufferedOutputStream(Files.newOutputStream(file.toPath()));
+        }
+
+        void copyTo(ZipOutputStream zipOut) throws IOException {
+            try {
+                zipOut.putNextEntry(new ZipEntry(zipPath));
+                Files.copy(file.toPath(), zipOut);
+            } finally {
+                delete();
+            }
+        }
+
+        void delete() {
+            Utils.close(out);
+            if (file.exists()) {
+                Utils.deleteFile(file);
+            }
+        }
+    }
+
     private static void writeViewPort(Element root) {
         Document doc = root.getOwnerDocument();
         Element viewportEl = doc.createElement("viewport");
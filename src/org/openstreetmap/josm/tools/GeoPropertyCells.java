@@ -0,0 +1,262 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.tools;
+
+import java.awt.geom.Area;
+import java.awt.geom.Rectangle2D;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.openstreetmap.josm.data.coor.ILatLon;
+import org.openstreetmap.josm.data.osm.BBox;
+
+/**
+ * Precomputed, immutable quadtree of the values of a {@link GeoProperty}, in a compact form.
+ * <p>
+ * The world is divided into cells like in {@link GeoPropertyIndex}. A cell has a value if the property is uniform
+ * within it, otherwise it is divided into four cells, up to a maximum level. The cells of the maximum level which
+ * are still not uniform are unknown, the property has to be looked up for them.
+ * <p>
+ * The tree is stored in an {@link IntBuffer}, so that it can be saved and memory-mapped. Each cell is an int:
+ * <ul>
+ * <li>{@code k >= 1}: the cell is divided, its four children are the cells {@code k} to {@code k + 3}
+ * (sw, nw, se, ne)</li>
+ * <li>{@code 0}: the value is unknown</li>
+ * <li>{@code -1 - i}: the value is the value {@code i}</li>
+ * </ul>
+ * The root cell is the cell {@code 0}, the children of a cell are after it. Lookups do not modify the tree, so they can be done concurrently.
+ *
+ * @param <T> the property (like land/water or nation)
+ * @since xxx
+ */
+public final class GeoPropertyCells<T> {
+
+    private static final int UNKNOWN = 0;
+    /** The values of boolean properties */
+    public static final List<Boolean> BOOLEAN_VALUES = Collections.unmodifiableList(Arrays.asList(Boolean.FALSE, Boolean.TRUE));
+
+    private final IntBuffer cells;
+    private final List<T> values;
+
+    /**
+     * Constructs a new {@code GeoPropertyCells}.
+     * @param cells the cells, as described in the class documentation
+     * @param values the possible values of the property
+     * @throws IllegalArgumentException if the cells are invalid
+     */
+    public GeoPropertyCells(IntBuffer cells, List<T> values) {
+        this.cells = Objects.requireNonNull(cells);
+        this.values = Objects.requireNonNull(values);
+        if (cells.limit() == 0) {
+            throw new IllegalArgumentException("No cells");
+        }
+        // check once, so that lookups cannot fail or loop: the children are always after their parent
+        for (int i = 0; i < cells.limit(); i++) {
+            int cell = cells.get(i);
+            if ((cell > 0 && (cell <= i || cell > cells.limit() - 4)) || cell < -values.size()) {
+                throw new IllegalArgumentException("Invalid cell " + i + ": " + cell);
+            }
+        }
+    }
+
+    /**
+     * Precomputes the cells of a property.
+     * @param <T> the property
+     * @param geoProp the property
+     * @param maxLevel the maximum level of the cells, the root being level 0
+     * @param values the possible values of the property
+     * @return the cells
+     * @throws IllegalArgumentException if the property returns a value which is not in {@code values}
+     */
+    public static <T> GeoPropertyCells<T> build(GeoProperty<T> geoProp, int maxLevel, List<T> values) {
+        Builder<T> builder = new Builder<>(geoProp, maxLevel, values);
+        int root = builder.build(0, -180, -90, 180, 90);
+        builder.cells[0] = root;
+        return new GeoPropertyCells<>(IntBuffer.wrap(Arrays.copyOf(builder.cells, builder.size)), values);
+    }
+
+    /**
+     * Precomputes the cells of a boolean property given by an area.
+     * This is much faster than {@link #build(GeoProperty, int, List)} with a {@link DefaultGeoProperty},
+     * since the area is clipped to the cells while they are divided.
+     * @param area the area where the property is {@code true}, in lat/lon coordinates
+     * @param maxLevel the maximum level of the cells, the root being level 0
+     * @return the cells, with the values {@code false} and {@code true}
+     */
+    public static GeoPropertyCells<Boolean> build(Area area, int maxLevel) {
+        Builder<Boolean> builder = new Builder<>(null, maxLevel, BOOLEAN_VALUES);
+        int root = builder.build(0, -180, -90, 180, 90, area);
+        builder.cells[0] = root;
+        return new GeoPropertyCells<>(IntBuffer.wrap(Arrays.copyOf(builder.cells, builder.size)), BOOLEAN_VALUES);
+    }
+
+    private static final class Builder<T> {
+        private final GeoProperty<T> geoProp;
+        private final int maxLevel;
+        private final List<T> values;
+        private int[] cells = new int[1024];
+        private int size = 1;
+
+        Builder(GeoProperty<T> geoProp, int maxLevel, List<T> values) {
+            this.geoProp = geoProp;
+            this.maxLevel = maxLevel;
+            this.values = values;
+        }
+
+        /**
+         * Computes a cell, and its children if needed.
+         * @return the cell, as described in the class documentation
+         */
+        int build(int level, double minLon, double minLat, double maxLon, double maxLat) {
+            T value = geoProp.get(new BBox(minLon, minLat, maxLon, maxLat));
+            if (value != null) {
+                int index = values.indexOf(value);
+                if (index < 0) {
+                    throw new IllegalArgumentException("Unexpected value: " + value);
+                }
+                return -1 - index;
+            }
+            if (level >= maxLevel) {
+                return UNKNOWN;
+            }
+            int first = addChildren();
+            double lon = (minLon + maxLon) / 2;
+            double lat = (minLat + maxLat) / 2;
+            // the array may be replaced while building the children
+            int sw = build(level + 1, minLon, minLat, lon, lat);
+            int nw = build(level + 1, minLon, lat, lon, maxLat);
+            int se = build(level + 1, lon, minLat, maxLon, lat);
+            int ne = build(level + 1, lon, lat, maxLon, maxLat);
+            setChildren(first, sw, nw, se, ne);
+            return first;
+        }
+
+        /**
+         * Computes a cell of a boolean property given by an area, and its children if needed.
+         * @param area the part of the area within the parent cell
+         * @return the cell, as described in the class documentation
+         */
+        int build(int level, double minLon, double minLat, double maxLon, double maxLat, Area area) {
+            Area cell = new Area(new Rectangle2D.Double(minLon, minLat, maxLon - minLon, maxLat - minLat));
+            Area clipped = new Area(cell);
+            clipped.intersect(area);
+            if (clipped.isEmpty()) {
+                return -1 - values.indexOf(Boolean.FALSE);
+            }
+            cell.subtract(clipped);
+            if (cell.isEmpty()) {
+                return -1 - values.indexOf(Boolean.TRUE);
+            }
+            if (level >= maxLevel) {
+                return UNKNOWN;
+            }
+            int first = addChildren();
+            double lon = (minLon + maxLon) / 2;
+            double lat = (minLat + maxLat) / 2;
+            // the array may be replaced while building the children
+            int sw = build(level + 1, minLon, minLat, lon, lat, clipped);
+            int nw = build(level + 1, minLon, lat, lon, maxLat, clipped);
+            int se = build(level + 1, lon, minLat, maxLon, lat, clipped);
+            int ne = build(level + 1, lon, lat, maxLon, maxLat, clipped);
+            setChildren(first, sw, nw, se, ne);
+            return first;
+        }
+
+        private void setChildren(int first, int sw, int nw, int se, int ne) {
+            cells[first] = sw;
+            cells[first + 1] = nw;
+            cells[first + 2] = se;
+            cells[first + 3] = ne;
+        }
+
+        /**
+         * Reserves four cells for the children of a cell.
+         * @return the index of the first child
+         */
+        private int addChildren() {
+            int first = size;
+            size += 4;
+            if (size > cells.length) {
+                cells = Arrays.copyOf(cells, 2 * size);
+            }
+            return first;
+        }
+    }
+
+    /**
+     * Returns the cells, as described in the class documentation.
+     * @return a read-only view of the cells
+     */
+    public IntBuffer getCells() {
+        return cells.asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns the possible values of the property.
+     * @return the possible values of the property
+     */
+    public List<T> getValues() {
+        return values;
+    }
+
+    /**
+     * Looks up the precomputed property for a point.
+     * @param ll the point coordinates
+     * @return the value of the property at that point, or {@code null} if it is unknown
+     */
+    public T get(ILatLon ll) {
+        return get(ll.lat(), ll.lon());
+    }
+
+    /**
+     * Looks up the precomputed property for a point.
+     * @param lat the latitude of the point
+     * @param lon the longitude of the point
+     * @return the value of the property at that point, or {@code null} if it is unknown or the point is outside of the world
+     */
+    public T get(double lat, double lon) {
+        // also rejects NaN
+        if (!(lon >= -180 && lon <= 180 && lat >= -90 && lat <= 90))
+            return null;
+        double minLon = -180;
+        double minLat = -90;
+        double maxLon = 180;
+        double maxLat = 90;
+        int cell = cells.get(0);
+        while (cell > 0) {
+            // same as GeoPropertyIndex: points on the border belong to the north east cell, except at 180°E and 90°N
+            double centerLon = (minLon + maxLon) / 2;
+            double centerLat = (minLat + maxLat) / 2;
+            int child = cell;
+            if (lon >= centerLon) {
+                child += 2;
+                minLon = centerLon;
+            } else {
+                maxLon = centerLon;
+            }
+            if (lat >= centerLat) {
+                child += 1;
+                minLat = centerLat;
+            } else {
+                maxLat = centerLat;
+            }
+            cell = cells.get(child);
+        }
+        return cell == UNKNOWN ? null : values.get(-1 - cell);
+    }
+
+    /**
+     * Returns the number of cells.
+     * @return the number of cells
+     */
+    public int size() {
+        return cells.limit();
+    }
+
+    @Override
+    public String toString() {
+        return "GeoPropertyCells [size=" + size() + ", values=" + values + ']';
+    }
+}
@@ -0,0 +1,110 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.tools;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * File cache of precomputed {@link GeoPropertyCells} of boolean properties, identified by a key.
+ * <p>
+ * The file starts with a header (magic number, format version and a checksum of the data the cells have been computed from),
+ * followed by the number of entries and the entries: the key, the number of cells and the cells. It is memory-mapped
+ * when read, the cells are not copied.
+ * @since xxx
+ */
+final class GeoPropertyCellsCache {
+
+    private static final int MAGIC = 0x4a475043; // JGPC
+    private static final int VERSION = 1;
+
+    private GeoPropertyCellsCache() {
+        // Hide default constructor for utilities classes
+    }
+
+    /**
+     * Reads the cells from a file.
+     * @param file the file
+     * @param checksum the checksum of the data the cells must have been computed from
+     * @return the cells by key, empty if the file does not exist, is invalid or has been computed from other data
+     */
+    static Map<String, GeoPropertyCells<Boolean>> read(Path file, long checksum) {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            Logging.trace(e);
+            return Collections.emptyMap();
+        } catch (IOException e) {
+            Logging.warn(e);
+            return Collections.emptyMap();
+        }
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getLong() != checksum) {
+                Logging.debug("Ignoring outdated {0}", file);
+                return Collections.emptyMap();
+            }
+            int count = buffer.getInt();
+            Map<String, GeoPropertyCells<Boolean>> result = new HashMap<>(count);
+            for (int i = 0; i < count; i++) {
+                byte[] key = new byte[buffer.getShort()];
+                buffer.get(key);
+                int size = buffer.getInt();
+                ByteBuffer slice = buffer.slice();
+                slice.limit(size * Integer.BYTES);
+                IntBuffer cells = slice.asIntBuffer();
+                buffer.position(buffer.position() + size * Integer.BYTES);
+                result.put(new String(key, StandardCharsets.UTF_8), new GeoPropertyCells<>(cells, GeoPropertyCells.BOOLEAN_VALUES));
+            }
+            return result;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            Logging.warn("Invalid {0}: {1}", file, e);
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Writes cells to a file. The file is replaced at once, so that it is never read partially written.
+     * @param file the file
+     * @param checksum the checksum of the data the cells have been computed from
+     * @param cells the cells by key
+     * @throws IOException if an I/O error occurs
+     */
+    static void write(Path file, long checksum, Map<String, GeoPropertyCells<Boolean>> cells) throws IOException {
+        Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(checksum);
+                out.writeInt(cells.size());
+                for (Map.Entry<String, GeoPropertyCells<Boolean>> entry : cells.entrySet()) {
+                    byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                    out.writeShort(key.length);
+                    out.write(key);
+                    IntBuffer values = entry.getValue().getCells();
+                    out.writeInt(values.remaining());
+                    while (values.hasRemaining()) {
+                        out.writeInt(values.get());
+                    }
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -26,6 +26,7 @@ public class GeoPropertyIndex<T> {
     private final GeoProperty<T> geoProp;
     private final GPLevel<T> root;
     private GPLevel<T> lastLevelUsed;
+    private volatile GeoPropertyCells<T> cells;
 
     private static final boolean DEBUG = false;
 
@@ -49,9 +50,35 @@ public class GeoPropertyIndex<T> {
      * @return property value at that point
      */
     public T get(LatLon ll) {
+        GeoPropertyCells<T> currentCells = this.cells;
+        if (currentCells != null) {
+            T value = currentCells.get(ll);
+            if (value != null) {
+                return value;
+            }
+        }
         return lastLevelUsed.get(ll);
     }
 
+    /**
+     * Returns the precomputed cells used before the lazily built index.
+     * @return the precomputed cells, or {@code null}
+     * @since xxx
+     */
+    public GeoPropertyCells<T> getCells() {
+        return cells;
+    }
+
+    /**
+     * Sets precomputed cells of the geo property. They are used before the lazily built index, which is then
+     * only needed for the points in their unknown cells.
+     * @param cells the precomputed cells, or {@code null}
+     * @since xxx
+     */
+    public void setCells(GeoPropertyCells<T> cells) {
+        this.cells = cells;
+    }
+
     /**
      * Returns the geo property.
      * @return the geo property
@@ -61,13 +61,24 @@ public final class Http1Client extends HttpClient {
 
         if (requiresBody()) {
             logRequestBody();
-            byte[] body = getRequestBody();
-            connection.setFixedLengthStreamingMode(body.length);
-            connection.setDoOutput(true);
-            try (OutputStream out = new BufferedOutputStream(
-                    new ProgressOutputStream(connection.getOutputStream(), body.length,
-                            progressMonitor, getOutputMessage(), isFinishOnCloseOutput()))) {
-                out.write(body);
+            RequestBodyWriter bodyWriter = getRequestBodyWriter();
+            if (bodyWriter != null) {
+                connection.setChunkedStreamingMode(0);
+                connection.setDoOutput(true);
+                try (OutputStream out = new BufferedOutputStream(
+                        new ProgressOutputStream(connection.getOutputStream(), -1,
+                                progressMonitor, getOutputMessage(), isFinishOnCloseOutput()))) {
+                    bodyWriter.writeTo(out);
+                }
+            } else {
+                byte[] body = getRequestBody();
+                connection.setFixedLengthStreamingMode(body.length);
+                connection.setDoOutput(true);
+                try (OutputStream out = new BufferedOutputStream(
+                        new ProgressOutputStream(connection.getOutputStream(), body.length,
+                                progressMonitor, getOutputMessage(), isFinishOnCloseOutput()))) {
+                    out.write(body);
+                }
             }
         }
     }
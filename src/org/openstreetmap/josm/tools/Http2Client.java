@@ -0,0 +1,466 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.tools;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.Authenticator;
+import java.net.ConnectException;
+import java.net.CookieHandler;
+import java.net.ProxySelector;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient.Redirect;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.UnresolvedAddressException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ThreadFactory;
+
+import org.openstreetmap.josm.data.Version;
+import org.openstreetmap.josm.gui.progress.ProgressMonitor;
+import org.openstreetmap.josm.io.ProgressOutputStream;
+
+/**
+ * Provides a uniform access for a HTTP/HTTPS 1.1/2 server, based on {@link java.net.http.HttpClient}.
+ * <p>
+ * All instances share one {@code java.net.http} client (per connect timeout), so that concurrent requests to the same host,
+ * e.g. by the tile loaders, are multiplexed over a single HTTP/2 connection. Servers which do not support HTTP/2 are
+ * accessed with HTTP/1.1.
+ * <p>
+ * As with the other {@link HttpClient} implementations, {@link #connect()} blocks the calling thread until the response
+ * headers have been received, so the thread pools of the callers, e.g. of the tile loaders, are still needed. Only the
+ * number of connections is reduced.
+ * @since xxx
+ */
+public final class Http2Client extends HttpClient {
+
+    /**
+     * Headers which are set by {@code java.net.http} itself, and cannot be set by the caller
+     */
+    private static final Set<String> RESTRICTED_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        Collections.addAll(RESTRICTED_HEADERS, "Connection", "Content-Length", "Date", "Expect", "From", "Host", "Upgrade", "Via",
+                "Warning");
+    }
+
+    private static final Map<Integer, java.net.http.HttpClient> CLIENTS = new ConcurrentHashMap<>();
+    private static final Executor EXECUTOR = Executors.newCachedThreadPool(daemonThreadFactory());
+
+    private HttpRequest request;
+    private CompletableFuture<HttpResponse<InputStream>> responseFuture;
+    private HttpResponse<InputStream> response; // to allow disconnecting before `response` is set in the super class
+
+    /**
+     * Constructs a new {@code Http2Client}.
+     * @param url URL to access
+     * @param requestMethod HTTP request method (GET, POST, PUT, DELETE...)
+     */
+    public Http2Client(URL url, String requestMethod) {
+        super(url, requestMethod);
+    }
+
+    private static ThreadFactory daemonThreadFactory() {
+        final ThreadFactory factory = Utils.newThreadFactory("http2-client-%d", Thread.NORM_PRIORITY);
+        return runnable -> {
+            final Thread thread = factory.newThread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static java.net.http.HttpClient getClient(int connectTimeout) {
+        return CLIENTS.computeIfAbsent(connectTimeout, timeout -> {
+            final java.net.http.HttpClient.Builder builder = java.net.http.HttpClient.newBuilder()
+                    .version(java.net.http.HttpClient.Version.HTTP_2)
+                    .followRedirects(Redirect.NEVER) // we do that ourselves
+                    .proxy(new DelegatingProxySelector())
+                    .executor(EXECUTOR);
+            if (timeout > 0) {
+                builder.connectTimeout(Duration.ofMillis(timeout));
+            }
+            if (Authenticator.getDefault() != null) {
+                builder.authenticator(Authenticator.getDefault());
+            }
+            if (CookieHandler.getDefault() != null) {
+                builder.cookieHandler(CookieHandler.getDefault());
+            }
+            return builder.build();
+        });
+    }
+
+    @Override
+    protected void setupConnection(ProgressMonitor progressMonitor) throws IOException {
+        final HttpRequest.Builder builder;
+        try {
+            builder = HttpRequest.newBuilder(getURL().toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+        builder.setHeader("User-Agent", Version.getInstance().getFullAgentString());
+        if (getReadTimeout() > 0) {
+            builder.timeout(Duration.ofMillis(getReadTimeout()));
+        }
+        if (getIfModifiedSince() > 0) {
+            builder.setHeader("If-Modified-Since", DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                    ZonedDateTime.ofInstant(Instant.ofEpochMilli(getIfModifiedSince()), ZoneOffset.UTC)));
+        }
+        if (!isUseCache()) {
+            builder.setHeader("Cache-Control", "no-cache");
+        }
+        for (Map.Entry<String, String> header : getHeaders().entrySet()) {
+            if (header.getValue() != null) {
+                if (RESTRICTED_HEADERS.contains(header.getKey())) {
+                    Logging.debug("Header {0} is managed by the HTTP client, ignoring {1}", header.getKey(), header.getValue());
+                } else {
+                    builder.setHeader(header.getKey(), header.getValue());
+                }
+            }
+        }
+
+        notifyConnect(progressMonitor);
+
+        final java.net.http.HttpClient client = getClient(getConnectTimeout());
+        if (!requiresBody()) {
+            request = builder.method(getRequestMethod(), BodyPublishers.noBody()).build();
+            responseFuture = client.sendAsync(request, BodyHandlers.ofInputStream());
+            return;
+        }
+
+        logRequestBody();
+        final RequestBodyWriter bodyWriter = getRequestBodyWriter();
+        if (bodyWriter == null) {
+            final BodyPublisher body = BodyPublishers.ofByteArray(getRequestBody());
+            request = builder.method(getRequestMethod(), new ProgressBodyPublisher(body, progressMonitor)).build();
+            responseFuture = client.sendAsync(request, BodyHandlers.ofInputStream());
+        } else {
+            // the body is written to a temporary file by the calling thread, so that the threads of the client can read it
+            // at their own pace without holding it in memory
+            final File file = writeBodyToTempFile(bodyWriter);
+            final BodyPublisher body = BodyPublishers.ofFile(file.toPath());
+            request = builder.method(getRequestMethod(), new ProgressBodyPublisher(body, progressMonitor)).build();
+            responseFuture = client.sendAsync(request, BodyHandlers.ofInputStream());
+            responseFuture.whenComplete((r, e) -> {
+                if (!file.delete()) {
+                    // e.g. on Windows, if the server answered before the whole body has been read
+                    file.deleteOnExit();
+                }
+            });
+        }
+    }
+
+    private static File writeBodyToTempFile(RequestBodyWriter bodyWriter) throws IOException {
+        final File file = File.createTempFile("upload_", ".tmp", Utils.getJosmTempDir());
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            bodyWriter.writeTo(out);
+        } catch (IOException | RuntimeException e) {
+            Utils.deleteFile(file);
+            throw e;
+        }
+        return file;
+    }
+
+    /**
+     * Reports the progress of the upload of a request body, as the client requests its parts to send them.
+     */
+    private final class ProgressBodyPublisher implements BodyPublisher {
+        private final BodyPublisher body;
+        private final ProgressMonitor progressMonitor;
+
+        ProgressBodyPublisher(BodyPublisher body, ProgressMonitor progressMonitor) {
+            this.body = body;
+            this.progressMonitor = progressMonitor;
+        }
+
+        @Override
+        public long contentLength() {
+            return body.contentLength();
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            // the body is published again if the request is retried, e.g. for authentication
+            final OutputStream progress = new ProgressOutputStream(OutputStream.nullOutputStream(), body.contentLength(),
+                    progressMonitor, getOutputMessage(), isFinishOnCloseOutput());
+            body.subscribe(new Flow.Subscriber<ByteBuffer>() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscriber.onSubscribe(subscription);
+                }
+
+                @Override
+                public void onNext(ByteBuffer item) {
+                    final byte[] bytes;
+                    final int offset;
+                    final int length = item.remaining();
+                    if (item.hasArray()) {
+                        bytes = item.array();
+                        offset = item.arrayOffset() + item.position();
+                    } else {
+                        bytes = new byte[length];
+                        offset = 0;
+                        item.duplicate().get(bytes);
+                    }
+                    subscriber.onNext(item);
+                    try {
+                        progress.write(bytes, offset, length);
+                    } catch (IOException e) {
+                        // not thrown by the null output stream
+                        Logging.trace(e);
+                    }
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    Utils.close(progress);
+                    subscriber.onError(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    Utils.close(progress);
+                    subscriber.onComplete();
+                }
+            });
+        }
+    }
+
+    @Override
+    protected ConnectionResponse performConnection() throws IOException {
+        try {
+            response = responseFuture.get();
+        } catch (InterruptedException e) {
+            responseFuture.cancel(true);
+            Thread.currentThread().interrupt();
+            throw (IOException) new InterruptedIOException("Interrupted while waiting for " + getURL()).initCause(e);
+        } catch (CancellationException e) {
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof HttpTimeoutException) {
+                // callers retry on socket timeouts, as for HTTP/1
+                throw (IOException) new SocketTimeoutException(cause.getMessage()).initCause(cause);
+            } else if (cause instanceof ConnectException && cause.getCause() instanceof UnresolvedAddressException) {
+                // as HttpURLConnection
+                Logging.trace(cause);
+                throw new UnknownHostException(getURL().getHost());
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+        final HttpResponse<InputStream> r = response;
+        return new ConnectionResponse() {
+            @Override
+            public String getResponseVersion() {
+                return r.version() == java.net.http.HttpClient.Version.HTTP_2 ? "HTTP/2" : "HTTP/1.1";
+            }
+
+            @Override
+            public int getResponseCode() {
+                return r.statusCode();
+            }
+
+            @Override
+            public String getHeaderField(String name) {
+                return r.headers().firstValue(name).orElse(null);
+            }
+
+            @Override
+            public long getContentLengthLong() {
+                return r.headers().firstValueAsLong("Content-Length").orElse(-1);
+            }
+
+            @Override
+            public Map<String, List<String>> getHeaderFields() {
+                return caseInsensitive(r.headers());
+            }
+        };
+    }
+
+    @Override
+    protected void performDisconnection() throws IOException {
+        disconnect(responseFuture, response);
+    }
+
+    @Override
+    protected Response buildResponse(ProgressMonitor progressMonitor) throws IOException {
+        return new Http2Response(request, response, responseFuture, progressMonitor);
+    }
+
+    /**
+     * A wrapper for the HTTP 1.1/2 response.
+     */
+    public static final class Http2Response extends Response {
+        private final HttpRequest request;
+        private final HttpResponse<InputStream> response;
+        private final CompletableFuture<HttpResponse<InputStream>> responseFuture;
+
+        private Http2Response(HttpRequest request, HttpResponse<InputStream> response,
+                CompletableFuture<HttpResponse<InputStream>> responseFuture, ProgressMonitor progressMonitor) throws IOException {
+            // HTTP/2 does not have reason phrases
+            super(progressMonitor, response.statusCode(), "");
+            this.request = request;
+            this.response = response;
+            this.responseFuture = responseFuture;
+            debugRedirect();
+        }
+
+        /**
+         * Returns the HTTP version which has been negotiated with the server.
+         * @return the HTTP version of the response
+         * @since xxx
+         */
+        public java.net.http.HttpClient.Version getVersion() {
+            return response.version();
+        }
+
+        @Override
+        public URL getURL() {
+            try {
+                return response.uri().toURL();
+            } catch (IOException | IllegalArgumentException e) {
+                throw new JosmRuntimeException(e);
+            }
+        }
+
+        @Override
+        public String getRequestMethod() {
+            return request.method();
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            final InputStream in = response.body();
+            return in != null ? in : new ByteArrayInputStream(new byte[0]);
+        }
+
+        @Override
+        public String getContentEncoding() {
+            return getHeaderField("Content-Encoding");
+        }
+
+        @Override
+        public String getContentType() {
+            return getHeaderField("Content-Type");
+        }
+
+        @Override
+        public long getExpiration() {
+            return getHeaderFieldDate("Expires");
+        }
+
+        @Override
+        public long getLastModified() {
+            return getHeaderFieldDate("Last-Modified");
+        }
+
+        @Override
+        public long getContentLength() {
+            return response.headers().firstValueAsLong("Content-Length").orElse(-1);
+        }
+
+        @Override
+        public String getHeaderField(String name) {
+            return response.headers().firstValue(name).orElse(null);
+        }
+
+        private long getHeaderFieldDate(String name) {
+            final String value = getHeaderField(name);
+            if (value != null) {
+                try {
+                    return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+                } catch (DateTimeParseException e) {
+                    // as HttpURLConnection, e.g. for "Expires: 0"
+                    Logging.trace(e);
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public Map<String, List<String>> getHeaderFields() {
+            return caseInsensitive(response.headers());
+        }
+
+        @Override
+        public void disconnect() {
+            Http2Client.disconnect(responseFuture, response);
+        }
+    }
+
+    private static Map<String, List<String>> caseInsensitive(HttpHeaders headers) {
+        // header names are lower case in HTTP/2, use case insensitive TreeMap to conform to RFC 2616
+        Map<String, List<String>> ret = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        ret.putAll(headers.map());
+        return Collections.unmodifiableMap(ret);
+    }
+
+    @Override
+    public void disconnect() {
+        disconnect(responseFuture, response);
+    }
+
+    private static void disconnect(CompletableFuture<HttpResponse<InputStream>> responseFuture, HttpResponse<InputStream> response) {
+        if (responseFuture != null) {
+            responseFuture.cancel(true);
+        }
+        if (response != null) {
+            // closing the body cancels the exchange, without closing the connection shared with other requests
+            Utils.close(response.body());
+        }
+    }
+
+    /**
+     * Looks up the default proxy selector for each request, as it may be replaced once the client has been created.
+     */
+    private static final class DelegatingProxySelector extends ProxySelector {
+        @Override
+        public List<java.net.Proxy> select(URI uri) {
+            final ProxySelector selector = ProxySelector.getDefault();
+            return selector != null ? selector.select(uri) : Collections.singletonList(java.net.Proxy.NO_PROXY);
+        }
+
+        @Override
+        public void connectFailed(URI uri, SocketAddress sa, IOException ioe) {
+            final ProxySelector selector = ProxySelector.getDefault();
+            if (selector != null) {
+                selector.connectFailed(uri, sa, ioe);
+            }
+        }
+    }
+}
@@ -6,6 +6,7 @@ import static org.openstreetmap.josm.tools.I18n.tr;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.CookieHandler;
 import java.net.CookieManager;
 import java.net.CookiePolicy;
@@ -57,11 +58,27 @@ public abstract class HttpClient {
         HttpClient create(URL url, String requestMethod);
     }
 
+    /**
+     * Writes a request body which is not held in memory, see {@link HttpClient#setRequestBody(RequestBodyWriter)}.
+     * @since xxx
+     */
+    @FunctionalInterface
+    public interface RequestBodyWriter {
+        /**
+         * Writes the request body. This method may be called more than once for the same request, e.g., on redirects.
+         *
+         * @param out the stream to write the body to. It must not be closed by the writer.
+         * @throws IOException if any I/O error occurs
+         */
+        void writeTo(OutputStream out) throws IOException;
+    }
+
     private URL url;
     private final String requestMethod;
     private int connectTimeout = (int) TimeUnit.SECONDS.toMillis(Config.getPref().getInt("socket.timeout.connect", 15));
     private int readTimeout = (int) TimeUnit.SECONDS.toMillis(Config.getPref().getInt("socket.timeout.read", 30));
     private byte[] requestBody;
+    private RequestBodyWriter requestBodyWriter;
     private long ifModifiedSince;
     private final Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
     private int maxRedirects = Config.getPref().getInt("socket.maxredirects", 5);
@@ -246,6 +263,10 @@ public abstract class HttpClient {
     }
 
     protected final void logRequestBody() {
+        if (requestBodyWriter != null) {
+            logRequest("{0} {1} (streamed) ...", requestMethod, url);
+            return;
+        }
         logRequest("{0} {1} ({2}) ...", requestMethod, url, Utils.getSizeString(requestBody.length, Locale.getDefault()));
         if (Logging.isTraceEnabled() && hasRequestBody()) {
             Logging.trace("BODY: {0}", new String(requestBody, StandardCharsets.UTF_8));
@@ -588,13 +609,22 @@ public abstract class HttpClient {
         return Utils.copyArray(requestBody);
     }
 
+    /**
+     * Returns the streamed request body set for this connection.
+     * @return the writer of the HTTP request body, or null if the body is not streamed
+     * @since xxx
+     */
+    public final RequestBodyWriter getRequestBodyWriter() {
+        return requestBodyWriter;
+    }
+
     /**
      * Determines if a non-empty request body has been set for this connection.
      * @return {@code true} if the request body is set and non-empty
      * @since 15229
      */
     public final boolean hasRequestBody() {
-        return requestBody != null && requestBody.length > 0;
+        return requestBodyWriter != null || (requestBody != null && requestBody.length > 0);
     }
 
     /**
@@ -768,6 +798,21 @@ public abstract class HttpClient {
      */
     public final HttpClient setRequestBody(byte[] requestBody) {
         this.requestBody = Utils.copyArray(requestBody);
+        this.requestBodyWriter = null;
+        return this;
+    }
+
+    /**
+     * Sets a request body for {@code PUT}/{@code POST} requests which is written directly to the connection,
+     * instead of being built in memory first. The body is sent in chunks, as its length is not known in advance.
+     * @param requestBodyWriter writer of the request body
+     *
+     * @return {@code this}
+     * @since xxx
+     */
+    public final HttpClient setRequestBody(RequestBodyWriter requestBodyWriter) {
+        this.requestBodyWriter = requestBodyWriter;
+        this.requestBody = null;
         return this;
     }
 
@@ -41,10 +41,12 @@ public final class RightAndLefthandTraffic {
     /**
      * Initializes Right and lefthand traffic data.
      * @param geoProperty the property containing the traffic data
+     * @return the index of the left-hand traffic areas
      * TODO: Synchronization can be refined inside the {@link GeoPropertyIndex} as most look-ups are read-only.
      */
-    static synchronized void initialize(DefaultGeoProperty geoProperty) {
+    static synchronized GeoPropertyIndex<Boolean> initialize(DefaultGeoProperty geoProperty) {
         rlCache = new GeoPropertyIndex<>(geoProperty, 24);
+        return rlCache;
     }
 
     static void appendLeftDrivingBoundaries(OsmPrimitive osm, Collection<Way> ways) {
@@ -4,8 +4,10 @@ package org.openstreetmap.josm.tools;
 import static java.util.Optional.ofNullable;
 import static org.openstreetmap.josm.tools.I18n.tr;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -18,8 +20,13 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
 
 import jakarta.json.Json;
 import jakarta.json.JsonArray;
@@ -55,6 +62,15 @@ public final class Territories {
     private static final String ISO3166_1_LC = ISO3166_1.toLowerCase(Locale.ENGLISH);
     private static final String ISO3166_2_LC = ISO3166_2.toLowerCase(Locale.ENGLISH);
     private static final String TAGINFO = "taginfo";
+    private static final String DRIVING_SIDE = "driving_side";
+
+    /** Cache filename of the precomputed cells of the territories */
+    private static final String CELLS_FILENAME = "boundaries.cells";
+    /** The maximum level of the precomputed cells (about 0.35° by 0.18°) */
+    private static final int CELLS_LEVEL = 10;
+    private static final AtomicBoolean BUILDING_CELLS = new AtomicBoolean();
+    /** The latest indexes to precompute, by codes */
+    private static volatile Map<String, GeoPropertyIndex<Boolean>> cellsIndexes;
 
     private static DataSet dataSet;
 
@@ -63,7 +79,7 @@ public final class Territories {
     static volatile Map<String, TaginfoRegionalInstance> taginfoGeofabrikCache;
     static volatile Map<String, TagMap> customTagsCache;
 
-    private static final List<String> KNOWN_KEYS = Arrays.asList(ISO3166_1, ISO3166_2, TAGINFO, "type", "driving_side", "note");
+    private static final List<String> KNOWN_KEYS = Arrays.asList(ISO3166_1, ISO3166_2, TAGINFO, "type", DRIVING_SIDE, "note");
 
     private Territories() {
         // Hide implicit public constructor for utility classes
@@ -105,6 +121,28 @@ public final class Territories {
         return Boolean.TRUE.equals(gpi.get(ll)); // avoid NPE, see #16491
     }
 
+    /**
+     * Determine, for many points, if they are inside a territory with the given ISO3166-1 or ISO3166-2 code.
+     *
+     * @param code the ISO3166-1 or ISO3166-2 code
+     * @param points the coordinates of the points
+     * @return for each point, true if it is inside a territory with the given code
+     * @since xxx
+     */
+    public static synchronized boolean[] isIso3166Code(String code, List<? extends LatLon> points) {
+        boolean[] result = new boolean[points.size()];
+        GeoPropertyIndex<Boolean> gpi = iso3166Cache.get(code);
+        if (gpi == null) {
+            Logging.warn(tr("Unknown territory id: {0}", code));
+            return result;
+        }
+        int i = 0;
+        for (LatLon ll : points) {
+            result[i++] = Boolean.TRUE.equals(gpi.get(ll));
+        }
+        return result;
+    }
+
     /**
      * Returns the original territories dataset. Be extra cautious when manipulating it!
      * @return the original territories dataset
@@ -132,8 +170,11 @@ public final class Territories {
         taginfoCache = new TreeMap<>();
         customTagsCache = new TreeMap<>();
         Collection<Way> traffic = new ArrayList<>();
+        // the indexes to precompute, by codes (the ids of the primitives are not stable)
+        Map<String, GeoPropertyIndex<Boolean>> indexes = new HashMap<>();
+        CRC32 checksum = new CRC32();
         try (CachedFile cf = new CachedFile("resource://data/" + FILENAME);
-                InputStream is = cf.getInputStream()) {
+                InputStream is = new CheckedInputStream(cf.getInputStream(), checksum)) {
             dataSet = OsmReader.parseDataSet(is, null);
             for (OsmPrimitive osm : dataSet.allPrimitives()) {
                 if (osm instanceof Node) {
@@ -153,6 +194,7 @@ public final class Territories {
                     GeoPropertyIndex<Boolean> gpi = new GeoPropertyIndex<>(gp, 24);
                     addInCache(iso1, gpi, tags);
                     addInCache(iso2, gpi, tags);
+                    indexes.put(Objects.toString(iso1, "") + '/' + Objects.toString(iso2, ""), gpi);
                     if (iso1 != null) {
                         String taginfo = osm.get(TAGINFO);
                         if (taginfo != null) {
@@ -162,7 +204,8 @@ public final class Territories {
                 }
                 RightAndLefthandTraffic.appendLeftDrivingBoundaries(osm, traffic);
             }
-            RightAndLefthandTraffic.initialize(new DefaultGeoProperty(traffic));
+            indexes.put(DRIVING_SIDE, RightAndLefthandTraffic.initialize(new DefaultGeoProperty(traffic)));
+            initializeCells(indexes, checksum.getValue() ^ ((long) CELLS_LEVEL << 32));
         } catch (IOException | IllegalDataException ex) {
             throw new JosmRuntimeException(ex);
         } finally {
@@ -177,6 +220,47 @@ public final class Territories {
         }
     }
 
+    /**
+     * Sets the precomputed cells of the territories and of the driving side, from the cache file if it is up to date.
+     * Otherwise, they are computed in the background, and saved for the next start.
+     * @param indexes the indexes, by codes
+     * @param checksum the checksum of the data the indexes are built from
+     */
+    private static void initializeCells(Map<String, GeoPropertyIndex<Boolean>> indexes, long checksum) {
+        if (!Config.getPref().getBoolean("territories.precomputed-cells", true)) {
+            return;
+        }
+        Path file = new File(Config.getDirs().getCacheDirectory(true), CELLS_FILENAME).toPath();
+        Map<String, GeoPropertyCells<Boolean>> cells = GeoPropertyCellsCache.read(file, checksum);
+        if (cells.keySet().containsAll(indexes.keySet())) {
+            indexes.forEach((key, gpi) -> gpi.setCells(cells.get(key)));
+            return;
+        }
+        cellsIndexes = indexes;
+        if (BUILDING_CELLS.compareAndSet(false, true)) {
+            // the parallel stream runs in the pool of the task, so that all the building is done by low priority threads
+            ForkJoinPool pool = Utils.newForkJoinPool("territories.cells.threads", "territories-cells-%d", Thread.MIN_PRIORITY);
+            pool.execute(() -> {
+                try {
+                    long start = System.nanoTime();
+                    Map<String, GeoPropertyCells<Boolean>> built = indexes.entrySet().parallelStream()
+                            .collect(Collectors.toMap(Entry::getKey,
+                                    e -> GeoPropertyCells.build(((DefaultGeoProperty) e.getValue().getGeoProperty()).getArea(), CELLS_LEVEL)));
+                    // the internal data may have been initialized again in the meantime, from the same file
+                    cellsIndexes.forEach((key, gpi) -> gpi.setCells(built.get(key)));
+                    Logging.debug("Computed the cells of {0} territories in {1}", built.size(), Utils.getDurationString(
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+                    GeoPropertyCellsCache.write(file, checksum, built);
+                } catch (IOException | RuntimeException e) {
+                    Logging.warn(e);
+                } finally {
+                    BUILDING_CELLS.set(false);
+                    pool.shutdown();
+                }
+            });
+        }
+    }
+
     private static void addInCache(String code, GeoPropertyIndex<Boolean> gpi, TagMap tags) {
         if (code != null) {
             iso3166Cache.put(code, gpi);
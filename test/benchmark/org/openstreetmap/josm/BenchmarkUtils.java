@@ -0,0 +1,84 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.io.Compression;
+import org.openstreetmap.josm.io.IllegalDataException;
+import org.openstreetmap.josm.io.OsmReader;
+import org.openstreetmap.josm.tools.Territories;
+
+/**
+ * Utilities for the JMH benchmarks.
+ * <p>
+ * The benchmarks are run with {@code ant benchmark}, or {@code mvn -Pbenchmark test-compile} then {@code mvn -Pbenchmark exec:exec@benchmark}.
+ * The results are written as JSON to {@code test/report/jmh-result.json} (ant) or {@code target/jmh-result.json} (maven).
+ * The benchmarks reading a file accept a {@code file} parameter, e.g.
+ * {@code -Dbenchmark.args="OsmPbfReaderBenchmark -p file=/data/country.osm.pbf"}.
+ */
+public final class BenchmarkUtils {
+    /**
+     * The default data file, the Neubrandenburg extract also used by the performance tests
+     */
+    public static final String DATA_FILE = "nodist/data/neubrandenburg.osm.bz2";
+
+    private static boolean initialized;
+
+    private BenchmarkUtils() {
+        // Hide default constructor for utilities classes
+    }
+
+    /**
+     * Initializes the preferences, the projection, the territories and the other global state of JOSM, once per benchmark JVM.
+     * The JOSM home directory is taken from the {@code josm.home} system property, and defaults to the one of the benchmarks,
+     * shared by the ant and Maven builds.
+     */
+    public static synchronized void initJosm() {
+        if (!initialized) {
+            String home = System.getProperty("josm.home", "test/config/benchmark-josm.home");
+            try {
+                Files.createDirectories(Paths.get(home));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            new JOSMFixture(home).init(false);
+            // needed by the validator and the MapCSS styles
+            Territories.initializeInternalData();
+            initialized = true;
+        }
+    }
+
+    /**
+     * Reads an uncompressed copy of a file in memory, to exclude disk access and decompression from the measurements.
+     * @param file the file, optionally compressed
+     * @return the uncompressed content
+     * @throws IOException in case of I/O error
+     */
+    public static byte[] readUncompressed(String file) throws IOException {
+        try (InputStream in = Compression.getUncompressedFileInputStream(new File(file))) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * Parses an OSM file
+     * @param file the file, optionally compressed
+     * @return the data set
+     * @throws IOException in case of I/O error
+     * @throws IllegalDataException in case of invalid data
+     */
+    public static DataSet loadDataSet(String file) throws IOException, IllegalDataException {
+        try (InputStream in = Compression.getUncompressedFileInputStream(new File(file))) {
+            DataSet dataSet = OsmReader.parseDataSet(in, NullProgressMonitor.INSTANCE);
+            dataSet.setName(file);
+            return dataSet;
+        }
+    }
+}
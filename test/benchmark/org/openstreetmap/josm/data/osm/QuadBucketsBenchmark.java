@@ -0,0 +1,117 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openstreetmap.josm.BenchmarkUtils;
+import org.openstreetmap.josm.io.IllegalDataException;
+
+/**
+ * Measures the spatial searches of a data set, which go through {@link QuadBuckets}, and the bulk load of a {@link QuadBuckets}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class QuadBucketsBenchmark {
+    private static final int BBOX_COUNT = 1024;
+
+    /**
+     * The OSM XML file to search, optionally compressed
+     */
+    @Param(BenchmarkUtils.DATA_FILE)
+    public String file;
+
+    /**
+     * The size of the searched boxes, in degrees
+     */
+    @Param({"0.001", "0.01"})
+    public double size;
+
+    private DataSet data;
+    private List<Way> ways;
+    private final List<BBox> boxes = new ArrayList<>(BBOX_COUNT);
+    private int next;
+
+    /**
+     * Loads the data set and chooses random boxes around its nodes
+     * @throws IOException in case of I/O error
+     * @throws IllegalDataException in case of invalid data
+     */
+    @Setup
+    public void setUp() throws IOException, IllegalDataException {
+        BenchmarkUtils.initJosm();
+        data = BenchmarkUtils.loadDataSet(file);
+        ways = new ArrayList<>(data.getWays());
+        List<Node> nodes = new ArrayList<>(data.getNodes());
+        Random random = new Random(42);
+        for (int i = 0; i < BBOX_COUNT; i++) {
+            // boxes centred on nodes, so that the searches follow the density of the data
+            Node center = nodes.get(random.nextInt(nodes.size()));
+            boxes.add(new BBox(center.lon() - size / 2, center.lat() - size / 2, center.lon() + size / 2, center.lat() + size / 2));
+        }
+    }
+
+    private BBox nextBox() {
+        next = (next + 1) % BBOX_COUNT;
+        return boxes.get(next);
+    }
+
+    /**
+     * Searches nodes, collecting them in a list
+     * @return the nodes found
+     */
+    @Benchmark
+    public List<Node> searchNodes() {
+        return data.searchNodes(nextBox());
+    }
+
+    /**
+     * Searches ways, collecting them in a list
+     * @return the ways found
+     */
+    @Benchmark
+    public List<Way> searchWays() {
+        return data.searchWays(nextBox());
+    }
+
+    /**
+     * Searches ways, passing them to a consumer
+     * @param blackhole the consumer of the ways found
+     */
+    @Benchmark
+    public void searchWaysConsumer(Blackhole blackhole) {
+        data.searchWays(nextBox(), blackhole::consume);
+    }
+
+    /**
+     * Builds a new index of all the ways of the data set
+     * @return the index
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public QuadBuckets<Way> bulkLoadWays() {
+        QuadBuckets<Way> buckets = new QuadBuckets<>();
+        buckets.addAll(ways);
+        return buckets;
+    }
+}
@@ -0,0 +1,118 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the operations of {@link TagMap} and of the tags of primitives.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TagMapBenchmark {
+    /**
+     * The number of tags of the map
+     */
+    @Param({"2", "8", "32"})
+    public int size;
+
+    private String[] keys;
+    private TagMap map;
+    private Node node;
+    private int next;
+
+    /**
+     * Creates the tags
+     */
+    @Setup
+    public void setUp() {
+        keys = new String[size];
+        map = new TagMap();
+        node = new Node();
+        for (int i = 0; i < size; i++) {
+            // not the instances of the map, like the strings of a search
+            keys[i] = "key" + i;
+            map.put("key" + i, "value" + i);
+            node.put("key" + i, "value" + i);
+        }
+    }
+
+    private String nextKey() {
+        next = (next + 1) % size;
+        return keys[next];
+    }
+
+    /**
+     * Gets the value of a key
+     * @return the value
+     */
+    @Benchmark
+    public String get() {
+        return map.get(nextKey());
+    }
+
+    /**
+     * Looks up a missing key
+     * @return {@code false}
+     */
+    @Benchmark
+    public boolean containsMissingKey() {
+        return map.containsKey("missing");
+    }
+
+    /**
+     * Replaces the value of a key
+     * @return the previous value
+     */
+    @Benchmark
+    public String put() {
+        String key = nextKey();
+        return map.put(key, map.get(key));
+    }
+
+    /**
+     * Iterates over all tags
+     * @return the number of characters of the tags
+     */
+    @Benchmark
+    public int iterate() {
+        int length = 0;
+        for (Tag tag : map.getTags()) {
+            length += tag.getKey().length() + tag.getValue().length();
+        }
+        return length;
+    }
+
+    /**
+     * Copies the tags of a primitive
+     * @return the copied tags
+     */
+    @Benchmark
+    public TagMap getKeys() {
+        return node.getKeys();
+    }
+
+    /**
+     * Sets a tag of a primitive
+     */
+    @Benchmark
+    public void putPrimitive() {
+        String key = nextKey();
+        node.put(key, node.get(key));
+    }
+}
@@ -0,0 +1,83 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm.search;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openstreetmap.josm.BenchmarkUtils;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.search.SearchCompiler.Match;
+import org.openstreetmap.josm.io.IllegalDataException;
+
+/**
+ * Measures how fast compiled {@link SearchCompiler} expressions match all the primitives of a data set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SearchCompilerBenchmark {
+    /**
+     * The OSM XML file to search, optionally compressed
+     */
+    @Param(BenchmarkUtils.DATA_FILE)
+    public String file;
+
+    /**
+     * The search expression
+     */
+    @Param({
+        "highway=residential",
+        "building=* -building=yes",
+        "name~^B.* OR \"addr:street\"~strasse$",
+        "type:way (highway=* OR railway=*) nodes:5-",
+        "child (type:way highway=primary)"
+    })
+    public String expression;
+
+    private List<OsmPrimitive> primitives;
+    private Match match;
+
+    /**
+     * Loads the data set and compiles the expression
+     * @throws IOException in case of I/O error
+     * @throws IllegalDataException in case of invalid data
+     * @throws SearchParseError if the expression is invalid
+     */
+    @Setup
+    public void setUp() throws IOException, IllegalDataException, SearchParseError {
+        BenchmarkUtils.initJosm();
+        primitives = new ArrayList<>(BenchmarkUtils.loadDataSet(file).allPrimitives());
+        match = SearchCompiler.compile(expression);
+    }
+
+    /**
+     * Matches all primitives
+     * @return the number of matching primitives
+     */
+    @Benchmark
+    public int match() {
+        int count = 0;
+        for (OsmPrimitive p : primitives) {
+            if (match.match(p)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
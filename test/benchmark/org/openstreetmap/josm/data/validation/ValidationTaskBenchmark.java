@@ -0,0 +1,90 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.validation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openstreetmap.josm.BenchmarkUtils;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.gui.MainApplication;
+import org.openstreetmap.josm.gui.layer.OsmDataLayer;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.io.IllegalDataException;
+
+/**
+ * Measures how fast {@link ValidationTask} validates all the primitives of a data set with the enabled tests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ValidationTaskBenchmark {
+    /**
+     * The OSM XML file to validate, optionally compressed
+     */
+    @Param(BenchmarkUtils.DATA_FILE)
+    public String file;
+
+    /**
+     * Determines if the tests run before upload are used, instead of the tests run on demand
+     */
+    @Param({"false", "true"})
+    public boolean beforeUpload;
+
+    private OsmDataLayer layer;
+    private List<OsmPrimitive> primitives;
+
+    /**
+     * Loads the data set and the validator tests
+     * @throws IOException in case of I/O error
+     * @throws IllegalDataException in case of invalid data
+     */
+    @Setup
+    public void setUp() throws IOException, IllegalDataException {
+        BenchmarkUtils.initJosm();
+        OsmValidator.initialize();
+        DataSet data = BenchmarkUtils.loadDataSet(file);
+        // some tests look at the active data set
+        layer = new OsmDataLayer(data, file, null);
+        MainApplication.getLayerManager().addLayer(layer);
+        primitives = new ArrayList<>(data.allPrimitives());
+    }
+
+    /**
+     * Removes the data layer
+     */
+    @TearDown
+    public void tearDown() {
+        MainApplication.getLayerManager().removeLayer(layer);
+    }
+
+    /**
+     * Validates all primitives
+     * @return the errors
+     */
+    @Benchmark
+    public List<TestError> validate() {
+        Collection<Test> tests = OsmValidator.getEnabledTests(beforeUpload);
+        ValidationTask task = new ValidationTask(null, NullProgressMonitor.INSTANCE, tests, primitives, null, beforeUpload);
+        task.runTests();
+        return task.getErrors();
+    }
+}
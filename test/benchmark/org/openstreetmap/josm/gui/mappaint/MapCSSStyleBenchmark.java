@@ -0,0 +1,104 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.mappaint;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openstreetmap.josm.BenchmarkUtils;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.preferences.sources.SourceEntry;
+import org.openstreetmap.josm.data.preferences.sources.SourceType;
+import org.openstreetmap.josm.gui.NavigatableComponent;
+import org.openstreetmap.josm.gui.mappaint.mapcss.MapCSSStyleSource;
+import org.openstreetmap.josm.io.IllegalDataException;
+
+/**
+ * Measures how fast the MapCSS styles of all the primitives of a data set are computed, without the style cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MapCSSStyleBenchmark {
+    /**
+     * The OSM XML file to style, optionally compressed
+     */
+    @Param(BenchmarkUtils.DATA_FILE)
+    public String file;
+
+    /**
+     * The MapCSS style
+     */
+    @Param("resources/styles/standard/elemstyles.mapcss")
+    public String style;
+
+    /**
+     * The scale, in meters per 100 pixels
+     */
+    @Param({"20", "500"})
+    public double scale;
+
+    /**
+     * Determines if the rules are compiled, see {@link MapCSSStyleSource#COMPILE_RULES}
+     */
+    @Param({"true", "false"})
+    public boolean compile;
+
+    private DataSet data;
+    private List<OsmPrimitive> primitives;
+    private ElemStyles styles;
+    private NavigatableComponent nc;
+
+    /**
+     * Loads the data set and the style
+     * @throws IOException in case of I/O error
+     * @throws IllegalDataException in case of invalid data
+     */
+    @Setup
+    public void setUp() throws IOException, IllegalDataException {
+        BenchmarkUtils.initJosm();
+        data = BenchmarkUtils.loadDataSet(file);
+        primitives = new ArrayList<>(data.allPrimitives());
+        MapCSSStyleSource.COMPILE_RULES.put(compile);
+        MapCSSStyleSource source = new MapCSSStyleSource(
+                new SourceEntry(SourceType.MAP_PAINT_STYLE, style, "benchmark", "benchmark style", true));
+        source.loadStyleSource();
+        if (!source.getErrors().isEmpty()) {
+            throw new IllegalStateException("Cannot load style " + style + ": " + source.getErrors());
+        }
+        styles = MapPaintStyles.getStyles();
+        styles.clear();
+        styles.add(source);
+        nc = new NavigatableComponent();
+        nc.setBounds(0, 0, 1024, 768);
+    }
+
+    /**
+     * Computes the styles of all primitives
+     * @param blackhole the consumer of the styles
+     */
+    @Benchmark
+    public void computeStyles(Blackhole blackhole) {
+        data.clearMappaintCache();
+        for (OsmPrimitive p : primitives) {
+            blackhole.consume(styles.get(p, scale, nc));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openstreetmap.josm.BenchmarkUtils;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+
+/**
+ * Measures how fast {@link OsmPbfReader} parses an OSM PBF file from memory.
+ * <p>
+ * The default file is a small one from the test data, use the {@code file} parameter to measure a real extract.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OsmPbfReaderBenchmark {
+    /**
+     * The OSM PBF file to read
+     */
+    @Param("test/data/regress/23599/visible.osm.pbf")
+    public String file;
+
+    /**
+     * The number of threads decoding the blobs
+     */
+    @Param({"1", "4"})
+    public int threads;
+
+    private byte[] data;
+
+    /**
+     * Reads the file in memory
+     * @throws IOException in case of I/O error
+     */
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkUtils.initJosm();
+        data = Files.readAllBytes(Paths.get(file));
+    }
+
+    /**
+     * Parses the file
+     * @return the data set
+     * @throws IllegalDataException in case of invalid data
+     */
+    @Benchmark
+    public DataSet read() throws IllegalDataException {
+        return OsmPbfReader.parseDataSet(new ByteArrayInputStream(data), NullProgressMonitor.INSTANCE, threads);
+    }
+}
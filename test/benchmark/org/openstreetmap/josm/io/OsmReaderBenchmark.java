@@ -0,0 +1,60 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openstreetmap.josm.BenchmarkUtils;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+
+/**
+ * Measures how fast {@link OsmReader} parses an OSM XML file from memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OsmReaderBenchmark {
+    /**
+     * The OSM XML file to read, optionally compressed
+     */
+    @Param(BenchmarkUtils.DATA_FILE)
+    public String file;
+
+    private byte[] data;
+
+    /**
+     * Reads the file in memory
+     * @throws IOException in case of I/O error
+     */
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkUtils.initJosm();
+        data = BenchmarkUtils.readUncompressed(file);
+    }
+
+    /**
+     * Parses the file
+     * @return the data set
+     * @throws IllegalDataException in case of invalid data
+     */
+    @Benchmark
+    public DataSet read() throws IllegalDataException {
+        return OsmReader.parseDataSet(new ByteArrayInputStream(data), NullProgressMonitor.INSTANCE);
+    }
+}
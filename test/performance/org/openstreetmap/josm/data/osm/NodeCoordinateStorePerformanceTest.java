@@ -0,0 +1,97 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.PerformanceTestUtils.PerformanceTestTimer;
+import org.openstreetmap.josm.data.osm.NodeCoordinateStore.Layout;
+import org.openstreetmap.josm.testutils.annotations.Projection;
+
+/**
+ * Measures the memory used by the nodes of a data set with each {@link NodeCoordinateStore.Layout}.
+ * <p>
+ * {@link Layout#NODE} is the per-node layout: like the coordinates previously inlined in {@link Node}, with the additional
+ * header of the per-node coordinates object.
+ */
+@Projection
+@Timeout(value = 15, unit = TimeUnit.MINUTES)
+class NodeCoordinateStorePerformanceTest {
+    private static final int NODE_COUNT = 1_000_000;
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long usedDirectMemory() {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> "direct".equals(pool.getName()))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+    }
+
+    private static DataSet generate(Layout layout) {
+        String old = System.getProperty("josm.node.coordinates");
+        System.setProperty("josm.node.coordinates", layout.name());
+        try {
+            PerformanceTestTimer timer = PerformanceTestUtils.startTimer("generate " + NODE_COUNT + " nodes, layout " + layout);
+            DataSet ds = OsmDataGenerator.getNodes(NODE_COUNT).generateDataSet();
+            timer.done();
+            assertEquals(layout, ds.getNodeCoordinateLayout());
+            return ds;
+        } finally {
+            if (old != null) {
+                System.setProperty("josm.node.coordinates", old);
+            } else {
+                System.clearProperty("josm.node.coordinates");
+            }
+        }
+    }
+
+    private static double project(DataSet ds) {
+        double sum = 0;
+        for (Node n : ds.getNodes()) {
+            sum += n.getEastNorth().east();
+        }
+        return sum;
+    }
+
+    /**
+     * Measures the heap and direct memory used per node, and the time to read the projected coordinates.
+     */
+    @Test
+    void testMemoryPerNode() {
+        Map<Layout, Long> heap = new EnumMap<>(Layout.class);
+        for (Layout layout : Layout.values()) {
+            long heapBefore = usedHeap();
+            long directBefore = usedDirectMemory();
+            DataSet ds = generate(layout);
+            long heapPerNode = (usedHeap() - heapBefore) / NODE_COUNT;
+            long directPerNode = (usedDirectMemory() - directBefore) / NODE_COUNT;
+            heap.put(layout, heapPerNode);
+            PerformanceTestUtils.measurementPlotsPluginOutput("heap bytes per node, layout " + layout, heapPerNode);
+            PerformanceTestUtils.measurementPlotsPluginOutput("direct bytes per node, layout " + layout, directPerNode);
+
+            project(ds);
+            PerformanceTestTimer timer = PerformanceTestUtils.startTimer("read east/north of " + NODE_COUNT + " nodes, layout " + layout);
+            assertTrue(Double.isFinite(project(ds)));
+            timer.done();
+            ds = null;
+        }
+        // the off-heap layout keeps the 4 coordinates of each node out of the heap
+        assertTrue(heap.get(Layout.DIRECT) + 24 <= heap.get(Layout.NODE), heap::toString);
+    }
+}
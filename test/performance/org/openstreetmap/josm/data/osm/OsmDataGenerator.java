@@ -274,4 +274,14 @@ public final class OsmDataGenerator {
     public static DataGenerator getNodes() {
         return new NodeDataGenerator("nodes", DEFAULT_NODE_COUNT);
     }
+
+    /**
+     * Create a generator that generates a bunch of nodes.
+     * @param nodeCount The number of nodes the dataset should contain.
+     * @return The generator
+     * @since xxx
+     */
+    public static NodeDataGenerator getNodes(int nodeCount) {
+        return new NodeDataGenerator("nodes", nodeCount);
+    }
 }
@@ -0,0 +1,84 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.PerformanceTestUtils.PerformanceTestTimer;
+import org.openstreetmap.josm.io.Compression;
+import org.openstreetmap.josm.io.OsmReader;
+
+/**
+ * Measures the memory saved by the {@link TagPool} when reading a real world extract.
+ * <p>
+ * Without the pool, strings are interned with {@link String#intern()} and each primitive has its own tag array.
+ */
+@Timeout(value = 15, unit = TimeUnit.MINUTES)
+class TagPoolPerformanceTest {
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static DataSet read(boolean pool) throws Exception {
+        boolean old = TagPool.isEnabled();
+        TagPool.setEnabled(pool);
+        try (InputStream is = Compression.getUncompressedFileInputStream(new File(PerformanceTestUtils.DATA_FILE))) {
+            PerformanceTestTimer timer = PerformanceTestUtils.startTimer("read data file, tag pool " + (pool ? "enabled" : "disabled"));
+            DataSet ds = OsmReader.parseDataSet(is, null);
+            timer.done();
+            return ds;
+        } finally {
+            TagPool.setEnabled(old);
+        }
+    }
+
+    private static int countTagArrays(DataSet ds) {
+        Set<String[]> arrays = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (OsmPrimitive p : ds.allPrimitives()) {
+            if (p.keys != null) {
+                arrays.add(p.keys);
+            }
+        }
+        return arrays.size();
+    }
+
+    /**
+     * Measures the heap used by the data set with and without the pool.
+     * @throws Exception if the data file cannot be read
+     */
+    @Test
+    void testMemory() throws Exception {
+        DataSet ds = null;
+        long[] heap = new long[2];
+        int[] arrays = new int[2];
+        int[] tagged = new int[2];
+        for (int i = 0; i < 2; i++) {
+            ds = null;
+            long before = usedHeap();
+            ds = read(i == 1);
+            heap[i] = usedHeap() - before;
+            arrays[i] = countTagArrays(ds);
+            tagged[i] = (int) ds.allPrimitives().stream().filter(p -> p.keys != null).count();
+            System.out.println("Tag pool " + (i == 1 ? "enabled" : "disabled") + ": " + (heap[i] >> 10) + " KiB for "
+                    + ds.allPrimitives().size() + " primitives, " + arrays[i] + " tag arrays for " + tagged[i] + " tagged primitives");
+        }
+        assertEquals(tagged[0], tagged[1]);
+        assertEquals(tagged[0], arrays[0]);
+        System.out.println("Tag pool saves " + ((heap[0] - heap[1]) >> 10) + " KiB ("
+                + (100 * (heap[0] - heap[1]) / heap[0]) + "% of the data set)");
+    }
+}
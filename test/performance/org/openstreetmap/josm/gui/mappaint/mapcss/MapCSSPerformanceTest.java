@@ -1,23 +1,32 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.gui.mappaint.mapcss;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.Test;
 import org.openstreetmap.josm.PerformanceTestUtils;
 import org.openstreetmap.josm.data.Bounds;
 import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
 import org.openstreetmap.josm.data.osm.visitor.paint.StyledMapRenderer;
 import org.openstreetmap.josm.data.preferences.sources.SourceEntry;
 import org.openstreetmap.josm.data.preferences.sources.SourceType;
 import org.openstreetmap.josm.gui.NavigatableComponent;
+import org.openstreetmap.josm.gui.mappaint.ElemStyles;
+import org.openstreetmap.josm.gui.mappaint.MapPaintStyles;
 import org.openstreetmap.josm.gui.mappaint.MapRendererPerformanceTest;
+import org.openstreetmap.josm.gui.mappaint.StyleElementList;
 import org.openstreetmap.josm.io.IllegalDataException;
 import org.openstreetmap.josm.testutils.annotations.Projection;
 
@@ -107,4 +116,36 @@ class MapCSSPerformanceTest {
         System.out.println("");
         System.out.println("Rendering took "+time+" ms.");
     }
+
+    /**
+     * Measures the time to compute the styles of all primitives with the compiled rules and with the parsed rules,
+     * and checks that both give the same styles.
+     * @throws IOException if any I/O error occurs
+     * @throws IllegalDataException if any invalid data is found
+     */
+    @Test
+    void measureTimeForCompiledStyles() throws IllegalDataException, IOException {
+        loadData();
+        NavigatableComponent mv = new NavigatableComponent();
+        mv.setBounds(0, 0, 1024, 768);
+        List<OsmPrimitive> primitives = new ArrayList<>(ds.allPrimitives());
+        Map<Boolean, List<StyleElementList>> styles = new HashMap<>();
+        try {
+            for (boolean compile : new boolean[] {false, true}) {
+                MapCSSStyleSource.COMPILE_RULES.put(compile);
+                loadStyle();
+                ElemStyles elemStyles = MapPaintStyles.getStyles();
+                for (int i = 0; i < 5; i++) {
+                    ds.clearMappaintCache();
+                    List<StyleElementList> result = new ArrayList<>(primitives.size());
+                    long time = timed(() -> primitives.forEach(p -> result.add(elemStyles.get(p, 20, mv))));
+                    System.out.println((compile ? "Compiled" : "Parsed") + " styles took " + time + " ms.");
+                    styles.put(compile, result);
+                }
+            }
+        } finally {
+            MapCSSStyleSource.COMPILE_RULES.remove();
+        }
+        assertEquals(styles.get(false), styles.get(true));
+    }
 }
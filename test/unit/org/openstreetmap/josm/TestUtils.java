@@ -4,6 +4,7 @@ package org.openstreetmap.josm;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.junit.jupiter.api.Assumptions.assumeFalse;
@@ -614,6 +615,64 @@ public final class TestUtils {
                 () -> assertEquals(expected, actual.replace(System.lineSeparator(), "\n")));
     }
 
+    /**
+     * Asserts that two data sets contain the same primitives, with the same tags, coordinates (at the precision of the OSM server),
+     * way nodes, relation members, versions, changesets, timestamps, users and visibility.
+     * New primitives get other ids when data is read again, they are matched one-to-one by type, tags and coordinates.
+     * @param expected the expected data set
+     * @param actual the data set to check against <code>expected</code>
+     */
+    public static void assertSamePrimitives(DataSet expected, DataSet actual) {
+        assertEquals(expected.allPrimitives().size(), actual.allPrimitives().size());
+        // Each new primitive of the actual data set may only match one expected primitive
+        List<OsmPrimitive> unmatchedNew = actual.allPrimitives().stream().filter(OsmPrimitive::isNew).collect(Collectors.toList());
+        for (OsmPrimitive e : expected.allPrimitives()) {
+            OsmPrimitive a;
+            if (e.isNew()) {
+                a = unmatchedNew.stream()
+                        .filter(p -> p.getType() == e.getType() && p.getKeys().equals(e.getKeys())
+                                && (!(p instanceof Node) || ((Node) p).equalsEpsilon((Node) e)))
+                        .findFirst().orElse(null);
+                unmatchedNew.remove(a);
+            } else {
+                a = actual.getPrimitiveById(e);
+            }
+            assertNotNull(a, e::toString);
+            assertEquals(e.getKeys(), a.getKeys(), e::toString);
+            assertEquals(e.getVersion(), a.getVersion(), e::toString);
+            assertEquals(e.getChangesetId(), a.getChangesetId(), e::toString);
+            assertEquals(e.getRawTimestamp(), a.getRawTimestamp(), e::toString);
+            assertEquals(e.getUser(), a.getUser(), e::toString);
+            assertEquals(e.isVisible(), a.isVisible(), e::toString);
+            assertEquals(e.isIncomplete(), a.isIncomplete(), e::toString);
+            if (e instanceof Node) {
+                assertEquals(((Node) e).isLatLonKnown(), ((Node) a).isLatLonKnown(), e::toString);
+                assertTrue(!((Node) e).isLatLonKnown() || ((Node) e).equalsEpsilon((Node) a), e::toString);
+            } else if (e instanceof Way) {
+                List<Node> expectedNodes = ((Way) e).getNodes();
+                List<Node> actualNodes = ((Way) a).getNodes();
+                assertEquals(expectedNodes.size(), actualNodes.size(), e::toString);
+                for (int i = 0; i < expectedNodes.size(); i++) {
+                    assertEquals(getPersistentId(expectedNodes.get(i)), getPersistentId(actualNodes.get(i)), e::toString);
+                }
+            } else if (e instanceof Relation) {
+                List<RelationMember> expectedMembers = ((Relation) e).getMembers();
+                List<RelationMember> actualMembers = ((Relation) a).getMembers();
+                assertEquals(expectedMembers.size(), actualMembers.size(), e::toString);
+                for (int i = 0; i < expectedMembers.size(); i++) {
+                    assertEquals(expectedMembers.get(i).getRole(), actualMembers.get(i).getRole(), e::toString);
+                    assertEquals(expectedMembers.get(i).getType(), actualMembers.get(i).getType(), e::toString);
+                    assertEquals(getPersistentId(expectedMembers.get(i).getMember()), getPersistentId(actualMembers.get(i).getMember()),
+                            e::toString);
+                }
+            }
+        }
+    }
+
+    private static long getPersistentId(OsmPrimitive primitive) {
+        return primitive.isNew() ? 0 : primitive.getUniqueId();
+    }
+
     /**
      * Waits until any asynchronous operations launched by the test on the EDT or worker threads have
      * (almost certainly) completed.
@@ -0,0 +1,233 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.command;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.command.CommandTest.CommandTestDataWithRelation;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.NodeData;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.PrimitiveData;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.RelationData;
+import org.openstreetmap.josm.data.osm.RelationMember;
+import org.openstreetmap.josm.data.osm.TagMap;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.data.osm.WayData;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+import org.openstreetmap.josm.testutils.annotations.I18n;
+import org.openstreetmap.josm.tools.bugreport.ReportedException;
+import org.opentest4j.AssertionFailedError;
+
+/**
+ * Unit tests of {@link PrimitiveDelta} class.
+ */
+@I18n
+@BasicPreferences
+class PrimitiveDeltaTest {
+    private CommandTestDataWithRelation testData;
+
+    /**
+     * Set up the test data.
+     */
+    @BeforeEach
+    public void createTestData() {
+        testData = new CommandTestDataWithRelation();
+    }
+
+    /**
+     * Checks that a primitive is in the given state, including the order of its tags.
+     * @param expected the expected state
+     * @param primitive the primitive
+     */
+    private static void assertState(PrimitiveData expected, OsmPrimitive primitive) {
+        PrimitiveData actual = primitive.save();
+        assertEquals(expected.getVersion(), actual.getVersion());
+        assertEquals(expected.isModified(), actual.isModified());
+        assertEquals(expected.isDeleted(), actual.isDeleted());
+        assertEquals(new ArrayList<>(expected.getKeys().entrySet()), new ArrayList<>(actual.getKeys().entrySet()));
+        if (expected instanceof NodeData) {
+            assertEquals(((NodeData) expected).getCoor(), ((NodeData) actual).getCoor());
+        } else if (expected instanceof WayData) {
+            assertEquals(((WayData) expected).getNodeIds(), ((WayData) actual).getNodeIds());
+        } else if (expected instanceof RelationData) {
+            assertEquals(((RelationData) expected).getMembers(), ((RelationData) actual).getMembers());
+        }
+    }
+
+    /**
+     * Executes and compacts the command, and checks that undoing it restores the primitive.
+     * @param command the command
+     * @param primitive the changed primitive
+     */
+    private static void assertUndo(Command command, OsmPrimitive primitive) {
+        PrimitiveData before = primitive.save();
+        long full = PrimitiveDelta.estimateMemoryFootprint(primitive);
+        command.executeCommand();
+        PrimitiveData after = primitive.save();
+        // the command has changed the primitive
+        assertThrows(AssertionFailedError.class, () -> assertState(before, primitive));
+        command.compactUndoState();
+        assertState(after, primitive);
+        command.undoCommand();
+        assertState(before, primitive);
+        assertTrue(command.getUndoMemoryFootprint() > 0);
+        assertTrue(command.getUndoMemoryFootprint() < full + PrimitiveDelta.estimateMemoryFootprint(primitive));
+        // the command can be executed again
+        command.executeCommand();
+        assertState(after, primitive);
+        command.compactUndoState();
+        command.undoCommand();
+        assertState(before, primitive);
+    }
+
+    /**
+     * Test changed, added and removed tags.
+     */
+    @Test
+    void testTags() {
+        Node node = testData.existingNode;
+        node.put("a", "1");
+        node.put("b", "2");
+        assertUndo(new ChangePropertyCommand(node, "existing", "changed"), node);
+        assertUndo(new ChangePropertyCommand(node, "new", "added"), node);
+        assertUndo(new ChangePropertyCommand(node, "a", null), node);
+        assertUndo(new ChangePropertyCommand(node, "existing", null), node);
+        Node reordered = new Node(node);
+        reordered.setKeys(new TagMap("b", "2", "a", "1", "existing", "existing"));
+        assertUndo(new ChangeCommand(node, reordered), node);
+    }
+
+    /**
+     * Test changed coordinates.
+     */
+    @Test
+    void testCoordinates() {
+        Node node = testData.existingNode;
+        Node moved = new Node(node);
+        moved.setCoor(new LatLon(12.345678901, -98.765432109));
+        assertUndo(new ChangeCommand(node, moved), node);
+        Node unknown = new Node(node);
+        unknown.setCoor(null);
+        assertUndo(new ChangeCommand(node, unknown), node);
+    }
+
+    /**
+     * Test changed way nodes.
+     */
+    @Test
+    void testWayNodes() {
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            nodes.add(testData.createNode(100 + i));
+        }
+        Way way = testData.createWay(30, nodes.toArray(new Node[0]));
+        assertUndo(new ChangeNodesCommand(way, nodes.subList(0, 9)), way);
+        assertUndo(new ChangeNodesCommand(way, nodes.subList(1, 10)), way);
+        List<Node> inserted = new ArrayList<>(nodes);
+        inserted.add(5, testData.existingNode);
+        assertUndo(new ChangeNodesCommand(way, inserted), way);
+        List<Node> removed = new ArrayList<>(nodes);
+        removed.remove(5);
+        assertUndo(new ChangeNodesCommand(way, removed), way);
+        List<Node> closed = new ArrayList<>(nodes);
+        closed.add(nodes.get(0));
+        assertUndo(new ChangeNodesCommand(way, closed), way);
+        List<Node> reversed = new ArrayList<>(nodes);
+        Collections.reverse(reversed);
+        assertUndo(new ChangeNodesCommand(way, reversed), way);
+    }
+
+    /**
+     * Test changed relation members.
+     */
+    @Test
+    void testRelationMembers() {
+        Relation relation = testData.existingRelation;
+        List<RelationMember> members = new ArrayList<>(relation.getMembers());
+        members.add(1, new RelationMember("", testData.existingNode2));
+        assertUndo(new ChangeMembersCommand(relation, members), relation);
+        List<RelationMember> roles = new ArrayList<>(relation.getMembers());
+        roles.set(0, new RelationMember("changed", roles.get(0).getMember()));
+        assertUndo(new ChangeMembersCommand(relation, roles), relation);
+        assertUndo(new ChangeMembersCommand(relation, Arrays.asList(new RelationMember("way", testData.existingWay))), relation);
+    }
+
+    /**
+     * Test that undoing a command fails without changing the way if its nodes have been changed after the command has been executed.
+     */
+    @Test
+    void testWayChangedBeforeUndo() {
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            nodes.add(testData.createNode(100 + i));
+        }
+        Way way = testData.createWay(30, nodes.toArray(new Node[0]));
+        List<Node> inserted = new ArrayList<>(nodes);
+        inserted.add(5, testData.existingNode);
+        Command command = new SequenceCommand("sequence",
+                new ChangePropertyCommand(way, "highway", "residential"),
+                new ChangeNodesCommand(way, inserted));
+        command.executeCommand();
+        command.compactUndoState();
+
+        // shorter than the unchanged nodes at both ends of the list
+        assertUndoFails(command, way, nodes.subList(0, 3));
+        // same size, but other nodes in the changed part
+        List<Node> reversed = new ArrayList<>(inserted);
+        Collections.reverse(reversed);
+        assertUndoFails(command, way, reversed);
+        // only an unchanged node at the beginning has been replaced
+        List<Node> replaced = new ArrayList<>(inserted);
+        replaced.set(0, testData.createNode(200));
+        assertUndoFails(command, way, replaced);
+
+        way.setNodes(inserted);
+        command.undoCommand();
+        assertEquals(nodes, way.getNodes());
+        assertNull(way.get("highway"));
+    }
+
+    private static void assertUndoFails(Command command, Way way, List<Node> nodes) {
+        way.setNodes(nodes);
+        // the sequence reports the failure of its command
+        ReportedException e = assertThrows(ReportedException.class, command::undoCommand);
+        assertTrue(e.getCause() instanceof IllegalStateException, e::toString);
+        assertEquals(nodes, way.getNodes());
+        assertEquals("residential", way.get("highway"));
+    }
+
+    /**
+     * Test that the compacted state of a small change is smaller than the full copy, and that a sequence compacts its commands.
+     */
+    @Test
+    void testMemoryFootprint() {
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            nodes.add(testData.createNode(100 + i));
+        }
+        Way way = testData.createWay(30, nodes.toArray(new Node[0]));
+        Command command = new SequenceCommand("sequence",
+                new ChangePropertyCommand(way, "highway", "residential"),
+                new ChangeNodesCommand(way, nodes.subList(0, 999)));
+        command.executeCommand();
+        long full = PrimitiveDelta.estimateMemoryFootprint(way);
+        // the command keeps its new list of nodes for redo, whatever the undo state
+        long redo = PrimitiveDelta.estimateCollectionFootprint(nodes.subList(0, 999));
+        assertTrue(command.getUndoMemoryFootprint() < full / 10 + redo, command.getUndoMemoryFootprint() + " " + full + " " + redo);
+        command.undoCommand();
+        assertEquals(1000, way.getNodesCount());
+        assertNull(way.get("highway"));
+    }
+}
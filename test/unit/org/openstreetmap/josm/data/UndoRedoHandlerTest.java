@@ -0,0 +1,105 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.command.ChangePropertyCommand;
+import org.openstreetmap.josm.command.Command;
+import org.openstreetmap.josm.command.CommandTest.CommandTestData;
+import org.openstreetmap.josm.command.DeleteCommand;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.spi.preferences.Config;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+import org.openstreetmap.josm.testutils.annotations.I18n;
+
+/**
+ * Unit tests of {@link UndoRedoHandler} class.
+ */
+@I18n
+@BasicPreferences
+class UndoRedoHandlerTest {
+
+    /**
+     * Reset the undo list.
+     */
+    @AfterEach
+    void tearDown() {
+        UndoRedoHandler.getInstance().clean();
+    }
+
+    /**
+     * Test that the memory used by the commands is reported, and limits the size of the undo list.
+     */
+    @Test
+    void testMemoryLimit() {
+        final UndoRedoHandler handler = UndoRedoHandler.getInstance();
+        final CommandTestData testData = new CommandTestData();
+        handler.clean();
+        final Command first = new ChangePropertyCommand(testData.existingNode, "a", "1");
+        handler.add(first);
+        assertEquals(first.getUndoMemoryFootprint(), handler.getMemoryFootprint());
+        assertTrue(handler.getMemoryFootprint() > 0);
+        final Command second = new ChangePropertyCommand(testData.existingWay, "b", "2");
+        handler.add(second);
+        assertEquals(first.getUndoMemoryFootprint() + second.getUndoMemoryFootprint(), handler.getMemoryFootprint());
+        assertEquals(2, handler.getUndoCommands().size());
+
+        Config.getPref().putInt("undo.max-memory", 0);
+        try {
+            final Command third = new ChangePropertyCommand(testData.existingNode2, "c", "3");
+            handler.add(third);
+            // the last command is always kept
+            assertEquals(1, handler.getUndoCommands().size());
+            assertSame(third, handler.getLastCommand());
+            assertEquals(third.getUndoMemoryFootprint(), handler.getMemoryFootprint());
+        } finally {
+            Config.getPref().put("undo.max-memory", null);
+        }
+        handler.clean();
+        assertEquals(0, handler.getMemoryFootprint());
+    }
+
+    /**
+     * Test that the copies of deleted primitives kept to undo a deletion are accounted for.
+     */
+    @Test
+    void testMemoryLimitDelete() {
+        final UndoRedoHandler handler = UndoRedoHandler.getInstance();
+        final CommandTestData testData = new CommandTestData();
+        handler.clean();
+        final List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            nodes.add(testData.createNode(1000 + i));
+        }
+        final Command delete = new DeleteCommand(nodes);
+        handler.add(delete);
+        // at least the coordinates and the tags of each node
+        assertTrue(delete.getUndoMemoryFootprint() > nodes.size() * 64L, Long.toString(delete.getUndoMemoryFootprint()));
+        assertEquals(delete.getUndoMemoryFootprint(), handler.getMemoryFootprint());
+        handler.undo();
+        assertTrue(nodes.stream().noneMatch(Node::isDeleted));
+        assertEquals(delete.getUndoMemoryFootprint(), handler.getMemoryFootprint());
+        handler.redo();
+        assertTrue(nodes.stream().allMatch(Node::isDeleted));
+        assertEquals(delete.getUndoMemoryFootprint(), handler.getMemoryFootprint());
+
+        Config.getPref().putInt("undo.max-memory", 1);
+        try {
+            final Command next = new ChangePropertyCommand(testData.existingNode, "a", "1");
+            handler.add(next);
+            // the deletion uses more than 1 MB
+            assertEquals(Collections.singletonList(next), handler.getUndoCommands());
+            assertEquals(next.getUndoMemoryFootprint(), handler.getMemoryFootprint());
+        } finally {
+            Config.getPref().put("undo.max-memory", null);
+        }
+    }
+}
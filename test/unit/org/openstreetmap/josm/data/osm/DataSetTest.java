@@ -11,6 +11,8 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.jupiter.api.Test;
 import org.openstreetmap.josm.TestUtils;
@@ -337,4 +339,89 @@ class DataSetTest {
         assertEquals(4, copy.allPrimitives().size());
         assertTrue(copy.isLocked());
     }
+
+    /**
+     * Spatial searches without lock must never see a partially modified data set.
+     * @throws Exception if the modifying thread fails
+     */
+    @Test
+    void testOptimisticSearchDuringModifications() throws Exception {
+        DataSet ds = new DataSet();
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Node n = new Node(new LatLon(i / 1000d, i / 1000d));
+            nodes.add(n);
+            ds.addPrimitive(n);
+        }
+        Way way = new Way();
+        way.setNodes(nodes.subList(0, 10));
+        ds.addPrimitive(way);
+        BBox all = new BBox(-1, -1, 2, 2);
+        AtomicBoolean done = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 20_000; i++) {
+                // moving nodes removes them from the store and adds them again
+                nodes.get(i % nodes.size()).setCoor(new LatLon((i * 7 % 1000) / 1000d, (i * 13 % 1000) / 1000d));
+            }
+            done.set(true);
+        });
+        writer.start();
+        try {
+            do {
+                assertEquals(nodes.size(), ds.searchNodes(all).size());
+                assertEquals(1, ds.searchWays(all).size());
+            } while (!done.get());
+        } finally {
+            writer.join();
+        }
+        assertEquals(nodes.size(), ds.searchNodes(all).size());
+    }
+
+    /**
+     * Unit test of {@link DataSetLockStatistics}.
+     */
+    @Test
+    void testLockStatistics() {
+        DataSet ds = new DataSet();
+        DataSetLockStatistics.reset();
+        DataSetLockStatistics.setEnabled(true);
+        try {
+            Node n = new Node(LatLon.ZERO);
+            ds.addPrimitive(n);
+            ds.searchNodes(new BBox(-1, -1, 1, 1));
+            ds.beginUpdate();
+            try {
+                // the data set is locked by the current thread, so the search has to use the read lock
+                assertEquals(Collections.singletonList(n), ds.searchNodes(new BBox(-1, -1, 1, 1)));
+            } finally {
+                ds.endUpdate();
+            }
+        } finally {
+            DataSetLockStatistics.setEnabled(false);
+        }
+        Map<String, DataSetLockStatistics.CallerStatistics> statistics = DataSetLockStatistics.getStatistics();
+        assertFalse(statistics.isEmpty());
+        assertEquals(2, statistics.values().stream().mapToLong(DataSetLockStatistics.CallerStatistics::getWriteLocks).sum());
+        assertEquals(1, statistics.values().stream().mapToLong(DataSetLockStatistics.CallerStatistics::getReadLocks).sum());
+        assertEquals(1, statistics.values().stream().mapToLong(DataSetLockStatistics.CallerStatistics::getOptimisticReads).sum());
+        DataSetLockStatistics.reset();
+        assertTrue(DataSetLockStatistics.getStatistics().isEmpty());
+    }
+
+    /**
+     * Unit test of {@link DataSet#getChangeCount}.
+     */
+    @Test
+    void testChangeCount() {
+        DataSet ds = new DataSet();
+        int count = ds.getChangeCount();
+        Node n = new Node(LatLon.ZERO);
+        ds.addPrimitive(n);
+        assertTrue(ds.getChangeCount() > count);
+        count = ds.getChangeCount();
+        ds.searchNodes(new BBox(-1, -1, 1, 1));
+        assertEquals(count, ds.getChangeCount());
+        n.setCoor(new LatLon(0.5, 0.5));
+        assertTrue(ds.getChangeCount() > count);
+    }
 }
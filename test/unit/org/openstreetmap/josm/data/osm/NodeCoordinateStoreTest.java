@@ -0,0 +1,182 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.openstreetmap.josm.data.coor.EastNorth;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.NodeCoordinateStore.Layout;
+import org.openstreetmap.josm.data.projection.Projection;
+import org.openstreetmap.josm.data.projection.ProjectionRegistry;
+import org.openstreetmap.josm.data.projection.Projections;
+
+/**
+ * Unit tests of {@link NodeCoordinateStore}.
+ */
+@org.openstreetmap.josm.testutils.annotations.Projection
+class NodeCoordinateStoreTest {
+
+    private static DataSet createDataSet(Layout layout, int count) {
+        DataSet ds = new DataSet();
+        ds.setNodeCoordinateLayout(layout);
+        for (int i = 0; i < count; i++) {
+            ds.addPrimitive(new Node(new LatLon(i / 100_000d, -i / 100_000d)));
+        }
+        return ds;
+    }
+
+    /**
+     * Nodes must keep their coordinates when they are added to a data set, moved and removed from it.
+     * @param layout the layout to test
+     */
+    @ParameterizedTest
+    @EnumSource(Layout.class)
+    void testAddMoveRemove(Layout layout) {
+        // more nodes than one chunk of the columnar stores
+        DataSet ds = createDataSet(layout, 5000);
+        assertEquals(layout, ds.getNodeCoordinateLayout());
+        List<Node> nodes = new ArrayList<>(ds.getNodes());
+        for (Node n : nodes) {
+            assertEquals(-n.lat(), n.lon(), 1e-12);
+        }
+        Node n = nodes.get(4321);
+        LatLon coor = n.getCoor();
+        n.setCoor(new LatLon(1, 2));
+        assertEquals(new LatLon(1, 2), n.getCoor());
+        assertEquals(1, ds.searchNodes(new BBox(1.5, 0.5, 2.5, 1.5)).size());
+
+        ds.removePrimitive(n);
+        assertEquals(new LatLon(1, 2), n.getCoor());
+        // the released slot is reused
+        Node added = new Node(new LatLon(3, 4));
+        ds.addPrimitive(added);
+        assertEquals(new LatLon(1, 2), n.getCoor());
+        assertEquals(new LatLon(3, 4), added.getCoor());
+        assertFalse(coor.equals(added.getCoor()));
+
+        Node incomplete = new Node(5);
+        ds.addPrimitive(incomplete);
+        assertFalse(incomplete.isLatLonKnown());
+        assertNull(incomplete.getEastNorth());
+
+        ds.clear();
+        assertEquals(new LatLon(3, 4), added.getCoor());
+        assertFalse(incomplete.isLatLonKnown());
+        incomplete.setCoor(new LatLon(7, 8));
+        assertEquals(new LatLon(7, 8), incomplete.getCoor());
+    }
+
+    /**
+     * Readers can write the coordinates of new nodes directly in the store of their data set.
+     * @param layout the layout to test
+     */
+    @ParameterizedTest
+    @EnumSource(Layout.class)
+    void testReserveNodeCoordinates(Layout layout) {
+        DataSet ds = createDataSet(layout, 10);
+        Node n = new Node(20, 1);
+        ds.reserveNodeCoordinates(n);
+        n.setCoor(new LatLon(5, 6));
+        assertEquals(new LatLon(5, 6), n.getCoor());
+        ds.addPrimitive(n);
+        assertEquals(new LatLon(5, 6), n.getCoor());
+        if (layout != Layout.NODE) {
+            // the slots reserved in advance and not used are released at the end of the update
+            assertEquals(11, ds.getNodeCoordinateStore().size());
+        }
+        ds.removePrimitive(n);
+        assertEquals(new LatLon(5, 6), n.getCoor());
+        if (layout != Layout.NODE) {
+            assertEquals(10, ds.getNodeCoordinateStore().size());
+        }
+    }
+
+    /**
+     * The projected coordinates must follow the coordinates and the projection.
+     * @param layout the layout to test
+     */
+    @ParameterizedTest
+    @EnumSource(Layout.class)
+    void testEastNorthCache(Layout layout) {
+        DataSet ds = createDataSet(layout, 10);
+        Node n = ds.getNodes().iterator().next();
+        Projection projection = ProjectionRegistry.getProjection();
+        assertEquals(projection.latlon2eastNorth(n), n.getEastNorth());
+
+        n.setEastNorth(new EastNorth(1000, 2000));
+        assertTrue(new EastNorth(1000, 2000).equalsEpsilon(n.getEastNorth(), 1e-6));
+        assertEquals(projection.eastNorth2latlon(new EastNorth(1000, 2000)), n.getCoor());
+
+        n.setCoor(new LatLon(10, 20));
+        assertEquals(projection.latlon2eastNorth(new LatLon(10, 20)), n.getEastNorth());
+
+        Projection other = Projections.getProjectionByCode("EPSG:4326");
+        assertEquals(other.latlon2eastNorth(new LatLon(10, 20)), n.getEastNorth(other));
+        assertEquals(projection.latlon2eastNorth(new LatLon(10, 20)), n.getEastNorth(projection));
+
+        ds.invalidateEastNorthCache();
+        assertEquals(other.latlon2eastNorth(new LatLon(10, 20)), n.getEastNorth(other));
+        assertEquals(other.latlon2eastNorth(new LatLon(10, 20)), n.getEastNorth(other));
+        assertEquals(projection.latlon2eastNorth(new LatLon(10, 20)), n.getEastNorth(projection));
+    }
+
+    /**
+     * The projected coordinates are invalidated when the projection changes, and can then be computed for all nodes at once.
+     * @param layout the layout to test
+     */
+    @ParameterizedTest
+    @EnumSource(Layout.class)
+    void testProjectionChange(Layout layout) {
+        // more nodes than projected in a single batch
+        DataSet ds = createDataSet(layout, 70_000);
+        Node incomplete = new Node(5);
+        ds.addPrimitive(incomplete);
+        Projection other = Projections.getProjectionByCode("EPSG:4326");
+        ds.projectionChanged(ProjectionRegistry.getProjection(), other);
+        if (layout != Layout.NODE) {
+            assertNull(ds.getNodeCoordinateStore().getEastNorthCacheKey());
+        }
+        ds.cacheEastNorth(other);
+        if (layout != Layout.NODE) {
+            assertEquals(other.getCacheKey(), ds.getNodeCoordinateStore().getEastNorthCacheKey());
+        }
+        for (Node n : ds.getNodes()) {
+            if (n != incomplete) {
+                assertEquals(other.latlon2eastNorth(n), n.getEastNorth(other));
+            }
+        }
+        assertNull(incomplete.getEastNorth(other));
+    }
+
+    /**
+     * Changing the layout of a data set must keep the coordinates of its nodes.
+     * @param layout the layout to test
+     */
+    @ParameterizedTest
+    @EnumSource(Layout.class)
+    void testChangeLayout(Layout layout) {
+        DataSet ds = createDataSet(Layout.NODE, 100);
+        NodeCoordinateStore old = ds.getNodeCoordinateStore();
+        ds.setNodeCoordinateLayout(layout);
+        assertEquals(layout, ds.getNodeCoordinateLayout());
+        if (layout != Layout.NODE) {
+            assertNotSame(old, ds.getNodeCoordinateStore());
+            assertEquals(100, ds.getNodeCoordinateStore().size());
+        }
+        for (Node n : ds.getNodes()) {
+            assertEquals(-n.lat(), n.lon(), 1e-12);
+        }
+        DataSet copy = new DataSet(ds);
+        assertEquals(layout, copy.getNodeCoordinateLayout());
+        assertEquals(100, copy.searchNodes(new BBox(-1, -1, 1, 1)).size());
+    }
+}
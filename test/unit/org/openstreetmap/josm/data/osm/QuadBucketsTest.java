@@ -3,6 +3,7 @@ package org.openstreetmap.josm.data.osm;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.openstreetmap.josm.TestUtils.getPrivateField;
 
@@ -14,9 +15,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Test;
 import org.openstreetmap.josm.data.coor.LatLon;
@@ -250,4 +254,117 @@ class QuadBucketsTest {
         }
         assertEquals(0, qb.size());
     }
+
+    /**
+     * A bulk loaded tree must behave like a tree filled one object at a time.
+     */
+    @Test
+    void testBulkLoad() {
+        Random random = new Random(42);
+        List<Node> nodes = new ArrayList<>();
+        List<Way> ways = new ArrayList<>();
+        // enough objects to build subtrees in parallel
+        for (int i = 0; i < 40_000; i++) {
+            Node n = new Node(new LatLon(random.nextDouble() * 2, random.nextDouble() * 2));
+            nodes.add(n);
+            if (i % 2 == 1) {
+                Way w = new Way();
+                w.setNodes(Arrays.asList(nodes.get(i - 1), n));
+                ways.add(w);
+            }
+        }
+        // some objects share coordinates, or lie on the borders of quad tiles
+        for (int i = 0; i < 100; i++) {
+            nodes.add(new Node(new LatLon(1, 1)));
+            nodes.add(new Node(new LatLon(0, i / 100d)));
+        }
+        Node incomplete = new Node(1);
+        nodes.add(incomplete);
+
+        QuadBuckets<Node> loadedNodes = new QuadBuckets<>();
+        assertTrue(loadedNodes.addAll(nodes));
+        QuadBuckets<Way> loadedWays = new QuadBuckets<>();
+        assertTrue(loadedWays.addAll(ways));
+        QuadBuckets<Node> addedNodes = new QuadBuckets<>();
+        nodes.forEach(addedNodes::add);
+        QuadBuckets<Way> addedWays = new QuadBuckets<>();
+        ways.forEach(addedWays::add);
+
+        assertEquals(nodes.size(), loadedNodes.size());
+        assertEquals(ways.size(), loadedWays.size());
+        checkIterator(loadedNodes, nodes.size());
+        checkIterator(loadedWays, ways.size());
+        for (int i = 0; i < 200; i++) {
+            double lat = random.nextDouble() * 2;
+            double lon = random.nextDouble() * 2;
+            double size = random.nextDouble() * (i % 2 == 0 ? 0.01 : 1);
+            BBox bbox = new BBox(lon, lat, lon + size, lat + size);
+            assertEquals(new HashSet<>(addedNodes.search(bbox)), new HashSet<>(loadedNodes.search(bbox)));
+            assertEquals(new HashSet<>(addedWays.search(bbox)), new HashSet<>(loadedWays.search(bbox)));
+            List<Way> consumed = new ArrayList<>();
+            loadedWays.search(bbox, consumed::add);
+            assertEquals(loadedWays.search(bbox), consumed);
+        }
+
+        assertTrue(nodes.stream().allMatch(loadedNodes::contains));
+        assertTrue(ways.stream().allMatch(loadedWays::contains));
+        int count = nodes.size();
+        for (Node n : nodes) {
+            assertTrue(loadedNodes.remove(n));
+            assertEquals(--count, loadedNodes.size());
+        }
+        checkIterator(loadedNodes, 0);
+        assertTrue(loadedWays.removeAll(ways));
+        checkIterator(loadedWays, 0);
+    }
+
+    /**
+     * A search without lock finds the same objects as a locked search, and stops as soon as the tree is no longer valid.
+     */
+    @Test
+    void testSearchWithoutLock() {
+        Random random = new Random(42);
+        QuadBuckets<Node> buckets = new QuadBuckets<>();
+        for (int i = 0; i < 10_000; i++) {
+            buckets.add(new Node(new LatLon(random.nextDouble(), random.nextDouble())));
+        }
+        BBox bbox = new BBox(0.2, 0.2, 0.6, 0.6);
+        AtomicInteger checks = new AtomicInteger();
+        List<Node> found = buckets.search(bbox, () -> checks.incrementAndGet() > 0);
+        assertEquals(new HashSet<>(buckets.search(bbox)), new HashSet<>(found));
+        assertTrue(checks.get() > 10, () -> checks + " buckets");
+
+        checks.set(0);
+        assertThrows(ConcurrentModificationException.class, () -> buckets.search(bbox, () -> checks.incrementAndGet() < 10));
+        assertEquals(10, checks.get());
+    }
+
+    /**
+     * Unit test of {@link DataSet#addPrimitives}.
+     */
+    @Test
+    void testDataSetAddPrimitives() {
+        List<OsmPrimitive> primitives = new ArrayList<>();
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Node n = new Node(new LatLon(i / 1000d, i / 1000d));
+            nodes.add(n);
+            primitives.add(n);
+        }
+        Way w = new Way();
+        w.setNodes(nodes);
+        primitives.add(w);
+        primitives.add(new Relation());
+
+        DataSet ds = new DataSet();
+        ds.addPrimitives(primitives);
+        assertEquals(primitives.size(), ds.allPrimitives().size());
+        assertEquals(1000, ds.searchNodes(new BBox(-1, -1, 2, 2)).size());
+        assertEquals(Collections.singletonList(w), ds.searchWays(new BBox(0.5, 0.5, 0.6, 0.6)));
+        List<Node> consumed = new ArrayList<>();
+        ds.searchNodes(new BBox(0.5, 0.5, 0.6, 0.6), consumed::add);
+        assertEquals(new HashSet<>(ds.searchNodes(new BBox(0.5, 0.5, 0.6, 0.6))), new HashSet<>(consumed));
+        assertFalse(consumed.isEmpty());
+        assertTrue(primitives.stream().allMatch(p -> p.getDataSet() == ds));
+    }
 }
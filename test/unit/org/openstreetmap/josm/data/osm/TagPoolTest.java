@@ -0,0 +1,93 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests of {@link TagPool}.
+ */
+class TagPoolTest {
+
+    private static String copy(String s) {
+        return new String(s.toCharArray());
+    }
+
+    /**
+     * Equal strings must be pooled to the same instance.
+     */
+    @Test
+    void testInternString() {
+        String pooled = TagPool.intern(copy("highway"));
+        assertEquals("highway", pooled);
+        assertSame(pooled, TagPool.intern(copy("highway")));
+        assertNull(TagPool.intern((String) null));
+    }
+
+    /**
+     * Small tag sets are shared, larger ones only have their strings pooled.
+     */
+    @Test
+    void testInternTags() {
+        String[] small = TagPool.intern(new String[] {copy("building"), copy("yes")});
+        assertSame(small, TagPool.intern(new String[] {copy("building"), copy("yes")}));
+        assertSame(small, TagPool.intern(small));
+        assertNotSame(small, TagPool.intern(new String[] {copy("building"), copy("no")}));
+
+        String[] large = {copy("building"), copy("yes"), copy("name"), copy("x"), copy("addr:street"), copy("y")};
+        String[] pooled = TagPool.intern(large);
+        assertArrayEquals(large, pooled);
+        assertNotSame(large, pooled);
+        assertNotSame(pooled, TagPool.intern(large.clone()));
+        assertSame(small[0], pooled[0]);
+        assertSame(small[1], pooled[1]);
+        // already pooled arrays are not copied
+        assertSame(pooled, TagPool.intern(pooled));
+        assertNull(TagPool.intern((String[]) null));
+    }
+
+    /**
+     * Primitives with the same tags share their tags, which must stay independent when they are modified.
+     */
+    @Test
+    void testPrimitivesShareTags() {
+        Node n1 = new Node();
+        n1.put(copy("natural"), copy("tree"));
+        Node n2 = new Node();
+        n2.setKeys(Collections.singletonMap(copy("natural"), copy("tree")));
+        Node n3 = new Node();
+        n3.setKeys(new TagMap(copy("natural"), copy("tree"), "leaf_type", "broadleaved"));
+        n3.remove("leaf_type");
+        assertSame(n1.keys, n2.keys);
+        assertSame(n1.keys, n3.keys);
+
+        n1.put("natural", "wood");
+        assertEquals("tree", n2.get("natural"));
+        assertEquals("wood", n1.get("natural"));
+        n2.putAll(Collections.singletonMap("leaf_type", "needleleaved"));
+        assertEquals(1, n3.getKeys().size());
+        assertEquals(2, n2.getKeys().size());
+    }
+
+    /**
+     * The pool must return one instance per value when used concurrently.
+     */
+    @Test
+    void testConcurrentIntern() {
+        ConcurrentHashMap<String, String> first = new ConcurrentHashMap<>();
+        IntStream.range(0, 100_000).parallel().forEach(i -> {
+            String value = "value" + (i % 1000);
+            String pooled = TagPool.intern(copy(value));
+            assertSame(first.computeIfAbsent(value, v -> pooled), pooled);
+        });
+    }
+}
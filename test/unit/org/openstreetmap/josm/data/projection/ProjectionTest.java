@@ -1,6 +1,7 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.data.projection;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -103,6 +104,38 @@ class ProjectionTest {
         }
     }
 
+    /**
+     * Tests that converting many coordinates at once gives the same result as converting them one by one
+     */
+    @ProjectionNadGrids
+    @Test
+    void testBatchProjection() {
+        for (String code : Arrays.asList("EPSG:4326", "EPSG:3857", "EPSG:3301", "EPSG:27561", "EPSG:2176", "EPSG:32633",
+                "EPSG:21781", "EPSG:102016")) {
+            Projection p = Projections.getProjectionByCode(code);
+            Bounds b = p.getWorldBoundsLatLon();
+            // enough coordinates to be converted by several threads
+            int n = 40_000;
+            double[] lat = new double[n + 1];
+            double[] lon = new double[n + 1];
+            for (int i = 0; i < n; i++) {
+                LatLon ll = random(b);
+                lat[i] = ll.lat();
+                lon[i] = ll.lon();
+            }
+            double[] east = new double[n + 1];
+            double[] north = new double[n + 1];
+            p.project(lat, lon, east, north, n);
+            for (int i = 0; i < n; i++) {
+                EastNorth en = p.latlon2eastNorth(new LatLon(lat[i], lon[i]));
+                assertEquals(en.east(), east[i], 1e-9, code);
+                assertEquals(en.north(), north[i], 1e-9, code);
+            }
+            assertEquals(0, east[n]);
+            assertEquals(0, north[n]);
+        }
+    }
+
     private LatLon random(Bounds b) {
         for (int i = 0; i < 20; i++) {
             double lat = rand.nextDouble() * (b.getMax().lat() - b.getMin().lat()) + b.getMin().lat();
@@ -0,0 +1,236 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.projection.datum;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests of {@link NTV2GridShiftFile} class.
+ */
+class NTV2GridShiftFileTest {
+
+    private static final int COLUMNS = 4;
+    private static final int ROWS = 3;
+    /** The size of the synthetic top level sub grids, in seconds */
+    private static final int SIZE = 3600;
+
+    @TempDir
+    Path tempDir;
+
+    private static NTV2GridShiftFile load(Path path) throws IOException {
+        NTV2GridShiftFile file = new NTV2GridShiftFile();
+        try (InputStream in = Files.newInputStream(path)) {
+            file.loadGridShiftFile(in, true);
+        }
+        return file;
+    }
+
+    private static NTV2GridShiftFile map(Path path) throws IOException {
+        NTV2GridShiftFile file = new NTV2GridShiftFile();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            file.mapGridShiftFile(channel, true);
+        }
+        return file;
+    }
+
+    private static NTV2GridShift shift(NTV2GridShiftFile file, double lonPositiveWestSeconds, double latSeconds) {
+        NTV2GridShift gs = new NTV2GridShift();
+        gs.setLonPositiveWestSeconds(lonPositiveWestSeconds);
+        gs.setLatSeconds(latSeconds);
+        return file.gridShiftForward(gs) ? gs : null;
+    }
+
+    private static void assertSameShift(NTV2GridShift expected, NTV2GridShift actual, String message) {
+        if (expected == null) {
+            assertNull(actual, message);
+            return;
+        }
+        assertEquals(expected.getSubGridName(), actual.getSubGridName(), message);
+        assertEquals(expected.getLatShiftSeconds(), actual.getLatShiftSeconds(), message);
+        assertEquals(expected.getLonShiftPositiveWestSeconds(), actual.getLonShiftPositiveWestSeconds(), message);
+        assertEquals(expected.isLatAccuracyAvailable(), actual.isLatAccuracyAvailable(), message);
+        assertEquals(expected.getLatAccuracySeconds(), actual.getLatAccuracySeconds(), message);
+        assertEquals(expected.getLonAccuracySeconds(), actual.getLonAccuracySeconds(), message);
+    }
+
+    /**
+     * Test that mapped grid shift files give the same shifts as loaded ones.
+     * @throws IOException if any I/O error occurs
+     */
+    @Test
+    void testMapGridShiftFile() throws IOException {
+        Random random = new Random(42);
+        for (String name : new String[] {"BETA2007.gsb", "CHENYX06_etrs.gsb", "D73_ETRS89_geo.gsb", "DLX_ETRS89_geo.gsb", "ntf_r93.gsb"}) {
+            Path path = Paths.get("nodist/data/projection", name);
+            NTV2GridShiftFile loaded = load(path);
+            NTV2GridShiftFile mapped = map(path);
+            assertEquals(loaded.toString(), mapped.toString(), name);
+            int found = 0;
+            for (int i = 0; i < 10_000; i++) {
+                // Europe, from 10°W to 30°E and from 35°N to 60°N
+                double lon = -(random.nextDouble() * 40 - 10) * 3600;
+                double lat = (random.nextDouble() * 25 + 35) * 3600;
+                NTV2GridShift expected = shift(loaded, lon, lat);
+                assertSameShift(expected, shift(mapped, lon, lat), name + " " + lon + " " + lat);
+                found += expected != null ? 1 : 0;
+            }
+            assertTrue(found > 0, name);
+        }
+    }
+
+    /**
+     * Test the lookup of many sub grids, with nested sub grids, in little and big endian files.
+     * @throws IOException if any I/O error occurs
+     */
+    @Test
+    void testSubGridIndex() throws IOException {
+        for (ByteOrder order : new ByteOrder[] {ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN}) {
+            Path path = tempDir.resolve("test-" + order + ".gsb");
+            Files.write(path, createGridShiftFile(order));
+            NTV2GridShiftFile loaded = load(path);
+            NTV2GridShiftFile mapped = map(path);
+            Random random = new Random(42);
+            for (int i = 0; i < 10_000; i++) {
+                double lon = random.nextDouble() * (COLUMNS + ROWS + 1) * SIZE - SIZE / 2.0;
+                double lat = random.nextDouble() * (ROWS + 1) * SIZE - SIZE / 2.0;
+                String expected = getExpectedSubGrid(lon, lat);
+                NTV2GridShift gs = shift(mapped, lon, lat);
+                assertEquals(expected, gs != null ? gs.getSubGridName() : null, order + " " + lon + " " + lat);
+                assertSameShift(shift(loaded, lon, lat), gs, order + " " + lon + " " + lat);
+            }
+            // the maximum latitude and longitude are outside of the grid
+            assertNull(shift(mapped, (COLUMNS + ROWS) * SIZE, 0));
+            assertNull(shift(mapped, 0, ROWS * SIZE));
+        }
+    }
+
+    /**
+     * Test that a mapped grid shift file can be serialized.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testSerialization() throws Exception {
+        Path path = tempDir.resolve("test.gsb");
+        Files.write(path, createGridShiftFile(ByteOrder.LITTLE_ENDIAN));
+        NTV2GridShiftFile mapped = map(path);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(mapped);
+        }
+        NTV2GridShiftFile copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (NTV2GridShiftFile) in.readObject();
+        }
+        assertSameShift(shift(mapped, 1000, 2000), shift(copy, 1000, 2000), "top level");
+        assertSameShift(shift(mapped, SIZE + 100, SIZE + 100), shift(copy, SIZE + 100, SIZE + 100), "nested");
+    }
+
+    /**
+     * Returns the name of the sub grid expected to contain a coordinate: the first top level sub grid
+     * containing it, or its nested sub grid.
+     */
+    private static String getExpectedSubGrid(double lon, double lat) {
+        if (lon >= SIZE && lon < SIZE + SIZE / 2 && lat >= SIZE && lat < SIZE + SIZE / 2)
+            return "NESTED";
+        int column = (int) Math.floor(lon / SIZE);
+        int row = (int) Math.floor(lat / SIZE);
+        if (column >= 0 && column < COLUMNS && row >= 0 && row < ROWS)
+            return "GRID" + (row * COLUMNS + column);
+        if (lon >= COLUMNS * SIZE && lon < (COLUMNS + ROWS) * SIZE && lat >= 0 && lat < ROWS * SIZE)
+            return "LARGE";
+        return null;
+    }
+
+    /**
+     * Creates a grid shift file with a regular grid of top level sub grids, a nested sub grid
+     * in the second column of the second row, and a larger top level sub grid on their west side.
+     */
+    private static byte[] createGridShiftFile(ByteOrder order) {
+        int count = COLUMNS * ROWS + 2;
+        ByteBuffer buffer = ByteBuffer.allocate(11 * 16 * (count + 1) + 100 * 16 * count).order(order);
+        putInt(buffer, "NUM_OREC", 11);
+        putInt(buffer, "NUM_SREC", 11);
+        putInt(buffer, "NUM_FILE", count);
+        putString(buffer, "GS_TYPE", "SECONDS");
+        putString(buffer, "VERSION", "TEST");
+        putString(buffer, "SYSTEM_F", "FROM");
+        putString(buffer, "SYSTEM_T", "TO");
+        putDouble(buffer, "MAJOR_F", 6378137.0);
+        putDouble(buffer, "MINOR_F", 6356752.314);
+        putDouble(buffer, "MAJOR_T", 6378137.0);
+        putDouble(buffer, "MINOR_T", 6356752.314);
+        for (int row = 0; row < ROWS; row++) {
+            for (int column = 0; column < COLUMNS; column++) {
+                int i = row * COLUMNS + column;
+                putSubGrid(buffer, "GRID" + i, "NONE", column * SIZE, row * SIZE, SIZE, SIZE / 2, i);
+            }
+        }
+        putSubGrid(buffer, "NESTED", "GRID" + (COLUMNS + 1), SIZE, SIZE, SIZE / 2, SIZE / 4, 100);
+        putSubGrid(buffer, "LARGE", "NONE", COLUMNS * SIZE, 0, ROWS * SIZE, SIZE, 200);
+        byte[] bytes = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static void putSubGrid(ByteBuffer buffer, String name, String parent, int minLon, int minLat, int size, int interval, int value) {
+        int nodes = size / interval + 1;
+        putString(buffer, "SUB_NAME", name);
+        putString(buffer, "PARENT", parent);
+        putString(buffer, "CREATED", "20000101");
+        putString(buffer, "UPDATED", "20000101");
+        putDouble(buffer, "S_LAT", minLat);
+        putDouble(buffer, "N_LAT", minLat + (double) size);
+        putDouble(buffer, "E_LONG", minLon);
+        putDouble(buffer, "W_LONG", minLon + (double) size);
+        putDouble(buffer, "LAT_INC", interval);
+        putDouble(buffer, "LONG_INC", interval);
+        putInt(buffer, "GS_COUNT", nodes * nodes);
+        for (int i = 0; i < nodes * nodes; i++) {
+            buffer.putFloat(value + i / 100f);
+            buffer.putFloat(-value - i / 10f);
+            buffer.putFloat(i);
+            buffer.putFloat(2f * i);
+        }
+    }
+
+    private static void putLabel(ByteBuffer buffer, String label) {
+        buffer.put(String.format("%-8s", label).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void putInt(ByteBuffer buffer, String label, int value) {
+        putLabel(buffer, label);
+        buffer.putInt(value);
+        buffer.putInt(0);
+    }
+
+    private static void putDouble(ByteBuffer buffer, String label, double value) {
+        putLabel(buffer, label);
+        buffer.putDouble(value);
+    }
+
+    private static void putString(ByteBuffer buffer, String label, String value) {
+        putLabel(buffer, label);
+        putLabel(buffer, value);
+    }
+}
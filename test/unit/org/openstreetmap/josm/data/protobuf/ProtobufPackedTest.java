@@ -22,4 +22,13 @@ class ProtobufPackedTest {
         long[] numbers = new ProtobufPacked(bytes).getArray();
         assertArrayEquals(new long[] {8192, 6382, 442}, numbers);
     }
+
+    @Test
+    void testOffsetDoesNotModifyBytes() {
+        byte[] bytes = ProtobufTest.toByteArray(new int[] {0xff, -128, 64, -18, 49, -70, 3, 0xff});
+        byte[] copy = bytes.clone();
+        long[] numbers = new ProtobufPacked(bytes, 1, 6).getArray();
+        assertArrayEquals(new long[] {8192, 6382, 442}, numbers);
+        assertArrayEquals(copy, bytes);
+    }
 }
@@ -1,13 +1,18 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.data.protobuf;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.awt.geom.Ellipse2D;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -199,6 +204,92 @@ public class ProtobufTest {
         assertEquals(2498, shape.getCenterY());
     }
 
+    /**
+     * Check that the primitive-returning methods decode the same values as the byte array methods
+     *
+     * @throws IOException - if an IO error occurs
+     */
+    @Test
+    void testNextPrimitives() throws IOException {
+        // 150, -1 (int64, 10 bytes), zig-zag -2, fixed32 1, fixed64 -2
+        final byte[] bytes = toByteArray(new int[] {0x96, 0x01,
+                0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0x01,
+                0x03,
+                0x01, 0x00, 0x00, 0x00,
+                0xfe, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff});
+        for (ProtobufParser parser : new ProtobufParser[] {new ProtobufParser(bytes), new ProtobufParser(new ByteArrayInputStream(bytes))}) {
+            assertEquals(150, parser.nextVarLong());
+            assertEquals(-1, parser.nextVarLong());
+            assertEquals(-2, parser.nextSignedVarLong());
+            assertEquals(1, parser.nextFixed32Int());
+            assertEquals(-2, parser.nextFixed64Long());
+            assertFalse(parser.hasNext());
+            assertThrows(EOFException.class, parser::nextVarLong);
+        }
+    }
+
+    /**
+     * Check that nested parsers share the buffer, and that unknown fields are skipped
+     *
+     * @throws IOException - if an IO error occurs
+     */
+    @Test
+    void testNestedParser() throws IOException {
+        // field 1: fixed64, field 2: fixed32, field 3: "Test", field 4: packed [1, 300], field 5: var int 7
+        final byte[] bytes = toByteArray(new int[] {0x09, 0, 0, 0, 0, 0, 0, 0, 0, 0x15, 0, 0, 0, 0,
+                0x1a, 0x04, 0x54, 0x65, 0x73, 0x74, 0x22, 0x03, 0x01, 0xac, 0x02, 0x28, 0x07});
+        final ProtobufParser parser = new ProtobufParser(bytes, 0, bytes.length);
+        assertEquals(WireType.SIXTY_FOUR_BIT, parser.next());
+        int key = parser.nextKey();
+        assertEquals(1, ProtobufParser.getField(key));
+        parser.skipField(key);
+        key = parser.nextKey();
+        assertEquals(WireType.THIRTY_TWO_BIT, ProtobufParser.getWireType(key));
+        parser.skipField(key);
+        assertEquals(3, ProtobufParser.getField(parser.nextKey()));
+        assertEquals("Test", parser.nextString());
+        assertEquals(WireType.LENGTH_DELIMITED, parser.next());
+        key = parser.nextKey();
+        assertEquals(4, ProtobufParser.getField(key));
+        final ProtobufParser packed = parser.nextPackedParser(key);
+        assertEquals(1, packed.nextVarLong());
+        assertEquals(300, packed.nextVarLong());
+        assertFalse(packed.hasNext());
+        assertTrue(parser.hasNext());
+        assertEquals(5, ProtobufParser.getField(parser.nextKey()));
+        assertEquals(7, parser.nextVarLong());
+        assertFalse(parser.hasNext());
+        assertEquals(WireType.UNKNOWN, parser.next());
+    }
+
+    /**
+     * Repeated fields may be unpacked, even if they are normally packed
+     *
+     * @throws IOException - if an IO error occurs
+     */
+    @Test
+    void testUnpackedRepeated() throws IOException {
+        final byte[] bytes = {(byte) 0x08, (byte) 0x96, (byte) 0x01, (byte) 0x08, (byte) 0x96, (byte) 0x01};
+        for (ProtobufParser parser : new ProtobufParser[] {new ProtobufParser(bytes), new ProtobufParser(new ByteArrayInputStream(bytes))}) {
+            int key = parser.nextKey();
+            final ProtobufParser values = parser.nextPackedParser(key);
+            assertEquals(150, values.nextVarLong());
+            assertFalse(values.hasNext());
+            key = parser.nextKey();
+            assertArrayEquals(new long[] {150}, parser.nextPacked(key).getArray());
+            assertFalse(parser.hasNext());
+        }
+    }
+
+    /**
+     * A length delimited field must not read past the end of the parent message
+     */
+    @Test
+    void testTruncatedLengthDelimited() {
+        final byte[] bytes = toByteArray(new int[] {0x1a, 0x04, 0x54, 0x65, 0x73, 0x74});
+        assertThrows(EOFException.class, () -> new ProtobufParser(bytes, 0, bytes.length - 1).nextLengthDelimitedParser());
+    }
+
     @Test
     void testZigZag() {
         assertEquals(0, ProtobufParser.decodeZigZag(Integer.valueOf(0)).intValue());
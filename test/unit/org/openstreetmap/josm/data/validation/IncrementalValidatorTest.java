@@ -0,0 +1,175 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.validation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.data.validation.tests.DuplicateNode;
+import org.openstreetmap.josm.data.validation.tests.OverlappingWays;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Unit tests for {@link IncrementalValidator}
+ */
+@BasicPreferences
+class IncrementalValidatorTest {
+    private DataSet dataSet;
+    private Node n1;
+    private Node n2;
+    private Way w1;
+
+    private static Collection<org.openstreetmap.josm.data.validation.Test> createTests() {
+        return Arrays.asList(new DuplicateNode(), new OverlappingWays());
+    }
+
+    private static Node newNode(long id, double lat, double lon) {
+        final Node node = new Node(id, 1);
+        node.setCoor(new LatLon(lat, lon));
+        return node;
+    }
+
+    /**
+     * Create a data set with an unmodified highway, as if it was downloaded
+     */
+    @BeforeEach
+    void setUp() {
+        dataSet = new DataSet();
+        n1 = newNode(1, 10.0, 5.0);
+        n2 = newNode(2, 10.001, 5.0);
+        final Node n3 = newNode(3, 10.002, 5.0);
+        w1 = new Way(1, 1);
+        w1.setNodes(Arrays.asList(n1, n2, n3));
+        w1.put("highway", "residential");
+        dataSet.addPrimitiveRecursive(w1);
+    }
+
+    private static boolean isError(TestError error, Class<?> test, int code, Collection<? extends OsmPrimitive> primitives) {
+        return error.getTester().getClass() == test && error.getCode() == code
+                && new HashSet<>(error.getPrimitives()).equals(new HashSet<>(primitives));
+    }
+
+    private static void assertContainsError(Collection<TestError> errors, Class<?> test, int code, OsmPrimitive... primitives) {
+        assertTrue(errors.stream().anyMatch(e -> isError(e, test, code, Arrays.asList(primitives))), errors::toString);
+    }
+
+    private static void assertSameErrors(Collection<TestError> expected, Collection<TestError> actual) {
+        assertEquals(expected.size(), actual.size(), actual::toString);
+        for (TestError e : expected) {
+            assertContainsError(actual, e.getTester().getClass(), e.getCode(), e.getPrimitives().toArray(new OsmPrimitive[0]));
+        }
+    }
+
+    /**
+     * Validate primitives from scratch, like the validation before upload
+     */
+    private static List<TestError> validateFromScratch(Collection<OsmPrimitive> primitives) {
+        final ValidationTask task = new ValidationTask(null, NullProgressMonitor.INSTANCE, createTests(), primitives, null, true);
+        task.runTests();
+        return task.getErrors().stream()
+                .filter(e -> e.isConcerned(task.getRelevantPrimitives()))
+                .collect(Collectors.toList());
+    }
+
+    private static List<TestError> validateIncrementally(IncrementalValidator validator, Collection<OsmPrimitive> primitives) {
+        final Collection<org.openstreetmap.josm.data.validation.Test> tests = createTests();
+        final ValidationTask task = new ValidationTask(null, NullProgressMonitor.INSTANCE, tests, primitives, null, true);
+        task.setIncrementalValidator(validator);
+        task.runTests();
+        return task.getErrors();
+    }
+
+    /**
+     * The errors of the incremental validator must follow the changes of the data set, and be the same as the errors
+     * of a validation from scratch
+     */
+    @Test
+    void testIncrementalValidation() {
+        final Collection<org.openstreetmap.josm.data.validation.Test> tests = createTests();
+        final IncrementalValidator validator = new IncrementalValidator(dataSet, () -> tests);
+        validator.start();
+        try {
+            // a new node on top of an unmodified node
+            final Node added = new Node(new LatLon(10.0, 5.0));
+            dataSet.addPrimitive(added);
+            final Set<OsmPrimitive> toCheck = new HashSet<>(Collections.singleton(added));
+            List<TestError> errors = validateIncrementally(validator, toCheck);
+            assertEquals(1, errors.size(), errors::toString);
+            assertContainsError(errors, DuplicateNode.class, 12, n1, added);
+            assertSameErrors(validateFromScratch(toCheck), errors);
+
+            // a new way sharing a segment with an unmodified way
+            final Way way = new Way();
+            way.setNodes(Arrays.asList(n1, n2));
+            way.put("highway", "service");
+            dataSet.addPrimitive(way);
+            toCheck.add(way);
+            errors = validateIncrementally(validator, toCheck);
+            assertContainsError(errors, OverlappingWays.class, 101, way, w1);
+            assertSameErrors(validateFromScratch(toCheck), errors);
+
+            // moving the node away fixes the duplicated node
+            added.setCoor(new LatLon(11.0, 5.0));
+            errors = validateIncrementally(validator, toCheck);
+            assertEquals(1, errors.size(), errors::toString);
+            assertContainsError(errors, OverlappingWays.class, 101, way, w1);
+            assertSameErrors(validateFromScratch(toCheck), errors);
+
+            // a downloaded node on top of the modified node
+            final Node downloaded = newNode(4, 11.0, 5.0);
+            dataSet.addPrimitive(downloaded);
+            errors = validateIncrementally(validator, toCheck);
+            assertContainsError(errors, DuplicateNode.class, 3, downloaded, added);
+            assertSameErrors(validateFromScratch(toCheck), errors);
+
+            // removing the way removes its errors
+            dataSet.removePrimitive(way);
+            toCheck.remove(way);
+            errors = validateIncrementally(validator, toCheck);
+            assertEquals(1, errors.size(), errors::toString);
+            assertContainsError(errors, DuplicateNode.class, 3, downloaded, added);
+            assertSameErrors(validateFromScratch(toCheck), errors);
+            assertSameErrors(errors, validator.getErrors());
+        } finally {
+            validator.stop();
+        }
+        assertNull(validator.getErrors(tests, Collections.singleton(w1)));
+    }
+
+    /**
+     * Primitives which were never modified are validated when their errors are requested
+     */
+    @Test
+    void testUnknownPrimitivesAreValidated() {
+        final Node duplicate = newNode(5, 10.001, 5.0);
+        dataSet.addPrimitive(duplicate);
+        final Collection<org.openstreetmap.josm.data.validation.Test> tests = createTests();
+        final IncrementalValidator validator = new IncrementalValidator(dataSet, () -> tests);
+        validator.start();
+        try {
+            final Set<OsmPrimitive> toCheck = Collections.singleton(duplicate);
+            final List<TestError> errors = validateIncrementally(validator, toCheck);
+            assertSameErrors(validateFromScratch(toCheck), errors);
+            assertEquals(1, errors.size(), errors::toString);
+            assertContainsError(errors, DuplicateNode.class, 12, n2, duplicate);
+        } finally {
+            validator.stop();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.validation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Unit tests for {@link ValidationTask}
+ */
+@BasicPreferences
+class ValidationTaskTest {
+    /**
+     * A thread-safe test reporting one or two errors for tagged primitives
+     */
+    private static final class ThreadSafeTagTest extends org.openstreetmap.josm.data.validation.Test.TagTest {
+        ThreadSafeTagTest(String name) {
+            super(name);
+        }
+
+        @Override
+        public void check(OsmPrimitive p) {
+            if (p.hasKey("test")) {
+                errors.add(TestError.builder(this, Severity.WARNING, 1).message(name).primitives(p).build());
+                if (p.getUniqueId() % 3 == 0) {
+                    errors.add(TestError.builder(this, Severity.ERROR, 2).message(name).primitives(p).build());
+                }
+            }
+        }
+
+        @Override
+        public boolean isThreadSafe() {
+            return true;
+        }
+    }
+
+    /**
+     * A test that collects primitives while visiting them, and reports errors in {@link #endTest()}
+     */
+    private static final class CollectingTest extends org.openstreetmap.josm.data.validation.Test {
+        private final List<OsmPrimitive> visited = new ArrayList<>();
+
+        CollectingTest() {
+            super("collecting");
+        }
+
+        @Override
+        public void visit(Node n) {
+            visited.add(n);
+        }
+
+        @Override
+        public void endTest() {
+            if (!visited.isEmpty()) {
+                errors.add(TestError.builder(this, Severity.OTHER, 3).message(name).primitives(visited).build());
+            }
+            visited.clear();
+            super.endTest();
+        }
+    }
+
+    private static Collection<OsmPrimitive> createData() {
+        final DataSet ds = new DataSet();
+        for (int i = 0; i < 5000; i++) {
+            final Node node = new Node(new LatLon(i / 1000d, i / 1000d));
+            if (i % 7 != 0) {
+                node.put("test", Integer.toString(i));
+            }
+            ds.addPrimitive(node);
+        }
+        return ds.allPrimitives();
+    }
+
+    private static List<String> validate(Collection<OsmPrimitive> primitives, int threads) {
+        final int oldThreads = ValidationTask.THREADS.get();
+        ValidationTask.THREADS.put(threads);
+        try {
+            final List<org.openstreetmap.josm.data.validation.Test> tests = Arrays.asList(new ThreadSafeTagTest("a"),
+                    new ThreadSafeTagTest("b"), new CollectingTest(), new ThreadSafeTagTest("c"));
+            final List<String> consumed = new ArrayList<>();
+            final ValidationTask task = new ValidationTask(null, NullProgressMonitor.INSTANCE, tests, primitives, null, false);
+            task.setTestConsumer((t, test) -> consumed.add(test.getName()));
+            task.run();
+            assertEquals(Arrays.asList("a", "b", "collecting", "c"), consumed);
+            return task.getErrors().stream()
+                    .map(e -> e.getMessage() + ' ' + e.getCode() + ' ' + e.getPrimitives().size() + ' '
+                            + e.getPrimitives().iterator().next().getUniqueId())
+                    .collect(Collectors.toList());
+        } finally {
+            ValidationTask.THREADS.put(oldThreads);
+        }
+    }
+
+    /**
+     * Thread-safe tests must report the same errors, in the same order, as when all tests run on one thread
+     */
+    @Test
+    void testParallelValidationIsDeterministic() {
+        final Collection<OsmPrimitive> primitives = createData();
+        final List<String> sequential = validate(primitives, 1);
+        assertFalse(sequential.isEmpty());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(sequential, validate(primitives, 4));
+        }
+    }
+}
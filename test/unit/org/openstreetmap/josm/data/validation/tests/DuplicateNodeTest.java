@@ -6,6 +6,9 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Arrays;
+import java.util.HashSet;
+
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.openstreetmap.josm.command.Command;
@@ -95,6 +98,33 @@ class DuplicateNodeTest {
         assertEquals(0, TEST.getErrors().size());
     }
 
+    /**
+     * Test that a test of a part of the data also finds the duplicates of the tested nodes which are not tested themselves
+     */
+    @Test
+    void testPartialSelection() {
+        DataSet ds = new DataSet();
+        Node a = new Node(new LatLon(10.0, 5.0));
+        Node b = new Node(new LatLon(10.0, 5.0));
+        Node c = new Node(new LatLon(20.0, 5.0));
+        ds.addPrimitive(a);
+        ds.addPrimitive(b);
+        ds.addPrimitive(c);
+
+        DuplicateNode test = new DuplicateNode();
+        test.setPartialSelection(true);
+        test.startTest(NullProgressMonitor.INSTANCE);
+        test.visit(a);
+        test.endTest();
+        assertEquals(1, test.getErrors().size());
+        assertEquals(new HashSet<>(Arrays.asList(a, b)), new HashSet<>(test.getErrors().get(0).getPrimitives()));
+
+        test.startTest(NullProgressMonitor.INSTANCE);
+        test.visit(c);
+        test.endTest();
+        assertEquals(0, test.getErrors().size());
+    }
+
     /**
      * Test of "Duplicate node" validation test - same position, with ele value
      */
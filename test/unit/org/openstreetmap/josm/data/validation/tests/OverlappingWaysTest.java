@@ -0,0 +1,88 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.validation.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.TestUtils;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.data.validation.TestError;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Unit tests of {@link OverlappingWays} class.
+ */
+@BasicPreferences
+class OverlappingWaysTest {
+    private Way first;
+    private Way second;
+    private Way other;
+
+    /**
+     * Setup test: two highways sharing a segment, and another highway elsewhere.
+     */
+    @BeforeEach
+    void setUp() {
+        DataSet ds = new DataSet();
+        Node a = new Node(new LatLon(10.0, 5.0));
+        Node b = new Node(new LatLon(10.0, 5.001));
+        Node c = new Node(new LatLon(10.0, 5.002));
+        Node d = new Node(new LatLon(10.001, 5.0));
+        Node e = new Node(new LatLon(11.0, 5.0));
+        Node f = new Node(new LatLon(11.0, 5.001));
+        first = TestUtils.newWay("highway=residential", a, b, c);
+        second = TestUtils.newWay("highway=service", d, a, b);
+        other = TestUtils.newWay("highway=residential", e, f);
+        for (Node n : Arrays.asList(a, b, c, d, e, f)) {
+            ds.addPrimitive(n);
+        }
+        for (Way w : Arrays.asList(first, second, other)) {
+            ds.addPrimitive(w);
+        }
+    }
+
+    private static List<TestError> test(boolean partialSelection, Way... ways) {
+        OverlappingWays test = new OverlappingWays();
+        test.setPartialSelection(partialSelection);
+        test.startTest(NullProgressMonitor.INSTANCE);
+        for (Way w : ways) {
+            test.visit(w);
+        }
+        test.endTest();
+        return test.getErrors();
+    }
+
+    /**
+     * Test that overlapping highways are found
+     */
+    @Test
+    void testOverlappingHighways() {
+        List<TestError> errors = test(false, first, second, other);
+        assertEquals(1, errors.size());
+        assertEquals(OverlappingWays.OVERLAPPING_HIGHWAY, errors.get(0).getCode());
+        assertEquals(new HashSet<>(Arrays.asList(first, second)), new HashSet<>(errors.get(0).getPrimitives()));
+    }
+
+    /**
+     * Test that a test of a part of the data also finds the overlaps of the tested ways with ways which are not tested themselves
+     */
+    @Test
+    void testPartialSelection() {
+        for (Way tested : Arrays.asList(first, second)) {
+            List<TestError> errors = test(true, tested);
+            assertEquals(1, errors.size(), tested::toString);
+            assertEquals(OverlappingWays.OVERLAPPING_HIGHWAY, errors.get(0).getCode());
+            assertEquals(new HashSet<>(Arrays.asList(first, second)), new HashSet<>(errors.get(0).getPrimitives()));
+        }
+        assertEquals(0, test(true, other).size());
+    }
+}
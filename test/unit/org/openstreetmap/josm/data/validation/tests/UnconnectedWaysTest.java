@@ -4,17 +4,28 @@ package org.openstreetmap.josm.data.validation.tests;
 import static org.CustomMatchers.hasSize;
 import static org.CustomMatchers.isEmpty;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.openstreetmap.josm.TestUtils;
+import org.openstreetmap.josm.data.coor.LatLon;
 import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.Way;
 import org.openstreetmap.josm.gui.MainApplication;
 import org.openstreetmap.josm.gui.layer.OsmDataLayer;
 import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
@@ -138,4 +149,47 @@ class UnconnectedWaysTest {
             assertThat(bib.getErrors(), isEmpty());
         }
     }
+
+    /**
+     * Test that a test of a part of the data finds the same errors as a test of all data, with the tested
+     * node or way, and that it ignores the ways which are not near the tested primitives.
+     */
+    @Test
+    void testPartialSelection() {
+        final DataSet ds = new DataSet();
+        final Node end = new Node(new LatLon(0, 0.001));
+        final Way unconnected = TestUtils.newWay("highway=residential", new Node(new LatLon(0, 0)), end);
+        final Way near = TestUtils.newWay("highway=residential",
+                new Node(new LatLon(-0.001, 0.00105)), new Node(new LatLon(0.001, 0.00105)));
+        final List<Way> ways = new ArrayList<>(Arrays.asList(unconnected, near));
+        for (int i = 1; i <= 5; i++) {
+            ways.add(TestUtils.newWay("highway=residential", new Node(new LatLon(i, 0)), new Node(new LatLon(i, 0.001))));
+        }
+        for (Way w : ways) {
+            w.getNodes().forEach(ds::addPrimitive);
+            ds.addPrimitive(w);
+        }
+        MainApplication.getLayerManager().addLayer(new OsmDataLayer(ds, null, null));
+
+        bib.startTest(null);
+        bib.visit(ds.allPrimitives());
+        bib.endTest();
+        assertThat(bib.getErrors(), hasSize(1));
+        final Set<OsmPrimitive> expected = new HashSet<>(Arrays.asList(end, near));
+        assertEquals(expected, new HashSet<>(bib.getErrors().get(0).getPrimitives()));
+
+        for (OsmPrimitive tested : Arrays.asList(end, near)) {
+            bib.setPartialSelection(true);
+            bib.startTest(null);
+            bib.visit(Collections.singletonList(tested));
+            bib.endTest();
+            assertThat(bib.getErrors(), hasSize(1));
+            assertEquals(expected, new HashSet<>(bib.getErrors().get(0).getPrimitives()), tested::toString);
+        }
+
+        bib.startTest(null);
+        bib.visit(new ArrayList<>(ways.get(2).getNodes()));
+        bib.endTest();
+        assertThat(bib.getErrors(), isEmpty());
+    }
 }
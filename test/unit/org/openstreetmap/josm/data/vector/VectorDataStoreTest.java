@@ -0,0 +1,140 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.vector;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.TestUtils;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.imagery.ImageryInfo;
+import org.openstreetmap.josm.data.imagery.vectortile.mapbox.MVTTile;
+import org.openstreetmap.josm.data.imagery.vectortile.mapbox.MapboxVectorTileSource;
+import org.openstreetmap.josm.data.osm.BBox;
+import org.openstreetmap.josm.testutils.annotations.Projection;
+
+/**
+ * Test class for {@link VectorDataStore}
+ */
+@Projection
+class VectorDataStoreTest {
+    private static final BBox WORLD = new BBox(-180, -90, 180, 90);
+
+    /**
+     * A tile which keeps its layers once loaded, so that they can be added to several stores
+     */
+    private static class LayerKeepingTile extends MVTTile {
+        LayerKeepingTile(MapboxVectorTileSource source, int xtile, int ytile, int zoom) {
+            super(source, xtile, ytile, zoom);
+        }
+
+        @Override
+        public VectorDataStore getData() {
+            // Don't build the data of the tile, which would destroy its layers
+            return null;
+        }
+
+        @Override
+        public BBox getBBox() {
+            // The bounds of tile 14/3249/6258, which don't depend on the tile size of the source
+            return new BBox(-108.61084, 39.04479, -108.58887, 39.06185);
+        }
+    }
+
+    private LayerKeepingTile tile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        MapboxVectorTileSource tileSource = new MapboxVectorTileSource(new ImageryInfo("Test Mapillary", "file:/"
+          + TestUtils.getTestDataRoot() + "pbf/mapillary/{z}/{x}/{y}.mvt"));
+        tile = new LayerKeepingTile(tileSource, 3249, 6258, 14);
+        try (InputStream inputStream = Files.newInputStream(Paths.get(TestUtils.getTestDataRoot(), "pbf/mapillary/14/3249/6258.mvt"))) {
+            tile.loadImage(inputStream);
+        }
+        assertFalse(tile.getLayers().isEmpty());
+    }
+
+    /**
+     * Check that primitives removed before the end of a bulk load are not added to the spatial index
+     */
+    @Test
+    void testRemoveDuringBulkLoad() {
+        VectorDataStore store = new VectorDataStore();
+        VectorNode removed = new VectorNode("test");
+        removed.setCoor(new LatLon(1, 1));
+        VectorNode kept = new VectorNode("test");
+        kept.setCoor(new LatLon(2, 2));
+        store.startBulkLoad();
+        store.addPrimitive(removed);
+        store.addPrimitive(kept);
+        assertTrue(store.getStore().searchNodes(WORLD).isEmpty());
+        store.removePrimitive(removed);
+        store.finishBulkLoad();
+        assertEquals(Collections.singletonList(kept), store.getStore().searchNodes(WORLD));
+        assertEquals(Collections.singleton(kept), store.getAllPrimitives());
+        assertFalse(store.getPrimitivesMap().containsKey(removed.getPrimitiveId()));
+    }
+
+    /**
+     * Check that features share the nodes at the same position, and that all primitives of a tile are indexed
+     */
+    @Test
+    void testNodeSharing() {
+        VectorDataStore store = new VectorDataStore();
+        store.addDataTile(tile);
+        List<VectorNode> nodes = store.getAllPrimitives().stream().filter(VectorNode.class::isInstance)
+                .map(VectorNode.class::cast).collect(Collectors.toList());
+        assertFalse(nodes.isEmpty());
+        Map<LatLon, VectorNode> nodesByCoordinates = new HashMap<>();
+        for (VectorNode node : nodes) {
+            VectorNode other = nodesByCoordinates.putIfAbsent(node.getCoor(), node);
+            assertTrue(other == null || other == node, () -> node + " has the same position as " + other);
+        }
+        // The images are at the positions of the nodes of the sequence, which they replace
+        List<VectorWay> ways = store.getAllPrimitives().stream().filter(VectorWay.class::isInstance)
+                .map(VectorWay.class::cast).collect(Collectors.toList());
+        assertEquals(1, ways.size());
+        assertTrue(store.getAllPrimitives().containsAll(ways.get(0).getNodes()));
+        assertEquals(116, ways.get(0).getNodes().stream().filter(node -> "mapillary-images".equals(node.getLayer())).count());
+        assertEquals(nodes.size(), store.getStore().searchNodes(WORLD).size());
+        assertEquals(store.getAllPrimitives().stream().filter(VectorWay.class::isInstance).count(),
+                store.getStore().searchWays(WORLD).size());
+    }
+
+    /**
+     * Check that {@link VectorDataStore#destroy()} forgets the nodes of the previous tiles
+     */
+    @Test
+    void testDestroy() {
+        VectorDataStore store = new VectorDataStore();
+        store.addDataTile(tile);
+        List<VectorPrimitive> first = new ArrayList<>(store.getAllPrimitives());
+        store.destroy();
+        assertTrue(store.getAllPrimitives().isEmpty());
+        assertTrue(store.getPrimitivesMap().isEmpty());
+        assertTrue(store.getStore().searchNodes(WORLD).isEmpty());
+
+        store.addDataTile(tile);
+        assertEquals(first.size(), store.getAllPrimitives().size());
+        Set<VectorPrimitive> second = Collections.newSetFromMap(new IdentityHashMap<>());
+        second.addAll(store.getAllPrimitives());
+        assertTrue(first.stream().filter(VectorNode.class::isInstance).noneMatch(second::contains));
+        assertEquals(store.getAllPrimitives().stream().filter(VectorNode.class::isInstance).count(),
+                store.getStore().searchNodes(WORLD).size());
+    }
+}
@@ -11,7 +11,11 @@ import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.event.MouseEvent;
 import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.Random;
 import java.util.concurrent.atomic.AtomicReference;
 
 import javax.swing.JPanel;
@@ -27,6 +31,8 @@ import org.openstreetmap.josm.data.coor.EastNorth;
 import org.openstreetmap.josm.data.coor.LatLon;
 import org.openstreetmap.josm.data.osm.DataSet;
 import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.Way;
 import org.openstreetmap.josm.data.projection.ProjectionRegistry;
 import org.openstreetmap.josm.gui.layer.OsmDataLayer;
 import org.openstreetmap.josm.gui.util.GuiHelper;
@@ -68,14 +74,19 @@ class NavigatableComponentTest {
      */
     @BeforeEach
     public void setUp() {
-        component = new NavigatableComponentMock();
-        component.setBounds(new Rectangle(WIDTH, HEIGHT));
+        component = createComponent();
+    }
+
+    private static NavigatableComponentMock createComponent() {
+        NavigatableComponentMock newComponent = new NavigatableComponentMock();
+        newComponent.setBounds(new Rectangle(WIDTH, HEIGHT));
         // wait for the event to be propagated.
         GuiHelper.runInEDTAndWait(() -> { /* Do nothing */ });
-        component.setVisible(true);
+        newComponent.setVisible(true);
         JPanel parent = new JPanel();
-        parent.add(component);
-        component.updateLocationState();
+        parent.add(newComponent);
+        newComponent.updateLocationState();
+        return newComponent;
     }
 
     /**
@@ -255,6 +266,53 @@ class NavigatableComponentTest {
         assertNull(hoverEvent.get());
     }
 
+    /**
+     * Test that the nearest nodes and way segments found with the screen space index are the same as without it,
+     * and that the index is updated when the data changes.
+     */
+    @Test
+    void testNearestWithIndex() {
+        DataSet ds = new DataSet();
+        OsmDataLayer layer = new OsmDataLayer(ds, "testNearestWithIndex", null);
+        MainApplication.getLayerManager().addLayer(layer);
+        try {
+            Random random = new Random(42);
+            List<Node> nodes = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                Node node = new Node(component.getLatLon(random.nextInt(WIDTH + 100) - 50, random.nextInt(HEIGHT + 100) - 50));
+                ds.addPrimitive(node);
+                nodes.add(node);
+            }
+            for (int i = 0; i + 5 <= nodes.size(); i += 5) {
+                Way way = new Way();
+                way.setNodes(nodes.subList(i, i + 5));
+                ds.addPrimitive(way);
+            }
+            for (int i = 0; i < 1000; i++) {
+                Point p = new Point(random.nextInt(WIDTH + 40) - 20, random.nextInt(HEIGHT + 40) - 20);
+                // a new component does not use an index for its first search
+                NavigatableComponentMock reference = createComponent();
+                assertEquals(new HashSet<>(reference.getNearestNodes(p, OsmPrimitive::isUsable)),
+                        new HashSet<>(component.getNearestNodes(p, OsmPrimitive::isUsable)), p.toString());
+                reference = createComponent();
+                assertEquals(new HashSet<>(reference.getNearestWaySegments(p, OsmPrimitive::isUsable)),
+                        new HashSet<>(component.getNearestWaySegments(p, OsmPrimitive::isUsable)), p.toString());
+            }
+
+            Point p = new Point(WIDTH / 3, HEIGHT / 3);
+            Node moved = nodes.get(0);
+            component.getNearestNode(p, OsmPrimitive::isUsable);
+            component.getNearestNode(p, OsmPrimitive::isUsable);
+            moved.setCoor(component.getLatLon(p.x, p.y));
+            assertSame(moved, component.getNearestNode(p, OsmPrimitive::isUsable));
+            Node added = new Node(component.getLatLon(p.x + 1, p.y));
+            ds.addPrimitive(added);
+            assertSame(added, component.getNearestNode(new Point(p.x + 1, p.y), OsmPrimitive::isUsable));
+        } finally {
+            MainApplication.getLayerManager().removeLayer(layer);
+        }
+    }
+
     /**
      * Check that EastNorth is the same as expected after zooming the NavigatableComponent.
      * <p>
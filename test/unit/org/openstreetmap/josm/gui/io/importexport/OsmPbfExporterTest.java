@@ -0,0 +1,48 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.io.importexport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.gui.layer.OsmDataLayer;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.io.OsmPbfReader;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Unit tests of {@link OsmPbfExporter} class.
+ */
+@BasicPreferences
+class OsmPbfExporterTest {
+    /**
+     * The exported layer keeps its file and stays unsaved, since the PBF file cannot hold deleted and modified primitives.
+     * @param tempDir the directory of the exported file
+     * @throws Exception if the layer could not be exported
+     */
+    @Test
+    void testExportOnly(@TempDir Path tempDir) throws Exception {
+        final File osmFile = tempDir.resolve("data.osm").toFile();
+        final OsmDataLayer layer = new OsmDataLayer(new DataSet(new Node(new LatLon(1, 2))), "data.osm", osmFile);
+        layer.onPostDownloadFromServer();
+        final OsmPbfExporter exporter = new OsmPbfExporter();
+        final File pbfFile = tempDir.resolve("data.osm.pbf").toFile();
+        assertTrue(exporter.isExportOnly());
+        exporter.exportData(pbfFile, layer);
+
+        assertEquals(osmFile, layer.getAssociatedFile());
+        assertTrue(layer.requiresSaveToFile());
+        try (InputStream in = Files.newInputStream(pbfFile.toPath())) {
+            assertEquals(1, OsmPbfReader.parseDataSet(in, NullProgressMonitor.INSTANCE).getNodes().size());
+        }
+    }
+}
@@ -18,6 +18,8 @@ import java.util.Arrays;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.openstreetmap.josm.TestUtils;
 import org.openstreetmap.josm.data.coor.ILatLon;
 import org.openstreetmap.josm.data.coor.LatLon;
@@ -31,6 +33,7 @@ import org.openstreetmap.josm.data.osm.Way;
 import org.openstreetmap.josm.data.protobuf.ProtobufTest;
 import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
 import org.openstreetmap.josm.io.IllegalDataException;
+import org.openstreetmap.josm.io.OsmPbfReader;
 import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
 
 /**
@@ -212,4 +215,26 @@ class OsmPbfImporterTest {
         assertEquals(UploadPolicy.DISCOURAGED, dataSet.getUploadPolicy());
     }
 
+    /**
+     * Ensure that the parallel decoding pipeline produces the same data as sequential decoding
+     * @param file The file to read
+     * @throws IOException if the file could not be read
+     * @throws IllegalDataException if the file could not be parsed
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"23599/w1194668585.full.osm.pbf", "23599/w1194668585.drop-version.osm.pbf", "23599/visible.osm.pbf",
+            "23165/largeIds.osm.pbf"})
+    void testParallelDecoding(String file) throws IOException, IllegalDataException {
+        final DataSet sequential;
+        final DataSet parallel;
+        try (InputStream inputStream = Files.newInputStream(Paths.get(TestUtils.getTestDataRoot(), "regress", file))) {
+            sequential = OsmPbfReader.parseDataSet(inputStream, NullProgressMonitor.INSTANCE, 1);
+        }
+        try (InputStream inputStream = Files.newInputStream(Paths.get(TestUtils.getTestDataRoot(), "regress", file))) {
+            parallel = OsmPbfReader.parseDataSet(inputStream, NullProgressMonitor.INSTANCE, 4);
+        }
+        assertEquals(sequential.getUploadPolicy(), parallel.getUploadPolicy());
+        assertEquals(sequential.getDataSources().size(), parallel.getDataSources().size());
+        TestUtils.assertSamePrimitives(sequential, parallel);
+    }
 }
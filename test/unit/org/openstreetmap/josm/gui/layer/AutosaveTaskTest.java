@@ -1,8 +1,10 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.gui.layer;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -10,6 +12,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
@@ -18,6 +21,7 @@ import java.nio.file.Paths;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -25,8 +29,11 @@ import org.junit.jupiter.api.Test;
 import org.openstreetmap.josm.data.coor.LatLon;
 import org.openstreetmap.josm.data.osm.DataSet;
 import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
+import org.openstreetmap.josm.data.osm.Way;
 import org.openstreetmap.josm.gui.MainApplication;
 import org.openstreetmap.josm.gui.layer.AutosaveTask.AutosaveLayerInfo;
+import org.openstreetmap.josm.io.OsmReader;
 import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
 import org.openstreetmap.josm.testutils.annotations.Projection;
 
@@ -248,4 +255,118 @@ class AutosaveTaskTest {
 
         assertEquals(1, countFiles());
     }
+
+    /**
+     * Tests that {@link AutosaveTask#run()} appends the changes of large layers to a journal, which is merged on recovery.
+     * @throws Exception in case of error
+     */
+    @Test
+    void testJournal() throws Exception {
+        AutosaveTask.PROP_FILES_PER_LAYER.put(1);
+        AutosaveTask.PROP_JOURNAL_MIN_PRIMITIVES.put(0);
+        // the layers are tiny, allow journals larger than them
+        AutosaveTask.PROP_JOURNAL_MAX_SIZE.put(10_000);
+        DataSet data = new DataSet();
+        Node n1 = new Node(new LatLon(10, 10));
+        Node n2 = new Node(new LatLon(11, 11));
+        Node n3 = new Node(3, 1);
+        n3.setCoor(new LatLon(12, 12));
+        data.addPrimitive(n1);
+        data.addPrimitive(n2);
+        data.addPrimitive(n3);
+        Way way = new Way();
+        way.setNodes(Arrays.asList(n1, n2, n3));
+        OsmDataLayer layer = new OsmDataLayer(data, "OsmData", null);
+        MainApplication.getLayerManager().addLayer(layer);
+        try {
+            task.schedule();
+            data.addPrimitive(way);
+            task.run();
+            File[] snapshots = listFiles(".osm");
+            assertEquals(1, snapshots.length);
+            File journal = AutosaveJournal.getJournalFile(snapshots[0]);
+            assertFalse(journal.exists());
+
+            n1.put("name", "changed");
+            n3.setCoor(new LatLon(20, 20));
+            Node added = new Node(new LatLon(5, 5));
+            data.addPrimitive(added);
+            task.run();
+            assertArrayEquals(snapshots, listFiles(".osm"));
+            assertTrue(journal.exists());
+
+            added.setDeleted(true);
+            n2.setOsmId(100, 1);
+            data.addPrimitive(new Node(new LatLon(30, 30)));
+            task.run();
+            assertArrayEquals(snapshots, listFiles(".osm"));
+
+            AutosaveJournal.replay(snapshots[0]);
+            assertFalse(journal.exists());
+            DataSet recovered;
+            try (InputStream in = Files.newInputStream(snapshots[0].toPath())) {
+                recovered = OsmReader.parseDataSet(in, null);
+            }
+            assertEquals(4, recovered.getNodes().size());
+            assertEquals(1, recovered.getWays().size());
+            assertEquals(3, recovered.getWays().iterator().next().getNodesCount());
+            assertTrue(recovered.getNodes().stream().anyMatch(n -> "changed".equals(n.get("name")) && n.isNew()));
+            assertEquals(new LatLon(20, 20), ((Node) recovered.getPrimitiveById(3, OsmPrimitiveType.NODE)).getCoor());
+            assertEquals(new LatLon(11, 11), ((Node) recovered.getPrimitiveById(100, OsmPrimitiveType.NODE)).getCoor());
+            assertTrue(recovered.getNodes().stream().anyMatch(n -> new LatLon(30, 30).equals(n.getCoor())));
+            assertTrue(recovered.getNodes().stream().noneMatch(n -> new LatLon(5, 5).equals(n.getCoor())));
+        } finally {
+            task.cancel();
+            resetJournalPreferences();
+        }
+    }
+
+    /**
+     * Tests that {@link AutosaveTask#run()} saves the whole layer again when the journal becomes too large.
+     */
+    @Test
+    void testJournalCompaction() {
+        AutosaveTask.PROP_FILES_PER_LAYER.put(1);
+        AutosaveTask.PROP_JOURNAL_MIN_PRIMITIVES.put(0);
+        // the layers are tiny, allow journals larger than them
+        AutosaveTask.PROP_JOURNAL_MAX_SIZE.put(10_000);
+        DataSet data = new DataSet();
+        Node node = new Node(new LatLon(10, 10));
+        OsmDataLayer layer = new OsmDataLayer(data, "OsmData", null);
+        MainApplication.getLayerManager().addLayer(layer);
+        try {
+            task.schedule();
+            data.addPrimitive(node);
+            task.run();
+            File[] snapshots = listFiles(".osm");
+            assertEquals(1, snapshots.length);
+
+            node.put("name", "small change");
+            task.run();
+            assertArrayEquals(snapshots, listFiles(".osm"));
+            assertEquals(1, listFiles(AutosaveJournal.EXTENSION).length);
+
+            AutosaveTask.PROP_JOURNAL_MAX_SIZE.put(50);
+            node.put("name", "other change");
+            task.run();
+            File[] compacted = listFiles(".osm");
+            assertEquals(1, compacted.length);
+            assertNotEquals(snapshots[0], compacted[0]);
+            assertEquals(0, listFiles(AutosaveJournal.EXTENSION).length);
+        } finally {
+            task.cancel();
+            resetJournalPreferences();
+        }
+    }
+
+    private static void resetJournalPreferences() {
+        AutosaveTask.PROP_FILES_PER_LAYER.remove();
+        AutosaveTask.PROP_JOURNAL_MIN_PRIMITIVES.remove();
+        AutosaveTask.PROP_JOURNAL_MAX_SIZE.remove();
+    }
+
+    private File[] listFiles(String extension) {
+        File[] files = task.getAutosaveDir().toFile().listFiles((dir, name) -> name.endsWith(extension));
+        return files != null ? files : new File[0];
+    }
 }
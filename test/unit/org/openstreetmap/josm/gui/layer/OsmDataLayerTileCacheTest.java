@@ -0,0 +1,217 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.layer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.data.coor.EastNorth;
+import org.openstreetmap.josm.data.osm.BBox;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.data.osm.event.DataSetListenerAdapter;
+import org.openstreetmap.josm.data.osm.event.NodeMovedEvent;
+import org.openstreetmap.josm.data.osm.visitor.paint.MapRendererFactory;
+import org.openstreetmap.josm.data.projection.ProjectionRegistry;
+import org.openstreetmap.josm.gui.NavigatableComponent;
+import org.openstreetmap.josm.spi.preferences.Config;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+import org.openstreetmap.josm.testutils.annotations.Projection;
+
+/**
+ * Unit tests of {@link OsmDataLayerTileCache} class.
+ */
+@BasicPreferences
+@Projection
+class OsmDataLayerTileCacheTest {
+    private static final class NavigatableComponentMock extends NavigatableComponent {
+        @Override
+        public Point getLocationOnScreen() {
+            return new Point(0, 0);
+        }
+
+        @Override
+        protected boolean isVisibleOnScreen() {
+            return true;
+        }
+
+        @Override
+        protected void updateLocationState() {
+            super.updateLocationState();
+        }
+    }
+
+    private DataSet ds;
+    private NavigatableComponentMock mv;
+    private OsmDataLayerTileCache cache;
+    private Way wayA;
+    private Way wayB;
+
+    /**
+     * Setup tests: a view of 1024x768 pixels at 1 m/px, centered on the east/north origin, which shows 4 tiles.
+     * One way is drawn in the top left tile, the other in the bottom right tile.
+     */
+    @BeforeEach
+    void setUp() {
+        ds = new DataSet();
+        wayA = addWay(-412, 284, -312, 284);
+        wayB = addWay(288, -216, 388, -216);
+        mv = new NavigatableComponentMock();
+        mv.setBounds(new Rectangle(1024, 768));
+        mv.updateLocationState();
+        mv.zoomTo(new EastNorth(0, 0), 1);
+        // the renderer factory stores its default in the preferences, which would clear the cache
+        MapRendererFactory.getInstance();
+        cache = new OsmDataLayerTileCache(ds);
+        ds.addDataSetListener(new DataSetListenerAdapter(cache::invalidate));
+    }
+
+    /**
+     * Cleanup tests
+     */
+    @AfterEach
+    void tearDown() {
+        cache.destroy();
+    }
+
+    private Way addWay(double east1, double north1, double east2, double north2) {
+        Node n1 = new Node(ProjectionRegistry.getProjection().eastNorth2latlon(new EastNorth(east1, north1)));
+        Node n2 = new Node(ProjectionRegistry.getProjection().eastNorth2latlon(new EastNorth(east2, north2)));
+        Way w = new Way();
+        w.addNode(n1);
+        w.addNode(n2);
+        ds.addPrimitive(n1);
+        ds.addPrimitive(n2);
+        ds.addPrimitive(w);
+        return w;
+    }
+
+    private BufferedImage paint() {
+        BufferedImage image = new BufferedImage(mv.getWidth(), mv.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            assertTrue(cache.paint(g, mv, false, false));
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    private static boolean isPainted(BufferedImage image, int x, int y) {
+        for (int dy = -2; dy <= 2; dy++) {
+            if ((image.getRGB(x, y + dy) >>> 24) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The tiles are rendered once, and composed at the right place.
+     */
+    @Test
+    void testPaint() {
+        BufferedImage image = paint();
+        assertEquals(4, cache.size());
+        assertTrue(isPainted(image, 150, 100));
+        assertTrue(isPainted(image, 850, 600));
+        assertFalse(isPainted(image, 150, 600));
+        image = paint();
+        assertEquals(4, cache.size());
+        assertTrue(isPainted(image, 150, 100));
+    }
+
+    /**
+     * The tiles are cached by zoom step: a scale differing by rounding errors uses the same tiles, another zoom step
+     * keeps its own tiles, and another scale in the same zoom step replaces them.
+     */
+    @Test
+    void testZoomSteps() {
+        paint();
+        assertEquals(4, cache.size());
+        mv.zoomTo(new EastNorth(0, 0), 1 + 1e-12);
+        paint();
+        assertEquals(4, cache.size());
+        mv.zoomTo(new EastNorth(0, 0), 2);
+        paint();
+        assertEquals(8, cache.size());
+        mv.zoomTo(new EastNorth(0, 0), 1.01);
+        BufferedImage image = paint();
+        assertEquals(8, cache.size());
+        assertTrue(isPainted(image, (int) Math.round(512 - 362 / 1.01), (int) Math.round(384 - 284 / 1.01)));
+        mv.zoomTo(new EastNorth(0, 0), 2);
+        paint();
+        assertEquals(8, cache.size());
+    }
+
+    /**
+     * Only the tiles showing the changed primitives are rendered again.
+     */
+    @Test
+    void testInvalidate() {
+        paint();
+        assertEquals(4, cache.size());
+        // the old position of the node must be invalidated as well
+        Node node = wayA.firstNode();
+        node.setEastNorth(new EastNorth(-412, -216));
+        assertEquals(2, cache.size());
+        BufferedImage image = paint();
+        assertEquals(4, cache.size());
+        assertFalse(isPainted(image, 100, 100));
+        assertTrue(isPainted(image, 140, 400));
+
+        wayB.put("highway", "residential");
+        assertEquals(3, cache.size());
+    }
+
+    /**
+     * The bounding boxes of moved nodes before the move are only computed while a cache needs them.
+     */
+    @Test
+    void testOldBBoxRequests() {
+        List<BBox> oldBBoxes = new ArrayList<>();
+        ds.addDataSetListener(new DataSetListenerAdapter(e -> {
+            if (e instanceof NodeMovedEvent) {
+                oldBBoxes.add(((NodeMovedEvent) e).getOldBBox());
+            }
+        }));
+        Node node = wayA.firstNode();
+        node.setEastNorth(new EastNorth(-400, 284));
+        // destroying the cache twice must release its request once
+        cache.destroy();
+        cache.destroy();
+        node.setEastNorth(new EastNorth(-390, 284));
+        assertEquals(2, oldBBoxes.size());
+        assertTrue(oldBBoxes.get(0).bounds(wayA.getBBox()));
+        assertNull(oldBBoxes.get(1));
+    }
+
+    /**
+     * The tiles cannot be composed on a scaled graphics, and are cleared when the preferences change.
+     */
+    @Test
+    void testFallback() {
+        paint();
+        assertEquals(4, cache.size());
+        Config.getPref().putInt("mappaint.tile-cache.test", 1);
+        assertEquals(0, cache.size());
+
+        BufferedImage image = new BufferedImage(mv.getWidth(), mv.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.scale(2, 2);
+        assertFalse(cache.paint(g, mv, false, false));
+        g.dispose();
+    }
+}
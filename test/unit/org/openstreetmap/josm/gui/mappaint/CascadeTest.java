@@ -0,0 +1,87 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.mappaint;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests of {@link Cascade}.
+ */
+class CascadeTest {
+
+    /**
+     * Well-known and other properties are stored and removed alike.
+     */
+    @Test
+    void testPutGetRemove() {
+        Cascade c = new Cascade();
+        for (String key : Arrays.asList(StyleKeys.WIDTH, "casing-color", "unknown-key")) {
+            assertFalse(c.containsKey(key));
+            assertNull(c.get(key));
+            c.put(key, "x");
+            assertTrue(c.containsKey(key));
+            assertEquals("x", c.get(key));
+            c.put(key, null);
+            assertTrue(c.containsKey(key));
+            assertNull(c.get(key));
+            assertEquals("d", c.get(key, "d", String.class));
+            c.putOrClear(key, "y");
+            assertEquals("y", c.get(key));
+            c.putOrClear(key, null);
+            assertFalse(c.containsKey(key));
+            c.put(key, "z");
+            c.remove(key);
+            assertFalse(c.containsKey(key));
+        }
+    }
+
+    /**
+     * Converted values are kept until the property changes.
+     */
+    @Test
+    void testConversion() {
+        Cascade c = new Cascade();
+        c.put(StyleKeys.WIDTH, "2");
+        assertEquals(2f, c.get(StyleKeys.WIDTH, null, Float.class));
+        assertEquals(2f, c.get(StyleKeys.WIDTH, null, float.class));
+        assertEquals("2", c.get(StyleKeys.WIDTH, null, String.class));
+        assertEquals(Boolean.TRUE, c.get(StyleKeys.WIDTH, null, Boolean.class));
+        c.put(StyleKeys.WIDTH, "3");
+        assertEquals(3f, c.get(StyleKeys.WIDTH, null, Float.class));
+        c.put(StyleKeys.COLOR, Keyword.DEFAULT);
+        assertNull(c.get(StyleKeys.COLOR, null, Color.class, true));
+        c.put(StyleKeys.COLOR, "red");
+        assertEquals(Color.RED, c.get(StyleKeys.COLOR, null, Color.class));
+
+        // arrays are not shared
+        c.put(StyleKeys.DASHES, Arrays.asList(1, 2));
+        float[] dashes = c.get(StyleKeys.DASHES, null, float[].class);
+        dashes[0] = 3;
+        assertEquals(1f, c.get(StyleKeys.DASHES, null, float[].class)[0]);
+    }
+
+    /**
+     * A copy does not change with the original cascade.
+     */
+    @Test
+    void testCopy() {
+        Cascade c = new Cascade();
+        c.put(StyleKeys.WIDTH, "2");
+        c.put("unknown-key", 1);
+        assertEquals(2f, c.get(StyleKeys.WIDTH, null, Float.class));
+        Cascade copy = new Cascade(c);
+        c.put(StyleKeys.WIDTH, "4");
+        c.remove("unknown-key");
+        assertEquals(2f, copy.get(StyleKeys.WIDTH, null, Float.class));
+        assertEquals(1, copy.get("unknown-key"));
+        assertEquals("Cascade{ unknown-key:1; width:2; }", copy.toString());
+        assertEquals("Cascade{ width:4; }", c.toString());
+    }
+}
@@ -0,0 +1,144 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.mappaint.mapcss;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.OsmUtils;
+import org.openstreetmap.josm.gui.mappaint.Environment;
+import org.openstreetmap.josm.gui.mappaint.MultiCascade;
+import org.openstreetmap.josm.gui.mappaint.mapcss.ExpressionFactory.FunctionExpression;
+import org.openstreetmap.josm.gui.mappaint.mapcss.parsergen.MapCSSParser;
+import org.openstreetmap.josm.gui.mappaint.mapcss.parsergen.ParseException;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Unit tests of {@link MapCSSCompiler}.
+ */
+@BasicPreferences
+class MapCSSCompilerTest {
+
+    private static final String STYLE = "setting::show_shops { type: boolean; label: \"shops\"; default: false; }\n"
+            + "setting::color { type: color; label: \"color\"; default: #ff0000; }\n"
+            + "node[shop][setting(\"show_shops\")] { symbol-fill-color: blue; }\n"
+            + "node[amenity=bench] { text: cond(setting(\"show_shops\"), \"shop\", \"bench\"); }\n"
+            + "node[amenity=bench][!setting(\"show_shops\")] { z-index: plus(1, 2); }\n"
+            + "way[highway=residential] { width: 2; color: setting(\"color\"); }\n"
+            + "way[highway][highway!=residential] { width: times(2, 3); text: eval(\"name\"); }\n"
+            + "node[foo?] { symbol-shape: circle; }\n"
+            + "way[building] > node[entrance] { symbol-size: 10; }\n"
+            + "area[landuse] { fill-color: green; }\n"
+            + "* { label: tag(\"name\"); }";
+
+    private static final List<String> PRIMITIVES = Arrays.asList(
+            "n shop=bakery", "n amenity=bench", "n foo=yes", "n foo=no", "n entrance=yes",
+            "w highway=residential name=Foo", "w highway=primary name=Bar", "w landuse=forest", "w building=yes",
+            "r type=multipolygon landuse=grass");
+
+    /**
+     * Restores the default of the switch.
+     */
+    @AfterEach
+    void tearDown() {
+        MapCSSStyleSource.COMPILE_RULES.remove();
+    }
+
+    private static Expression compile(String expression) throws ParseException {
+        Expression e = new MapCSSParser(new StringReader(expression)).expression();
+        return new MapCSSCompiler(null).compileExpression(e);
+    }
+
+    /**
+     * Functions with constant arguments are evaluated once, others are bound to their implementation.
+     * @throws ParseException if an expression cannot be parsed
+     */
+    @Test
+    void testCompileExpression() throws ParseException {
+        assertEquals(3.0, compile("plus(1, 2)").evaluate(null));
+        assertEquals("ab", compile("upper(\"ab\") == \"AB\" ? \"ab\" : tag(\"x\")").evaluate(null));
+        assertEquals(6.0, compile("times(2, plus(1, 2))").evaluate(null));
+        // errors are reported when the style is applied
+        Expression error = compile("to_int(\"x\")");
+        assertThrows(NumberFormatException.class, () -> error.evaluate(null));
+
+        Expression tag = compile("upper(tag(\"name\"))");
+        assertFalse(tag instanceof FunctionExpression);
+        assertEquals("FOO", tag.evaluate(new Environment(OsmUtils.createPrimitive("n name=foo"))));
+
+        // functions with side effects are not evaluated in advance
+        assertFalse(compile("print(\"x\")") instanceof LiteralExpression);
+        // lists may be modified, they are not shared
+        assertTrue(compile("split(\";\", \"a;b\")").evaluate(null) instanceof List);
+    }
+
+    /**
+     * The compiled rules must give the same styles as the parsed rules, with the style settings.
+     */
+    @Test
+    void testSameStyles() {
+        for (boolean showShops : new boolean[] {false, true}) {
+            MapCSSStyleSource.COMPILE_RULES.put(false);
+            MapCSSStyleSource parsed = loadStyle(showShops);
+            MapCSSStyleSource.COMPILE_RULES.put(true);
+            MapCSSStyleSource compiled = loadStyle(showShops);
+            for (String primitive : PRIMITIVES) {
+                OsmPrimitive p = OsmUtils.createPrimitive(primitive);
+                for (double scale : new double[] {1, 1000}) {
+                    assertEquals(apply(parsed, p, scale), apply(compiled, p, scale), primitive);
+                }
+            }
+        }
+    }
+
+    /**
+     * Rules which never apply are not indexed.
+     */
+    @Test
+    void testRulesNeverApplying() {
+        MapCSSStyleSource source = loadStyle(false);
+        Declaration shopDeclaration = source.rules.get(2).declaration;
+        OsmPrimitive shop = OsmUtils.createPrimitive("n shop=bakery");
+
+        MapCSSStyleIndex parsed = new MapCSSStyleIndex();
+        parsed.buildIndex(source.rules.stream());
+        assertTrue(hasDeclaration(parsed, shop, shopDeclaration));
+
+        MapCSSStyleIndex compiled = new MapCSSStyleIndex();
+        compiled.buildIndex(source.rules.stream(), new MapCSSCompiler(source));
+        assertFalse(hasDeclaration(compiled, shop, shopDeclaration));
+    }
+
+    private static boolean hasDeclaration(MapCSSStyleIndex index, OsmPrimitive p, Declaration declaration) {
+        Iterator<MapCSSRule> candidates = index.getRuleCandidates(p);
+        while (candidates.hasNext()) {
+            if (candidates.next().declaration.idx == declaration.idx) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static MapCSSStyleSource loadStyle(boolean showShops) {
+        MapCSSStyleSource source = new MapCSSStyleSource(STYLE.replace("default: false", "default: " + showShops));
+        source.loadStyleSource();
+        assertTrue(source.getErrors().isEmpty(), source.getErrors()::toString);
+        return source;
+    }
+
+    private static String apply(MapCSSStyleSource source, OsmPrimitive p, double scale) {
+        MultiCascade mc = new MultiCascade();
+        source.apply(mc, p, scale, false);
+        return mc.range + mc.getLayers().stream().map(String::valueOf).collect(Collectors.joining(", "));
+    }
+}
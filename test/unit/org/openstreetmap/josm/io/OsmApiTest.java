@@ -1,20 +1,54 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.io;
 
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.absent;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.io.ByteArrayInputStream;
+import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.openstreetmap.josm.data.coor.LatLon;
 import org.openstreetmap.josm.data.osm.Changeset;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
 import org.openstreetmap.josm.data.osm.User;
 import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.spi.preferences.Config;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+import org.openstreetmap.josm.testutils.annotations.BasicWiremock;
+import org.openstreetmap.josm.testutils.annotations.HTTP;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.MappingBuilder;
+import com.github.tomakehurst.wiremock.matching.RequestPatternBuilder;
 
 /**
  * Unit tests of {@link OsmApi} class.
  */
+@BasicPreferences
+@BasicWiremock
+@HTTP
 class OsmApiTest {
+    /**
+     * HTTP mock.
+     */
+    @BasicWiremock
+    WireMockServer wireMockServer;
+
     /**
      * Non-regression test for <a href="https://josm.openstreetmap.de/ticket/12675">Bug #12675</a>.
      * @throws IllegalDataException if an error occurs
@@ -36,4 +70,57 @@ class OsmApiTest {
                 NullProgressMonitor.INSTANCE).iterator().next();
         assertEquals(User.getAnonymous(), cs2.getUser());
     }
+
+    /**
+     * Test {@link OsmApi#uploadDiff}, with the request built in memory or written directly to the connection.
+     * @param streaming whether the request is streamed
+     * @param compress whether the streamed request is compressed
+     * @throws Exception if an error occurs
+     */
+    @ParameterizedTest
+    @CsvSource({"false,false", "true,false", "true,true"})
+    void testUploadDiff(boolean streaming, boolean compress) throws Exception {
+        OsmApi.STREAM_DIFF_UPLOAD.put(streaming);
+        OsmApi.COMPRESS_DIFF_UPLOAD.put(compress);
+        final String host = new URL(wireMockServer.baseUrl()).getHost();
+        Config.getPref().put("osm-server.auth-method", "basic");
+        Config.getPref().put("server.username." + host, "user");
+        Config.getPref().put("server.password." + host, "password");
+
+        final DataSet ds = new DataSet();
+        final Node created = new Node(LatLon.ZERO);
+        created.put("name", "ä");
+        final Node deleted = new Node(LatLon.NORTH_POLE);
+        deleted.setOsmId(5, 2);
+        ds.addPrimitive(created);
+        ds.addPrimitive(deleted);
+        deleted.setDeleted(true);
+
+        final MappingBuilder upload = post(urlEqualTo("/api/0.6/changeset/1/upload"))
+                .willReturn(aResponse().withBody("<diffResult version=\"0.6\">"
+                        + "<node old_id=\"" + created.getUniqueId() + "\" new_id=\"10\" new_version=\"1\"/>"
+                        + "<node old_id=\"5\"/></diffResult>"));
+        wireMockServer.stubFor(upload);
+        wireMockServer.stubFor(get(urlEqualTo("/api/capabilities")).willReturn(aResponse().withBodyFile("api/capabilities")));
+
+        final OsmApi api = OsmApi.getOsmApi(wireMockServer.url("/api"));
+        final Changeset changeset = new Changeset(1);
+        changeset.setOpen(true);
+        api.setChangeset(changeset);
+        final Collection<OsmPrimitive> processed = api.uploadDiff(Arrays.asList(deleted, created), NullProgressMonitor.INSTANCE);
+        assertEquals(2, processed.size());
+        assertEquals(10, created.getId());
+        assertEquals(1, created.getVersion());
+
+        final RequestPatternBuilder request = postRequestedFor(urlEqualTo("/api/0.6/changeset/1/upload"))
+                .withRequestBody(containing(String.format("<delete>%n  <node id='5' version='2' changeset='1'/>%n</delete>")))
+                .withRequestBody(containing("<tag k='name' v='ä' />"))
+                .withHeader("Content-Encoding", compress ? equalTo("gzip") : absent());
+        if (streaming) {
+            request.withHeader("Transfer-Encoding", equalTo("chunked"));
+        } else {
+            request.withoutHeader("Transfer-Encoding");
+        }
+        wireMockServer.verify(1, request);
+    }
 }
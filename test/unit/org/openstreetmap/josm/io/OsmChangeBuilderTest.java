@@ -2,8 +2,10 @@
 package org.openstreetmap.josm.io;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.CharArrayWriter;
 import java.util.Arrays;
 
 import org.openstreetmap.josm.data.coor.LatLon;
@@ -180,4 +182,29 @@ class OsmChangeBuilderTest {
                 "</modify>%n" +
                 "</osmChange>%n"), builder.getDocument());
     }
+
+    /**
+     * Test building a document into another writer.
+     */
+    @Test
+    void testDocumentWithWriter() {
+        Changeset cs = new Changeset(1);
+        CharArrayWriter out = new CharArrayWriter();
+        OsmChangeBuilder builder = new OsmChangeBuilder(cs, null, out);
+        Node n = new Node(LatLon.ZERO);
+        n.setOsmId(1, 1);
+        n.setDeleted(true);
+
+        builder.start();
+        builder.append(n);
+        builder.finish();
+
+        assertEquals(String.format(
+                "<osmChange version=\"0.6\" generator=\"JOSM\">%n" +
+                "<delete>%n" +
+                "  <node id='1' version='1' changeset='1'/>%n" +
+                "</delete>%n" +
+                "</osmChange>%n"), out.toString());
+        assertThrows(IllegalStateException.class, builder::getDocument);
+    }
 }
@@ -0,0 +1,149 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openstreetmap.josm.TestUtils;
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Test class for {@link OsmPbfIndex} and the indexed queries of {@link OsmPbfReader}
+ */
+@BasicPreferences
+class OsmPbfIndexTest {
+    @TempDir
+    Path tempDir;
+
+    private Path copy(String file) throws IOException {
+        final Path source = Paths.get(TestUtils.getTestDataRoot(), file);
+        return Files.copy(source, tempDir.resolve(source.getFileName()));
+    }
+
+    private static DataSet readFully(Path file) throws IOException, IllegalDataException {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            return OsmPbfReader.parseDataSet(inputStream, NullProgressMonitor.INSTANCE);
+        }
+    }
+
+    private static void assertSameBlocks(OsmPbfIndex expected, OsmPbfIndex actual) {
+        assertEquals(expected.getBlocks().size(), actual.getBlocks().size());
+        for (int i = 0; i < expected.getBlocks().size(); i++) {
+            final OsmPbfIndex.Block e = expected.getBlocks().get(i);
+            final OsmPbfIndex.Block a = actual.getBlocks().get(i);
+            assertEquals(e.getOffset(), a.getOffset());
+            assertEquals(e.getSize(), a.getSize());
+            assertEquals(e.getType(), a.getType());
+            for (OsmPrimitiveType type : new OsmPrimitiveType[] {OsmPrimitiveType.NODE, OsmPrimitiveType.WAY, OsmPrimitiveType.RELATION}) {
+                assertEquals(e.getMinId(type), a.getMinId(type));
+                assertEquals(e.getMaxId(type), a.getMaxId(type));
+            }
+            assertEquals(e.getBBox() == null, a.getBBox() == null);
+            assertTrue(e.getBBox() == null || e.getBBox().bboxIsFunctionallyEqual(a.getBBox(), 0.0));
+        }
+    }
+
+    @Test
+    void testIndex() throws IOException, IllegalDataException {
+        final Path file = copy("pbf/osm/simple.osm.pbf");
+        final OsmPbfIndex index = OsmPbfIndex.load(file);
+        final List<OsmPbfIndex.Block> blocks = index.getBlocks();
+        assertEquals("OSMHeader", blocks.get(0).getType());
+        assertFalse(blocks.get(0).contains(OsmPrimitiveType.NODE));
+        assertEquals(Files.size(file), blocks.stream().mapToLong(OsmPbfIndex.Block::getSize).sum());
+
+        final DataSet dataSet = readFully(file);
+        for (Node node : dataSet.getNodes()) {
+            assertTrue(blocks.stream().anyMatch(block -> block.getBBox() != null && block.getBBox().bounds(node.getBBox())),
+                    node::toString);
+        }
+    }
+
+    @Test
+    void testCache() throws IOException, IllegalDataException {
+        final Path file = copy("regress/23599/w1194668585.full.osm.pbf");
+        final Path cacheFile = OsmPbfIndex.getCacheFile(file);
+        // Nothing is written next to the user's file
+        assertFalse(cacheFile.startsWith(tempDir));
+        final OsmPbfIndex built = OsmPbfIndex.load(file);
+        assertTrue(Files.isRegularFile(cacheFile));
+        assertSameBlocks(built, OsmPbfIndex.load(file));
+
+        // Outdated or corrupted caches are ignored
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() - 10_000));
+        assertSameBlocks(built, OsmPbfIndex.load(file));
+        Files.write(cacheFile, new byte[] {1, 2, 3});
+        assertSameBlocks(built, OsmPbfIndex.load(file));
+    }
+
+    @Test
+    void testBoundsQuery() throws IOException, IllegalDataException {
+        final Path file = copy("regress/23599/w1194668585.full.osm.pbf");
+        final DataSet full = readFully(file);
+        final Way way = full.getWays().iterator().next();
+        final Node first = way.firstNode();
+        final Bounds bounds = new Bounds(first.lat() - 1e-7, first.lon() - 1e-7, first.lat() + 1e-7, first.lon() + 1e-7);
+
+        final DataSet area = OsmPbfReader.parseDataSet(file, bounds, NullProgressMonitor.INSTANCE);
+        final Way areaWay = (Way) area.getPrimitiveById(way);
+        assertNotNull(areaWay);
+        assertFalse(areaWay.isIncomplete());
+        assertEquals(way.getNodesCount(), areaWay.getNodesCount());
+        assertTrue(areaWay.getNodes().stream().allMatch(Node::isLatLonKnown));
+        for (Node node : area.getNodes()) {
+            assertTrue(bounds.contains(node) || !node.getParentWays().isEmpty(), node::toString);
+        }
+        assertEquals(1, area.getDataSources().size());
+        assertEquals(bounds, area.getDataSources().iterator().next().bounds);
+
+        final Bounds empty = new Bounds(-89, -179, -88, -178);
+        assertTrue(OsmPbfReader.parseDataSet(file, empty, NullProgressMonitor.INSTANCE).allPrimitives().isEmpty());
+    }
+
+    @Test
+    void testIdQuery() throws IOException, IllegalDataException {
+        final Path file = copy("regress/23599/w1194668585.full.osm.pbf");
+        final DataSet full = readFully(file);
+        final Way way = full.getWays().iterator().next();
+
+        final DataSet dataSet = OsmPbfReader.parseDataSet(file, Collections.singleton(way.getPrimitiveId()), NullProgressMonitor.INSTANCE);
+        final Way read = (Way) dataSet.getPrimitiveById(way);
+        assertNotNull(read);
+        assertFalse(read.isIncomplete());
+        assertEquals(way.getKeys(), read.getKeys());
+        assertEquals(way.getNodesCount(), read.getNodesCount());
+        assertEquals(way.getNodes().stream().distinct().count(), dataSet.getNodes().size());
+    }
+
+    @Test
+    void testMappedFileBounds() throws IOException {
+        final Path file = copy("pbf/osm/simple.osm.pbf");
+        try (MappedPbfFile mappedFile = new MappedPbfFile(file)) {
+            assertEquals(Files.size(file), mappedFile.size());
+            assertEquals(Files.size(file), mappedFile.read(0, (int) mappedFile.size()).length);
+            assertThrows(EOFException.class, () -> mappedFile.read(mappedFile.size() - 1, 2));
+            assertThrows(EOFException.class, () -> mappedFile.readInt(-1));
+        }
+    }
+}
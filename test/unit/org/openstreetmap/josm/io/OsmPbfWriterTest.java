@@ -0,0 +1,157 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.TestUtils;
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.DataSource;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.RelationMember;
+import org.openstreetmap.josm.data.osm.UploadPolicy;
+import org.openstreetmap.josm.data.osm.User;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Unit tests of {@link OsmPbfWriter} class.
+ */
+@BasicPreferences
+class OsmPbfWriterTest {
+
+    private static byte[] write(DataSet data, int threads) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OsmPbfWriter writer = new OsmPbfWriter(out, threads)) {
+            writer.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static DataSet read(byte[] bytes) throws IllegalDataException {
+        return OsmPbfReader.parseDataSet(new ByteArrayInputStream(bytes), NullProgressMonitor.INSTANCE, 1);
+    }
+
+    private static DataSet createDataSet() {
+        final DataSet data = new DataSet();
+        final User user = User.createOsmUser(1234, "pbf-user");
+        final Node n1 = new Node(1, 3);
+        n1.setCoor(new LatLon(39.1998868, -108.6907137));
+        n1.put("building", "house");
+        n1.put("name", "üé中");
+        n1.setUser(user);
+        n1.setInstant(Instant.ofEpochSecond(1_700_000_000));
+        n1.setChangesetId(42);
+        final Node n2 = new Node(2, 1);
+        n2.setCoor(new LatLon(-33.8688197, 151.2092955));
+        final Node n3 = new Node(new LatLon(0.0000001, -0.0000001));
+        n3.put("note", "new");
+        data.addPrimitive(n1);
+        data.addPrimitive(n2);
+        data.addPrimitive(n3);
+        final Way w1 = new Way(10, 2);
+        w1.setNodes(Arrays.asList(n1, n2, n3, n1));
+        w1.put("building", "house");
+        w1.setUser(user);
+        data.addPrimitive(w1);
+        final Way w2 = new Way();
+        w2.setNodes(Arrays.asList(n3, n2));
+        data.addPrimitive(w2);
+        final Relation r1 = new Relation(100, 5);
+        r1.addMember(new RelationMember("outer", w1));
+        r1.addMember(new RelationMember("", n3));
+        r1.addMember(new RelationMember("", w2));
+        r1.put("type", "multipolygon");
+        r1.put("building", "house");
+        data.addPrimitive(r1);
+        final Relation r2 = new Relation();
+        r2.addMember(new RelationMember("sub", r1));
+        r2.put("type", "collection");
+        data.addPrimitive(r2);
+        data.addDataSource(new DataSource(new Bounds(-34, -109, 40, 152), "test"));
+        return data;
+    }
+
+    /**
+     * The data read back is the same as the data written.
+     * @throws Exception if the data could not be written or read
+     */
+    @Test
+    void testRoundTrip() throws Exception {
+        final DataSet data = createDataSet();
+        final DataSet read = read(write(data, 1));
+        TestUtils.assertSamePrimitives(data, read);
+        assertEquals(UploadPolicy.NORMAL, read.getUploadPolicy());
+        assertTrue(read.getDataSources().stream().allMatch(s -> "test".equals(s.origin) && s.bounds.equals(new Bounds(-34, -109, 40, 152))));
+        assertNull(read.getNodes().stream().filter(n -> n.getUniqueId() == 2).findFirst().get().getUser());
+    }
+
+    /**
+     * Deleted and incomplete primitives are not written, invisible primitives are.
+     * @throws Exception if the data could not be written or read
+     */
+    @Test
+    void testDeletedIncompleteInvisible() throws Exception {
+        final DataSet data = createDataSet();
+        final Node deleted = new Node(new LatLon(1, 1));
+        data.addPrimitive(deleted);
+        deleted.setDeleted(true);
+        data.addPrimitive(new Node(50));
+        final Node invisible = new Node(51, 2);
+        invisible.setCoor(new LatLon(2, 2));
+        invisible.setVisible(false);
+        data.addPrimitive(invisible);
+
+        final DataSet read = read(write(data, 1));
+        assertEquals(4, read.getNodes().size());
+        assertNull(read.getPrimitiveById(50, OsmPrimitiveType.NODE));
+        assertTrue(read.getPrimitiveById(1, OsmPrimitiveType.NODE).isVisible());
+        assertFalse(read.getPrimitiveById(51, OsmPrimitiveType.NODE).isVisible());
+    }
+
+    /**
+     * The data is split into blocks, and the output does not depend on the number of threads.
+     * @throws Exception if the data could not be written or read
+     */
+    @Test
+    void testBlocks() throws Exception {
+        final DataSet data = new DataSet();
+        final int count = 2 * OsmPbfWriter.BLOCK_SIZE + 100;
+        final Way way = new Way(1, 1);
+        for (int i = 1; i <= count; i++) {
+            final Node node = new Node(i, 1);
+            node.setCoor(new LatLon(i * 1e-4, -i * 1e-4));
+            if (i % 3 == 0) {
+                node.put("ref", Integer.toString(i % 100));
+            }
+            data.addPrimitive(node);
+            if (i % 2 == 0) {
+                way.addNode(node);
+            }
+        }
+        data.addPrimitive(way);
+
+        final byte[] sequential = write(data, 1);
+        final byte[] parallel = write(data, 4);
+        assertArrayEquals(sequential, parallel);
+        final DataSet read = read(parallel);
+        assertEquals(count, read.getNodes().size());
+        assertEquals(count / 2, ((Way) read.getPrimitiveById(1, OsmPrimitiveType.WAY)).getNodesCount());
+        TestUtils.assertSamePrimitives(data, read);
+    }
+}
@@ -2,13 +2,19 @@
 package org.openstreetmap.josm.io.remotecontrol;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
+import java.net.Socket;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -53,6 +59,58 @@ class RemoteControlTest {
         testListOfCommands(httpBase);
     }
 
+    /**
+     * Tests that several requests can be sent on the same connection, until the client asks to close it.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testKeepAlive() throws Exception {
+        try (Socket socket = new Socket("127.0.0.1", Config.getPref().getInt("remote.control.port", 8111))) {
+            final OutputStream out = socket.getOutputStream();
+            final InputStream in = socket.getInputStream();
+            out.write("GET /version HTTP/1.1\r\nHost: 127.0.0.1\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            assertEquals(RequestProcessor.PROTOCOLVERSION, readResponse(in, "keep-alive"));
+            out.write("GET /version HTTP/1.1\r\nHost: 127.0.0.1\r\nConnection: close\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            assertEquals(RequestProcessor.PROTOCOLVERSION, readResponse(in, "close"));
+            assertEquals(-1, in.read());
+        }
+    }
+
+    private static String readResponse(InputStream in, String expectedConnection) throws IOException {
+        final Map<String, String> headers = new HashMap<>();
+        final StringBuilder line = new StringBuilder();
+        String statusLine = null;
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                final String header = line.toString().trim();
+                line.setLength(0);
+                if (header.isEmpty()) {
+                    break;
+                } else if (statusLine == null) {
+                    statusLine = header;
+                } else {
+                    final String[] h = header.split(": ", 2);
+                    headers.put(h[0].toLowerCase(Locale.ENGLISH), h[1]);
+                }
+            } else {
+                line.append((char) b);
+            }
+        }
+        assertEquals("HTTP/1.1 200 OK", statusLine);
+        assertEquals(expectedConnection, headers.get("connection"));
+        final byte[] content = new byte[Integer.parseInt(headers.get("content-length"))];
+        int read = 0;
+        while (read < content.length) {
+            final int n = in.read(content, read, content.length - read);
+            assertNotEquals(-1, n);
+            read += n;
+        }
+        return new String(content, StandardCharsets.UTF_8);
+    }
+
     private void testListOfCommands(String url) throws IOException, ReflectiveOperationException {
         HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
         connection.connect();
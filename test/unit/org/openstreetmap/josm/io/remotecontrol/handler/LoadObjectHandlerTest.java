@@ -3,12 +3,19 @@ package org.openstreetmap.josm.io.remotecontrol.handler;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
 import org.openstreetmap.josm.TestUtils;
+import org.openstreetmap.josm.gui.MainApplication;
 import org.openstreetmap.josm.io.remotecontrol.handler.RequestHandler.RequestHandlerBadRequestException;
 import org.openstreetmap.josm.spi.preferences.Config;
 import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
@@ -81,6 +88,51 @@ class LoadObjectHandlerTest {
         }
     }
 
+    /**
+     * Unit test for concurrent requests, merged into a single download.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    @BasicPreferences
+    void testMergedRequests() throws Exception {
+        WireMockServer wiremock = TestUtils.getWireMockServer();
+        wiremock.addStubMapping(get(urlEqualTo("/capabilities")).willReturn(aResponse().withStatusMessage("OK")
+                .withBodyFile("api/capabilities")).build());
+        wiremock.addStubMapping(get(urlEqualTo("/0.6/nodes?nodes=1,2")).willReturn(aResponse().withStatusMessage("OK")
+                .withBody(osm("<node id=\"1\" version=\"1\"/><node id=\"2\" version=\"1\"/>"))).build());
+        wiremock.start();
+        Config.getPref().put("osm-server.url", wiremock.baseUrl());
+        // block the worker, so that both requests wait for the same download
+        final CountDownLatch blocker = new CountDownLatch(1);
+        MainApplication.worker.submit(() -> {
+            blocker.await();
+            return null;
+        });
+        try {
+            final List<Thread> requests = new ArrayList<>();
+            for (String objects : new String[] {"n1", "n2,n1"}) {
+                final Thread request = new Thread(() -> assertDoesNotThrow(() -> newHandler("https://localhost?objects=" + objects).handle()));
+                request.start();
+                requests.add(request);
+            }
+            for (Thread request : requests) {
+                while (request.getState() != Thread.State.TIMED_WAITING) {
+                    Thread.sleep(10);
+                }
+            }
+            blocker.countDown();
+            for (Thread request : requests) {
+                request.join();
+            }
+            MainApplication.worker.submit(() -> { }).get();
+            wiremock.verify(1, getRequestedFor(urlEqualTo("/0.6/nodes?nodes=1,2")));
+            assertEquals(1, wiremock.findAll(getRequestedFor(urlPathMatching("/0\\.6/.*"))).size());
+        } finally {
+            blocker.countDown();
+            wiremock.stop();
+        }
+    }
+
     private static String osm(String xml) {
         return "<osm version=\"0.6\">" + xml + "</osm>";
     }
@@ -11,7 +11,10 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
@@ -164,6 +167,55 @@ class SessionReaderTest {
         assertEquals("Test point", node.get("name"));
     }
 
+    /**
+     * Tests that loading the layers in parallel gives the same layers as loading them one after another,
+     * and that the layers are passed to the consumer in order.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testReadParallel() throws Exception {
+        final String session = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" +
+                "<josm-session version=\"0.1\">\n" +
+                "    <layers active=\"1\">\n" +
+                "        <layer index=\"1\" name=\"Markers\" type=\"markers\" version=\"0.1\" depends=\"3\">\n" +
+                "            <file>markers.gpx</file>\n" +
+                "        </layer>\n" +
+                "        <layer index=\"2\" name=\"OSM\" type=\"osm-data\" version=\"0.1\" visible=\"false\">\n" +
+                "            <file>data.osm</file>\n" +
+                "        </layer>\n" +
+                "        <layer index=\"3\" name=\"GPX\" type=\"tracks\" version=\"0.1\" opacity=\"0.5\">\n" +
+                "            <file>data.gpx</file>\n" +
+                "        </layer>\n" +
+                "        <layer index=\"4\" name=\"GeoJSON\" type=\"osm-data\" version=\"0.1\">\n" +
+                "            <file>data.geojson</file>\n" +
+                "        </layer>\n" +
+                "    </layers>\n" +
+                "</josm-session>";
+        final URI uri = new File(getSessionDataDir(), "parallel.jos").toURI();
+        final SessionReader sequential = new SessionReader();
+        sequential.loadSession(new ByteArrayInputStream(session.getBytes(StandardCharsets.UTF_8)), uri, false, null);
+        final SessionReader parallel = new SessionReader();
+        final List<Layer> consumed = Collections.synchronizedList(new ArrayList<>());
+        parallel.setParallel(true);
+        parallel.setLayerConsumer(consumed::add);
+        parallel.loadSession(new ByteArrayInputStream(session.getBytes(StandardCharsets.UTF_8)), uri, false, null);
+
+        assertEquals(4, parallel.getLayers().size());
+        assertSameLayers(sequential.getLayers(), parallel.getLayers());
+        assertEquals(parallel.getLayers(), consumed);
+        assertEquals("Markers", parallel.getActive().getName());
+    }
+
+    private static void assertSameLayers(List<Layer> expected, List<Layer> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getClass(), actual.get(i).getClass());
+            assertEquals(expected.get(i).getName(), actual.get(i).getName());
+            assertEquals(expected.get(i).isVisible(), actual.get(i).isVisible());
+            assertEquals(expected.get(i).getOpacity(), actual.get(i).getOpacity());
+        }
+    }
+
     /**
      * Non-regression test for <a href="https://josm.openstreetmap.de/ticket/17701">Bug #17701</a>.
      * @throws Exception if an error occurs
@@ -1,7 +1,10 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.io.session;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 import java.awt.Color;
 import java.io.File;
@@ -14,15 +17,18 @@ import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.openstreetmap.josm.TestUtils;
 import org.openstreetmap.josm.data.coor.LatLon;
 import org.openstreetmap.josm.data.gpx.GpxData;
@@ -31,6 +37,7 @@ import org.openstreetmap.josm.data.imagery.ImageryInfo;
 import org.openstreetmap.josm.data.imagery.OffsetBookmark;
 import org.openstreetmap.josm.data.notes.Note;
 import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
 import org.openstreetmap.josm.data.projection.ProjectionRegistry;
 import org.openstreetmap.josm.gui.MainApplication;
 import org.openstreetmap.josm.gui.layer.GpxLayer;
@@ -40,10 +47,13 @@ import org.openstreetmap.josm.gui.layer.NoteLayer;
 import org.openstreetmap.josm.gui.layer.OsmDataLayer;
 import org.openstreetmap.josm.gui.layer.TMSLayer;
 import org.openstreetmap.josm.gui.layer.markerlayer.MarkerLayer;
+import org.openstreetmap.josm.io.session.SessionWriter.ExportSupport;
+import org.openstreetmap.josm.io.session.SessionWriter.SessionWriterFlags;
 import org.openstreetmap.josm.testutils.annotations.Main;
 import org.openstreetmap.josm.testutils.annotations.Projection;
 import org.openstreetmap.josm.tools.MultiMap;
 import org.openstreetmap.josm.tools.Utils;
+import org.w3c.dom.Element;
 
 /**
  * Unit tests for Session writing.
@@ -105,6 +115,10 @@ public class SessionWriterTest {
     }
 
     private Map<String, byte[]> testWrite(List<Layer> layers, final boolean zip) throws IOException {
+        return testWrite(layers, zip, false);
+    }
+
+    private Map<String, byte[]> testWrite(List<Layer> layers, final boolean zip, final boolean parallel) throws IOException {
         Map<Layer, SessionLayerExporter> exporters = new HashMap<>();
         if (zip) {
             SessionWriter.registerSessionLayerExporter(OsmDataLayer.class, OsmHeadlessJozExporter.class);
@@ -123,7 +137,14 @@ public class SessionWriterTest {
                 ((MarkerSessionExporter) s).setMetaTime(Instant.parse("2021-10-16T18:27:12.351Z"));
             }
         }
-        SessionWriter sw = new SessionWriter(layers, -1, exporters, new MultiMap<>(), zip);
+        EnumSet<SessionWriterFlags> flags = EnumSet.noneOf(SessionWriterFlags.class);
+        if (zip) {
+            flags.add(SessionWriterFlags.IS_ZIP);
+        }
+        if (parallel) {
+            flags.add(SessionWriterFlags.PARALLEL);
+        }
+        SessionWriter sw = new SessionWriter(layers, -1, exporters, new MultiMap<>(), flags.toArray(new SessionWriterFlags[0]));
         File file = new File(System.getProperty("java.io.tmpdir"), getClass().getName()+(zip ? ".joz" : ".jos"));
         try {
             sw.write(file);
@@ -305,6 +326,64 @@ public class SessionWriterTest {
 
     }
 
+    /**
+     * Tests that writing the layers in parallel gives the same archive content as writing them one after another.
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    void testWriteParallel() throws IOException {
+        OsmDataLayer osm = createOsmLayer();
+        for (int i = 0; i < 10_000; i++) {
+            osm.getDataSet().addPrimitive(new Node(new LatLon(i * 1e-4, 1)));
+        }
+        GpxLayer gpx = createGpxLayer();
+        List<Layer> layers = Arrays.asList(osm, createImageryLayer(), gpx, createMarkerLayer(gpx), createOsmLayer(), createNoteLayer());
+
+        Map<String, byte[]> sequential = testWrite(layers, true, false);
+        Map<String, byte[]> parallel = testWrite(layers, true, true);
+        assertEquals(sequential.keySet(), parallel.keySet());
+        for (Map.Entry<String, byte[]> entry : sequential.entrySet()) {
+            assertArrayEquals(entry.getValue(), parallel.get(entry.getKey()), entry.getKey());
+        }
+    }
+
+    /**
+     * Tests that only the thread-safe exporters run on worker threads when writing the layers in parallel.
+     * @param tempDir the directory of the session file
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    void testWriteParallelThreadSafe(@TempDir Path tempDir) throws IOException {
+        final Map<Layer, Thread> threads = new ConcurrentHashMap<>();
+        final OsmDataLayer osm = createOsmLayer();
+        final GpxLayer gpx = createGpxLayer();
+        final Map<Layer, SessionLayerExporter> exporters = new HashMap<>();
+        exporters.put(osm, new OsmDataSessionExporter(osm) {
+            @Override
+            public boolean isThreadSafe() {
+                return false;
+            }
+
+            @Override
+            public Element export(ExportSupport support) throws IOException {
+                threads.put(layer, Thread.currentThread());
+                return super.export(support);
+            }
+        });
+        exporters.put(gpx, new GpxTracksSessionExporter(gpx) {
+            @Override
+            public Element export(ExportSupport support) throws IOException {
+                threads.put(layer, Thread.currentThread());
+                return super.export(support);
+            }
+        });
+        new SessionWriter(Arrays.asList(osm, gpx), -1, exporters, new MultiMap<>(), SessionWriterFlags.IS_ZIP, SessionWriterFlags.PARALLEL)
+                .write(tempDir.resolve("session.joz").toFile());
+
+        assertSame(Thread.currentThread(), threads.get(osm));
+        assertNotSame(Thread.currentThread(), threads.get(gpx));
+    }
+
     /**
      * Tests to write a .joz file containing an imagery layer.
      * @throws IOException if an I/O error occurs
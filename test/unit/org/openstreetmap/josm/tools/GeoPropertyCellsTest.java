@@ -0,0 +1,149 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.tools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.geom.Area;
+import java.awt.geom.Path2D;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.BBox;
+
+/**
+ * Unit tests of {@link GeoPropertyCells} class.
+ */
+class GeoPropertyCellsTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Returns a triangle with a square hole, in lat/lon coordinates.
+     */
+    private static Area createArea() {
+        Path2D path = new Path2D.Double(Path2D.WIND_EVEN_ODD);
+        path.moveTo(-10, 40);
+        path.lineTo(30, 35);
+        path.lineTo(5, 70);
+        path.closePath();
+        path.moveTo(0, 45);
+        path.lineTo(10, 45);
+        path.lineTo(10, 50);
+        path.lineTo(0, 50);
+        path.closePath();
+        return new Area(path);
+    }
+
+    private static void assertSameValues(Area area, GeoPropertyCells<Boolean> cells) {
+        Random random = new Random(42);
+        int unknown = 0;
+        for (int i = 0; i < 100_000; i++) {
+            double lon = random.nextDouble() * 50 - 15;
+            double lat = random.nextDouble() * 40 + 35;
+            Boolean value = cells.get(new LatLon(lat, lon));
+            if (value == null) {
+                unknown++;
+            } else {
+                assertEquals(area.contains(lon, lat), value, lat + " " + lon);
+            }
+        }
+        assertTrue(unknown < 5_000, Integer.toString(unknown));
+    }
+
+    /**
+     * Test of {@link GeoPropertyCells#build(Area, int)}.
+     */
+    @Test
+    void testBuildArea() {
+        Area area = createArea();
+        GeoPropertyCells<Boolean> cells = GeoPropertyCells.build(area, 12);
+        assertSameValues(area, cells);
+        assertEquals(Boolean.FALSE, cells.get(-89, -179));
+        assertEquals(Boolean.FALSE, cells.get(90, 180));
+        assertNull(cells.get(91, 0));
+        assertNull(cells.get(Double.NaN, 0));
+    }
+
+    /**
+     * Test of {@link GeoPropertyCells#build(GeoProperty, int, java.util.List)}, and of the use of the cells by
+     * {@link GeoPropertyIndex}.
+     */
+    @Test
+    void testBuildGeoProperty() {
+        Area area = createArea();
+        GeoProperty<Boolean> geoProp = new GeoProperty<Boolean>() {
+            @Override
+            public Boolean get(LatLon ll) {
+                return area.contains(ll.lon(), ll.lat());
+            }
+
+            @Override
+            public Boolean get(BBox box) {
+                if (area.contains(box.toRectangle()))
+                    return Boolean.TRUE;
+                return area.intersects(box.toRectangle()) ? null : Boolean.FALSE;
+            }
+        };
+        GeoPropertyCells<Boolean> cells = GeoPropertyCells.build(geoProp, 10, GeoPropertyCells.BOOLEAN_VALUES);
+        assertSameValues(area, cells);
+
+        GeoPropertyIndex<Boolean> index = new GeoPropertyIndex<>(geoProp, 24);
+        index.setCells(cells);
+        Random random = new Random(1);
+        for (int i = 0; i < 10_000; i++) {
+            LatLon ll = new LatLon(random.nextDouble() * 40 + 35, random.nextDouble() * 50 - 15);
+            assertEquals(area.contains(ll.lon(), ll.lat()), index.get(ll), ll.toString());
+        }
+    }
+
+    /**
+     * Test that invalid cells are rejected.
+     */
+    @Test
+    void testInvalidCells() {
+        assertThrows(IllegalArgumentException.class, () -> new GeoPropertyCells<>(IntBuffer.allocate(0), GeoPropertyCells.BOOLEAN_VALUES));
+        // child index out of range
+        assertThrows(IllegalArgumentException.class, () -> new GeoPropertyCells<>(IntBuffer.wrap(new int[] {1, -1, -1, -1}),
+                GeoPropertyCells.BOOLEAN_VALUES));
+        // loop
+        assertThrows(IllegalArgumentException.class, () -> new GeoPropertyCells<>(IntBuffer.wrap(new int[] {1, 1, -1, -1, -2}),
+                GeoPropertyCells.BOOLEAN_VALUES));
+        // unknown value
+        assertThrows(IllegalArgumentException.class, () -> new GeoPropertyCells<>(IntBuffer.wrap(new int[] {-3}),
+                GeoPropertyCells.BOOLEAN_VALUES));
+    }
+
+    /**
+     * Test of {@link GeoPropertyCellsCache}.
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    void testCache() throws IOException {
+        Area area = createArea();
+        Path file = tempDir.resolve("test.cells");
+        assertTrue(GeoPropertyCellsCache.read(file, 1).isEmpty());
+        GeoPropertyCellsCache.write(file, 1, Collections.singletonMap("test", GeoPropertyCells.build(area, 12)));
+        Map<String, GeoPropertyCells<Boolean>> cells = GeoPropertyCellsCache.read(file, 1);
+        assertEquals(Collections.singleton("test"), cells.keySet());
+        assertSameValues(area, cells.get("test"));
+        // outdated
+        assertTrue(GeoPropertyCellsCache.read(file, 2).isEmpty());
+        // truncated
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+        assertTrue(GeoPropertyCellsCache.read(file, 1).isEmpty());
+    }
+}
@@ -0,0 +1,232 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.tools;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.data.Version;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+import org.openstreetmap.josm.testutils.annotations.BasicWiremock;
+import org.openstreetmap.josm.testutils.annotations.HTTP;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.http.trafficlistener.WiremockNetworkTrafficListener;
+
+/**
+ * Unit tests of {@link Http2Client} class, against a local HTTP/2 (cleartext) server.
+ */
+@BasicPreferences
+@BasicWiremock
+@HTTP(Http2Client.class)
+class Http2ClientTest {
+    /**
+     * HTTP mock.
+     */
+    @BasicWiremock
+    WireMockServer wireMockServer;
+
+    private URL url(String path) throws Exception {
+        return new URL(wireMockServer.url(path));
+    }
+
+    /**
+     * Test a GET request, and the response headers.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testGet() throws Exception {
+        wireMockServer.stubFor(get(urlEqualTo("/tile.png")).willReturn(aResponse()
+                .withHeader("Content-Type", "image/png")
+                .withHeader("Last-Modified", "Wed, 21 Oct 2015 07:28:00 GMT")
+                .withHeader("Expires", "0")
+                .withHeader("ETag", "\"abc\"")
+                .withBody(new byte[] {1, 2, 3})));
+
+        final HttpClient client = HttpClient.create(url("/tile.png"));
+        assertInstanceOf(Http2Client.class, client);
+        final HttpClient.Response response = client.setIfModifiedSince(1_000_000_000_000L).useCache(false).keepAlive(false).connect();
+        assertEquals(200, response.getResponseCode());
+        assertEquals("image/png", response.getContentType());
+        assertEquals("\"abc\"", response.getHeaderField("etag"));
+        assertEquals("\"abc\"", response.getHeaderFields().get("ETag").get(0));
+        assertEquals(1_445_412_480_000L, response.getLastModified());
+        assertEquals(0, response.getExpiration());
+        assertEquals("GET", response.getRequestMethod());
+        assertArrayEquals(new byte[] {1, 2, 3}, response.getContent().readAllBytes());
+
+        wireMockServer.verify(getRequestedFor(urlEqualTo("/tile.png"))
+                .withHeader("If-Modified-Since", equalTo("Sun, 9 Sep 2001 01:46:40 GMT"))
+                .withHeader("Cache-Control", equalTo("no-cache"))
+                .withHeader("User-Agent", equalTo(Version.getInstance().getFullAgentString())));
+    }
+
+    /**
+     * Test concurrent requests, which share the connection.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testConcurrentRequests() throws Exception {
+        wireMockServer.stubFor(get(urlPathMatching("/tiles/.*")).willReturn(aResponse().withBody("tile").withFixedDelay(50)));
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                final URL url = url("/tiles/" + i);
+                results.add(executor.submit(() -> HttpClient.create(url).connect().fetchContent()));
+            }
+            for (Future<String> result : results) {
+                assertEquals("tile", result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Test that HTTP/2 is negotiated, and that concurrent requests are multiplexed over a single connection.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testHttp2SharedConnection() throws Exception {
+        final AtomicInteger connections = new AtomicInteger();
+        final WireMockServer server = new WireMockServer(options().dynamicPort().networkTrafficListener(
+                new WiremockNetworkTrafficListener() {
+                    @Override
+                    public void opened(Socket socket) {
+                        connections.incrementAndGet();
+                    }
+
+                    @Override
+                    public void incoming(Socket socket, ByteBuffer bytes) {
+                        // Do nothing
+                    }
+
+                    @Override
+                    public void outgoing(Socket socket, ByteBuffer bytes) {
+                        // Do nothing
+                    }
+
+                    @Override
+                    public void closed(Socket socket) {
+                        // Do nothing
+                    }
+                }));
+        server.start();
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            server.stubFor(get(urlPathMatching("/tiles/.*")).willReturn(aResponse().withBody("tile").withFixedDelay(50)));
+            // the first request upgrades the connection to HTTP/2
+            final HttpClient.Response first = HttpClient.create(new URL(server.url("/tiles/first"))).connect();
+            assertEquals(java.net.http.HttpClient.Version.HTTP_2, ((Http2Client.Http2Response) first).getVersion());
+            assertEquals("tile", first.fetchContent());
+            final List<Future<HttpClient.Response>> results = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                final URL url = new URL(server.url("/tiles/" + i));
+                results.add(executor.submit(() -> HttpClient.create(url).connect()));
+            }
+            for (Future<HttpClient.Response> result : results) {
+                final HttpClient.Response response = result.get();
+                assertEquals(java.net.http.HttpClient.Version.HTTP_2, ((Http2Client.Http2Response) response).getVersion());
+                assertEquals("tile", response.fetchContent());
+            }
+            // the server sees the upgrade request as HTTP/1.1, and all other requests as HTTP/2 streams of the same connection
+            assertEquals(33, server.getAllServeEvents().size());
+            assertEquals(32, server.getAllServeEvents().stream().filter(event -> "HTTP/2.0".equals(event.getRequest().getProtocol())).count());
+            assertEquals(1, connections.get());
+        } finally {
+            executor.shutdown();
+            server.stop();
+        }
+    }
+
+    /**
+     * Test that redirects are followed, and that errors return the response body.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testRedirectAndError() throws Exception {
+        wireMockServer.stubFor(get(urlEqualTo("/old")).willReturn(aResponse().withStatus(302).withHeader("Location", "/new")));
+        wireMockServer.stubFor(get(urlEqualTo("/new")).willReturn(aResponse().withStatus(404).withBody("not here")));
+        final HttpClient.Response response = HttpClient.create(url("/old")).connect();
+        assertEquals(404, response.getResponseCode());
+        assertEquals("not here", response.fetchContent());
+        assertEquals(url("/new"), response.getURL());
+    }
+
+    /**
+     * Test request bodies, with a known length or streamed.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testPost() throws Exception {
+        wireMockServer.stubFor(post(urlEqualTo("/upload")).willReturn(aResponse().withBody("ok")));
+        final byte[] body = "<osm/>".getBytes(StandardCharsets.UTF_8);
+        assertEquals("ok", HttpClient.create(url("/upload"), "POST").setRequestBody(body).connect().fetchContent());
+        wireMockServer.verify(postRequestedFor(urlEqualTo("/upload"))
+                .withHeader("Content-Length", equalTo(Integer.toString(body.length)))
+                .withRequestBody(equalTo("<osm/>")));
+        wireMockServer.resetRequests();
+
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            expected.append("<node id='").append(i).append("'/>\n");
+        }
+        final byte[] streamed = expected.toString().getBytes(StandardCharsets.UTF_8);
+        final HttpClient client = HttpClient.create(url("/upload"), "POST").setRequestBody(out -> {
+            for (int i = 0; i < streamed.length; i += 1000) {
+                out.write(streamed, i, Math.min(1000, streamed.length - i));
+            }
+        });
+        assertEquals("ok", client.connect().fetchContent());
+        // the streamed body is written to a temporary file first, so its length is known
+        wireMockServer.verify(postRequestedFor(urlEqualTo("/upload"))
+                .withHeader("Content-Length", equalTo(Integer.toString(streamed.length)))
+                .withRequestBody(equalTo(expected.toString())));
+    }
+
+    /**
+     * Test that a read timeout is reported as for HTTP/1, so that callers retry.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testReadTimeout() throws Exception {
+        wireMockServer.stubFor(get(urlEqualTo("/slow")).willReturn(aResponse().withBody("slow").withFixedDelay(2000)));
+        final HttpClient client = HttpClient.create(url("/slow")).setReadTimeout(200);
+        assertThrows(SocketTimeoutException.class, client::connect);
+    }
+
+    /**
+     * Test that an unknown host is reported as for HTTP/1.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testUnknownHost() throws Exception {
+        final HttpClient client = HttpClient.create(new URL("http://unkownhost.unkownhost/"));
+        assertThrows(UnknownHostException.class, client::connect);
+    }
+}
@@ -3,6 +3,7 @@ package org.openstreetmap.josm.tools;
 
 import static java.util.Collections.singleton;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -12,6 +13,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.awaitility.Awaitility;
+import org.awaitility.Durations;
 import org.junit.jupiter.api.Test;
 import org.openstreetmap.josm.TestUtils;
 import org.openstreetmap.josm.data.coor.LatLon;
@@ -43,6 +46,45 @@ class TerritoriesTest {
         check("Paris", new LatLon(48.8567, 2.3508), "EU", "FR", "FX");
     }
 
+    /**
+     * Test of {@link Territories#isIso3166Code(String, List)} method.
+     */
+    @Test
+    void testIsIso3166CodeBatch() {
+        List<LatLon> points = Arrays.asList(new LatLon(48.8567, 2.3508), new LatLon(52.52, 13.405), new LatLon(0, 0),
+                new LatLon(43.7, 7.42), new LatLon(49.61, 6.13));
+        for (String code : Arrays.asList("FR", "DE", "EU", "MC")) {
+            boolean[] inside = Territories.isIso3166Code(code, points);
+            assertEquals(points.size(), inside.length);
+            for (int i = 0; i < points.size(); i++) {
+                assertEquals(Territories.isIso3166Code(code, points.get(i)), inside[i], code + " " + points.get(i));
+            }
+        }
+        assertTrue(Territories.isIso3166Code("FR", points)[0]);
+        assertTrue(Territories.isIso3166Code("DE", points)[1]);
+        assertFalse(Territories.isIso3166Code("EU", points)[2]);
+    }
+
+    /**
+     * Test that the precomputed cells of the territories are computed, saved and reused.
+     */
+    @Test
+    void testPrecomputedCells() {
+        Territories.initializeInternalData();
+        Awaitility.await().atMost(Durations.ONE_MINUTE).until(() -> Territories.getGeoPropertyIndex("FR").getCells() != null);
+        LatLon paris = new LatLon(48.8567, 2.3508);
+        assertEquals(Boolean.TRUE, Territories.getGeoPropertyIndex("FR").getCells().get(paris));
+        assertEquals(Boolean.FALSE, Territories.getGeoPropertyIndex("DE").getCells().get(paris));
+        // the cells are saved in the background after being used
+        Awaitility.await().atMost(Durations.ONE_MINUTE).until(() -> {
+            Territories.initializeInternalData();
+            return Territories.getGeoPropertyIndex("FR").getCells() != null;
+        });
+        assertTrue(Territories.isIso3166Code("FR", paris));
+        assertTrue(RightAndLefthandTraffic.isRightHandTraffic(paris));
+        assertFalse(RightAndLefthandTraffic.isRightHandTraffic(new LatLon(51.5, -0.12)));
+    }
+
     private static void check(String name, LatLon ll, String... expectedCodes) {
         for (String e : expectedCodes) {
             assertTrue(Territories.isIso3166Code(e, ll), name + " " + e);